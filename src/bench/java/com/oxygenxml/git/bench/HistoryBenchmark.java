@@ -0,0 +1,155 @@
+package com.oxygenxml.git.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oxygenxml.git.service.PagedCommitList;
+import com.oxygenxml.git.service.RevCommitUtil;
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+import com.oxygenxml.git.view.history.CommitsAheadAndBehind;
+import com.oxygenxml.git.view.history.HistoryFilter;
+
+/**
+ * Benchmarks for the history of the current branch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+  /**
+   * Text that matches some of the commits, as typed in the history filter.
+   */
+  private static final String FILTER = "file1";
+  /**
+   * The path of a file that is not renamed.
+   */
+  private String filePath;
+  /**
+   * The ID of the commit before HEAD.
+   */
+  private String previousCommitId;
+  /**
+   * Filters all the commits, with the index already built.
+   */
+  private HistoryFilter historyFilter;
+
+  /**
+   * Computes the data used by the benchmarks.
+   *
+   * @param state The repository.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp(RepositoryState state) throws Exception {
+    previousCommitId = state.repository.resolve("HEAD~1").name();
+    filePath = state.generator.getPath(state.fileCount - 1);
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(null, revisions, state.repository);
+    historyFilter = new HistoryFilter(revisions);
+    historyFilter.filter(FILTER);
+  }
+
+  /**
+   * The history of the current branch.
+   *
+   * @param state The repository.
+   *
+   * @return The commits.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public List<CommitCharacteristics> collectRevisions(RepositoryState state) throws Exception {
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(null, revisions, state.repository);
+    return revisions;
+  }
+
+  /**
+   * The first page of the history of the current branch, as presented when the history view opens.
+   *
+   * @param state The repository.
+   *
+   * @return The first decoded commit.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public CommitCharacteristics firstHistoryPage(RepositoryState state) throws Exception {
+    try (PagedCommitList revisions = new PagedCommitList(state.repository, null, null)) {
+      return revisions.get(0);
+    }
+  }
+
+  /**
+   * The history of a file.
+   *
+   * @param state The repository.
+   *
+   * @return The commits.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public List<CommitCharacteristics> collectFileRevisions(RepositoryState state) throws Exception {
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(filePath, revisions, state.repository);
+    return revisions;
+  }
+
+  /**
+   * The files changed by a commit.
+   *
+   * @param state The repository.
+   *
+   * @return The changed files.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public List<FileStatus> getChangedFiles(RepositoryState state) throws Exception {
+    return RevCommitUtil.getChangedFiles(previousCommitId);
+  }
+
+  /**
+   * The commits ahead and behind the remote-tracking branch.
+   *
+   * @param state The repository.
+   *
+   * @return The commits.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public CommitsAheadAndBehind getCommitsAheadAndBehind(RepositoryState state) throws Exception {
+    return RevCommitUtil.getCommitsAheadAndBehind(state.repository, state.repository.getFullBranch());
+  }
+
+  /**
+   * Filters the history as the filter text is typed, one character at a time.
+   *
+   * @return The number of commits that matched the filter.
+   */
+  @Benchmark
+  public int filterHistory() {
+    int count = 0;
+    for (int i = 1; i <= FILTER.length(); i++) {
+      count = historyFilter.filter(FILTER.substring(0, i)).size();
+    }
+    // The text is cleared.
+    historyFilter.filter("");
+    return count;
+  }
+}
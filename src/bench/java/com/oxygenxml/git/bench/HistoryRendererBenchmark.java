@@ -0,0 +1,147 @@
+package com.oxygenxml.git.bench;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.CellRendererPane;
+import javax.swing.JTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oxygenxml.git.service.RefDecorationIndex;
+import com.oxygenxml.git.service.RevCommitUtil;
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+import com.oxygenxml.git.view.history.CommitMessageTableRenderer;
+import com.oxygenxml.git.view.history.HistoryCommitTableModel;
+
+/**
+ * Benchmarks for painting the commit message column of the history table. The times are per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class HistoryRendererBenchmark {
+  /**
+   * The number of rows painted by each invocation, about as many as the history table shows.
+   */
+  private static final int ROWS = 40;
+  /**
+   * The width of the commit message column.
+   */
+  private static final int WIDTH = 600;
+  /**
+   * The history table.
+   */
+  private JTable table;
+  /**
+   * The renderer of the commit message column.
+   */
+  private CommitMessageTableRenderer renderer;
+  /**
+   * Paints the renderer, as the table does.
+   */
+  private final CellRendererPane rendererPane = new CellRendererPane();
+  /**
+   * Where the rows are painted.
+   */
+  private BufferedImage image;
+  /**
+   * The graphics of the image.
+   */
+  private Graphics2D graphics;
+  /**
+   * The height of a row.
+   */
+  private int rowHeight;
+  /**
+   * The first row painted by the next scroll.
+   */
+  private int firstRow;
+
+  /**
+   * Creates the history table and the renderer.
+   *
+   * @param state The repository.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp(RepositoryState state) throws Exception {
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(null, revisions, state.repository);
+    table = new JTable(new HistoryCommitTableModel(revisions));
+    table.add(rendererPane);
+    renderer = new CommitMessageTableRenderer(
+        state.repository,
+        RevCommitUtil.getCommitsAheadAndBehind(state.repository, state.repository.getFullBranch()),
+        state.repository.getBranch(),
+        RefDecorationIndex.getInstance().getDecorations(state.repository));
+
+    rowHeight = renderer.getTableCellRendererComponent(
+        table, revisions.get(0), false, false, 0, HistoryCommitTableModel.COMMIT_MESSAGE).getPreferredSize().height;
+    image = new BufferedImage(WIDTH, rowHeight * ROWS, BufferedImage.TYPE_INT_ARGB);
+    graphics = image.createGraphics();
+  }
+
+  /**
+   * Releases the graphics.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    graphics.dispose();
+  }
+
+  /**
+   * Paints the same rows again, as when the selection changes or the table is repainted.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void repaintRows() {
+    paintRows(0);
+  }
+
+  /**
+   * Paints the next rows each time, as when scrolling through the whole history.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void scrollRows() {
+    if (firstRow + ROWS > table.getRowCount()) {
+      firstRow = 0;
+    }
+    paintRows(firstRow);
+    firstRow += ROWS;
+  }
+
+  /**
+   * Paints the commit message cells of some rows.
+   *
+   * @param start The first row.
+   */
+  private void paintRows(int start) {
+    for (int i = 0; i < ROWS; i++) {
+      int row = start + i;
+      Component component = renderer.getTableCellRendererComponent(
+          table,
+          table.getValueAt(row, HistoryCommitTableModel.COMMIT_MESSAGE),
+          false,
+          false,
+          row,
+          HistoryCommitTableModel.COMMIT_MESSAGE);
+      rendererPane.paintComponent(graphics, component, table, 0, i * rowHeight, WIDTH, rowHeight, true);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.oxygenxml.git.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oxygenxml.git.options.OptionsManager;
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitOperationScheduler;
+import com.oxygenxml.git.service.GitStatus;
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.utils.script.LargeRepoGenerator;
+
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
+
+/**
+ * Compares the serial status of the entire working copy with the parallel one, on a working copy
+ * large enough to be above the parallel status threshold. On a single processor both are serial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ParallelStatusBenchmark {
+  /**
+   * The number of files in the repository. Must be at least the parallel status threshold.
+   */
+  @Param({"50000"})
+  public int fileCount;
+  /**
+   * <code>true</code> if the status was computed in parallel before the benchmark.
+   */
+  private boolean parallelStatusEnabled;
+
+  /**
+   * Synthesizes the repository, if needed, loads it and checks that both strategies give
+   * the same status.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    PluginWorkspaceProvider.setPluginWorkspace(Mockito.mock(StandalonePluginWorkspace.class));
+
+    OptionsManager options = OptionsManager.getInstance();
+    if (fileCount < options.getParallelStatusThreshold()) {
+      throw new IllegalStateException("The status of " + fileCount + " files is not computed in parallel. "
+          + "The threshold is " + options.getParallelStatusThreshold() + " files.");
+    }
+    parallelStatusEnabled = options.isParallelStatusEnabled();
+
+    LargeRepoGenerator generator = new LargeRepoGenerator(44)
+        .files(fileCount, 20)
+        .commits(10, 0.001)
+        .workingCopyChanges(fileCount / 100, 10);
+    File dir = generator.getOrCreate(new File("target/benchmark")).getWorkingCopy();
+    GitAccess.getInstance().setRepositorySynchronously(dir.getAbsolutePath());
+
+    String serialStatus = dump(getSerialStatus());
+    String parallelStatus = dump(getParallelStatus());
+    if (!serialStatus.equals(parallelStatus)) {
+      throw new IllegalStateException("Different statuses.\nSerial: " + serialStatus + "\nParallel: " + parallelStatus);
+    }
+  }
+
+  /**
+   * Closes the repository.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    OptionsManager.getInstance().setParallelStatusEnabled(parallelStatusEnabled);
+    GitAccess.getInstance().closeRepo();
+    GitOperationScheduler.getInstance().shutdown();
+  }
+
+  /**
+   * The status of the entire working copy, computed by a single status command.
+   *
+   * @return The status.
+   */
+  @Benchmark
+  public GitStatus getSerialStatus() {
+    OptionsManager.getInstance().setParallelStatusEnabled(false);
+    return GitAccess.getInstance().getStatus();
+  }
+
+  /**
+   * The status of the entire working copy, computed in parallel.
+   *
+   * @return The status.
+   */
+  @Benchmark
+  public GitStatus getParallelStatus() {
+    OptionsManager.getInstance().setParallelStatusEnabled(true);
+    return GitAccess.getInstance().getStatus();
+  }
+
+  /**
+   * Dumps a status, in a stable order.
+   *
+   * @param status The status.
+   *
+   * @return The unstaged and the staged files, sorted.
+   */
+  private static String dump(GitStatus status) {
+    return "Unstaged: " + sort(status.getUnstagedFiles()) + "\nStaged: " + sort(status.getStagedFiles());
+  }
+
+  /**
+   * @param files Files.
+   *
+   * @return The descriptions of the files, sorted.
+   */
+  private static List<String> sort(List<FileStatus> files) {
+    List<String> descriptions = new ArrayList<>(files.size());
+    for (FileStatus file : files) {
+      descriptions.add(file.toString());
+    }
+    Collections.sort(descriptions);
+    return descriptions;
+  }
+}
@@ -0,0 +1,88 @@
+package com.oxygenxml.git.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.RefDecorationIndex;
+import com.oxygenxml.git.service.RefDecorationIndex.RefDecorations;
+
+/**
+ * Benchmarks for the maps of tags and branches used to decorate the history.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RefsBenchmark {
+
+  /**
+   * The tags, by commit.
+   *
+   * @param state The repository.
+   *
+   * @return The tags.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public Map<String, List<String>> getTagMap(RepositoryState state) throws Exception {
+    return GitAccess.getInstance().getTagMap(state.repository);
+  }
+
+  /**
+   * The local branches, by commit.
+   *
+   * @param state The repository.
+   *
+   * @return The branches.
+   */
+  @Benchmark
+  public Map<String, List<String>> getLocalBranchMap(RepositoryState state) {
+    return GitAccess.getInstance().getBranchMap(state.repository, ConfigConstants.CONFIG_KEY_LOCAL);
+  }
+
+  /**
+   * The remote-tracking branches, by commit.
+   *
+   * @param state The repository.
+   *
+   * @return The branches.
+   */
+  @Benchmark
+  public Map<String, List<String>> getRemoteBranchMap(RepositoryState state) {
+    return GitAccess.getInstance().getBranchMap(state.repository, ConfigConstants.CONFIG_KEY_REMOTE);
+  }
+
+  /**
+   * Reads all the refs again, as after an operation that might change them. The tags that didn't
+   * move are not peeled again.
+   *
+   * @param state The repository.
+   *
+   * @return The branches and the tags, by commit.
+   */
+  @Benchmark
+  public RefDecorations updateRefDecorations(RepositoryState state) {
+    RefDecorationIndex.getInstance().getDecorations(state.repository);
+    RefDecorationIndex.getInstance().invalidate();
+    return RefDecorationIndex.getInstance().getDecorations(state.repository);
+  }
+
+  /**
+   * The branches and the tags, by commit, when the refs didn't change.
+   *
+   * @param state The repository.
+   *
+   * @return The branches and the tags, by commit.
+   */
+  @Benchmark
+  public RefDecorations getRefDecorations(RepositoryState state) {
+    return RefDecorationIndex.getInstance().getDecorations(state.repository);
+  }
+}
@@ -0,0 +1,149 @@
+package com.oxygenxml.git.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oxygenxml.git.service.RevCommitUtil;
+import com.oxygenxml.git.utils.script.LargeRepoGenerator;
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+
+/**
+ * Benchmarks for following the resources across renames, on a repository in which some files are
+ * renamed many times.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RenameBenchmark {
+  /**
+   * The number of files in the repository.
+   */
+  @Param({"10000"})
+  public int fileCount;
+  /**
+   * The number of commits in the repository.
+   */
+  @Param({"2000"})
+  public int commitCount;
+  /**
+   * How many times each file from the rename chains is renamed.
+   */
+  @Param({"50"})
+  public int chainLength;
+  /**
+   * Git access to the repository.
+   */
+  private Git git;
+  /**
+   * The path of the renamed file in the HEAD revision.
+   */
+  private String headPath;
+  /**
+   * The path of the renamed file in the oldest revision.
+   */
+  private String initialPath;
+  /**
+   * The oldest revision.
+   */
+  private RevCommit initialCommit;
+  /**
+   * The HEAD revision.
+   */
+  private RevCommit headCommit;
+
+  /**
+   * Synthesizes the repository, if needed, and opens it.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    LargeRepoGenerator generator = new LargeRepoGenerator(43)
+        .files(fileCount, 20)
+        .commits(commitCount, 0.0005)
+        .renameChains(3, chainLength);
+    git = Git.open(generator.getOrCreate(new File("target/benchmark")).getWorkingCopy());
+
+    headPath = "renamed/chain0/step" + chainLength + "/file0.xml";
+    initialPath = generator.getPath(0);
+    headCommit = git.getRepository().parseCommit(git.getRepository().resolve("HEAD"));
+    for (RevCommit commit : git.log().call()) {
+      initialCommit = commit;
+    }
+  }
+
+  /**
+   * Closes the repository.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    git.close();
+  }
+
+  /**
+   * The history of a file renamed many times.
+   *
+   * @return The commits.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public List<CommitCharacteristics> collectRenamedFileRevisions() throws Exception {
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(headPath, revisions, git.getRepository());
+    return revisions;
+  }
+
+  /**
+   * The path in the oldest revision of a file renamed many times, as computed when comparing revisions
+   * from the history.
+   *
+   * @return The old path.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public String getOldPath() throws Exception {
+    return RevCommitUtil.getOldPathStartingFromHead(git, initialCommit.name(), headPath);
+  }
+
+  /**
+   * The path in the HEAD revision of a file renamed many times.
+   *
+   * @return The new path.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public String getNewPath() throws Exception {
+    return RevCommitUtil.getNewPath(git, initialCommit, headCommit, initialPath);
+  }
+
+  /**
+   * The path in the working copy of a file renamed many times, as computed when comparing an old
+   * revision with the working copy.
+   *
+   * @return The path in the working copy.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public String getNewPathInWorkingCopy() throws Exception {
+    return RevCommitUtil.getNewPathInWorkingCopy(git, initialPath, initialCommit.name());
+  }
+}
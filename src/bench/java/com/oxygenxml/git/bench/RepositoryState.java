@@ -0,0 +1,76 @@
+package com.oxygenxml.git.bench;
+
+import java.io.File;
+
+import org.eclipse.jgit.lib.Repository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitOperationScheduler;
+import com.oxygenxml.git.utils.script.LargeRepoGenerator;
+
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
+
+/**
+ * A synthesized repository, loaded as the current working copy. The sizes can be changed with the
+ * JMH parameters, for example <code>-Dbenchmark.args="-p fileCount=50000 -p commitCount=10000"</code>.
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+  /**
+   * The number of files in the repository.
+   */
+  @Param({"10000"})
+  public int fileCount;
+  /**
+   * The number of commits in the repository.
+   */
+  @Param({"2000"})
+  public int commitCount;
+  /**
+   * Describes the repository.
+   */
+  public LargeRepoGenerator generator;
+  /**
+   * The loaded repository.
+   */
+  public Repository repository;
+
+  /**
+   * Synthesizes the repository, if needed, and loads it.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    PluginWorkspaceProvider.setPluginWorkspace(Mockito.mock(StandalonePluginWorkspace.class));
+
+    generator = new LargeRepoGenerator(42)
+        .files(fileCount, 20)
+        .commits(commitCount, 0.0005)
+        .refs(10, Math.max(1, commitCount / 100))
+        .renameChains(5, 4)
+        .merges(50)
+        .remote(20, 5)
+        .workingCopyChanges(fileCount / 100, 10);
+    File dir = generator.getOrCreate(new File("target/benchmark")).getWorkingCopy();
+    GitAccess.getInstance().setRepositorySynchronously(dir.getAbsolutePath());
+    repository = GitAccess.getInstance().getRepository();
+  }
+
+  /**
+   * Closes the repository.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    GitAccess.getInstance().closeRepo();
+    GitOperationScheduler.getInstance().shutdown();
+  }
+}
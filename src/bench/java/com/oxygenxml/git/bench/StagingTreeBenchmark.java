@@ -0,0 +1,66 @@
+package com.oxygenxml.git.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.tree.DefaultTreeModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oxygenxml.git.utils.TreeUtil;
+import com.oxygenxml.git.utils.script.LargeRepoGenerator;
+import com.oxygenxml.git.view.GitTreeNode;
+
+/**
+ * Benchmarks for building the tree of the staging view.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class StagingTreeBenchmark {
+  /**
+   * The number of changed files presented in the tree.
+   */
+  @Param({"1000", "10000"})
+  public int fileCount;
+  /**
+   * The paths of the changed files.
+   */
+  private List<String> paths;
+
+  /**
+   * Computes the paths.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    LargeRepoGenerator generator = new LargeRepoGenerator(42).files(fileCount, 20);
+    paths = new ArrayList<>(fileCount);
+    for (int i = 0; i < fileCount; i++) {
+      paths.add(generator.getPath(i));
+    }
+  }
+
+  /**
+   * Builds and sorts the tree.
+   *
+   * @return The tree model.
+   */
+  @Benchmark
+  public DefaultTreeModel buildAndSortTree() {
+    DefaultTreeModel model = new DefaultTreeModel(new GitTreeNode("root"));
+    for (String path : paths) {
+      TreeUtil.buildTreeFromString(model, path);
+    }
+    TreeUtil.sortGitTree(model);
+    return model;
+  }
+}
@@ -0,0 +1,46 @@
+package com.oxygenxml.git.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitStatus;
+import com.oxygenxml.git.service.entities.FileStatus;
+
+/**
+ * Benchmarks for computing the status of the working copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StatusBenchmark {
+
+  /**
+   * The status of the entire working copy.
+   *
+   * @param state The repository.
+   *
+   * @return The status.
+   */
+  @Benchmark
+  public GitStatus getStatus(RepositoryState state) {
+    return GitAccess.getInstance().getStatus();
+  }
+
+  /**
+   * The unstaged files of a single top-level folder.
+   *
+   * @param state The repository.
+   *
+   * @return The unstaged files.
+   */
+  @Benchmark
+  public List<FileStatus> getUnstagedFilesForFolder(RepositoryState state) {
+    return GitAccess.getInstance().getUnstagedFiles(Arrays.asList("folder0"));
+  }
+}
@@ -56,6 +56,10 @@ public class OxygenGitOptionPagePluginExtension extends OptionPagePluginExtensio
    * CheckBox for the option to notify the user about new commits in the remote.
    */
   private JCheckBox notifyAboutRemoteCommitsCheckBox;
+  /**
+   * CheckBox for the option to compute the status of very large working copies in parallel.
+   */
+  private JCheckBox parallelStatusCheckBox;
   /**
    * The OptionsManager instance
    */
@@ -103,6 +107,16 @@ public class OxygenGitOptionPagePluginExtension extends OptionPagePluginExtensio
     notifyAboutRemoteCommitsCheckBox = new JCheckBox(translator.getTranslation(Tags.NOTIFY_ON_NEW_COMMITS));
     mainPanel.add(notifyAboutRemoteCommitsCheckBox, c);
     
+    // Option for computing the status of very large working copies in parallel
+    c.gridx = 0;
+    c.gridy ++;
+    c.weightx = 0;
+    c.weighty = 0;
+    c.anchor = GridBagConstraints.LINE_START;
+    c.insets = new Insets(NESTED_OPTION_INSET, 0, 0, 0);
+    parallelStatusCheckBox = new JCheckBox(translator.getTranslation(Tags.PARALLEL_STATUS_FOR_LARGE_WORKING_COPIES));
+    mainPanel.add(parallelStatusCheckBox, c);
+    
     // Empty panel to take up the rest of the space
     c.gridx = 0;
     c.gridy ++;
@@ -124,6 +138,7 @@ public class OxygenGitOptionPagePluginExtension extends OptionPagePluginExtensio
   private void setOptionsInitialStates() {
     boolean notifyOnNewRemoteCommits = optionsManager.getNotifyAboutNewRemoteCommits();
     notifyAboutRemoteCommitsCheckBox.setSelected(notifyOnNewRemoteCommits);
+    parallelStatusCheckBox.setSelected(optionsManager.isParallelStatusEnabled());
     
     WhenRepoDetectedInProject whatToDo = optionsManager.getWhenRepoDetectedInProject();
     switch (whatToDo) {
@@ -175,6 +190,7 @@ public class OxygenGitOptionPagePluginExtension extends OptionPagePluginExtensio
   @Override
   public void apply(PluginWorkspace pluginWorkspace) {
     optionsManager.setNotifyAboutNewRemoteCommits(notifyAboutRemoteCommitsCheckBox.isSelected());
+    optionsManager.setParallelStatusEnabled(parallelStatusCheckBox.isSelected());
     
     WhenRepoDetectedInProject whatToDo = WhenRepoDetectedInProject.ASK_TO_SWITCH_TO_WC;
     if (autoSwitchToWCRadio.isSelected()) {
@@ -193,6 +209,7 @@ public class OxygenGitOptionPagePluginExtension extends OptionPagePluginExtensio
   @Override
   public void restoreDefaults() {
     notifyAboutRemoteCommitsCheckBox.setSelected(false);
+    parallelStatusCheckBox.setSelected(false);
     askToSwitchToWCRadio.setSelected(true);
   }
 
@@ -23,10 +23,12 @@ import com.oxygenxml.git.auth.AuthenticationInterceptor;
 import com.oxygenxml.git.auth.ResolvingProxyDataFactory;
 import com.oxygenxml.git.constants.Icons;
 import com.oxygenxml.git.editorvars.GitEditorVariablesResolver;
+import com.oxygenxml.git.metrics.OperationMetrics;
 import com.oxygenxml.git.options.OptionsManager;
 import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitEventAdapter;
 import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.service.RemoteSyncService;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.FileHelper;
@@ -44,6 +46,7 @@ import com.oxygenxml.git.view.event.GitOperation;
 import com.oxygenxml.git.view.history.HistoryController;
 import com.oxygenxml.git.view.history.HistoryPanel;
 import com.oxygenxml.git.watcher.RepositoryChangeWatcher;
+import com.oxygenxml.git.watcher.WorkingCopyWatcher;
 
 import ro.sync.ecss.extensions.api.AuthorAccess;
 import ro.sync.exml.plugin.workspace.WorkspaceAccessPluginExtension;
@@ -108,7 +111,12 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
       super.windowActivated(e);
       boolean isStagingPanelShowing = stagingPanel != null && stagingPanel.isShowing();
       if (isStagingPanelShowing && refresh) {
-        gitRefreshSupport.call();
+        if (workingCopyWatcher != null && workingCopyWatcher.isWatching()) {
+          // The changes made in the working copy were already reported.
+          gitRefreshSupport.callIncremental();
+        } else {
+          gitRefreshSupport.call();
+        }
       }
       refresh = false;
     }
@@ -130,6 +138,11 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
 	 */
   private StagingPanel stagingPanel;
   
+  /**
+   * Watches the working copy for changes made outside the application.
+   */
+  private WorkingCopyWatcher workingCopyWatcher;
+  
   /**
    * Plugin workspace access.
    */
@@ -257,6 +270,9 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
 		
 		RepositoryChangeWatcher watcher = RepositoryChangeWatcher.createWatcher(pluginWorkspaceAccess, gitController);
 		gitRefreshSupport = new PanelRefresh(watcher);
+		workingCopyWatcher = WorkingCopyWatcher.createWatcher(gitController, gitRefreshSupport);
+		RemoteSyncService.getInstance().start();
+		OperationMetrics.getInstance().registerMBean();
 	  
 		UtilAccess utilAccess = PluginWorkspaceProvider.getPluginWorkspace().getUtilAccess();
     utilAccess.addCustomEditorVariablesResolver(new GitEditorVariablesResolver(gitController));
@@ -360,11 +376,20 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
 	public boolean applicationClosing() {
 		OptionsManager.getInstance().saveOptions();
 		
+		workingCopyWatcher.stop();
+		RemoteSyncService.getInstance().stop();
+		
 		// EXM-42867: wait for the refresh to execute
 		gitRefreshSupport.shutdown();
 		
 		GitAccess.getInstance().closeRepo();
 		
+		OperationMetrics operationMetrics = OperationMetrics.getInstance();
+		if (Boolean.getBoolean(GitAddonSystemProperties.LOG_OPERATION_METRICS_ON_EXIT)) {
+		  logger.info("Git operation metrics:\n" + operationMetrics.getReport());
+		}
+		operationMetrics.unregisterMBean();
+		
 		// Close application.
 		return true;
 	}
@@ -403,4 +428,4 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
     return pluginWorkspaceAccess.isViewShowing(com.oxygenxml.git.OxygenGitPluginExtension.GIT_HISTORY_VIEW);
   }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
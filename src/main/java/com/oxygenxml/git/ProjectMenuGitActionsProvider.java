@@ -20,6 +20,7 @@ import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitControllerBase;
 import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.service.GitStatus;
+import com.oxygenxml.git.service.StatusCache;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.GitChangeType;
 import com.oxygenxml.git.translator.Tags;
@@ -280,7 +281,7 @@ public class ProjectMenuGitActionsProvider {
    */
   private List<FileStatus> getStagedAndUnstagedFiles() {
     List<FileStatus> gitFiles = new ArrayList<>();
-    GitStatus status = GitAccess.getInstance().getStatus();
+    GitStatus status = StatusCache.getInstance().getSnapshot().getStatus();
     gitFiles.addAll(status.getUnstagedFiles());
     gitFiles.addAll(status.getStagedFiles());
     return gitFiles;
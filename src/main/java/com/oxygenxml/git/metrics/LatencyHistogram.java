@@ -0,0 +1,302 @@
+package com.oxygenxml.git.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A rolling histogram of durations, updated without locks.
+ * <br><br>
+ * The durations are counted in logarithmic buckets with 4 sub-buckets for each power of two
+ * of microseconds, so a percentile is accurate within 25%. The samples are kept in two windows:
+ * the current one and the previous one. When the current window gets older than the window
+ * length, it becomes the previous one and the older samples are dropped.
+ */
+public final class LatencyHistogram {
+  /**
+   * The default length of a window.
+   */
+  static final long DEFAULT_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(5);
+  /**
+   * The number of sub-buckets for each power of two.
+   */
+  private static final int SUB_BUCKETS = 4;
+  /**
+   * The number of buckets. Enough for durations of more than a day.
+   */
+  static final int BUCKETS = SUB_BUCKETS * 40;
+  /**
+   * The length of a window, in nanoseconds.
+   */
+  private final long windowNanos;
+  /**
+   * The current window.
+   */
+  private final AtomicReference<Window> current;
+  /**
+   * The previous window.
+   */
+  private volatile Window previous;
+
+  /**
+   * Constructor.
+   */
+  public LatencyHistogram() {
+    this(DEFAULT_WINDOW_NANOS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param windowNanos The length of a window, in nanoseconds.
+   */
+  LatencyHistogram(long windowNanos) {
+    this.windowNanos = windowNanos;
+    Window window = new Window(System.nanoTime());
+    current = new AtomicReference<>(window);
+    previous = new Window(window.start);
+  }
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos The duration, in nanoseconds. Negative values are recorded as 0.
+   */
+  public void record(long nanos) {
+    long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    getCurrentWindow(System.nanoTime()).record(micros);
+  }
+
+  /**
+   * Drops all the recorded durations.
+   */
+  public void reset() {
+    Window window = new Window(System.nanoTime());
+    previous = new Window(window.start);
+    current.set(window);
+  }
+
+  /**
+   * @return The statistics of the durations recorded in the last one or two windows.
+   */
+  public Summary getSummary() {
+    Window window = getCurrentWindow(System.nanoTime());
+    Window older = previous;
+
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = window.counts.get(i) + older.counts.get(i);
+      count += counts[i];
+    }
+    long max = Math.max(window.max.get(), older.max.get());
+
+    return new Summary(
+        count,
+        percentile(counts, count, 0.5, max),
+        percentile(counts, count, 0.95, max),
+        max);
+  }
+
+  /**
+   * Gets the current window, rolling it if it is too old.
+   *
+   * @param now The current time, in nanoseconds.
+   *
+   * @return The current window.
+   */
+  private Window getCurrentWindow(long now) {
+    Window window = current.get();
+    if (now - window.start >= windowNanos) {
+      Window newWindow = new Window(now);
+      if (current.compareAndSet(window, newWindow)) {
+        // Samples recorded in the old window a bit later than this are lost from the summary
+        // only if the window rolls again before they are read. Acceptable for statistics.
+        previous = now - window.start >= 2 * windowNanos ? new Window(now) : window;
+        window = newWindow;
+      } else {
+        window = current.get();
+      }
+    }
+    return window;
+  }
+
+  /**
+   * Computes a percentile.
+   *
+   * @param counts     The counts in each bucket.
+   * @param count      The total count.
+   * @param percentile The percentile, between 0 and 1.
+   * @param max        The maximum recorded value, in microseconds.
+   *
+   * @return The upper bound of the bucket that contains the percentile, in microseconds.
+   */
+  private static long percentile(long[] counts, long count, double percentile, long max) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(percentile * count);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Gets the bucket of a value.
+   *
+   * @param micros The value, in microseconds.
+   *
+   * @return The index of the bucket.
+   */
+  static int bucket(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    int subBucket = (int) (micros >> (exponent - 2)) & (SUB_BUCKETS - 1);
+    return Math.min(BUCKETS - 1, SUB_BUCKETS * (exponent - 1) + subBucket);
+  }
+
+  /**
+   * Gets the largest value counted in a bucket.
+   *
+   * @param bucket The index of the bucket.
+   *
+   * @return The largest value, in microseconds.
+   */
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + 1;
+    int subBucket = bucket % SUB_BUCKETS;
+    return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - 2)) - 1;
+  }
+
+  /**
+   * The samples recorded during a time interval.
+   */
+  private static final class Window {
+    /**
+     * When the window started, in nanoseconds.
+     */
+    private final long start;
+    /**
+     * The counts in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /**
+     * The maximum value, in microseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param start When the window started, in nanoseconds.
+     */
+    Window(long start) {
+      this.start = start;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param micros The value, in microseconds.
+     */
+    void record(long micros) {
+      counts.incrementAndGet(bucket(micros));
+      max.accumulateAndGet(micros, Math::max);
+    }
+  }
+
+  /**
+   * The statistics of a histogram at a given moment.
+   */
+  public static final class Summary {
+    /**
+     * The number of samples.
+     */
+    private final long count;
+    /**
+     * The median, in microseconds.
+     */
+    private final long p50;
+    /**
+     * The 95th percentile, in microseconds.
+     */
+    private final long p95;
+    /**
+     * The maximum, in microseconds.
+     */
+    private final long max;
+
+    /**
+     * Constructor.
+     *
+     * @param count The number of samples.
+     * @param p50   The median, in microseconds.
+     * @param p95   The 95th percentile, in microseconds.
+     * @param max   The maximum, in microseconds.
+     */
+    Summary(long count, long p50, long p95, long max) {
+      this.count = count;
+      this.p50 = p50;
+      this.p95 = p95;
+      this.max = max;
+    }
+
+    /**
+     * @return The number of samples.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return The median, in microseconds.
+     */
+    public long getP50() {
+      return p50;
+    }
+
+    /**
+     * @return The 95th percentile, in microseconds.
+     */
+    public long getP95() {
+      return p95;
+    }
+
+    /**
+     * @return The maximum, in microseconds.
+     */
+    public long getMax() {
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return "count=" + count
+          + ", p50=" + formatMillis(p50)
+          + ", p95=" + formatMillis(p95)
+          + ", max=" + formatMillis(max);
+    }
+
+    /**
+     * Formats a duration in milliseconds.
+     *
+     * @param micros The duration, in microseconds.
+     *
+     * @return The formatted duration.
+     */
+    public static String formatMillis(long micros) {
+      return String.format("%.1f ms", micros / 1000.0);
+    }
+  }
+}
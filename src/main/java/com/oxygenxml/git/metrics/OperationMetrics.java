@@ -0,0 +1,372 @@
+package com.oxygenxml.git.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.git.metrics.LatencyHistogram.Summary;
+import com.oxygenxml.git.view.event.GitOperation;
+
+/**
+ * Latency metrics of the Git operations, of the internal queries and of the scheduler lanes.
+ * For each of them we record how long it waited in a queue and how long it executed.
+ * <br><br>
+ * Recording is lock-free, so it can be done from any thread.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(OperationMetrics.class);
+  /**
+   * The name under which the metrics are registered in JMX.
+   */
+  public static final String OBJECT_NAME = "com.oxygenxml.git:type=OperationMetrics";
+  /**
+   * Prefix for the Git operations, which are timed from the moment they are announced until they end.
+   */
+  public static final String OPERATION_PREFIX = "operation/";
+  /**
+   * Prefix for the internal queries.
+   */
+  public static final String QUERY_PREFIX = "query/";
+  /**
+   * Prefix for the tasks executed by the lanes of the scheduler.
+   */
+  public static final String LANE_PREFIX = "lane/";
+  /**
+   * Computing the status of the working copy.
+   */
+  public static final String QUERY_STATUS = QUERY_PREFIX + "status";
+  /**
+   * Fetching from the remote.
+   */
+  public static final String QUERY_FETCH = QUERY_PREFIX + "fetch";
+  /**
+   * Walking the history.
+   */
+  public static final String QUERY_LOG = QUERY_PREFIX + "log";
+  /**
+   * Computing the blame of a file.
+   */
+  public static final String QUERY_BLAME = QUERY_PREFIX + "blame";
+  /**
+   * Comparing two trees.
+   */
+  public static final String QUERY_TREE_DIFF = QUERY_PREFIX + "tree diff";
+
+  /**
+   * The timings, by name.
+   */
+  private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+  /**
+   * The operations that were announced but didn't end yet.
+   */
+  private final Map<GitOperation, OperationStart> startedOperations = new ConcurrentHashMap<>();
+  /**
+   * The scheduler task executed by the current thread.
+   */
+  private final ThreadLocal<TaskContext> currentTask = new ThreadLocal<>();
+
+  /**
+   * Singleton instance.
+   */
+  private static OperationMetrics instance;
+
+  /**
+   * Singleton private constructor.
+   */
+  private OperationMetrics() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized OperationMetrics getInstance() {
+    if (instance == null) {
+      instance = new OperationMetrics();
+    }
+    return instance;
+  }
+
+  /**
+   * Gets the timing with the given name, creating it if needed.
+   *
+   * @param name The name.
+   *
+   * @return The timing.
+   */
+  public Timing getTiming(String name) {
+    return timings.computeIfAbsent(name, k -> new Timing());
+  }
+
+  /**
+   * @return A snapshot of the timings, sorted by name.
+   */
+  public SortedMap<String, Timing> getTimings() {
+    return new TreeMap<>(timings);
+  }
+
+  /**
+   * Notifies that a scheduler task starts. Called on the thread that executes the task.
+   *
+   * @param queueWaitNanos How long the task waited in the queue of the lane.
+   */
+  public void taskStarted(long queueWaitNanos) {
+    currentTask.set(new TaskContext(System.nanoTime(), queueWaitNanos));
+  }
+
+  /**
+   * Notifies that a scheduler task ended and records its timing.
+   *
+   * @param lane The name of the lane.
+   */
+  public void taskEnded(String lane) {
+    TaskContext task = currentTask.get();
+    if (task != null) {
+      currentTask.remove();
+      Timing timing = getTiming(LANE_PREFIX + lane);
+      timing.queueWait.record(task.queueWait);
+      timing.execution.record(System.nanoTime() - task.start);
+    }
+  }
+
+  /**
+   * Records the execution of an internal query.
+   *
+   * @param name      The name of the query.
+   * @param startNanos When the query started, as given by {@link System#nanoTime()}.
+   */
+  public void queryEnded(String name, long startNanos) {
+    Timing timing = getTiming(name);
+    timing.queueWait.record(claimQueueWait());
+    timing.execution.record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Notifies that a Git operation was announced.
+   *
+   * @param operation The operation.
+   */
+  public void operationStarted(GitOperation operation) {
+    if (operation != null) {
+      startedOperations.put(operation, new OperationStart(System.nanoTime(), claimQueueWait()));
+    }
+  }
+
+  /**
+   * Notifies that a Git operation ended, successfully or not, and records its timing.
+   *
+   * @param operation The operation.
+   */
+  public void operationEnded(GitOperation operation) {
+    OperationStart start = operation != null ? startedOperations.remove(operation) : null;
+    if (start != null) {
+      long now = System.nanoTime();
+      long queueWait = start.queueWait;
+      long executionStart = start.time;
+      TaskContext task = currentTask.get();
+      if (task != null && task.start > start.time) {
+        // Announced on another thread and then scheduled.
+        queueWait = task.start - start.time;
+        executionStart = task.start;
+      }
+      Timing timing = getTiming(OPERATION_PREFIX + operation.name());
+      timing.queueWait.record(queueWait);
+      timing.execution.record(now - executionStart);
+    }
+  }
+
+  /**
+   * The queue wait of the current scheduler task is attributed to the first operation or query
+   * that it executes. The ones that follow waited for their siblings, not for the queue.
+   *
+   * @return The queue wait of the current task, if not already attributed, or 0.
+   */
+  private long claimQueueWait() {
+    TaskContext task = currentTask.get();
+    if (task != null && !task.queueWaitClaimed) {
+      task.queueWaitClaimed = true;
+      return task.queueWait;
+    }
+    return 0;
+  }
+
+  @Override
+  public String[] getNames() {
+    return getTimings().keySet().toArray(new String[0]);
+  }
+
+  @Override
+  public String getSummary(String name) {
+    Timing timing = timings.get(name);
+    return timing != null ? timing.toString() : null;
+  }
+
+  @Override
+  public String getReport() {
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("%-40s %8s %11s %11s %11s %11s %11s %11s%n",
+        "Name", "Count", "Wait p50", "Wait p95", "Wait max", "Exec p50", "Exec p95", "Exec max"));
+    for (Object[] row : getReportRows()) {
+      report.append(String.format("%-40s %8d %11s %11s %11s %11s %11s %11s%n", row));
+    }
+    return report.toString();
+  }
+
+  /**
+   * Gets the rows of the {@link #getReport() report}, one for each timing: the name, the count, and
+   * the formatted 50th percentile, 95th percentile and maximum of the queue wait and of the execution.
+   *
+   * @return The rows, sorted by name.
+   */
+  public List<Object[]> getReportRows() {
+    List<Object[]> rows = new ArrayList<>();
+    for (Map.Entry<String, Timing> entry : getTimings().entrySet()) {
+      Summary wait = entry.getValue().getQueueWait().getSummary();
+      Summary exec = entry.getValue().getExecution().getSummary();
+      rows.add(new Object[] {
+          entry.getKey(),
+          exec.getCount(),
+          Summary.formatMillis(wait.getP50()),
+          Summary.formatMillis(wait.getP95()),
+          Summary.formatMillis(wait.getMax()),
+          Summary.formatMillis(exec.getP50()),
+          Summary.formatMillis(exec.getP95()),
+          Summary.formatMillis(exec.getMax())
+      });
+    }
+    return rows;
+  }
+
+  @Override
+  public void reset() {
+    timings.clear();
+  }
+
+  /**
+   * Registers the metrics in the platform MBean server.
+   */
+  public void registerMBean() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(this, name);
+      }
+    } catch (JMException e) {
+      logger.warn("Unable to register the operation metrics: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Removes the metrics from the platform MBean server.
+   */
+  public void unregisterMBean() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch (JMException e) {
+      logger.warn("Unable to unregister the operation metrics: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * The queue wait and execution times of an operation, a query or a lane.
+   */
+  public static final class Timing {
+    /**
+     * How long it waited in a queue.
+     */
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    /**
+     * How long it executed.
+     */
+    private final LatencyHistogram execution = new LatencyHistogram();
+
+    /**
+     * @return How long it waited in a queue.
+     */
+    public LatencyHistogram getQueueWait() {
+      return queueWait;
+    }
+
+    /**
+     * @return How long it executed.
+     */
+    public LatencyHistogram getExecution() {
+      return execution;
+    }
+
+    @Override
+    public String toString() {
+      return "wait: " + queueWait.getSummary() + "; execution: " + execution.getSummary();
+    }
+  }
+
+  /**
+   * A Git operation that was announced.
+   */
+  private static final class OperationStart {
+    /**
+     * When the operation was announced, in nanoseconds.
+     */
+    private final long time;
+    /**
+     * The queue wait of the scheduler task that announced it.
+     */
+    private final long queueWait;
+
+    /**
+     * Constructor.
+     *
+     * @param time      When the operation was announced, in nanoseconds.
+     * @param queueWait The queue wait of the scheduler task that announced it.
+     */
+    OperationStart(long time, long queueWait) {
+      this.time = time;
+      this.queueWait = queueWait;
+    }
+  }
+
+  /**
+   * A scheduler task executed by a thread.
+   */
+  private static final class TaskContext {
+    /**
+     * When the task started, in nanoseconds.
+     */
+    private final long start;
+    /**
+     * How long it waited in the queue, in nanoseconds.
+     */
+    private final long queueWait;
+    /**
+     * <code>true</code> if the queue wait was attributed to an operation or a query.
+     */
+    private boolean queueWaitClaimed;
+
+    /**
+     * Constructor.
+     *
+     * @param start     When the task started, in nanoseconds.
+     * @param queueWait How long it waited in the queue, in nanoseconds.
+     */
+    TaskContext(long start, long queueWait) {
+      this.start = start;
+      this.queueWait = queueWait;
+    }
+  }
+}
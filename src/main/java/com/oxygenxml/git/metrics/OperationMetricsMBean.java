@@ -0,0 +1,33 @@
+package com.oxygenxml.git.metrics;
+
+/**
+ * JMX view of the latency metrics of the Git operations.
+ * Registered as {@value OperationMetrics#OBJECT_NAME}.
+ */
+public interface OperationMetricsMBean {
+
+  /**
+   * @return The names of the timed operations, queries and lanes.
+   */
+  String[] getNames();
+
+  /**
+   * @return A table with the statistics of all the timed operations, one per line.
+   */
+  String getReport();
+
+  /**
+   * Gets the statistics of a timed operation.
+   *
+   * @param name The name of the operation, as returned by {@link #getNames()}.
+   *
+   * @return The statistics of the queue wait and execution times, or <code>null</code>
+   * if the operation was never timed.
+   */
+  String getSummary(String name);
+
+  /**
+   * Drops all the recorded timings.
+   */
+  void reset();
+}
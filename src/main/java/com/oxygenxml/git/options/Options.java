@@ -121,6 +121,34 @@ public class Options {
     this.isAutoPushWhenCommitting = isAutoPushWhenCommitting;
   }
 	
+	/**
+	 * <code>true</code> to compute the status of very large working copies in parallel.
+	 */
+	@XmlElement(name = "isParallelStatusEnabled")
+	private boolean isParallelStatusEnabled = false;
+	
+	/**
+	 * The minimum number of files in the index for which the status is computed in parallel.
+	 */
+	@XmlElement(name = "parallelStatusThreshold")
+	private int parallelStatusThreshold = 20000;
+	
+	public boolean isParallelStatusEnabled() {
+	  return isParallelStatusEnabled;
+	}
+	
+	public void setParallelStatusEnabled(boolean isParallelStatusEnabled) {
+	  this.isParallelStatusEnabled = isParallelStatusEnabled;
+	}
+	
+	public int getParallelStatusThreshold() {
+	  return parallelStatusThreshold;
+	}
+	
+	public void setParallelStatusThreshold(int parallelStatusThreshold) {
+	  this.parallelStatusThreshold = parallelStatusThreshold;
+	}
+	
   public PullType getDefaultPullType() {
     return defaultPullType;
   }
@@ -536,6 +536,35 @@ public class OptionsManager {
     getOptions().setAutoPushWhenCommitting(isAutoPushWhenCommitting);
   }
   
+  /**
+   * @return <code>true</code> to compute the status of very large working copies in parallel.
+   */
+  public boolean isParallelStatusEnabled() {
+    return getOptions().isParallelStatusEnabled();
+  }
+  
+  /**
+   * @param isParallelStatusEnabled <code>true</code> to compute the status of very large working copies in parallel.
+   */
+  public void setParallelStatusEnabled(boolean isParallelStatusEnabled) {
+    getOptions().setParallelStatusEnabled(isParallelStatusEnabled);
+  }
+  
+  /**
+   * @return The minimum number of files in the index for which the status is computed in parallel.
+   */
+  public int getParallelStatusThreshold() {
+    return getOptions().getParallelStatusThreshold();
+  }
+  
+  /**
+   * @param parallelStatusThreshold The minimum number of files in the index for which the status
+   * is computed in parallel.
+   */
+  public void setParallelStatusThreshold(int parallelStatusThreshold) {
+    getOptions().setParallelStatusThreshold(parallelStatusThreshold);
+  }
+  
   /**
    * Set when to verify for remote changes in the repository.
    * @param notifyAboutNewRemoteCommits Option chosen about if to verify or not.
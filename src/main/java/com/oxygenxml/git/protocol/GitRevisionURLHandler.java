@@ -1,19 +1,19 @@
 package com.oxygenxml.git.protocol;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.log4j.Logger;
 import org.eclipse.jgit.errors.NoWorkTreeException;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
 
 import com.oxygenxml.git.service.Commit;
 import com.oxygenxml.git.service.GitAccess;
@@ -102,52 +102,85 @@ public class GitRevisionURLHandler extends URLStreamHandler {
 				path = path.replace(".txt", "");
 			}
 			
+			if (isSubmodule()) {
+			  // Already cached by the submodules status.
+			  fileObject = resolveObjectId();
+			} else {
+			  Repository repository = null;
+			  try {
+			    repository = GitAccess.getInstance().getRepository();
+			  } catch (NoRepositorySelected e) {
+			    logger.debug(e, e);
+			  }
+			  fileObject = RevisionURLCache.getInstance().resolve(repository, currentHost, path, this::resolveObjectId);
+			}
+			
+			if (fileObject == null) {
+			  throw new IOException("Unable to obtain commit ID for: " + getURL());
+			}
+		}
+
+		/**
+		 * Resolves the object identified by the URL.
+		 * 
+		 * @return The object ID or <code>null</code>.
+		 * 
+		 * @throws IOException
+		 */
+		private ObjectId resolveObjectId() throws IOException {
+			ObjectId objectId = null;
 			GitAccess gitAccess = GitAccess.getInstance();
 			
 			switch(currentHost) {
 			  case VersionIdentifier.MINE:
 			  case VersionIdentifier.MINE_RESOLVED:
-			    fileObject = gitAccess.getCommit(Commit.MINE, path);
+			    objectId = gitAccess.getCommit(Commit.MINE, path);
 			    break;
 			  case VersionIdentifier.INDEX_OR_LAST_COMMIT:
 			    try {
-	          fileObject = gitAccess.locateObjectIdInIndex(path);
+	          objectId = gitAccess.locateObjectIdInIndex(path);
 	        } catch (Exception ex) {
 	          logger.error(ex, ex);
 	        }
-	        if (fileObject == null) {
-	          fileObject = gitAccess.getCommit(Commit.LOCAL, path);
+	        if (objectId == null) {
+	          objectId = gitAccess.getCommit(Commit.LOCAL, path);
 	        }
 			    break;
 			  case VersionIdentifier.LAST_COMMIT:
-			    fileObject = gitAccess.getCommit(Commit.LOCAL, path);
+			    objectId = gitAccess.getCommit(Commit.LOCAL, path);
 			    break;
 			  case VersionIdentifier.THEIRS:
 			  case VersionIdentifier.MINE_ORIGINAL:
-			    fileObject = gitAccess.getCommit(Commit.THEIRS, path);
+			    objectId = gitAccess.getCommit(Commit.THEIRS, path);
 			    break;
 			  case VersionIdentifier.BASE:
-			    fileObject = gitAccess.getCommit(Commit.BASE, path);
+			    objectId = gitAccess.getCommit(Commit.BASE, path);
 			    break;
 			  case VersionIdentifier.CURRENT_SUBMODULE:
-			    fileObject = gitAccess.submoduleCompare(path, false);
+			    objectId = gitAccess.submoduleCompare(path, false);
 			    break;
 			  case VersionIdentifier.PREVIOUSLY_SUBMODULE:
-			    fileObject = gitAccess.submoduleCompare(path, true);
+			    objectId = gitAccess.submoduleCompare(path, true);
 			    break;
 			  default:
 	        // Probably an ID.
 	        try {
-	          fileObject = RevCommitUtil.getObjectID(gitAccess.getRepository(), currentHost, path);
+	          objectId = RevCommitUtil.getObjectID(gitAccess.getRepository(), currentHost, path);
 	        } catch (IOException | NoRepositorySelected e) {
 	          throw new IOException("Unable to extract GIT data from: " + getURL(), e);
 	        }
 			    break;
 			}
 			
-			if (fileObject == null) {
-			  throw new IOException("Unable to obtain commit ID for: " + getURL());
-			}
+			return objectId;
+		}
+
+		/**
+		 * @return <code>true</code> if the URL identifies the commit of a submodule.
+		 */
+		private boolean isSubmodule() {
+			return VersionIdentifier.CURRENT_SUBMODULE.equals(currentHost) 
+					|| VersionIdentifier.PREVIOUSLY_SUBMODULE.equals(currentHost);
 		}
 
 		/**
@@ -157,17 +190,16 @@ public class GitRevisionURLHandler extends URLStreamHandler {
 		 */
 		@Override
 		public InputStream getInputStream() throws IOException {
-			if (VersionIdentifier.CURRENT_SUBMODULE.equals(currentHost) 
-					|| VersionIdentifier.PREVIOUSLY_SUBMODULE.equals(currentHost)) {
-				String commit = "Subproject commit " + fileObject.getName();
-				File temp = File.createTempFile("submodule", ".txt");
-				PrintWriter printWriter = new PrintWriter(temp);
-				printWriter.println(commit);
-				printWriter.close();
-				return new FileInputStream(temp);
+			if (isSubmodule()) {
+				String commit = "Subproject commit " + fileObject.getName() + System.lineSeparator();
+				return new ByteArrayInputStream(commit.getBytes(StandardCharsets.UTF_8));
 			}
 			
-			return GitAccess.getInstance().getInputStream(fileObject);
+			try {
+			  return RevisionURLCache.getInstance().openStream(GitAccess.getInstance().getRepository(), fileObject);
+			} catch (NoRepositorySelected e) {
+			  throw new IOException(e);
+			}
 		}
 
 		/**
@@ -0,0 +1,254 @@
+package com.oxygenxml.git.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.service.GitEventAdapter;
+import com.oxygenxml.git.service.GitListeners;
+import com.oxygenxml.git.view.event.GitEventInfo;
+
+/**
+ * Caches for the "git" protocol. Oxygen opens the same revision URLs several times while a diff is
+ * presented (open, reload, save) and each connection used to resolve the object ID again, which for
+ * the conflict versions means a diff of the file.
+ * <br><br>
+ * The resolved object IDs are reused for a short time, as long as the repository state doesn't
+ * change: the HEAD, the index and the working copy file. They are also dropped after every Git
+ * operation. The contents of the small objects are kept in memory, within a size limit. They never
+ * change, as the objects are identified by their content.
+ */
+public class RevisionURLCache {
+  /**
+   * How long a resolved object ID is reused, in milliseconds.
+   */
+  static final long RESOLUTION_TIMEOUT = 30_000;
+  /**
+   * The maximum number of resolved object IDs.
+   */
+  private static final int MAX_RESOLUTIONS = 100;
+  /**
+   * The maximum size of a cached object, in bytes.
+   */
+  static final int MAX_OBJECT_SIZE = 256 * 1024;
+  /**
+   * The maximum size of all the cached objects, in bytes.
+   */
+  static final int MAX_OBJECTS_SIZE = 8 * 1024 * 1024;
+
+  /**
+   * Singleton instance.
+   */
+  private static RevisionURLCache instance;
+
+  /**
+   * The resolved object IDs, by version identifier and path.
+   */
+  private final LinkedHashMap<String, Resolution> resolutions = new LinkedHashMap<String, Resolution>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Resolution> eldest) {
+      return size() > MAX_RESOLUTIONS;
+    }
+  };
+  /**
+   * Incremented when the resolved object IDs are dropped.
+   */
+  private long generation;
+  /**
+   * The contents of the small objects, from the least recently used one.
+   */
+  private final LinkedHashMap<ObjectId, byte[]> objects = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * The size of the cached objects, in bytes.
+   */
+  private long objectsSize;
+
+  /**
+   * Resolves the object ID of a revision URL.
+   */
+  @FunctionalInterface
+  public interface Resolver {
+    /**
+     * @return The object ID or <code>null</code>.
+     *
+     * @throws IOException If it fails.
+     */
+    ObjectId resolve() throws IOException;
+  }
+
+  /**
+   * Singleton private constructor.
+   */
+  private RevisionURLCache() {
+    GitListeners.getInstance().addGitListener(new GitEventAdapter() {
+      @Override
+      public void operationSuccessfullyEnded(GitEventInfo info) {
+        invalidate();
+      }
+      @Override
+      public void operationFailed(GitEventInfo info, Throwable t) {
+        invalidate();
+      }
+    });
+  }
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized RevisionURLCache getInstance() {
+    if (instance == null) {
+      instance = new RevisionURLCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Drops the resolved object IDs.
+   */
+  public synchronized void invalidate() {
+    resolutions.clear();
+    generation++;
+  }
+
+  /**
+   * Gets the object ID of a revision URL, resolving it only if the repository state changed since
+   * it was last resolved.
+   *
+   * @param repository        The repository. <code>null</code> if none is selected.
+   * @param versionIdentifier The version identifier, a constant from {@link VersionIdentifier} or a commit ID.
+   * @param path              The path of the file, relative to the working copy.
+   * @param resolver          Resolves the object ID.
+   *
+   * @return The object ID or <code>null</code>.
+   *
+   * @throws IOException If it fails.
+   */
+  public ObjectId resolve(Repository repository, String versionIdentifier, String path, Resolver resolver)
+      throws IOException {
+    String state = repository != null ? getRepositoryState(repository, path) : null;
+    if (state == null) {
+      return resolver.resolve();
+    }
+
+    String key = versionIdentifier + '\n' + path;
+    long resolveGeneration;
+    synchronized (this) {
+      Resolution resolution = resolutions.get(key);
+      if (resolution != null
+          && resolution.state.equals(state)
+          && System.currentTimeMillis() - resolution.time < RESOLUTION_TIMEOUT) {
+        return resolution.objectId;
+      }
+      resolveGeneration = generation;
+    }
+
+    ObjectId objectId = resolver.resolve();
+    if (objectId != null) {
+      synchronized (this) {
+        // Not cached if a Git operation ended meanwhile.
+        if (resolveGeneration == generation) {
+          resolutions.put(key, new Resolution(state, objectId, System.currentTimeMillis()));
+        }
+      }
+    }
+    return objectId;
+  }
+
+  /**
+   * Opens an object. The small objects are read from memory.
+   *
+   * @param repository The repository that contains the object.
+   * @param objectId   The object ID.
+   *
+   * @return The content of the object.
+   *
+   * @throws IOException If it fails.
+   */
+  public InputStream openStream(Repository repository, ObjectId objectId) throws IOException {
+    byte[] bytes;
+    synchronized (this) {
+      bytes = objects.get(objectId);
+    }
+    if (bytes == null) {
+      ObjectLoader loader = repository.open(objectId);
+      if (loader.getSize() > MAX_OBJECT_SIZE) {
+        return loader.openStream();
+      }
+      bytes = loader.getCachedBytes();
+      synchronized (this) {
+        if (objects.put(objectId.copy(), bytes) == null) {
+          objectsSize += bytes.length;
+        }
+        Iterator<byte[]> iterator = objects.values().iterator();
+        while (objectsSize > MAX_OBJECTS_SIZE && iterator.hasNext()) {
+          objectsSize -= iterator.next().length;
+          iterator.remove();
+        }
+      }
+    }
+    return new ByteArrayInputStream(bytes);
+  }
+
+  /**
+   * Describes the state of the repository on which the object ID of a path depends.
+   *
+   * @param repository The repository.
+   * @param path       The path of the file.
+   *
+   * @return The repository, its HEAD, the time stamp and length of its index and of the working copy file.
+   *
+   * @throws IOException If the HEAD cannot be read.
+   */
+  private static String getRepositoryState(Repository repository, String path) throws IOException {
+    StringBuilder state = new StringBuilder(repository.getDirectory().getAbsolutePath());
+    ObjectId head = repository.resolve(Constants.HEAD);
+    state.append('\n').append(head != null ? head.name() : null);
+    if (!repository.isBare()) {
+      File indexFile = repository.getIndexFile();
+      state.append('\n').append(indexFile.lastModified()).append(' ').append(indexFile.length());
+      File file = new File(repository.getWorkTree(), path);
+      state.append('\n').append(file.lastModified()).append(' ').append(file.length());
+    }
+    return state.toString();
+  }
+
+  /**
+   * The object ID of a revision URL.
+   */
+  private static class Resolution {
+    /**
+     * The repository state when the object ID was resolved.
+     */
+    private final String state;
+    /**
+     * The object ID.
+     */
+    private final ObjectId objectId;
+    /**
+     * When the object ID was resolved.
+     */
+    private final long time;
+
+    /**
+     * Constructor.
+     *
+     * @param state    The repository state when the object ID was resolved.
+     * @param objectId The object ID.
+     * @param time     When the object ID was resolved.
+     */
+    Resolution(String state, ObjectId objectId, long time) {
+      this.state = state;
+      this.objectId = objectId;
+      this.time = time;
+    }
+  }
+}
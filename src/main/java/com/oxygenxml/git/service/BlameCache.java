@@ -0,0 +1,845 @@
+package com.oxygenxml.git.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.blame.BlameGenerator;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig.AutoCRLF;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeOptions;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.IO;
+import org.eclipse.jgit.util.io.AutoLFInputStream;
+
+/**
+ * Cache with the blame of the files at the HEAD commit: for each line, the commit that last changed it.
+ * The blames are identified by the HEAD commit, the path and the blob of the file. The most recently
+ * used ones are kept in memory and written in the cache directory of the repository, next to the
+ * {@link CommitMetadataCache commit cache}.
+ * <br><br>
+ * The blame of the working copy file is obtained from the blame of HEAD, by comparing the two texts.
+ * The lines changed in the working copy are not attributed to any commit. When HEAD moved forward
+ * since a file was last blamed, only the lines changed by any of the new commits are attributed again.
+ * The other ones keep the commits from the previous blame.
+ * <br><br>
+ * The cache file is written on the background lane of the {@link GitOperationScheduler}.
+ */
+public class BlameCache {
+  /**
+   * Logger for logging.
+   */
+  private static Logger logger = Logger.getLogger(BlameCache.class);
+  /**
+   * Identifies the cache files.
+   */
+  private static final int MAGIC = 0x4F58424C;
+  /**
+   * Changes whenever the format of the cache files changes.
+   */
+  private static final int VERSION = 1;
+  /**
+   * The maximum number of blames kept for a repository.
+   */
+  static final int MAX_ENTRIES = 50;
+  /**
+   * Above this number of commits that changed a file since its previous blame, blaming it again
+   * is cheaper than comparing all its versions.
+   */
+  private static final int MAX_INCREMENTAL_COMMITS = 50;
+
+  /**
+   * Singleton instance.
+   */
+  private static BlameCache instance;
+
+  /**
+   * The directory of the repository whose blames are cached.
+   */
+  private String loadedRepository;
+  /**
+   * The file with the blames of the loaded repository. <code>null</code> if they are only kept in memory.
+   */
+  private File loadedFile;
+  /**
+   * The blames of the loaded repository, from the least recently used one.
+   */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+  /**
+   * <code>true</code> if some blames were not written in the cache file yet.
+   */
+  private boolean dirty;
+  /**
+   * <code>true</code> if the cache file will be written.
+   */
+  private boolean saveScheduled;
+
+  /**
+   * Singleton private constructor.
+   */
+  private BlameCache() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized BlameCache getInstance() {
+    if (instance == null) {
+      instance = new BlameCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Drops the singleton instance and the blames kept in memory.
+   */
+  static synchronized void reset() {
+    instance = null;
+  }
+
+  /**
+   * Receives the lines of the working copy file, as they are attributed to commits.
+   */
+  public interface BlameListener {
+    /**
+     * Called before any line is attributed.
+     *
+     * @param lineCount The number of lines of the working copy file.
+     */
+    void blameStarted(int lineCount);
+
+    /**
+     * Some consecutive lines were attributed to a commit. Each line is attributed once. The lines
+     * changed in the working copy are never attributed.
+     *
+     * @param start  The first line, 0 based.
+     * @param end    The line after the last one.
+     * @param commit The commit that last changed the lines.
+     */
+    void linesAttributed(int start, int end, RevCommit commit);
+
+    /**
+     * @return <code>true</code> to stop the blame.
+     */
+    boolean isCancelled();
+  }
+
+  /**
+   * Computes the blame of a working copy file, like {@link org.eclipse.jgit.api.BlameCommand} does.
+   * The blame of HEAD is taken from the cache or it is computed and cached.
+   *
+   * @param repository The repository that contains the file.
+   * @param path       The path of the file, relative to the working copy.
+   * @param listener   Receives the attributed lines, on the current thread.
+   *
+   * @return The number of lines of the working copy file or -1 if the file is neither in the working
+   * copy nor in HEAD.
+   *
+   * @throws IOException If it fails.
+   */
+  public int blame(Repository repository, String path, BlameListener listener) throws IOException {
+    try (RevWalk walk = new RevWalk(repository)) {
+      ObjectId headId = repository.resolve(Constants.HEAD);
+      RevCommit head = headId != null ? walk.parseCommit(headId) : null;
+      ObjectId blob = head != null ? getBlob(repository, path, head) : null;
+
+      RawText headText = blob != null ? readBlob(repository, blob) : null;
+      RawText text = readWorkingCopyFile(repository, path);
+      if (text == null) {
+        text = headText;
+      }
+      if (text == null) {
+        return -1;
+      }
+
+      listener.blameStarted(text.size());
+      if (headText != null) {
+        int[] toWorkingCopy = text == headText ? null : mapLines(headText, text);
+        blameHead(repository, walk, head, blob, path, headText, new LineMapper(toWorkingCopy, listener));
+      }
+      return text.size();
+    }
+  }
+
+  /**
+   * Attributes the lines of a file at HEAD.
+   *
+   * @param repository The repository that contains the file.
+   * @param walk       Parses the cached commits.
+   * @param head       The HEAD commit.
+   * @param blob       The file at HEAD.
+   * @param path       The path of the file.
+   * @param headText   The text of the file at HEAD.
+   * @param mapper     Receives the attributed lines of HEAD.
+   *
+   * @throws IOException If it fails.
+   */
+  private void blameHead(
+      Repository repository,
+      RevWalk walk,
+      RevCommit head,
+      ObjectId blob,
+      String path,
+      RawText headText,
+      LineMapper mapper) throws IOException {
+    Entry cached = get(repository, head, blob, path);
+    if (cached != null) {
+      mapper.linesAttributed(parseCommits(walk, cached), 0, cached.lines.length);
+      return;
+    }
+
+    RevCommit[] attribution = new RevCommit[headText.size()];
+    // The previous blame of the file, if HEAD moved forward since then.
+    Entry previous = getPrevious(repository, walk, head, path);
+    int[] toPrevious = null;
+    int remaining = attribution.length;
+    if (previous != null) {
+      toPrevious = mapToPrevious(repository, head, blob, path, headText, previous);
+    }
+    if (toPrevious == null) {
+      previous = null;
+    } else {
+      remaining = 0;
+      for (int line : toPrevious) {
+        if (line < 0) {
+          remaining++;
+        }
+      }
+    }
+
+    // Attributes the lines that are not in the previous blame. Every line, if there is none.
+    try (BlameGenerator generator = new BlameGenerator(repository, path)) {
+      generator.push(null, head);
+      while (remaining > 0 && !mapper.listener.isCancelled() && generator.next()) {
+        RevCommit source = generator.getSourceCommit();
+        for (int i = generator.getResultStart(); i < generator.getResultEnd(); i++) {
+          attribution[i] = source;
+          if (toPrevious == null || toPrevious[i] < 0) {
+            remaining--;
+          }
+        }
+        mapper.linesAttributed(source, generator.getResultStart(), generator.getResultEnd());
+      }
+    }
+    if (mapper.listener.isCancelled()) {
+      return;
+    }
+
+    if (previous != null) {
+      RevCommit[] previousAttribution = parseCommits(walk, previous);
+      RevCommit[] rest = new RevCommit[attribution.length];
+      for (int i = 0; i < attribution.length; i++) {
+        if (attribution[i] == null && toPrevious[i] >= 0) {
+          attribution[i] = rest[i] = previousAttribution[toPrevious[i]];
+        }
+      }
+      mapper.linesAttributed(rest, 0, rest.length);
+    }
+
+    put(repository, new Entry(head, blob, path, attribution));
+  }
+
+  /**
+   * Reads a file from the working copy, with the line endings converted as when it is committed.
+   *
+   * @param repository The repository that contains the file.
+   * @param path       The path of the file.
+   *
+   * @return The text of the file or <code>null</code> if it doesn't exist.
+   *
+   * @throws IOException If it fails.
+   */
+  private static RawText readWorkingCopyFile(Repository repository, String path) throws IOException {
+    if (repository.isBare()) {
+      return null;
+    }
+    File file = new File(repository.getWorkTree(), path);
+    if (!repository.getFS().isFile(file)) {
+      return null;
+    }
+
+    AutoCRLF autoCRLF = repository.getConfig().get(WorkingTreeOptions.KEY).getAutoCRLF();
+    if (autoCRLF == AutoCRLF.TRUE) {
+      try (InputStream in = AutoLFInputStream.create(
+          new FileInputStream(file), AutoLFInputStream.StreamFlag.DETECT_BINARY)) {
+        ByteBuffer buffer = IO.readWholeStream(in, (int) file.length());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new RawText(bytes);
+      }
+    }
+    return new RawText(file);
+  }
+
+  /**
+   * Maps the lines of a file at HEAD to the ones of a previous blame. A line is mapped only if none
+   * of the commits since the previous blame changed it. Otherwise a change reverted by a later commit
+   * would keep the commit from the previous blame.
+   *
+   * @param repository The repository.
+   * @param head       The HEAD commit.
+   * @param blob       The file at HEAD.
+   * @param path       The path of the file.
+   * @param headText   The text of the file at HEAD.
+   * @param previous   The previous blame.
+   *
+   * @return For each line of HEAD, the line in the previous blame or -1. <code>null</code> if the file
+   * must be blamed again: it was removed or changed by a merge or by too many commits in the meantime.
+   *
+   * @throws IOException If the history cannot be read.
+   */
+  private static int[] mapToPrevious(
+      Repository repository,
+      RevCommit head,
+      ObjectId blob,
+      String path,
+      RawText headText,
+      Entry previous) throws IOException {
+    int[] map = identity(headText.size());
+    ObjectId currentBlob = blob;
+    RawText currentText = headText;
+    try (RevWalk walk = new RevWalk(repository)) {
+      // Only the commits that changed the file, the merges that took it from a parent are skipped.
+      walk.setTreeFilter(AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+      walk.markStart(walk.parseCommit(head));
+      walk.markUninteresting(walk.parseCommit(previous.commit));
+      int changes = 0;
+      for (RevCommit commit : walk) {
+        changes++;
+        if (commit.getParentCount() > 1 || changes > MAX_INCREMENTAL_COMMITS) {
+          return null;
+        }
+        ObjectId commitBlob = getBlob(repository, path, commit);
+        if (commitBlob == null) {
+          return null;
+        }
+        if (!commitBlob.equals(currentBlob)) {
+          currentText = mapThrough(map, currentText, readBlob(repository, commitBlob));
+          currentBlob = commitBlob;
+        }
+      }
+    }
+    if (!previous.blob.equals(currentBlob)) {
+      mapThrough(map, currentText, readBlob(repository, previous.blob));
+    }
+    return map;
+  }
+
+  /**
+   * Maps the lines further, to an older version of the file.
+   *
+   * @param map   For each line of HEAD, the line in the current version or -1. Updated.
+   * @param text  The current version.
+   * @param older The older version.
+   *
+   * @return The older version.
+   */
+  private static RawText mapThrough(int[] map, RawText text, RawText older) {
+    int[] toOlder = mapLines(text, older);
+    for (int i = 0; i < map.length; i++) {
+      if (map[i] >= 0) {
+        map[i] = toOlder[map[i]];
+      }
+    }
+    return older;
+  }
+
+  /**
+   * @param repository The repository.
+   * @param path       The path of a file.
+   * @param commit     A commit.
+   *
+   * @return The ID of the file at the commit or <code>null</code> if the file is not there.
+   *
+   * @throws IOException If the tree cannot be read.
+   */
+  private static ObjectId getBlob(Repository repository, String path, RevCommit commit) throws IOException {
+    try (TreeWalk treeWalk = TreeWalk.forPath(repository, path, commit.getTree())) {
+      return treeWalk != null && !treeWalk.isSubtree() ? treeWalk.getObjectId(0) : null;
+    }
+  }
+
+  /**
+   * @param repository The repository.
+   * @param blob       The ID of a file.
+   *
+   * @return The text of the file.
+   *
+   * @throws IOException If it fails.
+   */
+  private static RawText readBlob(Repository repository, ObjectId blob) throws IOException {
+    return new RawText(repository.open(blob, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE));
+  }
+
+  /**
+   * Maps the lines of a text to the ones of another version of it.
+   *
+   * @param from The text.
+   * @param to   The other version.
+   *
+   * @return For each line of the text, the same line in the other version or -1 if it was changed.
+   */
+  static int[] mapLines(RawText from, RawText to) {
+    int[] map = new int[from.size()];
+    EditList edits = new HistogramDiff().diff(RawTextComparator.DEFAULT, from, to);
+    int line = 0;
+    int toLine = 0;
+    for (Edit edit : edits) {
+      while (line < edit.getBeginA()) {
+        map[line++] = toLine++;
+      }
+      while (line < edit.getEndA()) {
+        map[line++] = -1;
+      }
+      toLine = edit.getEndB();
+    }
+    while (line < map.length) {
+      map[line++] = toLine++;
+    }
+    return map;
+  }
+
+  /**
+   * @param size The number of lines.
+   *
+   * @return A map of the lines to themselves.
+   */
+  private static int[] identity(int size) {
+    int[] map = new int[size];
+    for (int i = 0; i < size; i++) {
+      map[i] = i;
+    }
+    return map;
+  }
+
+  /**
+   * Parses the commits of a cached blame.
+   *
+   * @param walk  The walk that parses the commits.
+   * @param entry The cached blame.
+   *
+   * @return For each line, the commit that last changed it.
+   *
+   * @throws IOException If a commit cannot be read.
+   */
+  private static RevCommit[] parseCommits(RevWalk walk, Entry entry) throws IOException {
+    RevCommit[] commits = new RevCommit[entry.commits.length];
+    for (int i = 0; i < commits.length; i++) {
+      commits[i] = walk.parseCommit(entry.commits[i]);
+    }
+    RevCommit[] attribution = new RevCommit[entry.lines.length];
+    for (int i = 0; i < attribution.length; i++) {
+      attribution[i] = entry.lines[i] >= 0 ? commits[entry.lines[i]] : null;
+    }
+    return attribution;
+  }
+
+  /**
+   * Gets a cached blame.
+   *
+   * @param repository The repository.
+   * @param commit     The HEAD commit.
+   * @param blob       The file at HEAD.
+   * @param path       The path of the file.
+   *
+   * @return The cached blame or <code>null</code>.
+   */
+  private synchronized Entry get(Repository repository, ObjectId commit, ObjectId blob, String path) {
+    load(repository);
+    return entries.get(Entry.key(commit, blob, path));
+  }
+
+  /**
+   * Gets the most recent cached blame of a file at a commit from which HEAD descends.
+   *
+   * @param repository The repository.
+   * @param walk       Walks the history.
+   * @param head       The HEAD commit.
+   * @param path       The path of the file.
+   *
+   * @return The cached blame or <code>null</code>.
+   *
+   * @throws IOException If the history cannot be read.
+   */
+  private Entry getPrevious(Repository repository, RevWalk walk, RevCommit head, String path) throws IOException {
+    Entry latest = null;
+    synchronized (this) {
+      load(repository);
+      for (Entry entry : entries.values()) {
+        if (entry.path.equals(path)) {
+          latest = entry;
+        }
+      }
+    }
+
+    Entry previous = null;
+    if (latest != null) {
+      try {
+        if (walk.isMergedInto(walk.parseCommit(latest.commit), head)) {
+          previous = latest;
+        }
+      } catch (IOException e) {
+        // The commit might have been removed by a garbage collection.
+        logger.debug(e, e);
+      }
+      walk.reset();
+    }
+    return previous;
+  }
+
+  /**
+   * Caches a blame. The cache file is written later, on the background lane.
+   *
+   * @param repository The repository.
+   * @param entry      The blame.
+   */
+  private synchronized void put(Repository repository, Entry entry) {
+    load(repository);
+    entries.put(entry.key(), entry);
+    if (loadedFile != null) {
+      dirty = true;
+      if (!saveScheduled) {
+        saveScheduled = true;
+        GitOperationScheduler.getInstance().scheduleBackground(this::save, 0);
+      }
+    }
+  }
+
+  /**
+   * Writes the cache file of the loaded repository, if some blames were added. The blames are
+   * written without holding the lock of the cache.
+   */
+  private void save() {
+    File file;
+    Collection<Entry> snapshot;
+    synchronized (this) {
+      saveScheduled = false;
+      if (!dirty || loadedFile == null) {
+        return;
+      }
+      file = loadedFile;
+      snapshot = new ArrayList<>(entries.values());
+      dirty = false;
+    }
+    save(file, snapshot);
+  }
+
+  /**
+   * Writes a cache file, logging the failures.
+   *
+   * @param file    The file.
+   * @param entries The cached blames, from the least recently used one.
+   */
+  private static void save(File file, Collection<Entry> entries) {
+    try {
+      write(file, entries);
+    } catch (IOException e) {
+      logger.warn("Unable to write the blame cache: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Makes the blames of a repository the current ones, reading them from the cache file.
+   *
+   * @param repository The repository.
+   */
+  private void load(Repository repository) {
+    String directory = repository.getDirectory().getAbsolutePath();
+    if (!directory.equals(loadedRepository)) {
+      if (dirty) {
+        // The blames of the previous repository were not written yet.
+        File file = loadedFile;
+        Collection<Entry> snapshot = new ArrayList<>(entries.values());
+        GitOperationScheduler.getInstance().scheduleBackground(() -> save(file, snapshot), 0);
+        dirty = false;
+      }
+      loadedRepository = directory;
+      loadedFile = CommitMetadataCache.getInstance().getCacheFile(repository, ".blame");
+      entries.clear();
+      if (loadedFile != null) {
+        read(loadedFile, entries);
+      }
+    }
+  }
+
+  /**
+   * Reads a cache file.
+   *
+   * @param file    The file.
+   * @param entries Receives the cached blames, from the least recently used one.
+   */
+  private static void read(File file, Map<String, Entry> entries) {
+    if (file.isFile()) {
+      try {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buffer.getInt() == MAGIC && buffer.getInt() == VERSION) {
+          int count = buffer.getInt();
+          for (int i = 0; i < count; i++) {
+            ObjectId commit = readId(buffer);
+            ObjectId blob = readId(buffer);
+            byte[] path = new byte[buffer.getInt()];
+            buffer.get(path);
+            ObjectId[] commits = new ObjectId[buffer.getInt()];
+            for (int j = 0; j < commits.length; j++) {
+              commits[j] = readId(buffer);
+            }
+            int[] lines = new int[buffer.getInt()];
+            buffer.asIntBuffer().get(lines);
+            buffer.position(buffer.position() + lines.length * Integer.BYTES);
+
+            Entry entry = new Entry(commit, blob, new String(path, StandardCharsets.UTF_8), commits, lines);
+            entries.put(entry.key(), entry);
+          }
+        }
+      } catch (IOException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+        logger.warn("Unable to read the blame cache: " + e.getMessage(), e);
+        entries.clear();
+      }
+    }
+  }
+
+  /**
+   * @param buffer The buffer.
+   *
+   * @return An object ID, in raw form.
+   */
+  private static ObjectId readId(ByteBuffer buffer) {
+    byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+    buffer.get(id);
+    return ObjectId.fromRaw(id);
+  }
+
+  /**
+   * Writes a cache file. A temporary file is written first and then moved over the old one.
+   *
+   * @param file    The file.
+   * @param entries The cached blames, from the least recently used one.
+   *
+   * @throws IOException If it fails.
+   */
+  private static void write(File file, Collection<Entry> entries) throws IOException {
+    File dir = file.getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Unable to create " + dir);
+    }
+
+    File temp = File.createTempFile("blame", ".tmp", dir);
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+          entry.commit.copyRawTo(out);
+          entry.blob.copyRawTo(out);
+          byte[] path = entry.path.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(path.length);
+          out.write(path);
+          out.writeInt(entry.commits.length);
+          for (ObjectId commit : entry.commits) {
+            commit.copyRawTo(out);
+          }
+          out.writeInt(entry.lines.length);
+          for (int line : entry.lines) {
+            out.writeInt(line);
+          }
+        }
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+  }
+
+  /**
+   * Sends the attributed lines of HEAD to the listener, as lines of the working copy file.
+   */
+  private static class LineMapper {
+    /**
+     * For each line of HEAD, the line in the working copy or -1 if it was changed.
+     * <code>null</code> if the file was not changed.
+     */
+    private final int[] toWorkingCopy;
+    /**
+     * Receives the attributed lines.
+     */
+    private final BlameListener listener;
+
+    /**
+     * Constructor.
+     *
+     * @param toWorkingCopy For each line of HEAD, the line in the working copy or -1.
+     * @param listener      Receives the attributed lines.
+     */
+    LineMapper(int[] toWorkingCopy, BlameListener listener) {
+      this.toWorkingCopy = toWorkingCopy;
+      this.listener = listener;
+    }
+
+    /**
+     * Some lines of HEAD were attributed to a commit.
+     *
+     * @param commit The commit.
+     * @param start  The first line of HEAD.
+     * @param end    The line after the last one.
+     */
+    void linesAttributed(RevCommit commit, int start, int end) {
+      int runStart = -1;
+      for (int i = start; i <= end; i++) {
+        if (runStart >= 0 && (i == end || map(i) != map(i - 1) + 1)) {
+          listener.linesAttributed(map(runStart), map(i - 1) + 1, commit);
+          runStart = -1;
+        }
+        if (runStart < 0 && i < end && map(i) >= 0) {
+          runStart = i;
+        }
+      }
+    }
+
+    /**
+     * Some lines of HEAD were attributed.
+     *
+     * @param attribution For each line, the commit. <code>null</code> for the lines not attributed.
+     * @param start       The first line of HEAD.
+     * @param end         The line after the last one.
+     */
+    void linesAttributed(RevCommit[] attribution, int start, int end) {
+      int i = start;
+      while (i < end) {
+        int next = i + 1;
+        while (next < end && attribution[next] == attribution[i]) {
+          next++;
+        }
+        if (attribution[i] != null) {
+          linesAttributed(attribution[i], i, next);
+        }
+        i = next;
+      }
+    }
+
+    /**
+     * @param line A line of HEAD.
+     *
+     * @return The line in the working copy or -1.
+     */
+    private int map(int line) {
+      return toWorkingCopy != null ? toWorkingCopy[line] : line;
+    }
+  }
+
+  /**
+   * The blame of a file at a commit.
+   */
+  private static class Entry {
+    /**
+     * The commit.
+     */
+    private final ObjectId commit;
+    /**
+     * The file at the commit.
+     */
+    private final ObjectId blob;
+    /**
+     * The path of the file.
+     */
+    private final String path;
+    /**
+     * The commits that changed the lines.
+     */
+    private final ObjectId[] commits;
+    /**
+     * For each line, the index of the commit that last changed it.
+     */
+    private final int[] lines;
+
+    /**
+     * Constructor.
+     *
+     * @param commit  The commit.
+     * @param blob    The file at the commit.
+     * @param path    The path of the file.
+     * @param commits The commits that changed the lines.
+     * @param lines   For each line, the index of the commit that last changed it.
+     */
+    Entry(ObjectId commit, ObjectId blob, String path, ObjectId[] commits, int[] lines) {
+      this.commit = commit;
+      this.blob = blob;
+      this.path = path;
+      this.commits = commits;
+      this.lines = lines;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param commit      The commit.
+     * @param blob        The file at the commit.
+     * @param path        The path of the file.
+     * @param attribution For each line, the commit that last changed it.
+     */
+    Entry(ObjectId commit, ObjectId blob, String path, RevCommit[] attribution) {
+      this.commit = commit.copy();
+      this.blob = blob.copy();
+      this.path = path;
+      Map<ObjectId, Integer> indices = new HashMap<>();
+      this.lines = new int[attribution.length];
+      for (int i = 0; i < attribution.length; i++) {
+        lines[i] = attribution[i] != null
+            ? indices.computeIfAbsent(attribution[i].copy(), id -> indices.size()) : -1;
+      }
+      this.commits = new ObjectId[indices.size()];
+      for (Map.Entry<ObjectId, Integer> index : indices.entrySet()) {
+        commits[index.getValue()] = index.getKey();
+      }
+    }
+
+    /**
+     * @return The key of the blame in the cache.
+     */
+    String key() {
+      return key(commit, blob, path);
+    }
+
+    /**
+     * @param commit The commit.
+     * @param blob   The file at the commit.
+     * @param path   The path of the file.
+     *
+     * @return The key of a blame in the cache.
+     */
+    static String key(ObjectId commit, ObjectId blob, String path) {
+      return commit.name() + blob.name() + path;
+    }
+  }
+}
@@ -0,0 +1,483 @@
+package com.oxygenxml.git.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.oxygenxml.git.service.CommitMetadataCache.CommitGraph;
+
+/**
+ * Index with the paths changed by each commit, relative to its first parent, kept as Bloom filters,
+ * like the changed-path filters of the Git commit-graph. The filter of a commit contains the changed
+ * files and their parent directories. It tells for sure that a commit didn't change a resource, so the
+ * history of a resource compares the trees only for the few commits that might have changed it.
+ * <br><br>
+ * The index is built in background, a chunk of commits at a time, and saved next to the commit cache.
+ */
+public class ChangedPathIndex {
+  /**
+   * Logger for logging.
+   */
+  private static Logger logger = Logger.getLogger(ChangedPathIndex.class);
+  /**
+   * Identifies the index files.
+   */
+  private static final int MAGIC = 0x4F584750;
+  /**
+   * Changes whenever the format of the index files or the hashing changes.
+   */
+  private static final int VERSION = 1;
+  /**
+   * The commits that change more paths than this don't get a filter. They might have changed anything.
+   */
+  private static final int MAX_CHANGED_PATHS = 512;
+  /**
+   * The number of bits of a filter, for each path.
+   */
+  private static final int BITS_PER_PATH = 10;
+  /**
+   * The number of bits set in a filter for each path.
+   */
+  private static final int HASH_COUNT = 7;
+  /**
+   * The number of commits indexed before checking if the index should make room for other tasks.
+   */
+  private static final int CHUNK_SIZE = 1000;
+  /**
+   * Milliseconds to wait before continuing, when the read-only queries need the repository.
+   */
+  private static final int YIELD_DELAY = 2000;
+
+  /**
+   * Singleton instance.
+   */
+  private static ChangedPathIndex instance;
+
+  /**
+   * The file from which the filters were read.
+   */
+  private File loadedFile;
+  /**
+   * The filters, by commit ID.
+   */
+  private ObjectIdOwnerMap<Filter> filters = new ObjectIdOwnerMap<>();
+  /**
+   * <code>true</code> if there are filters that were not saved.
+   */
+  private boolean dirty;
+  /**
+   * <code>true</code> while an update is scheduled.
+   */
+  private boolean updateScheduled;
+
+  /**
+   * Singleton private constructor.
+   */
+  private ChangedPathIndex() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized ChangedPathIndex getInstance() {
+    if (instance == null) {
+      instance = new ChangedPathIndex();
+    }
+    return instance;
+  }
+
+  /**
+   * Tells if a commit might have changed a resource, relative to its first parent.
+   *
+   * @param commit The commit.
+   * @param path   The path of the resource.
+   *
+   * @return <code>false</code> if the commit certainly didn't change the resource, <code>true</code> if
+   * it might have changed it or if it's not indexed yet.
+   */
+  boolean mightChange(AnyObjectId commit, PathKey path) {
+    Filter filter;
+    synchronized (this) {
+      filter = filters.get(commit);
+    }
+    return filter == null || filter.bits == null || filter.mightContain(path);
+  }
+
+  /**
+   * Indexes in background the cached commits that are not indexed yet.
+   *
+   * @param repository Loaded repository.
+   * @param graph      The cached commits.
+   */
+  void scheduleUpdate(Repository repository, CommitGraph graph) {
+    scheduleUpdate(repository, graph, 0);
+  }
+
+  /**
+   * Indexes in background the cached commits that are not indexed yet.
+   *
+   * @param repository  Loaded repository.
+   * @param graph       The cached commits.
+   * @param delayMillis Milliseconds to wait before starting.
+   */
+  private void scheduleUpdate(Repository repository, CommitGraph graph, int delayMillis) {
+    synchronized (this) {
+      if (updateScheduled) {
+        return;
+      }
+      updateScheduled = true;
+    }
+
+    GitOperationScheduler.getInstance().scheduleBackground(() -> {
+      synchronized (this) {
+        updateScheduled = false;
+      }
+      try {
+        if (!update(repository, graph, CHUNK_SIZE)) {
+          boolean readsPending = GitOperationScheduler.getInstance().hasPendingReadTasks();
+          scheduleUpdate(repository, graph, readsPending ? YIELD_DELAY : 0);
+        }
+      } catch (IOException e) {
+        logger.warn("Unable to index the changed paths: " + e.getMessage(), e);
+      }
+    }, delayMillis);
+  }
+
+  /**
+   * Indexes the cached commits that are not indexed yet.
+   *
+   * @param repository Loaded repository.
+   * @param graph      The cached commits.
+   * @param maxCommits The maximum number of commits to index.
+   *
+   * @return <code>true</code> if all the commits are indexed.
+   *
+   * @throws IOException If the commits cannot be read.
+   */
+  boolean update(Repository repository, CommitGraph graph, int maxCommits) throws IOException {
+    if (load(repository) == null) {
+      // The cache is disabled.
+      return true;
+    }
+
+    boolean complete = true;
+    int indexed = 0;
+    try (RevWalk walk = new RevWalk(repository);
+        TreeWalk treeWalk = new TreeWalk(repository)) {
+      walk.setRetainBody(false);
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(TreeFilter.ANY_DIFF);
+      for (int i = 0; i < graph.size(); i++) {
+        ObjectId id = graph.getId(i);
+        if (!isIndexed(id)) {
+          if (indexed == maxCommits) {
+            complete = false;
+            break;
+          }
+          Filter filter = createFilter(walk, treeWalk, id);
+          synchronized (this) {
+            if (filters.addIfAbsent(filter) == filter) {
+              dirty = true;
+            }
+          }
+          indexed++;
+        }
+      }
+    }
+
+    save(repository, graph);
+    return complete;
+  }
+
+  /**
+   * Reads the index file of a repository, unless already read.
+   *
+   * @param repository Loaded repository.
+   *
+   * @return The index file or <code>null</code> if the cache is disabled.
+   */
+  synchronized File load(Repository repository) {
+    File file = CommitMetadataCache.getInstance().getCacheFile(repository, ".paths");
+    if (file != null && !file.equals(loadedFile)) {
+      filters = read(file);
+      loadedFile = file;
+      dirty = false;
+    }
+    return file;
+  }
+
+  /**
+   * Tells if all the cached commits are indexed. Until then, the trees of most commits would have
+   * to be compared to find the history of a resource.
+   *
+   * @param repository Loaded repository.
+   * @param graph      The cached commits.
+   *
+   * @return <code>true</code> if all the commits have a filter.
+   */
+  synchronized boolean covers(Repository repository, CommitGraph graph) {
+    if (load(repository) == null) {
+      return false;
+    }
+    for (int i = 0; i < graph.size(); i++) {
+      if (!filters.contains(graph.getId(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param commit A commit ID.
+   *
+   * @return <code>true</code> if the commit has a filter.
+   */
+  private synchronized boolean isIndexed(AnyObjectId commit) {
+    return filters.contains(commit);
+  }
+
+  /**
+   * Computes the filter of a commit.
+   *
+   * @param walk     Revision iterator.
+   * @param treeWalk Compares the tree of the commit with the one of its first parent.
+   * @param id       The commit ID.
+   *
+   * @return The filter.
+   *
+   * @throws IOException If the commit cannot be read.
+   */
+  private static Filter createFilter(RevWalk walk, TreeWalk treeWalk, ObjectId id) throws IOException {
+    RevCommit commit = walk.parseCommit(id);
+    if (commit.getParentCount() > 0) {
+      RevCommit parent = commit.getParent(0);
+      walk.parseHeaders(parent);
+      treeWalk.reset(parent.getTree(), commit.getTree());
+    } else {
+      treeWalk.reset(commit.getTree());
+    }
+
+    Set<String> paths = new HashSet<>();
+    while (treeWalk.next()) {
+      String path = treeWalk.getPathString();
+      paths.add(path);
+      for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+        if (!paths.add(path.substring(0, slash))) {
+          // The parents were already added.
+          break;
+        }
+      }
+      if (paths.size() > MAX_CHANGED_PATHS) {
+        return new Filter(id, null);
+      }
+    }
+
+    byte[] bits = new byte[(paths.size() * BITS_PER_PATH + Byte.SIZE - 1) / Byte.SIZE];
+    Filter filter = new Filter(id, bits);
+    for (String path : paths) {
+      filter.add(new PathKey(path));
+    }
+    return filter;
+  }
+
+  /**
+   * Saves the filters, if some were added. The filters of the commits that are no longer cached are dropped.
+   *
+   * @param repository Loaded repository.
+   * @param graph      The cached commits.
+   */
+  private synchronized void save(Repository repository, CommitGraph graph) {
+    File file = CommitMetadataCache.getInstance().getCacheFile(repository, ".paths");
+    if (!dirty || file == null || !file.equals(loadedFile)) {
+      // Nothing new, or the cache was disabled or moved meanwhile.
+      return;
+    }
+
+    ObjectIdOwnerMap<Filter> retained = new ObjectIdOwnerMap<>();
+    for (Iterator<Filter> it = filters.iterator(); it.hasNext();) {
+      Filter filter = it.next();
+      if (graph.indexOf(filter) >= 0) {
+        retained.add(filter);
+      }
+    }
+    filters = retained;
+
+    try {
+      write(file, filters);
+      dirty = false;
+    } catch (IOException e) {
+      logger.warn("Unable to save the changed paths index: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads an index file.
+   *
+   * @param file The file.
+   *
+   * @return The filters. Empty if the file doesn't exist or cannot be read.
+   */
+  private static ObjectIdOwnerMap<Filter> read(File file) {
+    ObjectIdOwnerMap<Filter> read = new ObjectIdOwnerMap<>();
+    if (file.isFile()) {
+      try {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buffer.getInt() == MAGIC && buffer.getInt() == VERSION) {
+          int count = buffer.getInt();
+          byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+          for (int i = 0; i < count; i++) {
+            buffer.get(id);
+            int length = buffer.getInt();
+            byte[] bits = null;
+            if (length >= 0) {
+              bits = new byte[length];
+              buffer.get(bits);
+            }
+            read.add(new Filter(ObjectId.fromRaw(id), bits));
+          }
+        }
+      } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+        logger.warn("Unable to read the changed paths index: " + e.getMessage(), e);
+        read = new ObjectIdOwnerMap<>();
+      }
+    }
+    return read;
+  }
+
+  /**
+   * Writes an index file. A temporary file is written first and then moved over the old one.
+   *
+   * @param file    The file.
+   * @param filters The filters.
+   *
+   * @throws IOException If it fails.
+   */
+  private static void write(File file, ObjectIdOwnerMap<Filter> filters) throws IOException {
+    File dir = file.getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Unable to create " + dir);
+    }
+
+    File temp = File.createTempFile("paths", ".tmp", dir);
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(filters.size());
+        for (Filter filter : filters) {
+          filter.copyRawTo(out);
+          if (filter.bits != null) {
+            out.writeInt(filter.bits.length);
+            out.write(filter.bits);
+          } else {
+            out.writeInt(-1);
+          }
+        }
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+  }
+
+  /**
+   * The hashes of a path, computed once and checked against many filters.
+   */
+  static final class PathKey {
+    /**
+     * The first hash.
+     */
+    private final int hash1;
+    /**
+     * The second hash, odd, added to the first one to get the other bit positions.
+     */
+    private final int hash2;
+
+    /**
+     * Constructor.
+     *
+     * @param path The path, relative to the working copy, with '/' as separator.
+     */
+    PathKey(String path) {
+      // 64 bits FNV-1a, split in two.
+      long hash = 0xcbf29ce484222325L;
+      for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+        hash ^= b & 0xff;
+        hash *= 0x100000001b3L;
+      }
+      hash1 = (int) hash;
+      hash2 = (int) (hash >>> 32) | 1;
+    }
+  }
+
+  /**
+   * The Bloom filter with the paths changed by a commit.
+   */
+  private static final class Filter extends ObjectIdOwnerMap.Entry {
+    /**
+     * The bits. <code>null</code> if the commit changed too many paths.
+     */
+    private final byte[] bits;
+
+    /**
+     * Constructor.
+     *
+     * @param id   The commit ID.
+     * @param bits The bits. <code>null</code> if the commit changed too many paths.
+     */
+    Filter(AnyObjectId id, byte[] bits) {
+      super(id);
+      this.bits = bits;
+    }
+
+    /**
+     * @param path A path.
+     */
+    void add(PathKey path) {
+      int bitCount = bits.length * Byte.SIZE;
+      for (int i = 0; i < HASH_COUNT; i++) {
+        int bit = Integer.remainderUnsigned(path.hash1 + i * path.hash2, bitCount);
+        bits[bit / Byte.SIZE] |= 1 << (bit % Byte.SIZE);
+      }
+    }
+
+    /**
+     * @param path A path.
+     *
+     * @return <code>false</code> if the path is certainly not in the filter.
+     */
+    boolean mightContain(PathKey path) {
+      if (bits.length == 0) {
+        return false;
+      }
+      int bitCount = bits.length * Byte.SIZE;
+      for (int i = 0; i < HASH_COUNT; i++) {
+        int bit = Integer.remainderUnsigned(path.hash1 + i * path.hash2, bitCount);
+        if ((bits[bit / Byte.SIZE] & (1 << (bit % Byte.SIZE))) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,1203 @@
+package com.oxygenxml.git.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+
+import ro.sync.exml.workspace.api.PluginWorkspace;
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+
+/**
+ * Persistent cache with the metadata of the commits: IDs, parents, authors, dates and messages.
+ * <br><br>
+ * The history is append-only, so the cache of a repository is read from disk once and then only
+ * extended with the commits reachable from new branch heads. Presenting the history of the current
+ * branch no longer parses every commit from the object database.
+ * <br><br>
+ * The cache is read, extended and saved in background. Until it contains the current branch heads,
+ * the history is walked as before.
+ * <br><br>
+ * The cache of a repository is a compact binary file in the preferences directory. It remembers the
+ * branch heads from which it was extended. When one of them is moved to a commit that doesn't descend
+ * from it (reset, rebase, forced fetch), the commits that are no longer reachable are dropped.
+ */
+public class CommitMetadataCache {
+  /**
+   * Logger for logging.
+   */
+  private static Logger logger = Logger.getLogger(CommitMetadataCache.class);
+  /**
+   * Identifies the cache files.
+   */
+  private static final int MAGIC = 0x4F584743;
+  /**
+   * Changes whenever the format of the cache files changes.
+   */
+  private static final int VERSION = 1;
+  /**
+   * The directory with the cache files, inside the preferences directory.
+   */
+  private static final String CACHE_DIR_NAME = "gitAddonCommitCache";
+
+  /**
+   * Singleton instance.
+   */
+  private static CommitMetadataCache instance;
+
+  /**
+   * The directory with the cache files. <code>null</code> if the cache is disabled.
+   */
+  private File cacheDir;
+  /**
+   * <code>true</code> after the cache directory was computed.
+   */
+  private boolean cacheDirResolved;
+  /**
+   * The file from which the current graph was read.
+   */
+  private File loadedFile;
+  /**
+   * The cached commits of the last used repository.
+   */
+  private CommitGraph graph;
+  /**
+   * <code>true</code> while an update of the cache is scheduled and didn't start yet.
+   */
+  private boolean updateScheduled;
+  /**
+   * Held while the cache is extended and saved.
+   */
+  private final Object updateLock = new Object();
+
+  /**
+   * Singleton private constructor.
+   */
+  private CommitMetadataCache() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized CommitMetadataCache getInstance() {
+    if (instance == null) {
+      instance = new CommitMetadataCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Sets the directory with the cache files.
+   *
+   * @param cacheDir The directory or <code>null</code> to disable the cache.
+   */
+  public synchronized void setCacheDir(File cacheDir) {
+    this.cacheDir = cacheDir;
+    this.cacheDirResolved = true;
+    this.loadedFile = null;
+    this.graph = null;
+  }
+
+  /**
+   * @return The directory with the cache files, in the preferences directory, or <code>null</code>
+   * if the cache is disabled.
+   */
+  private File getCacheDir() {
+    if (!cacheDirResolved) {
+      cacheDirResolved = true;
+      PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
+      String preferencesDir = pluginWorkspace != null ? pluginWorkspace.getPreferencesDirectory() : null;
+      if (preferencesDir != null && !Boolean.getBoolean(GitAddonSystemProperties.DISABLE_COMMIT_CACHE)) {
+        cacheDir = new File(preferencesDir, CACHE_DIR_NAME);
+      }
+    }
+    return cacheDir;
+  }
+
+  /**
+   * Gets the commits reachable from the given branch heads, in the order in which a {@link RevWalk}
+   * started from them returns them. Never waits for the cache to be read or extended: if it doesn't
+   * contain all the heads yet, it is read and extended in background and <code>null</code> is returned.
+   *
+   * @param repository Loaded repository.
+   * @param heads      The branch heads.
+   *
+   * @return The history or <code>null</code> if the cache is disabled or not ready yet.
+   */
+  public CachedHistory getHistory(Repository repository, List<Ref> heads) {
+    File file = getCacheFile(repository, ".bin");
+    if (file == null) {
+      return null;
+    }
+
+    CommitGraph current;
+    synchronized (this) {
+      current = file.equals(loadedFile) ? graph : null;
+    }
+
+    CachedHistory history = null;
+    boolean upToDate = current != null;
+    if (current != null) {
+      List<ObjectId> starts = new ArrayList<>(heads.size());
+      for (Ref head : heads) {
+        ObjectId tip = head.getObjectId();
+        if (tip != null) {
+          starts.add(tip);
+          if (current.indexOf(tip) < 0) {
+            // New commits.
+            starts = null;
+            break;
+          }
+          upToDate &= tip.equals(current.heads.get(head.getName()));
+        }
+      }
+      if (starts != null) {
+        history = new CachedHistory(current, current.walkOrder(starts));
+      }
+    }
+
+    if (history == null || !upToDate) {
+      // Reads, extends or saves the cache.
+      scheduleUpdate(repository, heads);
+    }
+    return history;
+  }
+
+  /**
+   * Updates the cache in background, unless an update is already scheduled.
+   *
+   * @param repository Loaded repository.
+   * @param heads      The branch heads.
+   */
+  private void scheduleUpdate(Repository repository, List<Ref> heads) {
+    synchronized (this) {
+      if (updateScheduled) {
+        return;
+      }
+      updateScheduled = true;
+    }
+
+    GitOperationScheduler.getInstance().scheduleBackground(() -> {
+      synchronized (this) {
+        updateScheduled = false;
+      }
+      try {
+        update(repository, heads);
+      } catch (IOException | RuntimeException e) {
+        logger.warn("Unable to update the commit cache: " + e.getMessage(), e);
+      }
+    }, 0);
+  }
+
+  /**
+   * Reads the cache file, unless already read, and extends the cache with the commits reachable from
+   * the given branch heads. The commits that are no longer reachable after a head was rewritten are
+   * dropped. The cache file is saved if anything changed.
+   *
+   * @param repository Loaded repository.
+   * @param heads      The branch heads.
+   *
+   * @throws IOException If the new commits cannot be read.
+   */
+  void update(Repository repository, List<Ref> heads) throws IOException {
+    File file = getCacheFile(repository, ".bin");
+    if (file == null) {
+      return;
+    }
+
+    // One update at a time. The readers are not blocked meanwhile.
+    synchronized (updateLock) {
+      CommitGraph current;
+      synchronized (this) {
+        current = file.equals(loadedFile) ? graph : null;
+      }
+      if (current == null) {
+        current = read(file);
+      }
+
+      CommitGraph updated = current;
+      Map<String, ObjectId> knownHeads = new LinkedHashMap<>(updated.heads);
+      boolean rewritten = false;
+      for (Ref head : heads) {
+        ObjectId tip = head.getObjectId();
+        if (tip != null) {
+          if (updated.indexOf(tip) < 0) {
+            updated = extend(updated, repository, tip);
+          }
+          ObjectId oldTip = knownHeads.put(head.getName(), tip.copy());
+          if (oldTip != null && !oldTip.equals(tip) && !updated.isAncestor(oldTip, tip)) {
+            rewritten = true;
+          }
+        }
+      }
+
+      if (rewritten) {
+        knownHeads.keySet().removeIf(name -> {
+          try {
+            return repository.exactRef(name) == null;
+          } catch (IOException e) {
+            return true;
+          }
+        });
+        updated = updated.retainReachable(knownHeads.values());
+      }
+
+      if (updated != current || !knownHeads.equals(current.heads)) {
+        updated = updated.withHeads(knownHeads);
+        try {
+          write(file, updated);
+        } catch (IOException e) {
+          logger.warn("Unable to save the commit cache: " + e.getMessage(), e);
+        }
+      }
+
+      synchronized (this) {
+        // Unless the cache was disabled or moved meanwhile.
+        if (file.equals(getCacheFile(repository, ".bin"))) {
+          graph = updated;
+          loadedFile = file;
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets a cache file of a repository.
+   *
+   * @param repository Loaded repository.
+   * @param extension  The extension of the file, which tells what it contains.
+   *
+   * @return The cache file or <code>null</code> if the cache is disabled.
+   */
+  synchronized File getCacheFile(Repository repository, String extension) {
+    File dir = getCacheDir();
+    if (dir == null) {
+      return null;
+    }
+    MessageDigest digest = Constants.newMessageDigest();
+    digest.update(repository.getDirectory().getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+    return new File(dir, ObjectId.fromRaw(digest.digest()).name() + extension);
+  }
+
+  /**
+   * Adds the commits reachable from a new head that are not already in the cache.
+   *
+   * @param graph      The cached commits.
+   * @param repository Loaded repository.
+   * @param tip        The new head.
+   *
+   * @return The extended cache.
+   *
+   * @throws IOException If the commits cannot be read.
+   */
+  private static CommitGraph extend(CommitGraph graph, Repository repository, ObjectId tip) throws IOException {
+    GraphBuilder builder = new GraphBuilder(graph);
+    List<RevCommit> added = new ArrayList<>();
+    try (RevWalk walk = new RevWalk(repository)) {
+      RevFlag seen = walk.newFlag("seen");
+      Deque<RevCommit> pending = new ArrayDeque<>();
+      RevCommit start = walk.parseCommit(tip);
+      start.add(seen);
+      pending.push(start);
+      while (!pending.isEmpty()) {
+        RevCommit commit = pending.pop();
+        walk.parseBody(commit);
+        builder.add(commit, commit.getAuthorIdent(), commit.getCommitterIdent(), commit.getFullMessage());
+        commit.disposeBody();
+        added.add(commit);
+
+        // Everything reachable from a cached commit is cached.
+        for (RevCommit parent : commit.getParents()) {
+          if (!parent.has(seen) && builder.indexOf(parent) < 0) {
+            walk.parseHeaders(parent);
+            parent.add(seen);
+            pending.push(parent);
+          }
+        }
+      }
+    }
+
+    for (RevCommit commit : added) {
+      RevCommit[] parents = commit.getParents();
+      int[] parentIndices = new int[parents.length];
+      for (int i = 0; i < parents.length; i++) {
+        parentIndices[i] = builder.indexOf(parents[i]);
+      }
+      builder.addParents(parentIndices);
+    }
+    return builder.build(graph.heads);
+  }
+
+  /**
+   * Reads a cache file.
+   *
+   * @param file The file.
+   *
+   * @return The cached commits. Empty if the file doesn't exist or cannot be read. A corrupted file is deleted.
+   */
+  private static CommitGraph read(File file) {
+    CommitGraph read = null;
+    if (file.isFile()) {
+      try {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buffer.getInt() == MAGIC && buffer.getInt() == VERSION) {
+          Map<String, ObjectId> heads = new LinkedHashMap<>();
+          int headCount = readCount(buffer, Integer.BYTES + Constants.OBJECT_ID_LENGTH);
+          for (int i = 0; i < headCount; i++) {
+            String name = readString(buffer);
+            byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+            buffer.get(id);
+            heads.put(name, ObjectId.fromRaw(id));
+          }
+          String[] strings = new String[readCount(buffer, Integer.BYTES)];
+          for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buffer);
+          }
+
+          int count = readCount(buffer, Constants.OBJECT_ID_LENGTH);
+          byte[] ids = new byte[count * Constants.OBJECT_ID_LENGTH];
+          buffer.get(ids);
+          int[] parentStart = readInts(buffer, count + 1);
+          int[] parents = readInts(buffer, parentStart[count]);
+          int[] authors = readInts(buffer, count);
+          int[] committers = readInts(buffer, count);
+          checkRemaining(buffer, count, Long.BYTES);
+          long[] authorTimes = new long[count];
+          buffer.asLongBuffer().get(authorTimes);
+          buffer.position(buffer.position() + count * Long.BYTES);
+          int[] commitTimes = readInts(buffer, count);
+          int[] messageStart = readInts(buffer, count + 1);
+          checkRemaining(buffer, messageStart[count], 1);
+          byte[] messages = new byte[messageStart[count]];
+          buffer.get(messages);
+
+          read = new CommitGraph(count, ids, parentStart, parents, authors, committers, authorTimes, commitTimes,
+              messageStart, messages, strings, heads);
+        }
+      } catch (IOException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+        logger.warn("Unable to read the commit cache: " + e.getMessage(), e);
+        try {
+          Files.deleteIfExists(file.toPath());
+        } catch (IOException ex) {
+          logger.debug(ex, ex);
+        }
+      }
+    }
+    return read != null ? read : new GraphBuilder(null).build(Collections.emptyMap());
+  }
+
+  /**
+   * Reads the number of elements that follow in a buffer.
+   *
+   * @param buffer      The buffer.
+   * @param elementSize The minimum size of an element, in bytes.
+   *
+   * @return The number of elements.
+   *
+   * @throws IllegalArgumentException If the buffer cannot contain that many elements.
+   */
+  private static int readCount(ByteBuffer buffer, int elementSize) {
+    int count = buffer.getInt();
+    checkRemaining(buffer, count, elementSize);
+    return count;
+  }
+
+  /**
+   * Checks that a buffer contains some elements, before allocating the memory for them.
+   *
+   * @param buffer      The buffer.
+   * @param count       The number of elements.
+   * @param elementSize The minimum size of an element, in bytes.
+   *
+   * @throws IllegalArgumentException If the buffer cannot contain that many elements.
+   */
+  private static void checkRemaining(ByteBuffer buffer, int count, int elementSize) {
+    if (count < 0 || (long) count * elementSize > buffer.remaining()) {
+      throw new IllegalArgumentException("Corrupted cache file, " + count + " elements expected.");
+    }
+  }
+
+  /**
+   * Reads integers from a buffer.
+   *
+   * @param buffer The buffer.
+   * @param count  The number of integers.
+   *
+   * @return The integers.
+   */
+  private static int[] readInts(ByteBuffer buffer, int count) {
+    checkRemaining(buffer, count, Integer.BYTES);
+    int[] ints = new int[count];
+    buffer.asIntBuffer().get(ints);
+    buffer.position(buffer.position() + count * Integer.BYTES);
+    return ints;
+  }
+
+  /**
+   * @param buffer The buffer.
+   *
+   * @return A string written with {@link #writeString(DataOutputStream, String)}.
+   */
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[readCount(buffer, 1)];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a cache file. A temporary file is written first and then moved over the old one.
+   *
+   * @param file  The file.
+   * @param graph The cached commits.
+   *
+   * @throws IOException If it fails.
+   */
+  private static void write(File file, CommitGraph graph) throws IOException {
+    File dir = file.getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Unable to create " + dir);
+    }
+
+    File temp = File.createTempFile("commits", ".tmp", dir);
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(graph.heads.size());
+        for (Map.Entry<String, ObjectId> head : graph.heads.entrySet()) {
+          writeString(out, head.getKey());
+          head.getValue().copyRawTo(out);
+        }
+        out.writeInt(graph.strings.length);
+        for (String string : graph.strings) {
+          writeString(out, string);
+        }
+
+        int count = graph.count;
+        out.writeInt(count);
+        out.write(graph.ids, 0, count * Constants.OBJECT_ID_LENGTH);
+        writeInts(out, graph.parentStart, count + 1);
+        writeInts(out, graph.parents, graph.parentStart[count]);
+        writeInts(out, graph.authors, count);
+        writeInts(out, graph.committers, count);
+        for (int i = 0; i < count; i++) {
+          out.writeLong(graph.authorTimes[i]);
+        }
+        writeInts(out, graph.commitTimes, count);
+        writeInts(out, graph.messageStart, count + 1);
+        out.write(graph.messages, 0, graph.messageStart[count]);
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+  }
+
+  /**
+   * Writes integers.
+   *
+   * @param out   The output.
+   * @param ints  The integers.
+   * @param count How many of them to write.
+   *
+   * @throws IOException If it fails.
+   */
+  private static void writeInts(DataOutputStream out, int[] ints, int count) throws IOException {
+    for (int i = 0; i < count; i++) {
+      out.writeInt(ints[i]);
+    }
+  }
+
+  /**
+   * Writes a string of any length.
+   *
+   * @param out    The output.
+   * @param string The string.
+   *
+   * @throws IOException If it fails.
+   */
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * The commits reachable from some branch heads, in the order of a {@link RevWalk}, or the ones
+   * that changed a resource. Their characteristics are created when requested.
+   */
+  public static final class CachedHistory extends AbstractList<CommitCharacteristics> {
+    /**
+     * The cached commits.
+     */
+    private final CommitGraph graph;
+    /**
+     * The indices of the commits in the graph, in the order of the history.
+     */
+    private final int[] order;
+    /**
+     * The indices of the parents of each commit, when they differ from the ones in the graph,
+     * like in the history of a resource. May be <code>null</code>.
+     */
+    private final int[][] parents;
+
+    /**
+     * Constructor.
+     *
+     * @param graph The cached commits.
+     * @param order The indices of the commits in the graph, in the order of the history.
+     */
+    CachedHistory(CommitGraph graph, int[] order) {
+      this(graph, order, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param graph   The cached commits.
+     * @param order   The indices of the commits in the graph, in the order of the history.
+     * @param parents The indices of the parents of each commit. <code>null</code> to use the ones in the graph.
+     */
+    CachedHistory(CommitGraph graph, int[] order, int[][] parents) {
+      this.graph = graph;
+      this.order = order;
+      this.parents = parents;
+    }
+
+    /**
+     * @return The cached commits.
+     */
+    CommitGraph getGraph() {
+      return graph;
+    }
+
+    @Override
+    public CommitCharacteristics get(int index) {
+      int i = order[index];
+      return graph.createCharacteristics(i, parents != null ? parents[index] : graph.getParents(i));
+    }
+
+    @Override
+    public int size() {
+      return order.length;
+    }
+
+    /**
+     * @param ids Commit IDs.
+     *
+     * @return <code>true</code> if the history starts with the given commits.
+     */
+    boolean startsWith(List<? extends AnyObjectId> ids) {
+      if (ids.size() > order.length) {
+        return false;
+      }
+      for (int i = 0; i < ids.size(); i++) {
+        if (!AnyObjectId.isEqual(graph.getId(order[i]), ids.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Gets the index of a commit.
+     *
+     * @param commitId The full or abbreviated ID of the commit.
+     *
+     * @return The index of the commit or <code>-1</code> if it's not in the history.
+     */
+    public int indexOfCommit(String commitId) {
+      if (AbbreviatedObjectId.isId(commitId)) {
+        AbbreviatedObjectId id = AbbreviatedObjectId.fromString(commitId);
+        for (int i = 0; i < order.length; i++) {
+          if (id.prefixCompare(graph.ids, order[i] * Constants.OBJECT_ID_LENGTH) == 0) {
+            return i;
+          }
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * The position of a commit in the graph.
+   */
+  private static final class Node extends ObjectIdOwnerMap.Entry {
+    /**
+     * The index of the commit.
+     */
+    private final int index;
+
+    /**
+     * Constructor.
+     *
+     * @param id    The commit ID.
+     * @param index The index of the commit.
+     */
+    Node(AnyObjectId id, int index) {
+      super(id);
+      this.index = index;
+    }
+  }
+
+  /**
+   * Immutable set of cached commits, closed under the parent relation: the parents of a cached commit
+   * are cached too. The commits are identified by their indices and stored column by column.
+   */
+  static final class CommitGraph {
+    /**
+     * The number of commits.
+     */
+    private final int count;
+    /**
+     * The raw IDs of the commits.
+     */
+    private final byte[] ids;
+    /**
+     * For each commit, the position in {@link #parents} of its first parent. One more entry marks the end.
+     */
+    private final int[] parentStart;
+    /**
+     * The indices of the parents.
+     */
+    private final int[] parents;
+    /**
+     * The authors, as indices in {@link #strings}.
+     */
+    private final int[] authors;
+    /**
+     * The committers, as indices in {@link #strings}.
+     */
+    private final int[] committers;
+    /**
+     * The author dates, in milliseconds.
+     */
+    private final long[] authorTimes;
+    /**
+     * The commit times, in seconds, which give the order of the history.
+     */
+    private final int[] commitTimes;
+    /**
+     * For each commit, the position in {@link #messages} of its message. One more entry marks the end.
+     */
+    private final int[] messageStart;
+    /**
+     * The UTF-8 encoded messages.
+     */
+    private final byte[] messages;
+    /**
+     * The authors and the committers.
+     */
+    private final String[] strings;
+    /**
+     * The branch heads from which the graph was extended, by full name.
+     */
+    private final Map<String, ObjectId> heads;
+    /**
+     * The commits, by ID.
+     */
+    private final ObjectIdOwnerMap<Node> index = new ObjectIdOwnerMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param count        The number of commits.
+     * @param ids          The raw IDs of the commits.
+     * @param parentStart  For each commit, the position of its first parent.
+     * @param parents      The indices of the parents.
+     * @param authors      The authors, as indices in the string table.
+     * @param committers   The committers, as indices in the string table.
+     * @param authorTimes  The author dates, in milliseconds.
+     * @param commitTimes  The commit times, in seconds.
+     * @param messageStart For each commit, the position of its message.
+     * @param messages     The UTF-8 encoded messages.
+     * @param strings      The string table.
+     * @param heads        The branch heads from which the graph was extended.
+     */
+    @SuppressWarnings("java:S107")
+    CommitGraph(int count, byte[] ids, int[] parentStart, int[] parents, int[] authors, int[] committers,
+        long[] authorTimes, int[] commitTimes, int[] messageStart, byte[] messages, String[] strings,
+        Map<String, ObjectId> heads) {
+      this.count = count;
+      this.ids = ids;
+      this.parentStart = parentStart;
+      this.parents = parents;
+      this.authors = authors;
+      this.committers = committers;
+      this.authorTimes = authorTimes;
+      this.commitTimes = commitTimes;
+      this.messageStart = messageStart;
+      this.messages = messages;
+      this.strings = strings;
+      this.heads = Collections.unmodifiableMap(new LinkedHashMap<>(heads));
+      for (int i = 0; i < count; i++) {
+        index.add(new Node(getId(i), i));
+      }
+    }
+
+    /**
+     * @param heads The branch heads from which the graph was extended.
+     *
+     * @return The same commits, with other heads.
+     */
+    CommitGraph withHeads(Map<String, ObjectId> heads) {
+      return new CommitGraph(count, ids, parentStart, parents, authors, committers, authorTimes, commitTimes,
+          messageStart, messages, strings, heads);
+    }
+
+    /**
+     * @return The number of commits.
+     */
+    int size() {
+      return count;
+    }
+
+    /**
+     * @param i The index of a commit.
+     *
+     * @return The ID of the commit.
+     */
+    ObjectId getId(int i) {
+      return ObjectId.fromRaw(ids, i * Constants.OBJECT_ID_LENGTH);
+    }
+
+    /**
+     * @param id A commit ID.
+     *
+     * @return The index of the commit or <code>-1</code> if it's not cached.
+     */
+    int indexOf(AnyObjectId id) {
+      Node node = index.get(id);
+      return node != null ? node.index : -1;
+    }
+
+    /**
+     * @param i The index of a commit.
+     *
+     * @return The message of the commit, UTF-8 encoded.
+     */
+    private byte[] getMessageBytes(int i) {
+      return Arrays.copyOfRange(messages, messageStart[i], messageStart[i + 1]);
+    }
+
+    /**
+     * @param i The index of a commit.
+     *
+     * @return The indices of its parents.
+     */
+    int[] getParents(int i) {
+      return Arrays.copyOfRange(parents, parentStart[i], parentStart[i + 1]);
+    }
+
+    /**
+     * @param i The index of a commit.
+     *
+     * @return Its commit time, in seconds.
+     */
+    int getCommitTime(int i) {
+      return commitTimes[i];
+    }
+
+    /**
+     * Creates the characteristics of a commit.
+     *
+     * @param i             The index of the commit.
+     * @param parentIndices The indices of the parents to present.
+     *
+     * @return The characteristics.
+     */
+    CommitCharacteristics createCharacteristics(int i, int[] parentIndices) {
+      ObjectId id = getId(i);
+      List<String> parentIds = null;
+      if (parentIndices.length > 0) {
+        parentIds = new ArrayList<>(parentIndices.length);
+        for (int parent : parentIndices) {
+          parentIds.add(getId(parent).abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name());
+        }
+      }
+      String message = new String(messages, messageStart[i], messageStart[i + 1] - messageStart[i],
+          StandardCharsets.UTF_8);
+      return new CommitCharacteristics(message, new Date(authorTimes[i]), strings[authors[i]],
+          id.abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name(), id.name(), strings[committers[i]],
+          parentIds);
+    }
+
+    /**
+     * Tells if a commit is an ancestor of another one.
+     *
+     * @param ancestor The possible ancestor.
+     * @param commit   The commit.
+     *
+     * @return <code>true</code> if both are cached and the first one is reachable from the second one.
+     */
+    boolean isAncestor(AnyObjectId ancestor, AnyObjectId commit) {
+      int target = indexOf(ancestor);
+      int start = indexOf(commit);
+      if (target < 0 || start < 0) {
+        return false;
+      }
+
+      BitSet seen = new BitSet(count);
+      Deque<Integer> pending = new ArrayDeque<>();
+      pending.push(start);
+      seen.set(start);
+      while (!pending.isEmpty()) {
+        int current = pending.pop();
+        if (current == target) {
+          return true;
+        }
+        for (int p = parentStart[current]; p < parentStart[current + 1]; p++) {
+          if (!seen.get(parents[p])) {
+            seen.set(parents[p]);
+            pending.push(parents[p]);
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Creates the queue of the commits to walk, ordered like in a {@link RevWalk}: the most recent
+     * commit time first and, for the same commit time, the order in which they were reached.
+     *
+     * @return The queue. Its entries are {commit index, the order in which the commit was reached}.
+     */
+    PriorityQueue<int[]> createWalkQueue() {
+      return new PriorityQueue<>((a, b) -> {
+        int result = Integer.compare(commitTimes[b[0]], commitTimes[a[0]]);
+        return result != 0 ? result : Integer.compare(a[1], b[1]);
+      });
+    }
+
+    /**
+     * Computes the order in which a {@link RevWalk} returns the commits: the most recent commit time
+     * first and, for the same commit time, the order in which they were reached.
+     *
+     * @param starts The commits from which the walk starts.
+     *
+     * @return The indices of the commits, in order.
+     */
+    int[] walkOrder(List<? extends AnyObjectId> starts) {
+      PriorityQueue<int[]> pending = createWalkQueue();
+      BitSet seen = new BitSet(count);
+      int reached = 0;
+      for (AnyObjectId start : starts) {
+        int i = indexOf(start);
+        if (i >= 0 && !seen.get(i)) {
+          seen.set(i);
+          pending.add(new int[] {i, reached++});
+        }
+      }
+
+      int[] order = new int[count];
+      int size = 0;
+      while (!pending.isEmpty()) {
+        int current = pending.poll()[0];
+        order[size++] = current;
+        for (int p = parentStart[current]; p < parentStart[current + 1]; p++) {
+          if (!seen.get(parents[p])) {
+            seen.set(parents[p]);
+            pending.add(new int[] {parents[p], reached++});
+          }
+        }
+      }
+      return Arrays.copyOf(order, size);
+    }
+
+    /**
+     * Drops the commits that are not reachable from the given heads.
+     *
+     * @param tips The heads.
+     *
+     * @return The reachable commits.
+     */
+    CommitGraph retainReachable(Collection<ObjectId> tips) {
+      BitSet reachable = new BitSet(count);
+      Deque<Integer> pending = new ArrayDeque<>();
+      for (ObjectId tip : tips) {
+        int i = indexOf(tip);
+        if (i >= 0 && !reachable.get(i)) {
+          reachable.set(i);
+          pending.push(i);
+        }
+      }
+      while (!pending.isEmpty()) {
+        int current = pending.pop();
+        for (int p = parentStart[current]; p < parentStart[current + 1]; p++) {
+          if (!reachable.get(parents[p])) {
+            reachable.set(parents[p]);
+            pending.push(parents[p]);
+          }
+        }
+      }
+
+      GraphBuilder builder = new GraphBuilder(null);
+      int[] newIndices = new int[count];
+      for (Iterator<Integer> it = reachable.stream().iterator(); it.hasNext();) {
+        int i = it.next();
+        newIndices[i] = builder.add(getId(i), strings[authors[i]], strings[committers[i]], authorTimes[i],
+            commitTimes[i], getMessageBytes(i));
+      }
+      for (Iterator<Integer> it = reachable.stream().iterator(); it.hasNext();) {
+        int i = it.next();
+        int[] parentIndices = new int[parentStart[i + 1] - parentStart[i]];
+        for (int p = 0; p < parentIndices.length; p++) {
+          parentIndices[p] = newIndices[parents[parentStart[i] + p]];
+        }
+        builder.addParents(parentIndices);
+      }
+      return builder.build(heads);
+    }
+  }
+
+  /**
+   * Builds a graph by appending commits to an existing one. The commits are added first and then
+   * their parents, in the same order.
+   */
+  private static final class GraphBuilder {
+    /**
+     * The number of commits.
+     */
+    private int count;
+    /**
+     * The raw IDs of the commits.
+     */
+    private byte[] ids;
+    /**
+     * The authors, as indices in the string table.
+     */
+    private int[] authors;
+    /**
+     * The committers, as indices in the string table.
+     */
+    private int[] committers;
+    /**
+     * The author dates, in milliseconds.
+     */
+    private long[] authorTimes;
+    /**
+     * The commit times, in seconds.
+     */
+    private int[] commitTimes;
+    /**
+     * For each commit, the position of its message. One more entry marks the end.
+     */
+    private int[] messageStart;
+    /**
+     * The UTF-8 encoded messages.
+     */
+    private byte[] messages;
+    /**
+     * The number of commits whose parents were added.
+     */
+    private int parentsCount;
+    /**
+     * For each commit, the position of its first parent. One more entry marks the end.
+     */
+    private int[] parentStart;
+    /**
+     * The indices of the parents.
+     */
+    private int[] parents;
+    /**
+     * The string table.
+     */
+    private final List<String> strings;
+    /**
+     * The index of each string in the table.
+     */
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    /**
+     * The commits, by ID.
+     */
+    private final ObjectIdOwnerMap<Node> index = new ObjectIdOwnerMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param base The graph to extend. May be <code>null</code>.
+     */
+    GraphBuilder(CommitGraph base) {
+      if (base != null) {
+        count = base.count;
+        parentsCount = base.count;
+        ids = Arrays.copyOf(base.ids, Math.max(16, count * 2) * Constants.OBJECT_ID_LENGTH);
+        authors = Arrays.copyOf(base.authors, Math.max(16, count * 2));
+        committers = Arrays.copyOf(base.committers, authors.length);
+        authorTimes = Arrays.copyOf(base.authorTimes, authors.length);
+        commitTimes = Arrays.copyOf(base.commitTimes, authors.length);
+        messageStart = Arrays.copyOf(base.messageStart, authors.length + 1);
+        parentStart = Arrays.copyOf(base.parentStart, authors.length + 1);
+        messages = Arrays.copyOf(base.messages, Math.max(1024, base.messages.length * 2));
+        parents = Arrays.copyOf(base.parents, Math.max(16, base.parents.length * 2));
+        strings = new ArrayList<>(Arrays.asList(base.strings));
+        for (int i = 0; i < strings.size(); i++) {
+          stringIndices.put(strings.get(i), i);
+        }
+        for (int i = 0; i < count; i++) {
+          index.add(new Node(base.getId(i), i));
+        }
+      } else {
+        ids = new byte[16 * Constants.OBJECT_ID_LENGTH];
+        authors = new int[16];
+        committers = new int[16];
+        authorTimes = new long[16];
+        commitTimes = new int[16];
+        messageStart = new int[17];
+        parentStart = new int[17];
+        messages = new byte[1024];
+        parents = new int[16];
+        strings = new ArrayList<>();
+      }
+    }
+
+    /**
+     * @param id A commit ID.
+     *
+     * @return The index of the commit or <code>-1</code> if it was not added.
+     */
+    int indexOf(AnyObjectId id) {
+      Node node = index.get(id);
+      return node != null ? node.index : -1;
+    }
+
+    /**
+     * Adds a commit.
+     *
+     * @param commit    The commit.
+     * @param author    Its author.
+     * @param committer Its committer.
+     * @param message   Its message.
+     *
+     * @return The index of the commit.
+     */
+    int add(RevCommit commit, PersonIdent author, PersonIdent committer, String message) {
+      return add(commit, author.getName() + " <" + author.getEmailAddress() + ">", committer.getName(),
+          author.getWhen().getTime(), commit.getCommitTime(), message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds a commit.
+     *
+     * @param id         The commit ID.
+     * @param author     Its author, with the e-mail address.
+     * @param committer  The name of its committer.
+     * @param authorTime The author date, in milliseconds.
+     * @param commitTime The commit time, in seconds.
+     * @param message    Its UTF-8 encoded message.
+     *
+     * @return The index of the commit.
+     */
+    @SuppressWarnings("java:S107")
+    int add(AnyObjectId id, String author, String committer, long authorTime, int commitTime, byte[] message) {
+      if (count == authors.length) {
+        int capacity = count * 2;
+        ids = Arrays.copyOf(ids, capacity * Constants.OBJECT_ID_LENGTH);
+        authors = Arrays.copyOf(authors, capacity);
+        committers = Arrays.copyOf(committers, capacity);
+        authorTimes = Arrays.copyOf(authorTimes, capacity);
+        commitTimes = Arrays.copyOf(commitTimes, capacity);
+        messageStart = Arrays.copyOf(messageStart, capacity + 1);
+        parentStart = Arrays.copyOf(parentStart, capacity + 1);
+      }
+      int messageEnd = messageStart[count] + message.length;
+      if (messageEnd > messages.length) {
+        messages = Arrays.copyOf(messages, Math.max(messageEnd, messages.length * 2));
+      }
+
+      int i = count++;
+      id.copyRawTo(ids, i * Constants.OBJECT_ID_LENGTH);
+      authors[i] = getStringIndex(author);
+      committers[i] = getStringIndex(committer);
+      authorTimes[i] = authorTime;
+      commitTimes[i] = commitTime;
+      System.arraycopy(message, 0, messages, messageStart[i], message.length);
+      messageStart[i + 1] = messageEnd;
+      index.add(new Node(id, i));
+      return i;
+    }
+
+    /**
+     * Adds the parents of the next commit.
+     *
+     * @param parentIndices The indices of the parents.
+     */
+    void addParents(int[] parentIndices) {
+      int start = parentStart[parentsCount];
+      if (start + parentIndices.length > parents.length) {
+        parents = Arrays.copyOf(parents, Math.max(start + parentIndices.length, parents.length * 2));
+      }
+      System.arraycopy(parentIndices, 0, parents, start, parentIndices.length);
+      parentStart[++parentsCount] = start + parentIndices.length;
+    }
+
+    /**
+     * @param string A string.
+     *
+     * @return Its index in the string table.
+     */
+    private int getStringIndex(String string) {
+      return stringIndices.computeIfAbsent(string, s -> {
+        strings.add(s);
+        return strings.size() - 1;
+      });
+    }
+
+    /**
+     * @param heads The branch heads from which the graph was extended.
+     *
+     * @return The graph.
+     */
+    CommitGraph build(Map<String, ObjectId> heads) {
+      return new CommitGraph(count,
+          Arrays.copyOf(ids, count * Constants.OBJECT_ID_LENGTH),
+          Arrays.copyOf(parentStart, count + 1),
+          Arrays.copyOf(parents, parentStart[count]),
+          Arrays.copyOf(authors, count),
+          Arrays.copyOf(committers, count),
+          Arrays.copyOf(authorTimes, count),
+          Arrays.copyOf(commitTimes, count),
+          Arrays.copyOf(messageStart, count + 1),
+          Arrays.copyOf(messages, messageStart[count]),
+          strings.toArray(new String[0]),
+          heads);
+    }
+  }
+}
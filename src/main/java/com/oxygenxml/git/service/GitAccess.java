@@ -13,12 +13,14 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.log4j.Logger;
 import org.apache.sshd.common.SshConstants;
@@ -31,7 +33,6 @@ import org.eclipse.jgit.api.CreateBranchCommand;
 import org.eclipse.jgit.api.DeleteBranchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand.ListMode;
-import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.MergeResult.MergeStatus;
 import org.eclipse.jgit.api.PullCommand;
@@ -62,7 +63,6 @@ import org.eclipse.jgit.errors.NoWorkTreeException;
 import org.eclipse.jgit.errors.RevisionSyntaxException;
 import org.eclipse.jgit.internal.JGitText;
 import org.eclipse.jgit.lib.AnyObjectId;
-import org.eclipse.jgit.lib.BranchTrackingStatus;
 import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Constants;
@@ -98,6 +98,7 @@ import com.oxygenxml.git.auth.AuthExceptionMessagePresenter;
 import com.oxygenxml.git.auth.AuthUtil;
 import com.oxygenxml.git.auth.AuthenticationInterceptor;
 import com.oxygenxml.git.auth.SSHCapableUserCredentialsProvider;
+import com.oxygenxml.git.metrics.OperationMetrics;
 import com.oxygenxml.git.options.OptionsManager;
 import com.oxygenxml.git.options.UserCredentials;
 import com.oxygenxml.git.service.entities.FileStatus;
@@ -113,6 +114,7 @@ import com.oxygenxml.git.view.event.GitOperation;
 import com.oxygenxml.git.view.event.PullType;
 import com.oxygenxml.git.view.event.WorkingCopyGitEventInfo;
 import com.oxygenxml.git.view.history.CommitCharacteristics;
+import com.oxygenxml.git.view.history.CommitsAheadAndBehind;
 
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
 import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
@@ -308,17 +310,24 @@ public class GitAccess {
    */
   private void openRepository(String path) throws IOException {
     final File repo = new File(path + "/.git");
-    if (!isCurrentRepo(repo) ) {
-      File workingCopy = repo.getParentFile();
-      fireOperationAboutToStart(new WorkingCopyGitEventInfo(GitOperation.OPEN_WORKING_COPY, workingCopy));
-      closeRepo();
-      try {
-        git = Git.open(repo);
-        repositoryOpened(workingCopy);
-      } catch (IOException e) {
-        fireOperationFailed(new WorkingCopyGitEventInfo(GitOperation.OPEN_WORKING_COPY, workingCopy), e);
-        throw e;
+    // The queries must not see a half switched repository.
+    Lock lock = GitOperationScheduler.getInstance().getRepositoryWriteLock();
+    lock.lock();
+    try {
+      if (!isCurrentRepo(repo) ) {
+        File workingCopy = repo.getParentFile();
+        fireOperationAboutToStart(new WorkingCopyGitEventInfo(GitOperation.OPEN_WORKING_COPY, workingCopy));
+        closeRepo();
+        try {
+          git = Git.open(repo);
+          repositoryOpened(workingCopy);
+        } catch (IOException e) {
+          fireOperationFailed(new WorkingCopyGitEventInfo(GitOperation.OPEN_WORKING_COPY, workingCopy), e);
+          throw e;
+        }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -457,20 +466,95 @@ public class GitAccess {
 	 * @return A status of the Working Copy, with the unstaged and staged files.
 	 */
 	public GitStatus getStatus() {
+	  return getStatus(Collections.<String>emptyList());
+	}
+	
+	/**
+	 * Computes the status of a subset of the Working Copy with a single status command.
+	 * 
+	 * @param paths The paths of interest (files or folders). An empty collection means the entire working copy.
+	 * 
+	 * @return A status of the given paths, with the unstaged and staged files. An empty status if it
+	 * cannot be computed.
+	 */
+	public GitStatus getStatus(Collection<String> paths) {
 	  GitStatus gitStatus = null;
-	  if (git != null) {
-	    try {
+	  try {
+	    gitStatus = computeStatus(paths);
+	  } catch (NoRepositorySelected e) {
+	    logger.debug(e, e);
+	  } catch (GitAPIException e) {
+	    logger.error(e, e);
+	  }
+    return gitStatus != null ? gitStatus 
+        : new GitStatus(Collections.emptyList(),Collections.emptyList());
+  }
+	
+	/**
+	 * Computes the status of a subset of the Working Copy with a single status command.
+	 * 
+	 * @param paths The paths of interest (files or folders). An empty collection means the entire working copy.
+	 * 
+	 * @return A status of the given paths, with the unstaged and staged files. Never <code>null</code>.
+	 * 
+	 * @throws NoRepositorySelected If there is no repository loaded.
+	 * @throws GitAPIException If the status cannot be computed.
+	 */
+	GitStatus computeStatus(Collection<String> paths) throws NoRepositorySelected, GitAPIException {
+	  if (git == null) {
+	    throw new NoRepositorySelected("Repository is empty");
+	  }
+	  long start = System.nanoTime();
+	  try {
+	    GitStatus gitStatus = null;
+	    if (paths.isEmpty() && OptionsManager.getInstance().isParallelStatusEnabled()) {
+	      gitStatus = getStatusInParallel();
+	    }
+	    if (gitStatus == null) {
 	      logger.debug("-- Compute our GitStatus -> getStatus() --");
-	      Status status = git.status().call();
+	      StatusCommand statusCmd = git.status();
+	      for (Iterator<String> iterator = paths.iterator(); iterator.hasNext();) {
+	        statusCmd.addPath(iterator.next());
+	      }
+	      Status status = statusCmd.call();
 	      logger.debug("-- Get JGit status -> git.status().call() --");
 	      gitStatus = new GitStatus(getUnstagedFiles(status), getStagedFiles(status));
-	    } catch (GitAPIException e) {
-	      logger.error(e, e);
 	    }
+	    return gitStatus;
+	  } finally {
+	    OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_STATUS, start);
 	  }
-    return gitStatus != null ? gitStatus 
-        : new GitStatus(Collections.emptyList(),Collections.emptyList());
-  }
+	}
+	
+	/**
+	 * Computes the status of the entire Working Copy using multiple threads, if the index
+	 * has enough files to make it worthwhile.
+	 * 
+	 * @return The status or <code>null</code> if it should be computed serially.
+	 */
+	private GitStatus getStatusInParallel() {
+	  GitStatus gitStatus = null;
+	  try {
+	    Repository repository = git.getRepository();
+	    DirCache dirCache = repository.readDirCache();
+	    if (dirCache.getEntryCount() >= OptionsManager.getInstance().getParallelStatusThreshold()) {
+	      List<Status> partialStatuses = ParallelStatus.compute(repository, dirCache);
+	      if (!partialStatuses.isEmpty()) {
+	        // The submodules are reported by each partition.
+	        Set<FileStatus> unstagedFiles = new LinkedHashSet<>();
+	        List<FileStatus> stagedFiles = new ArrayList<>();
+	        for (Status status : partialStatuses) {
+	          unstagedFiles.addAll(getUnstagedFiles(status));
+	          stagedFiles.addAll(getStagedFiles(status));
+	        }
+	        gitStatus = new GitStatus(new ArrayList<>(unstagedFiles), stagedFiles);
+	      }
+	    }
+	  } catch (IOException e) {
+	    logger.error(e, e);
+	  }
+	  return gitStatus;
+	}
 	
 	/**
    * Makes a diff between the files from the last commit and the files from the
@@ -527,13 +611,14 @@ public class GitAccess {
 		List<FileStatus> unstagedFiles = new ArrayList<>();
 		if (git != null) {
 			try {
-				Set<String> submodules = getSubmodules();
-        addSubmodulesToUnstaged(unstagedFiles, submodules);
+				Map<String, SubmoduleStatus> submoduleStatuses = SubmoduleStatusCache.getInstance().getStatuses();
+				Set<String> submodules = submoduleStatuses.keySet();
+        addSubmodulesToUnstaged(unstagedFiles, submoduleStatuses);
 				addUntrackedFilesToUnstaged(status, unstagedFiles, submodules);
         addModifiedFilesToUnstaged(status, unstagedFiles, submodules);
         addMissingFilesToUnstaged(status, unstagedFiles, submodules);
 				addConflictingFilesToUnstaged(status, unstagedFiles);
-			} catch (NoWorkTreeException | GitAPIException e1) {
+			} catch (NoWorkTreeException e1) {
 			  logger.error(e1, e1);
 			}
 		}
@@ -616,21 +701,18 @@ public class GitAccess {
   /**
    * Add submodules to the list of resources that are not staged.
    * 
-   * @param unstagedFiles The list of unstaged (not in the INDEX) files.
-   * @param submodules    The set of submodules.
-   * 
-	 * @throws GitAPIException When an error occurs when trying to check the
-	 *                         submodules status.
+   * @param unstagedFiles     The list of unstaged (not in the INDEX) files.
+   * @param submoduleStatuses The status of each submodule.
    */
-  private void addSubmodulesToUnstaged(List<FileStatus> unstagedFiles, Set<String> submodules) throws GitAPIException {
+  private void addSubmodulesToUnstaged(List<FileStatus> unstagedFiles, Map<String, SubmoduleStatus> submoduleStatuses) {
     if (logger.isDebugEnabled()) {
-      logger.debug("addSubmodulesToUnstaged " + submodules);
+      logger.debug("addSubmodulesToUnstaged " + submoduleStatuses.keySet());
     }
-    for (String string : submodules) {
-    	SubmoduleStatus submoduleStatus = git.submoduleStatus().call().get(string);
-			if (submoduleStatus != null && submoduleStatus.getHeadId() != null
+    for (Map.Entry<String, SubmoduleStatus> entry : submoduleStatuses.entrySet()) {
+    	SubmoduleStatus submoduleStatus = entry.getValue();
+			if (submoduleStatus.getHeadId() != null
     	    && !submoduleStatus.getHeadId().equals(submoduleStatus.getIndexId())) {
-    		unstagedFiles.add(new FileStatus(GitChangeType.SUBMODULE, string));
+    		unstagedFiles.add(new FileStatus(GitChangeType.SUBMODULE, entry.getKey()));
     	}
     }
   }
@@ -646,14 +728,10 @@ public class GitAccess {
 	 */
 	public ObjectId submoduleCompare(String submodulePath, boolean index) {
 	  ObjectId objID = null;
-		try {
-			SubmoduleStatus submoduleStatus = git.submoduleStatus().addPath(submodulePath).call().get(submodulePath);
-			if (submoduleStatus != null) {
-			  objID = index ? submoduleStatus.getIndexId() : submoduleStatus.getHeadId();
-			}
-		} catch (GitAPIException e) {
-		  logger.error(e, e);
-		}
+	  SubmoduleStatus submoduleStatus = SubmoduleStatusCache.getInstance().getStatus(submodulePath);
+	  if (submoduleStatus != null) {
+	    objID = index ? submoduleStatus.getIndexId() : submoduleStatus.getHeadId();
+	  }
 		return objID;
 	}
 
@@ -663,14 +741,7 @@ public class GitAccess {
 	 * @return a list containing all the submodules
 	 */
 	public Set<String> getSubmodules() {
-		try {
-			if (git != null) {
-				return git.submoduleStatus().call().keySet();
-			}
-		} catch (GitAPIException e) {
-		  logger.error(e, e);
-		}
-		return new HashSet<>();
+	  return new HashSet<>(SubmoduleStatusCache.getInstance().getSubmodules());
 	}
 
 	/**
@@ -781,11 +852,19 @@ public class GitAccess {
 	 * Frees resources associated with the git instance.
 	 */
 	public void closeRepo() {
-		if (git != null) {
-		  AuthenticationInterceptor.unbind(getHostName());
-			git.close();
-			git = null;
-		}
+	  Lock lock = GitOperationScheduler.getInstance().getRepositoryWriteLock();
+	  lock.lock();
+	  try {
+	    if (git != null) {
+	      AuthenticationInterceptor.unbind(getHostName());
+	      git.close();
+	      git = null;
+	    }
+	    // Release the submodule repositories.
+	    SubmoduleStatusCache.getInstance().invalidate();
+	  } finally {
+	    lock.unlock();
+	  }
 	}
 
 	/**
@@ -979,14 +1058,15 @@ public class GitAccess {
 	    return response;
 	  }
 	  
-	  if (getPullsBehind() > 0) {
-	    response.setStatus(org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD);
-	    response.setMessage(translator.getTranslation(Tags.BRANCH_BEHIND));
-	    return response;
-	  }
-	  
     try {
-      if (getPushesAhead() == 0) {
+      // Both counts from the same walks.
+      CommitsAheadAndBehind aheadAndBehind = getCommitsAheadAndBehind();
+      if (aheadAndBehind != null && aheadAndBehind.getBehindCount() > 0) {
+        response.setStatus(org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD);
+        response.setMessage(translator.getTranslation(Tags.BRANCH_BEHIND));
+        return response;
+      }
+      if (aheadAndBehind == null || aheadAndBehind.getAheadCount() == 0) {
         response.setStatus(org.eclipse.jgit.transport.RemoteRefUpdate.Status.UP_TO_DATE);
         response.setMessage(translator.getTranslation(Tags.PUSH_UP_TO_DATE));
         return response;
@@ -1446,7 +1526,7 @@ public class GitAccess {
 	 */
   private List<FileStatus> getStagedFiles(Status status) {
     List<FileStatus> stagedFiles = new ArrayList<>();
-    Set<String> submodules = getSubmodules();
+    Set<String> submodules = SubmoduleStatusCache.getInstance().getSubmodules();
 
     for (String fileName : status.getChanged()) {
       // File from INDEX, modified from HEAD
@@ -1483,11 +1563,7 @@ public class GitAccess {
 	 */
 	public Set<String> getConflictingFiles() {
 		if (git != null) {
-			try {
-				return git.status().call().getConflicting();
-			} catch (GitAPIException e) {
-			  logger.error(e, e);
-			}
+		  return StatusCache.getInstance().getSnapshot().getConflictingFiles();
 		}
 		return Collections.emptySet();
 	}
@@ -1675,55 +1751,61 @@ public class GitAccess {
 	}
 
 	/**
-	 * Calculates how many commits the local repository is ahead from the current
-	 * local repository base commit
+	 * Computes the commits ahead and behind the upstream branch, for the current branch. Both sides
+	 * are computed at once, so use it when both counts are needed.
 	 * 
-	 * @return the number of commits ahead
+	 * @return the commits ahead and behind or <code>null</code> if there is no current branch. 
 	 * 
-	 * @throws RepoNotInitializedException when the remote repo has not been initialized.
+	 * @throws RepoNotInitializedException when the current branch has no upstream branch.
 	 */
-	public int getPushesAhead() throws RepoNotInitializedException {
-		int numberOfCommits = 0;
-		
+	public CommitsAheadAndBehind getCommitsAheadAndBehind() throws RepoNotInitializedException {
+	  CommitsAheadAndBehind aheadAndBehind = null;
 	  try {
 	    String branchName = getBranchInfo().getBranchName();
 	    if (branchName != null && branchName.length() > 0) {
-	      BranchTrackingStatus bts = BranchTrackingStatus.of(getRepository(), branchName);
-	      if (bts != null) {
-	        numberOfCommits = bts.getAheadCount();
-	      } else {
+	      aheadAndBehind = RevCommitUtil.getCommitsAheadAndBehind(getRepository(), branchName);
+	      if (aheadAndBehind == null) {
 	        throw new RepoNotInitializedException();
 	      }
 	    }
 	  } catch (IOException | NoRepositorySelected e) {
 	    logger.error(e, e);
 	  }
-	  
-	  return numberOfCommits;
+	  return aheadAndBehind;
+	}
+
+	/**
+	 * Calculates how many commits the local repository is ahead from the current
+	 * local repository base commit
+	 * 
+	 * @return the number of commits ahead. If there are more than {@link RevCommitUtil#AHEAD_BEHIND_LIMIT}
+	 * commits, the limit plus one.
+	 * 
+	 * @throws RepoNotInitializedException when the remote repo has not been initialized.
+	 */
+	public int getPushesAhead() throws RepoNotInitializedException {
+	  CommitsAheadAndBehind aheadAndBehind = getCommitsAheadAndBehind();
+	  return aheadAndBehind != null ? aheadAndBehind.getAheadCount() : 0;
 	}
 
 	/**
 	 * Calculates how many commits the remote repository is ahead from the local
 	 * repository base commit
 	 * 
-	 * @return the number of commits the remote is ahead
+	 * @return the number of commits the remote is ahead. If there are more than 
+	 * {@link RevCommitUtil#AHEAD_BEHIND_LIMIT} commits, the limit plus one.
 	 */
 	public int getPullsBehind() {
 	  int numberOfCommits = 0;
-
 	  try {
-	    String branchName = getBranchInfo().getBranchName();
-	    if (branchName != null && branchName.length() > 0) {
-	      BranchTrackingStatus bts = BranchTrackingStatus.of(getRepository(), branchName);
-	      if (bts != null) {
-	        numberOfCommits = bts.getBehindCount();
-	      }
+	    CommitsAheadAndBehind aheadAndBehind = getCommitsAheadAndBehind();
+	    if (aheadAndBehind != null) {
+	      numberOfCommits = aheadAndBehind.getBehindCount();
 	    }
-	  } catch (IOException | NoRepositorySelected e) {
-	    logger.error(e, e);
+	  } catch (RepoNotInitializedException e) {
+	    // No upstream branch, nothing to pull.
 	  }
-
-		return numberOfCommits;
+	  return numberOfCommits;
 	}
 
 	/**
@@ -1735,6 +1817,20 @@ public class GitAccess {
 	 */
 	public void fetch()
 			throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+	  fetch(Constants.DEFAULT_REMOTE_NAME);
+	}
+
+	/**
+	 * Brings all the commits from the given remote to the local repository but does not merge them.
+	 * 
+	 * @param remote The name of the remote.
+	 * 
+	 * @throws SSHPassphraseRequiredException
+	 * @throws PrivateRepositoryException
+	 * @throws RepositoryUnavailableException
+	 */
+	public void fetch(String remote)
+	    throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
 	  logger.debug("Begin fetch");
     if (git == null) {
       throw new RepositoryUnavailableException(new NoRepositorySelected("Repository is empty"));
@@ -1742,50 +1838,116 @@ public class GitAccess {
 	  
 		AuthenticationInterceptor.install();
 		
-		String hostName = getHostName();
-    UserCredentials gitCredentials = OptionsManager.getInstance().getGitCredentials(hostName);
-		String sshPassphrase = OptionsManager.getInstance().getSshPassphrase();
-		SSHCapableUserCredentialsProvider credentialsProvider = new SSHCapableUserCredentialsProvider(
-		    gitCredentials.getUsername(),
-		    gitCredentials.getPassword(),
-				sshPassphrase,
-				hostName);
+		long start = System.nanoTime();
+		SSHCapableUserCredentialsProvider credentialsProvider = createCredentialsProvider();
 		try {
 			StoredConfig config = git.getRepository().getConfig();
 			Set<String> sections = config.getSections();
 			if (sections.contains(ConfigConstants.CONFIG_KEY_REMOTE)) {
         git.fetch()
-            .setRefSpecs(new RefSpec("+refs/heads/*:refs/remotes/origin/*"))
+            .setRemote(remote)
+            .setRefSpecs(new RefSpec("+refs/heads/*:" + Constants.R_REMOTES + remote + "/*"))
             .setCheckFetchedObjects(true)
             .setRemoveDeletedRefs(true)
 						.setCredentialsProvider(credentialsProvider)
 						.call();
 			}
 		} catch (TransportException e) {
-		  logger.debug(e, e);
-			
-			Throwable cause = e;
-	    while (cause.getCause() != null) {
-	      cause = cause.getCause();
-	    }
-
-			String message = e.getMessage();
-      if (message != null && (message.contains("Authentication is required but no CredentialsProvider has been registered")
-					|| message.contains("not authorized"))) {
-				throw new PrivateRepositoryException(e);
-			} else if (message != null && message.contains("Auth fail") && credentialsProvider.isPassphaseRequested()
-			    || (cause instanceof SshException)
-              && ((SshException) cause).getDisconnectCode() == SshConstants.SSH2_DISCONNECT_NO_MORE_AUTH_METHODS_AVAILABLE) {
-			  throw new SSHPassphraseRequiredException(e);
-			} else {
-			  throw new RepositoryUnavailableException(e);
-			}
+		  treatTransportException(e, credentialsProvider);
 		} catch (GitAPIException | RevisionSyntaxException e) {
 		  logger.error(e, e);
-    } 
+    } finally {
+      OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_FETCH, start);
+    }
 		logger.debug("End fetch");
 	}
 
+	/**
+	 * Lists the branches and the tags from a remote repository of the current working copy, without
+	 * bringing any commit to the local repository ("ls-remote"). Much cheaper than a fetch.
+	 * 
+	 * @param remote The name of the remote.
+	 * 
+	 * @return The branches and the tags from the remote repository. Empty if there is no remote.
+	 * 
+	 * @throws SSHPassphraseRequiredException
+	 * @throws PrivateRepositoryException
+	 * @throws RepositoryUnavailableException
+	 */
+	public Collection<Ref> lsRemote(String remote)
+	    throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+	  if (git == null) {
+	    throw new RepositoryUnavailableException(new NoRepositorySelected("Repository is empty"));
+	  }
+
+	  AuthenticationInterceptor.install();
+
+	  Collection<Ref> remoteRefs = Collections.emptyList();
+	  SSHCapableUserCredentialsProvider credentialsProvider = createCredentialsProvider();
+	  try {
+	    StoredConfig config = git.getRepository().getConfig();
+	    if (config.getSubsections(ConfigConstants.CONFIG_REMOTE_SECTION).contains(remote)) {
+	      remoteRefs = git.lsRemote()
+	          .setRemote(remote)
+	          .setHeads(true)
+	          .setTags(true)
+	          .setCredentialsProvider(credentialsProvider)
+	          .call();
+	    }
+	  } catch (TransportException e) {
+	    treatTransportException(e, credentialsProvider);
+	  } catch (GitAPIException e) {
+	    logger.error(e, e);
+	  }
+	  return remoteRefs;
+	}
+
+	/**
+	 * @return A credentials provider for the host of the current remote repository.
+	 */
+	private SSHCapableUserCredentialsProvider createCredentialsProvider() {
+	  String hostName = getHostName();
+	  UserCredentials gitCredentials = OptionsManager.getInstance().getGitCredentials(hostName);
+	  String sshPassphrase = OptionsManager.getInstance().getSshPassphrase();
+	  return new SSHCapableUserCredentialsProvider(
+	      gitCredentials.getUsername(),
+	      gitCredentials.getPassword(),
+	      sshPassphrase,
+	      hostName);
+	}
+
+	/**
+	 * Translates a failure to communicate with the remote repository.
+	 * 
+	 * @param e                   The failure.
+	 * @param credentialsProvider The credentials provider used for the communication.
+	 * 
+	 * @throws SSHPassphraseRequiredException
+	 * @throws PrivateRepositoryException
+	 * @throws RepositoryUnavailableException
+	 */
+	private static void treatTransportException(TransportException e, SSHCapableUserCredentialsProvider credentialsProvider)
+	    throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+	  logger.debug(e, e);
+
+	  Throwable cause = e;
+	  while (cause.getCause() != null) {
+	    cause = cause.getCause();
+	  }
+
+	  String message = e.getMessage();
+	  if (message != null && (message.contains("Authentication is required but no CredentialsProvider has been registered")
+	      || message.contains("not authorized"))) {
+	    throw new PrivateRepositoryException(e);
+	  } else if (message != null && message.contains("Auth fail") && credentialsProvider.isPassphaseRequested()
+	      || (cause instanceof SshException)
+	      && ((SshException) cause).getDisconnectCode() == SshConstants.SSH2_DISCONNECT_NO_MORE_AUTH_METHODS_AVAILABLE) {
+	    throw new SSHPassphraseRequiredException(e);
+	  } else {
+	    throw new RepositoryUnavailableException(e);
+	  }
+	}
+
 	/**
 	 * Replace with remote content. Useful when resolving a conflict using 'theirs'.
 	 * 
@@ -1937,8 +2099,12 @@ public class GitAccess {
 	 *                         submodule.
 	 */
 	public void discardSubmodule() throws GitAPIException {
-	  git.submoduleSync().call();
-	  git.submoduleUpdate().setStrategy(MergeStrategy.RECURSIVE).call();
+	  try {
+	    git.submoduleSync().call();
+	    git.submoduleUpdate().setStrategy(MergeStrategy.RECURSIVE).call();
+	  } finally {
+	    SubmoduleStatusCache.getInstance().invalidate();
+	  }
 	}
 
 	/**
@@ -2059,6 +2225,11 @@ public class GitAccess {
    */
   public void cleanUp() {
     listeners.clear();
+    // The cache was listening for events.
+    StatusCache.reset();
+    RemoteSyncService.reset();
+    SubmoduleStatusCache.reset();
+    RefDecorationIndex.reset();
     closeRepo();
   }
 	
@@ -2178,20 +2349,73 @@ public class GitAccess {
 	public List<CommitCharacteristics> getCommitsCharacteristics(String filePath) {
 		List<CommitCharacteristics> revisions = new ArrayList<>();
 
+		long start = System.nanoTime();
 		try {
 			Repository repository = this.getRepository();
-			if (filePath == null && git.status().call().hasUncommittedChanges()) {
+			if (filePath == null && StatusCache.getInstance().getSnapshot().hasUncommittedChanges()) {
 				revisions.add(UNCOMMITED_CHANGES);
 			}
 
 			RevCommitUtil.collectCurrentBranchRevisions(filePath, revisions, repository);
 		} catch (NoWorkTreeException | GitAPIException | NoRepositorySelected | IOException e) {
 			logger.error(e, e);
+		} finally {
+		  OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_LOG, start);
 		}
 		
 		return revisions;
 	}
 
+	/**
+	 * Gets the characteristics of the commits, loaded in pages as they are needed. The first page is
+	 * loaded before returning.
+	 * 
+	 * @param filePath A resource for which we are interested in its history. If <code>null</code>, 
+	 * the repository history will be computed.
+	 * 
+	 * @return The commits characteristics of the current repository.
+	 * 
+	 * @throws NoRepositorySelected
+	 * @throws IOException
+	 * @throws GitAPIException
+	 */
+	public PagedCommitList getPagedCommitsCharacteristics(String filePath) 
+	    throws NoRepositorySelected, IOException, GitAPIException {
+	  return new PagedCommitList(getRepository(), filePath, getHistoryHead(filePath));
+	}
+
+	/**
+	 * Updates the commits obtained from {@link #getPagedCommitsCharacteristics(String)} after the 
+	 * working copy or the current branch changed. Only the new commits are read.
+	 * 
+	 * @param commits  The commits presented so far.
+	 * @param filePath The resource whose history is presented. If <code>null</code>, the repository history.
+	 * 
+	 * @return The same commits, if nothing changed. The updated commits, if the history moved forward or 
+	 * the uncommitted changes appeared or disappeared. <code>null</code> if the history was rewritten.
+	 * 
+	 * @throws IOException
+	 * 
+	 * @see PagedCommitList#update(CommitCharacteristics)
+	 */
+	public PagedCommitList updatePagedCommitsCharacteristics(PagedCommitList commits, String filePath) 
+	    throws IOException {
+	  return commits.update(getHistoryHead(filePath));
+	}
+
+	/**
+	 * @param filePath The resource whose history is presented. If <code>null</code>, the repository history.
+	 * 
+	 * @return The entry presented before the commits, {@link #UNCOMMITED_CHANGES} or <code>null</code>.
+	 */
+	private CommitCharacteristics getHistoryHead(String filePath) {
+	  CommitCharacteristics head = null;
+	  if (filePath == null && StatusCache.getInstance().getSnapshot().hasUncommittedChanges()) {
+	    head = UNCOMMITED_CHANGES;
+	  }
+	  return head;
+	}
+
 	/**
 	 * Get a LinkedHashMap with all tag names in current repository.
 	 * Map shows: key = commitID, value = list of tag names.
@@ -2216,18 +2440,12 @@ public class GitAccess {
 			while (st.hasMoreTokens()) {
 				tagName = st.nextToken();
 			}
-			LogCommand log = git.log();
-
+			// Peel the tag to get the commit, without walking the history.
 			Ref peeledRef = repository.getRefDatabase().peel(ref);
-			if (peeledRef.getPeeledObjectId() != null) {
-				log.add(peeledRef.getPeeledObjectId());
-			} else {
-				log.add(ref.getObjectId());
-			}
-			Iterable<RevCommit> logs = log.call();
+			ObjectId commitId = peeledRef.getPeeledObjectId() != null ? peeledRef.getPeeledObjectId() : ref.getObjectId();
 			tagList.add(tagName);
 			commitTagMap.put(
-			    logs.iterator().next().getId().abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name(),
+			    commitId.abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name(),
 			    tagList);
 		}
 		return commitTagMap;
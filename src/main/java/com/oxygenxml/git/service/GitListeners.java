@@ -5,6 +5,7 @@ import java.util.LinkedHashSet;
 
 import org.apache.log4j.Logger;
 
+import com.oxygenxml.git.metrics.OperationMetrics;
 import com.oxygenxml.git.view.event.GitEventInfo;
 
 /**
@@ -49,6 +50,7 @@ public class GitListeners {
     if (logger.isDebugEnabled()) {
       logger.debug("Fire operation about to start: " + info);
     }
+    OperationMetrics.getInstance().operationStarted(info.getGitOperation());
     
     for (GitEventListener gitEventListener : gitEventListeners) {
       gitEventListener.operationAboutToStart(info);
@@ -64,6 +66,7 @@ public class GitListeners {
     if (logger.isDebugEnabled()) {
       logger.debug("Fire operation successfully ended: " + info);
     }
+    OperationMetrics.getInstance().operationEnded(info.getGitOperation());
     
     for (GitEventListener gitEventListener : gitEventListeners) {
       gitEventListener.operationSuccessfullyEnded(info);
@@ -80,6 +83,7 @@ public class GitListeners {
     if (logger.isDebugEnabled()) {
       logger.debug("Fire operation failed: " + info + ". Reason: " + t.getMessage());
     }
+    OperationMetrics.getInstance().operationEnded(info.getGitOperation());
     
     for (GitEventListener gitEventListener : gitEventListeners) {
       gitEventListener.operationFailed(info, t);
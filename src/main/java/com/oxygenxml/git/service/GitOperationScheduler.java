@@ -1,19 +1,45 @@
 package com.oxygenxml.git.service;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 
 import org.apache.log4j.Logger;
 
+import com.oxygenxml.git.metrics.OperationMetrics;
+
 /**
- * Schedules git operations on a thread. The same thread is being used. 
+ * Schedules git operations on dedicated threads, using separate lanes:
+ * <ul>
+ * <li>the operations lane, a single thread on which the operations that change the index
+ * or the references are serialized. The tasks are executed in the order in which they were
+ * scheduled, but the user initiated tasks jump ahead of the queued refreshes;</li>
+ * <li>the read lane, a small pool on which the read-only queries (status, log, blame, diff)
+ * can run in parallel;</li>
+ * <li>the background lane, a low priority thread for the fetch and the maintenance tasks.</li>
+ * </ul>
+ * The queries share the repository lock, while the operations and the repository switches
+ * hold it exclusively. This way a query never sees a repository that is being changed, switched or closed.
+ * The background tasks work on the repository they were given and don't take the lock, so that
+ * a long fetch doesn't block the operations.
  */
 public class GitOperationScheduler {
   /**
@@ -21,152 +47,580 @@ public class GitOperationScheduler {
    */
   private static final Logger logger = Logger.getLogger(GitOperationScheduler.class);
   /**
-   * Refresh executor.
+   * The number of threads that execute read-only queries.
    */
-  private ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1) {
-    @Override
-    protected void afterExecute(Runnable r, Throwable t) {
-      if (t != null) {
-        logger.error(t, t);
-      }
+  private static final int READ_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+  /**
+   * The priority of the tasks initiated by the user.
+   */
+  private static final int INTERACTIVE_PRIORITY = 0;
+  /**
+   * The priority of the refresh tasks. They are executed after the queued user initiated tasks.
+   */
+  private static final int REFRESH_PRIORITY = 1;
+  /**
+   * Orders the tasks on the operations lane.
+   */
+  private final AtomicLong sequencer = new AtomicLong();
+  /**
+   * The refresh tasks that didn't start yet, by key.
+   */
+  private final Map<Object, LaneTask<?>> pendingRefreshes = new HashMap<>();
+  /**
+   * Shared by the read-only queries, held exclusively by the operations and the repository switches.
+   */
+  private final ReadWriteLock repositoryLock = new ReentrantReadWriteLock();
+  /**
+   * Waits for the delays of the scheduled tasks and passes them to their lane.
+   */
+  private ScheduledThreadPoolExecutor timer;
+  /**
+   * The operations lane.
+   */
+  private ThreadPoolExecutor operationsLane;
+  /**
+   * The read lane.
+   */
+  private ThreadPoolExecutor readLane;
+  /**
+   * The background lane.
+   */
+  private ThreadPoolExecutor backgroundLane;
 
-      if (r instanceof Future) {
-        try {
-          ((Future<?>) r).get();
-        } catch (CancellationException e) {
-          logger.debug(e, e);
-        } catch (Exception e) {
-          logger.error(e, e);
-        }
-      }
-    }
-  };
-  
   /**
    * Singleton instance.
    */
   private static GitOperationScheduler instance;
-  
+
   /**
    * Singleton private constructor.
    */
   private GitOperationScheduler() {}
-  
+
   /**
    * @return The singleton instance.
    */
-  public static GitOperationScheduler getInstance() {
+  public static synchronized GitOperationScheduler getInstance() {
     if (instance == null) {
       instance = new GitOperationScheduler();
     }
-    
+
     return instance;
   }
-  
+
   /**
    * Schedules a runnable for immediate execution.
-   * 
+   *
    * @param r Code to be executed on thread.
-   * 
-   * @return a ScheduledFuture representing pending completion of the task 
+   *
+   * @return a ScheduledFuture representing pending completion of the task
    * and whose get() method will return null upon completion.
    */
   @SuppressWarnings("java:S1452")
   public ScheduledFuture<?> schedule(Runnable r) {
-    if (executor.isShutdown()) {
-      // A shutdown operation was canceled.
-      executor = new ScheduledThreadPoolExecutor(1);
-    }
-    
-    return executor.schedule(r, 0, TimeUnit.MILLISECONDS);
+    return schedule(r, 0);
   }
-  
+
   /**
    * Schedules a task.
-   * 
+   *
    * @param <V> the type of the result returned by the future task.
    * @param task A task to run on the dedicated Git actions thread.
    * @param errorHandler Receives notifications when the task fails with an exception.
-   * 
+   *
    * @return A future that monitors the task.
    */
   @SuppressWarnings("java:S1452")
   public <V> ScheduledFuture<?> schedule(Runnable task, Consumer<Throwable> errorHandler) {
-    return schedule(new java.util.concurrent.FutureTask<V> (task, null) {
+    return schedule(new FutureTask<V> (task, null) {
       @Override
       protected void done() {
         try {
           get();
         } catch (ExecutionException e) {
-          errorHandler.accept(e.getCause());      
+          errorHandler.accept(e.getCause());
         } catch (InterruptedException e) {
-          errorHandler.accept(e);      
+          errorHandler.accept(e);
           // Restore interrupted state...
-          Thread.currentThread().interrupt();      
+          Thread.currentThread().interrupt();
         }
       }
     });
   }
-  
+
   /**
    * Schedules a task.
-   * 
+   *
    * @param <V> the type of the result returned by the future task.
    * @param task A task to run on the dedicated Git actions thread.
    * @param resultHandler Result handler.
    * @param errorHandler Receives notifications when the task fails with an exception.
-   * 
+   *
    * @return A future that monitors the task.
    */
   @SuppressWarnings("java:S1452")
   public <V> ScheduledFuture<?> schedule(Callable<V> task, Consumer<V> resultHandler,  Consumer<Throwable> errorHandler) {
-    return schedule(new java.util.concurrent.FutureTask<V> (task) {
+    return schedule(createHandledTask(task, resultHandler, errorHandler));
+  }
+
+  /**
+   * Schedules a runnable for execution.
+   *
+   * @param r Code to be executed on thread.
+   * @param delayMillis Milliseconds after which to execute the runnable.
+   *
+   * @return a ScheduledFuture representing pending completion of the task
+   * and whose get() method will return null upon completion.
+   */
+  @SuppressWarnings("java:S1452")
+  public ScheduledFuture<?> schedule(Runnable r, int delayMillis) {
+    return submit(Lane.OPERATIONS, new LaneTask<>(r, INTERACTIVE_PRIORITY, null), delayMillis);
+  }
+
+  /**
+   * Schedules a refresh on the operations lane. The refresh is executed after the user initiated
+   * tasks queued before it ends its delay. If a refresh with the same key is already scheduled
+   * and didn't start yet, no other refresh is scheduled.
+   *
+   * @param key Identifies the refreshes that can be collapsed into one.
+   * @param r Code to be executed on thread.
+   * @param delayMillis Milliseconds after which to execute the runnable.
+   *
+   * @return The future of the scheduled refresh, which might be the one of a previously scheduled refresh.
+   */
+  @SuppressWarnings("java:S1452")
+  public ScheduledFuture<?> scheduleRefresh(Object key, Runnable r, int delayMillis) {
+    synchronized (pendingRefreshes) {
+      LaneTask<?> pending = pendingRefreshes.get(key);
+      if (pending != null && !pending.isDone()) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Refresh already scheduled: " + key);
+        }
+        return pending;
+      }
+      LaneTask<?> task = new LaneTask<>(r, REFRESH_PRIORITY, key);
+      pendingRefreshes.put(key, task);
+      return submit(Lane.OPERATIONS, task, delayMillis);
+    }
+  }
+
+  /**
+   * Schedules a read-only query (status, log, blame, diff, etc.). These queries can run in parallel
+   * with each other and with the operations.
+   *
+   * @param r The query.
+   *
+   * @return A future that monitors the task.
+   */
+  @SuppressWarnings("java:S1452")
+  public ScheduledFuture<?> scheduleRead(Runnable r) {
+    return submit(Lane.READ, new LaneTask<>(r, INTERACTIVE_PRIORITY, null), 0);
+  }
+
+  /**
+   * Schedules a read-only query (status, log, blame, diff, etc.). These queries can run in parallel
+   * with each other and with the operations.
+   *
+   * @param <V> the type of the result returned by the query.
+   * @param task The query.
+   * @param resultHandler Result handler.
+   * @param errorHandler Receives notifications when the task fails with an exception.
+   *
+   * @return A future that monitors the task.
+   */
+  @SuppressWarnings("java:S1452")
+  public <V> ScheduledFuture<?> scheduleRead(Callable<V> task, Consumer<V> resultHandler,  Consumer<Throwable> errorHandler) {
+    return scheduleRead(createHandledTask(task, resultHandler, errorHandler));
+  }
+
+  /**
+   * Schedules a background task (fetch, maintenance) on the low priority lane.
+   *
+   * @param r Code to be executed on thread.
+   * @param delayMillis Milliseconds after which to execute the runnable.
+   *
+   * @return A future that monitors the task.
+   */
+  @SuppressWarnings("java:S1452")
+  public ScheduledFuture<?> scheduleBackground(Runnable r, int delayMillis) {
+    return submit(Lane.BACKGROUND, new LaneTask<>(r, INTERACTIVE_PRIORITY, null), delayMillis);
+  }
+
+  /**
+   * @return <code>true</code> if there are read-only queries running or waiting to run.
+   */
+  public synchronized boolean hasPendingReadTasks() {
+    return readLane != null
+        && (readLane.getActiveCount() > 0 || !readLane.getQueue().isEmpty());
+  }
+
+  /**
+   * Gets the lock that must be held while the current repository is changed, switched or closed
+   * outside the operations lane. The read-only queries wait until it is released.
+   * <br><br>
+   * Must not be requested from a read-only query.
+   *
+   * @return The exclusive repository lock.
+   */
+  Lock getRepositoryWriteLock() {
+    return repositoryLock.writeLock();
+  }
+
+  /**
+   * Wraps a task so that its result or failure is passed to the handlers.
+   *
+   * @param <V> the type of the result returned by the task.
+   * @param task The task.
+   * @param resultHandler Result handler.
+   * @param errorHandler Receives notifications when the task fails with an exception.
+   *
+   * @return The wrapped task.
+   */
+  private static <V> FutureTask<V> createHandledTask(Callable<V> task, Consumer<V> resultHandler,  Consumer<Throwable> errorHandler) {
+    return new FutureTask<V> (task) {
       @Override
       protected void done() {
         try {
           resultHandler.accept(get());
         } catch (ExecutionException e) {
-          errorHandler.accept(e.getCause());      
+          errorHandler.accept(e.getCause());
         } catch (InterruptedException e) {
-          errorHandler.accept(e);      
+          errorHandler.accept(e);
           // Restore interrupted state...
-          Thread.currentThread().interrupt();      
+          Thread.currentThread().interrupt();
         }
       }
-    });
+    };
   }
 
   /**
-   * Schedules a runnable for execution.
-   * 
-   * @param r Code to be executed on thread.
-   * @param delayMillis Milliseconds after which to execute the runnable.
-   * 
-   * @return a ScheduledFuture representing pending completion of the task 
-   * and whose get() method will return null upon completion.
+   * Passes a task to a lane, after a delay.
+   *
+   * @param lane The lane.
+   * @param task The task.
+   * @param delayMillis The delay. Milliseconds.
+   *
+   * @return The task.
    */
-  @SuppressWarnings("java:S1452")
-  public ScheduledFuture<?> schedule(Runnable r, int delayMillis) {
-    if (executor.isShutdown()) {
-      // A shutdown operation was canceled.
-      executor = new ScheduledThreadPoolExecutor(1);
+  private synchronized <V> LaneTask<V> submit(Lane lane, LaneTask<V> task, int delayMillis) {
+    task.lane = lane;
+    task.triggerTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    if (delayMillis <= 0) {
+      task.sequence = sequencer.getAndIncrement();
+      task.queuedTime = System.nanoTime();
+      getLane(lane).execute(task);
+    } else {
+      if (timer == null || timer.isShutdown()) {
+        // First use or a shutdown operation was canceled.
+        timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("Git Scheduler Timer", Thread.NORM_PRIORITY, true));
+        timer.setRemoveOnCancelPolicy(true);
+      }
+      task.timerFuture = timer.schedule(() -> {
+        if (!task.isCancelled()) {
+          synchronized (GitOperationScheduler.this) {
+            task.sequence = sequencer.getAndIncrement();
+            task.queuedTime = System.nanoTime();
+            getLane(lane).execute(task);
+          }
+        }
+      }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+    return task;
+  }
+
+  /**
+   * Gets the executor of a lane, creating it if needed.
+   *
+   * @param lane The lane.
+   *
+   * @return The executor.
+   */
+  private ThreadPoolExecutor getLane(Lane lane) {
+    switch (lane) {
+      case READ:
+        if (readLane == null || readLane.isShutdown()) {
+          readLane = createLane(READ_THREADS, new LinkedBlockingQueue<>(),
+              new NamedThreadFactory("Git Read Queries", Thread.NORM_PRIORITY, true));
+        }
+        return readLane;
+      case BACKGROUND:
+        if (backgroundLane == null || backgroundLane.isShutdown()) {
+          backgroundLane = createLane(1, new LinkedBlockingQueue<>(),
+              new NamedThreadFactory("Git Background Tasks", Thread.MIN_PRIORITY, true));
+        }
+        return backgroundLane;
+      default:
+        if (operationsLane == null || operationsLane.isShutdown()) {
+          // First use or a shutdown operation was canceled.
+          // Not a daemon thread, so that an operation is not stopped halfway when exiting.
+          operationsLane = createLane(1, new PriorityBlockingQueue<>(11, GitOperationScheduler::compareQueued),
+              new NamedThreadFactory("Git Operations", Thread.NORM_PRIORITY, false));
+        }
+        return operationsLane;
+    }
+  }
+
+  /**
+   * Creates the executor of a lane.
+   *
+   * @param threads The number of threads.
+   * @param queue The queue of waiting tasks.
+   * @param threadFactory Creates the threads.
+   *
+   * @return The executor.
+   */
+  private static ThreadPoolExecutor createLane(int threads, BlockingQueue<Runnable> queue, ThreadFactory threadFactory) {
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, threadFactory);
+  }
+
+  /**
+   * Orders the tasks waiting on the operations lane: first by priority, then in the order in which
+   * they ended their delay.
+   *
+   * @param r1 First task.
+   * @param r2 Second task.
+   *
+   * @return The comparison result.
+   */
+  private static int compareQueued(Runnable r1, Runnable r2) {
+    LaneTask<?> t1 = (LaneTask<?>) r1;
+    LaneTask<?> t2 = (LaneTask<?>) r2;
+    int result = Integer.compare(t1.priority, t2.priority);
+    if (result == 0) {
+      result = Long.compare(t1.sequence, t2.sequence);
     }
-    
-    return executor.schedule(r, delayMillis, TimeUnit.MILLISECONDS);
+    return result;
   }
-  
+
   /**
    * Attempts to shutdown any running tasks.
    */
   public void shutdown() {
-    executor.shutdown();
+    ThreadPoolExecutor[] lanes;
+    synchronized (this) {
+      if (timer != null) {
+        timer.shutdownNow();
+      }
+      lanes = new ThreadPoolExecutor[] {operationsLane, readLane, backgroundLane};
+      for (ThreadPoolExecutor lane : lanes) {
+        if (lane != null) {
+          lane.shutdown();
+        }
+      }
+    }
+    synchronized (pendingRefreshes) {
+      pendingRefreshes.clear();
+    }
+
     try {
-      executor.awaitTermination(2000, TimeUnit.MILLISECONDS);
+      for (ThreadPoolExecutor lane : lanes) {
+        if (lane != null) {
+          lane.awaitTermination(2000, TimeUnit.MILLISECONDS);
+        }
+      }
     } catch (InterruptedException e) {
       logger.warn("Unable to stop task thread: " + e.getMessage(), e);
       // Restore interrupted state...
       Thread.currentThread().interrupt();
 
-    }    
+    }
+  }
+
+  /**
+   * The lanes on which the tasks are executed.
+   */
+  private enum Lane {
+    /**
+     * Serialized operations.
+     */
+    OPERATIONS("operations"),
+    /**
+     * Read-only queries.
+     */
+    READ("read"),
+    /**
+     * Background tasks.
+     */
+    BACKGROUND("background");
+
+    /**
+     * The name under which the timings of the lane are recorded.
+     */
+    private final String metricName;
+
+    /**
+     * Constructor.
+     *
+     * @param metricName The name under which the timings of the lane are recorded.
+     */
+    Lane(String metricName) {
+      this.metricName = metricName;
+    }
+  }
+
+  /**
+   * A task executed on a lane.
+   *
+   * @param <V> The result type.
+   */
+  private class LaneTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+    /**
+     * The priority. Lower values are executed first.
+     */
+    private final int priority;
+    /**
+     * The key used to collapse the refreshes. <code>null</code> for the other tasks.
+     */
+    private final Object refreshKey;
+    /**
+     * The order in which the task ended its delay.
+     */
+    private volatile long sequence;
+    /**
+     * When the task should run, in nanoseconds.
+     */
+    private volatile long triggerTime;
+    /**
+     * The delay countdown, if the task was scheduled with a delay.
+     */
+    private volatile ScheduledFuture<?> timerFuture;
+    /**
+     * The lane on which the task executes.
+     */
+    private volatile Lane lane;
+    /**
+     * When the task entered the queue of its lane, in nanoseconds.
+     */
+    private volatile long queuedTime;
+
+    /**
+     * Constructor.
+     *
+     * @param runnable The code to run.
+     * @param priority The priority. Lower values are executed first.
+     * @param refreshKey The key used to collapse the refreshes. <code>null</code> for the other tasks.
+     */
+    LaneTask(Runnable runnable, int priority, Object refreshKey) {
+      super(runnable, null);
+      this.priority = priority;
+      this.refreshKey = refreshKey;
+    }
+
+    @Override
+    public void run() {
+      if (refreshKey != null) {
+        // From now on, a new refresh must be scheduled.
+        synchronized (pendingRefreshes) {
+          pendingRefreshes.remove(refreshKey, this);
+        }
+      }
+      Lock lock = getLock();
+      if (lock != null) {
+        lock.lock();
+      }
+      OperationMetrics metrics = OperationMetrics.getInstance();
+      metrics.taskStarted(System.nanoTime() - queuedTime);
+      try {
+        super.run();
+      } finally {
+        metrics.taskEnded(lane.metricName);
+        if (lock != null) {
+          lock.unlock();
+        }
+      }
+    }
+
+    /**
+     * @return The repository lock held while the task runs. <code>null</code> if none.
+     */
+    private Lock getLock() {
+      switch (lane) {
+        case OPERATIONS:
+          return repositoryLock.writeLock();
+        case READ:
+          return repositoryLock.readLock();
+        default:
+          return null;
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      ScheduledFuture<?> delay = timerFuture;
+      if (delay != null) {
+        delay.cancel(false);
+      }
+      return super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    protected void done() {
+      if (!isCancelled()) {
+        try {
+          get();
+        } catch (ExecutionException e) {
+          logger.error(e.getCause(), e.getCause());
+        } catch (CancellationException e) {
+          logger.debug(e, e);
+        } catch (InterruptedException e) {
+          logger.debug(e, e);
+          // Restore interrupted state...
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(triggerTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+      return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+    }
+  }
+
+  /**
+   * Creates named threads with a given priority.
+   */
+  private static class NamedThreadFactory implements ThreadFactory {
+    /**
+     * The prefix of the thread names.
+     */
+    private final String name;
+    /**
+     * The priority of the threads.
+     */
+    private final int priority;
+    /**
+     * <code>true</code> to create daemon threads.
+     */
+    private final boolean daemon;
+    /**
+     * Counts the created threads.
+     */
+    private final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * Constructor.
+     *
+     * @param name The prefix of the thread names.
+     * @param priority The priority of the threads.
+     * @param daemon <code>true</code> to create daemon threads.
+     */
+    NamedThreadFactory(String name, int priority, boolean daemon) {
+      this.name = name;
+      this.priority = priority;
+      this.daemon = daemon;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, name + " " + counter.incrementAndGet());
+      thread.setPriority(priority);
+      thread.setDaemon(daemon);
+      return thread;
+    }
   }
 }
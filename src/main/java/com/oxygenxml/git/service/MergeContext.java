@@ -0,0 +1,211 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.view.event.GitEventInfo;
+
+/**
+ * The stages of the conflicting files, read once from the index for a merge or rebase state.
+ * Showing the conflict diff of a file needs the BASE, MINE and THEIRS versions and, before, each
+ * of them was obtained by diffing the index with the working tree.
+ * <br><br>
+ * The context is built again when the repository, its HEAD or its index change, and it is dropped
+ * after the Git operations that might change the conflicts (merge restart and abort, rebase, stage,
+ * unstage, pull, etc.).
+ */
+public class MergeContext {
+  /**
+   * Singleton instance.
+   */
+  private static MergeContext instance;
+  /**
+   * The context of the current merge state. <code>null</code> if it must be read again.
+   */
+  private State state;
+
+  /**
+   * Singleton private constructor.
+   */
+  private MergeContext() {
+    GitListeners.getInstance().addGitListener(new GitEventAdapter() {
+      @Override
+      public void operationSuccessfullyEnded(GitEventInfo info) {
+        switch (info.getGitOperation()) {
+          case CREATE_BRANCH:
+          case DELETE_BRANCH:
+          case PUSH:
+            // The index is not affected.
+            break;
+          default:
+            invalidate();
+            break;
+        }
+      }
+      @Override
+      public void operationFailed(GitEventInfo info, Throwable t) {
+        // We don't know what was left behind.
+        invalidate();
+      }
+    });
+  }
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized MergeContext getInstance() {
+    if (instance == null) {
+      instance = new MergeContext();
+    }
+    return instance;
+  }
+
+  /**
+   * Drops the singleton instance. A new one, listening for Git events,
+   * will be created on the next request.
+   */
+  static synchronized void reset() {
+    instance = null;
+  }
+
+  /**
+   * Drops the context. The index will be read again on the next request.
+   */
+  public synchronized void invalidate() {
+    state = null;
+  }
+
+  /**
+   * Gets the stages of a conflicting file.
+   *
+   * @param repository The repository.
+   * @param path       The path of the file, relative to the working copy.
+   *
+   * @return The object IDs of the stages, indexed by the stage number: {@link DirCacheEntry#STAGE_1} (BASE),
+   * {@link DirCacheEntry#STAGE_2} (MINE) and {@link DirCacheEntry#STAGE_3} (THEIRS). A stage missing from
+   * the index (for example, no BASE for a file added on both sides) is <code>null</code>.
+   * <code>null</code> if the file is not in conflict.
+   *
+   * @throws IOException If the index cannot be read.
+   */
+  public ObjectId[] getStages(Repository repository, String path) throws IOException {
+    ObjectId[] stages = getState(repository).stages.get(path);
+    return stages != null ? stages.clone() : null;
+  }
+
+  /**
+   * @param repository The repository.
+   *
+   * @return The paths of the conflicting files. Never <code>null</code>.
+   *
+   * @throws IOException If the index cannot be read.
+   */
+  public Set<String> getConflictingPaths(Repository repository) throws IOException {
+    return Collections.unmodifiableSet(getState(repository).stages.keySet());
+  }
+
+  /**
+   * Gets the context of the current merge state, reading the index if it changed.
+   *
+   * @param repository The repository.
+   *
+   * @return The context.
+   *
+   * @throws IOException If the index cannot be read.
+   */
+  private synchronized State getState(Repository repository) throws IOException {
+    // Read before the index, so that a concurrent change makes the context stale.
+    File repositoryDir = repository.getDirectory();
+    ObjectId head = repository.resolve(Constants.HEAD);
+    File indexFile = repository.getIndexFile();
+    long indexTimestamp = indexFile.lastModified();
+    long indexLength = indexFile.length();
+    if (state == null
+        || !state.repositoryDir.equals(repositoryDir)
+        || !Objects.equals(state.head, head)
+        || state.indexTimestamp != indexTimestamp
+        || state.indexLength != indexLength) {
+      state = new State(repositoryDir, head, indexTimestamp, indexLength, readStages(repository));
+    }
+    return state;
+  }
+
+  /**
+   * Reads the stages of the conflicting files from the index.
+   *
+   * @param repository The repository.
+   *
+   * @return The object IDs of the stages, indexed by the stage number, by path.
+   *
+   * @throws IOException If the index cannot be read.
+   */
+  private static Map<String, ObjectId[]> readStages(Repository repository) throws IOException {
+    Map<String, ObjectId[]> stages = new HashMap<>();
+    DirCache dirCache = repository.readDirCache();
+    for (int i = 0; i < dirCache.getEntryCount(); i++) {
+      DirCacheEntry entry = dirCache.getEntry(i);
+      int stage = entry.getStage();
+      if (stage != DirCacheEntry.STAGE_0) {
+        stages.computeIfAbsent(entry.getPathString(), p -> new ObjectId[DirCacheEntry.STAGE_3 + 1])[stage] =
+            entry.getObjectId();
+      }
+    }
+    return stages;
+  }
+
+  /**
+   * The conflicts of a repository state.
+   */
+  private static class State {
+    /**
+     * The repository.
+     */
+    private final File repositoryDir;
+    /**
+     * The HEAD when the index was read.
+     */
+    private final ObjectId head;
+    /**
+     * The last modified time stamp of the index file when it was read.
+     */
+    private final long indexTimestamp;
+    /**
+     * The length of the index file when it was read.
+     */
+    private final long indexLength;
+    /**
+     * The object IDs of the stages of the conflicting files, indexed by the stage number, by path.
+     */
+    private final Map<String, ObjectId[]> stages;
+
+    /**
+     * Constructor.
+     *
+     * @param repositoryDir  The repository.
+     * @param head           The HEAD when the index was read.
+     * @param indexTimestamp The last modified time stamp of the index file.
+     * @param indexLength    The length of the index file.
+     * @param stages         The object IDs of the stages of the conflicting files, indexed by
+     *                       the stage number, by path.
+     */
+    State(File repositoryDir, ObjectId head, long indexTimestamp, long indexLength,
+        Map<String, ObjectId[]> stages) {
+      this.repositoryDir = repositoryDir;
+      this.head = head;
+      this.indexTimestamp = indexTimestamp;
+      this.indexLength = indexLength;
+      this.stages = stages;
+    }
+  }
+}
@@ -0,0 +1,726 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.oxygenxml.git.metrics.OperationMetrics;
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+
+/**
+ * The history of the current branch, or of a resource, read in pages from a live {@link RevWalk}.
+ * <br><br>
+ * Only the walked revisions are kept, without their messages. Their characteristics are decoded
+ * a page at a time, when requested, and only the most recently used pages are kept in memory.
+ * <br><br>
+ * The history comes from the {@link CommitMetadataCache}, when enabled and ready, and is complete from
+ * the start. When the cache is not ready yet, the first pages are walked and the list switches to the
+ * cache as soon as it becomes ready.
+ * <br><br>
+ * The list grows as more pages are loaded: {@link #size()} is the number of revisions loaded so far.
+ * The listeners added with {@link #addGrowthListener(Runnable)} are notified, on the thread that
+ * loaded the page, after each growth.
+ * <br><br>
+ * When the branch moves forward, {@link #update(CommitCharacteristics)} reads only the new revisions
+ * and presents them before the ones already loaded.
+ */
+public class PagedCommitList extends AbstractList<CommitCharacteristics> implements AutoCloseable {
+  /**
+   * Logger for logging.
+   */
+  private static Logger logger = Logger.getLogger(PagedCommitList.class);
+  /**
+   * The default number of revisions loaded and decoded at once.
+   */
+  public static final int PAGE_SIZE = 500;
+  /**
+   * The maximum number of decoded pages kept in memory.
+   */
+  private static final int MAX_DECODED_PAGES = 20;
+
+  /**
+   * Loaded repository.
+   */
+  private final Repository repository;
+  /**
+   * The number of revisions loaded and decoded at once.
+   */
+  private final int pageSize;
+  /**
+   * An entry presented before the revisions, like {@link GitAccess#UNCOMMITED_CHANGES}. May be <code>null</code>.
+   */
+  private final CommitCharacteristics head;
+  /**
+   * The resource whose history is presented. <code>null</code> for the entire history.
+   */
+  private final String filePath;
+  /**
+   * The heads of the current branch and of its upstream, when the history was read.
+   */
+  private final List<ObjectId> tips;
+  /**
+   * The revisions added to the branch after the history was read, presented before the other revisions.
+   */
+  private final List<CommitCharacteristics> addedCommits;
+  /**
+   * Guards the walk. Held while a page is loaded.
+   */
+  private final Object walkLock = new Object();
+  /**
+   * Revision iterator. <code>null</code> when there's nothing more to walk.
+   */
+  private RevWalk revWalk;
+  /**
+   * The resource whose revisions are walked. <code>null</code> for the entire history.
+   */
+  private String walkedPath;
+  /**
+   * The revisions loaded so far. Their parents are the ones seen by the walk, rewritten
+   * when walking the history of a resource.
+   */
+  private final List<RevCommit> revisions = new ArrayList<>();
+  /**
+   * The history, from the commit cache. <code>null</code> if the revisions are walked.
+   */
+  private volatile CommitMetadataCache.CachedHistory cachedHistory;
+  /**
+   * The most recently used decoded pages, by page index.
+   */
+  @SuppressWarnings("serial")
+  private final Map<Integer, List<CommitCharacteristics>> decodedPages = new LinkedHashMap<Integer, List<CommitCharacteristics>>(
+      MAX_DECODED_PAGES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, List<CommitCharacteristics>> eldest) {
+      return size() > MAX_DECODED_PAGES;
+    }
+  };
+  /**
+   * <code>true</code> if all the revisions were loaded.
+   */
+  private volatile boolean complete;
+  /**
+   * <code>true</code> while a page is loaded in background.
+   */
+  private boolean loadingInBackground;
+  /**
+   * Notified when more revisions are loaded.
+   */
+  private final List<Runnable> growthListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Constructor. Loads the first page.
+   *
+   * @param repository Loaded repository.
+   * @param filePath   An optional resource path. If not null, only the revisions that changed this resource are presented.
+   * @param head       An optional entry to present before the revisions.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  public PagedCommitList(Repository repository, String filePath, CommitCharacteristics head) throws IOException, GitAPIException {
+    this(repository, filePath, head, PAGE_SIZE);
+  }
+
+  /**
+   * Constructor. Loads the first page.
+   *
+   * @param repository Loaded repository.
+   * @param filePath   An optional resource path. If not null, only the revisions that changed this resource are presented.
+   * @param head       An optional entry to present before the revisions.
+   * @param pageSize   The number of revisions loaded and decoded at once.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  PagedCommitList(Repository repository, String filePath, CommitCharacteristics head, int pageSize) throws IOException, GitAPIException {
+    this.repository = repository;
+    this.pageSize = pageSize;
+    this.head = head;
+    this.filePath = filePath;
+    this.tips = getTipIds(RevCommitUtil.getCurrentBranchHeads(repository));
+    this.addedCommits = Collections.emptyList();
+
+    long start = System.nanoTime();
+    cachedHistory = getCachedHistory();
+    OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_LOG, start);
+
+    if (cachedHistory != null) {
+      complete = true;
+    } else {
+      startWalk(filePath);
+    }
+  }
+
+  /**
+   * Constructor. Takes over the revisions loaded by a previous list and its walk. The previous list
+   * stops walking.
+   *
+   * @param previous     The previous list.
+   * @param head         An optional entry to present before the revisions.
+   * @param tips         The heads of the current branch and of its upstream.
+   * @param addedCommits The revisions added to the branch since the previous list was read, newest first.
+   */
+  private PagedCommitList(
+      PagedCommitList previous,
+      CommitCharacteristics head,
+      List<ObjectId> tips,
+      List<CommitCharacteristics> addedCommits) {
+    this.repository = previous.repository;
+    this.pageSize = previous.pageSize;
+    this.head = head;
+    this.filePath = previous.filePath;
+    this.tips = tips;
+    this.cachedHistory = previous.cachedHistory;
+    this.addedCommits = new ArrayList<>(addedCommits.size() + previous.addedCommits.size());
+    this.addedCommits.addAll(addedCommits);
+    this.addedCommits.addAll(previous.addedCommits);
+
+    synchronized (previous.walkLock) {
+      revWalk = previous.revWalk;
+      walkedPath = previous.walkedPath;
+      complete = previous.complete;
+      previous.revWalk = null;
+      previous.complete = true;
+      synchronized (previous) {
+        revisions.addAll(previous.revisions);
+        decodedPages.putAll(previous.decodedPages);
+      }
+    }
+  }
+
+  /**
+   * Gets the IDs of some heads.
+   *
+   * @param heads The heads.
+   *
+   * @return Their IDs.
+   */
+  private static List<ObjectId> getTipIds(List<Ref> heads) {
+    List<ObjectId> ids = new ArrayList<>(heads.size());
+    for (Ref ref : heads) {
+      ids.add(ref.getObjectId());
+    }
+    return ids;
+  }
+
+  /**
+   * @return The history from the commit cache or <code>null</code> if the cache is disabled or not ready.
+   *
+   * @throws GitAPIException
+   */
+  private CommitMetadataCache.CachedHistory getCachedHistory() throws GitAPIException {
+    return filePath == null
+        ? RevCommitUtil.getCachedHistory(repository) : RevCommitUtil.getCachedPathHistory(repository, filePath);
+  }
+
+  /**
+   * Continues with the history from the commit cache, if it became ready and it starts with the
+   * revisions walked so far. Called with the walk lock held.
+   *
+   * @return <code>true</code> if the walk was replaced by the cached history.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private boolean switchToCache() throws IOException, GitAPIException {
+    if (addedCommits.isEmpty() && tips.equals(getTipIds(RevCommitUtil.getCurrentBranchHeads(repository)))) {
+      CommitMetadataCache.CachedHistory history = getCachedHistory();
+      if (history != null) {
+        synchronized (this) {
+          if (history.startsWith(revisions)) {
+            cachedHistory = history;
+            revisions.clear();
+            // The parents of the walked revisions might have been rewritten differently.
+            decodedPages.clear();
+            revWalk.close();
+            revWalk = null;
+            complete = true;
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Starts walking the history and loads the first page.
+   *
+   * @param filePath An optional resource path. If not null, only the revisions that changed this resource are presented.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private void startWalk(String filePath) throws IOException, GitAPIException {
+    RevWalk walk = createRevWalk();
+    if (RevCommitUtil.markCurrentBranchStart(repository, walk)) {
+      if (filePath != null) {
+        walk.setTreeFilter(RevCommitUtil.createPathFilter(filePath));
+      }
+      revWalk = walk;
+      walkedPath = filePath;
+      loadMore();
+    } else {
+      // Probably a new repository without any history.
+      walk.close();
+      complete = true;
+    }
+  }
+
+  /**
+   * @return A walk that doesn't keep the messages of the revisions.
+   */
+  private RevWalk createRevWalk() {
+    RevWalk walk = new RevWalk(repository);
+    walk.setRetainBody(false);
+    return walk;
+  }
+
+  /**
+   * Loads the next page of revisions. Blocks while another thread loads a page.
+   *
+   * @return <code>true</code> if more revisions were loaded.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  public boolean loadMore() throws IOException, GitAPIException {
+    int loaded = 0;
+    synchronized (walkLock) {
+      if (revWalk != null && getLastRevision() != null) {
+        int walked = getRevisionCount();
+        if (switchToCache()) {
+          loaded = getRevisionCount() - walked;
+        }
+      }
+      if (revWalk != null) {
+        long start = System.nanoTime();
+        try {
+          List<RevCommit> page = new ArrayList<>(pageSize);
+          RevCommit commit;
+          while (page.size() < pageSize && (commit = nextRevision(page)) != null) {
+            page.add(commit);
+          }
+
+          loaded = page.size();
+          synchronized (this) {
+            revisions.addAll(page);
+          }
+          if (loaded < pageSize) {
+            revWalk.close();
+            revWalk = null;
+            complete = true;
+          }
+        } finally {
+          OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_LOG, start);
+        }
+      }
+    }
+
+    if (loaded > 0) {
+      for (Runnable listener : growthListeners) {
+        listener.run();
+      }
+    }
+    return loaded > 0;
+  }
+
+  /**
+   * Gets the next revision from the walk. When the history of a resource ends with a rename,
+   * it continues with the history of the previous path.
+   *
+   * @param page The revisions of the current page that are not yet in the list.
+   *
+   * @return The next revision or <code>null</code> if there are no more revisions.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private RevCommit nextRevision(List<RevCommit> page) throws IOException, GitAPIException {
+    RevCommit commit = revWalk.next();
+    while (commit == null && walkedPath != null) {
+      RevCommit last = page.isEmpty() ? getLastRevision() : page.get(page.size() - 1);
+      Optional<DiffEntry> rename = last != null ? findRename(last) : Optional.empty();
+      if (!rename.isPresent()) {
+        break;
+      }
+
+      RevWalk walk = createRevWalk();
+      walk.markStart(walk.parseCommit(last));
+      walkedPath = rename.get().getOldPath();
+      walk.setTreeFilter(RevCommitUtil.createPathFilter(walkedPath));
+      revWalk.close();
+      revWalk = walk;
+
+      commit = revWalk.next();
+      if (commit != null && commit.equals(last)) {
+        // The renaming revision is presented once, linked to the parents from the previous path.
+        if (page.isEmpty()) {
+          replaceLastRevision(commit);
+        } else {
+          page.set(page.size() - 1, commit);
+        }
+        commit = revWalk.next();
+      }
+    }
+    return commit;
+  }
+
+  /**
+   * Checks if the walked resource was renamed by the given revision.
+   *
+   * @param commit The revision.
+   *
+   * @return The rename, if the resource was renamed by this revision.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private Optional<DiffEntry> findRename(RevCommit commit) throws IOException, GitAPIException {
+    try (RevWalk walk = new RevWalk(repository)) {
+      RevCommit current = walk.parseCommit(commit);
+      if (current.getParentCount() > 0) {
+        RevCommit parent = current.getParent(0);
+        walk.parseHeaders(parent);
+        return RevCommitUtil.findRename(repository, parent, current, walkedPath);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @return The last loaded revision or <code>null</code>.
+   */
+  private synchronized RevCommit getLastRevision() {
+    return revisions.isEmpty() ? null : revisions.get(revisions.size() - 1);
+  }
+
+  /**
+   * Replaces the last loaded revision.
+   *
+   * @param commit The new revision.
+   */
+  private synchronized void replaceLastRevision(RevCommit commit) {
+    int index = revisions.size() - 1;
+    revisions.set(index, commit);
+    decodedPages.remove(index / pageSize);
+  }
+
+  /**
+   * Gets the history after the current branch or its upstream moved, or after the entry presented
+   * before the revisions changed. If the previous heads are still in the history and the new revisions
+   * are newer than them, only the new revisions are read. They are presented before the revisions
+   * loaded by this list, which are taken over, together with the walk.
+   *
+   * @param newHead An optional entry to present before the revisions.
+   *
+   * @return This list, if nothing changed. A list that presents the new revisions and the loaded ones,
+   * if the history moved forward. <code>null</code> if the history was rewritten and must be read again.
+   *
+   * @throws IOException
+   */
+  public PagedCommitList update(CommitCharacteristics newHead) throws IOException {
+    List<ObjectId> newTips = getTipIds(RevCommitUtil.getCurrentBranchHeads(repository));
+    if (newTips.equals(tips)) {
+      return newHead == head ? this : new PagedCommitList(this, newHead, newTips, Collections.emptyList());
+    }
+
+    List<CommitCharacteristics> added = containsTips(newTips) ? readAddedRevisions(newTips) : null;
+    return added != null ? new PagedCommitList(this, newHead, newTips, added) : null;
+  }
+
+  /**
+   * Checks if the heads from which this history was read are reachable from the new heads. Stops at the
+   * revisions older than the heads searched for, so it might miss them when the clocks were skewed.
+   *
+   * @param newTips The new heads of the current branch and of its upstream.
+   *
+   * @return <code>true</code> if all the previous heads were found.
+   *
+   * @throws IOException
+   */
+  private boolean containsTips(List<ObjectId> newTips) throws IOException {
+    Set<ObjectId> searched = new HashSet<>(tips);
+    searched.removeAll(newTips);
+    if (searched.isEmpty()) {
+      return true;
+    }
+
+    try (RevWalk walk = createRevWalk()) {
+      int oldest = Integer.MAX_VALUE;
+      for (ObjectId tip : searched) {
+        oldest = Math.min(oldest, walk.parseCommit(tip).getCommitTime());
+      }
+      for (ObjectId tip : newTips) {
+        walk.markStart(walk.parseCommit(tip));
+      }
+      RevCommit commit;
+      while (!searched.isEmpty() && (commit = walk.next()) != null && commit.getCommitTime() >= oldest) {
+        searched.remove(commit);
+      }
+    }
+    return searched.isEmpty();
+  }
+
+  /**
+   * Reads the revisions reachable from the new heads and not from the previous ones.
+   *
+   * @param newTips The new heads of the current branch and of its upstream.
+   *
+   * @return The new revisions, newest first, or <code>null</code> if they are more than a page or if some
+   * are older than the previous heads, so a walk of the whole history would present them in between
+   * the loaded revisions.
+   *
+   * @throws IOException
+   */
+  private List<CommitCharacteristics> readAddedRevisions(List<ObjectId> newTips) throws IOException {
+    List<CommitCharacteristics> added = new ArrayList<>();
+    try (RevWalk walk = new RevWalk(repository)) {
+      int newest = 0;
+      for (ObjectId tip : tips) {
+        RevCommit commit = walk.parseCommit(tip);
+        newest = Math.max(newest, commit.getCommitTime());
+        walk.markUninteresting(commit);
+      }
+      for (ObjectId tip : newTips) {
+        walk.markStart(walk.parseCommit(tip));
+      }
+      if (filePath != null) {
+        walk.setTreeFilter(RevCommitUtil.createPathFilter(filePath));
+      }
+
+      RevCommit commit;
+      while ((commit = walk.next()) != null) {
+        if (added.size() == pageSize || commit.getCommitTime() < newest) {
+          return null;
+        }
+        added.add(RevCommitUtil.createCommitCharacteristics(commit, RevCommitUtil.getParentsId(commit)));
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Loads the next page of revisions in background, unless already loading.
+   */
+  public void loadMoreInBackground() {
+    synchronized (this) {
+      if (complete || loadingInBackground) {
+        return;
+      }
+      loadingInBackground = true;
+    }
+
+    GitOperationScheduler.getInstance().scheduleRead(() -> {
+      try {
+        loadMore();
+      } catch (IOException | GitAPIException e) {
+        logger.error(e, e);
+      } finally {
+        synchronized (this) {
+          loadingInBackground = false;
+        }
+      }
+    });
+  }
+
+  /**
+   * Loads all the remaining revisions.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  public void loadAll() throws IOException, GitAPIException {
+    while (!complete && loadMore()) {
+      // Next page.
+    }
+  }
+
+  /**
+   * @return <code>true</code> if all the revisions were loaded.
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Gets the index of a revision, loading more pages until it is found.
+   *
+   * @param commitId The full or abbreviated ID of the revision.
+   *
+   * @return The index of the revision or <code>-1</code> if it's not in the history.
+   */
+  public int indexOfCommit(String commitId) {
+    if (!AbbreviatedObjectId.isId(commitId)) {
+      return -1;
+    }
+
+    for (int i = 0; i < addedCommits.size(); i++) {
+      if (addedCommits.get(i).getCommitId().startsWith(commitId.toLowerCase())) {
+        return i + (head != null ? 1 : 0);
+      }
+    }
+
+    int offset = getOffset();
+    if (cachedHistory != null) {
+      int index = cachedHistory.indexOfCommit(commitId);
+      return index != -1 ? index + offset : -1;
+    }
+
+    AbbreviatedObjectId id = AbbreviatedObjectId.fromString(commitId);
+    int searched = 0;
+    try {
+      do {
+        synchronized (this) {
+          for (; searched < revisions.size(); searched++) {
+            if (id.prefixCompare(revisions.get(searched)) == 0) {
+              return searched + offset;
+            }
+          }
+        }
+      } while (!complete && loadMore());
+    } catch (IOException | GitAPIException e) {
+      logger.error(e, e);
+    }
+    return -1;
+  }
+
+  @Override
+  public synchronized int size() {
+    return getRevisionCount() + getOffset();
+  }
+
+  /**
+   * @return The number of entries presented before the loaded revisions.
+   */
+  private int getOffset() {
+    return (head != null ? 1 : 0) + addedCommits.size();
+  }
+
+  /**
+   * @return The number of revisions loaded so far.
+   */
+  private synchronized int getRevisionCount() {
+    return cachedHistory != null ? cachedHistory.size() : revisions.size();
+  }
+
+  @Override
+  public CommitCharacteristics get(int index) {
+    int revisionIndex = index;
+    if (head != null) {
+      if (index == 0) {
+        return head;
+      }
+      revisionIndex--;
+    }
+    if (revisionIndex >= 0 && revisionIndex < addedCommits.size()) {
+      return addedCommits.get(revisionIndex);
+    }
+    revisionIndex -= addedCommits.size();
+
+    int pageIndex = revisionIndex / pageSize;
+    List<RevCommit> pageRevisions;
+    List<List<String>> pageParents;
+    synchronized (this) {
+      if (revisionIndex < 0 || revisionIndex >= getRevisionCount()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      List<CommitCharacteristics> page = decodedPages.get(pageIndex);
+      if (page == null && cachedHistory != null) {
+        page = new ArrayList<>(cachedHistory.subList(
+            pageIndex * pageSize, Math.min(cachedHistory.size(), (pageIndex + 1) * pageSize)));
+        decodedPages.put(pageIndex, page);
+      }
+      if (page != null) {
+        return page.get(revisionIndex % pageSize);
+      }
+
+      pageRevisions = new ArrayList<>(
+          revisions.subList(pageIndex * pageSize, Math.min(revisions.size(), (pageIndex + 1) * pageSize)));
+      pageParents = new ArrayList<>(pageRevisions.size());
+      for (RevCommit commit : pageRevisions) {
+        pageParents.add(RevCommitUtil.getParentsId(commit));
+      }
+    }
+
+    List<CommitCharacteristics> page = decodePage(pageRevisions, pageParents);
+    synchronized (this) {
+      decodedPages.put(pageIndex, page);
+    }
+    return page.get(revisionIndex % pageSize);
+  }
+
+  /**
+   * Reads the messages and the authors of a page of revisions.
+   *
+   * @param pageRevisions The revisions.
+   * @param pageParents   The abbreviated IDs of their parents.
+   *
+   * @return The characteristics of the revisions.
+   */
+  private List<CommitCharacteristics> decodePage(List<RevCommit> pageRevisions, List<List<String>> pageParents) {
+    List<CommitCharacteristics> page = new ArrayList<>(pageRevisions.size());
+    try (RevWalk walk = new RevWalk(repository)) {
+      for (int i = 0; i < pageRevisions.size(); i++) {
+        RevCommit commit = walk.parseCommit(pageRevisions.get(i));
+        page.add(RevCommitUtil.createCommitCharacteristics(commit, pageParents.get(i)));
+      }
+    } catch (IOException e) {
+      logger.error(e, e);
+      for (int i = page.size(); i < pageRevisions.size(); i++) {
+        RevCommit commit = pageRevisions.get(i);
+        page.add(new CommitCharacteristics("", null, "",
+            commit.abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name(), commit.getName(), "",
+            pageParents.get(i)));
+      }
+    }
+    return page;
+  }
+
+  /**
+   * @param listener Notified when more revisions are loaded.
+   */
+  public void addGrowthListener(Runnable listener) {
+    growthListeners.add(listener);
+  }
+
+  /**
+   * @param listener The listener to remove.
+   */
+  public void removeGrowthListener(Runnable listener) {
+    growthListeners.remove(listener);
+  }
+
+  /**
+   * Stops walking. The revisions already loaded are still presented.
+   */
+  @Override
+  public void close() {
+    growthListeners.clear();
+    synchronized (walkLock) {
+      if (revWalk != null) {
+        revWalk.close();
+        revWalk = null;
+      }
+      complete = true;
+    }
+  }
+}
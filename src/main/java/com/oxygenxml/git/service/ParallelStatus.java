@@ -0,0 +1,182 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+
+/**
+ * Computes the status of a very large working copy using multiple threads.
+ * <br><br>
+ * The working tree is partitioned by its top-level entries, balanced using the number of files
+ * each of them has in the index. Each partition is compared with the index and HEAD by its own
+ * {@link IndexDiff}, on a fork-join pool. Each walk starts from the root of the working copy, so
+ * the ignore rules and the submodules are treated exactly like in a serial walk.
+ */
+final class ParallelStatus {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(ParallelStatus.class);
+  /**
+   * The pool on which the partitions are walked. Created on the first request.
+   */
+  private static ForkJoinPool pool;
+
+  /**
+   * Utility class.
+   */
+  private ParallelStatus() {
+    // Nothing
+  }
+
+  /**
+   * @return The pool on which the partitions are walked.
+   */
+  private static synchronized ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+    return pool;
+  }
+
+  /**
+   * Computes the status of the entire working copy, one partition at a time, in parallel.
+   *
+   * @param repository The repository.
+   * @param dirCache   The index of the repository.
+   *
+   * @return The status of each partition. Each file appears in a single partition.
+   * An empty list if the working copy cannot be partitioned.
+   *
+   * @throws IOException Unable to compute the status.
+   */
+  static List<Status> compute(Repository repository, DirCache dirCache) throws IOException {
+    ForkJoinPool forkJoinPool = getPool();
+    List<Collection<String>> partitions = partition(
+        countFilesByTopLevelEntry(repository, dirCache), forkJoinPool.getParallelism());
+    if (partitions.size() < 2) {
+      return Collections.emptyList();
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Compute the status in " + partitions.size() + " partitions.");
+    }
+    List<Callable<Status>> tasks = new ArrayList<>(partitions.size());
+    for (Collection<String> partition : partitions) {
+      tasks.add(() -> {
+        IndexDiff diff = new IndexDiff(repository, Constants.HEAD, new FileTreeIterator(repository));
+        diff.setFilter(PathFilterGroup.createFromStrings(partition));
+        diff.diff();
+        return new Status(diff);
+      });
+    }
+
+    List<Status> statuses = new ArrayList<>(partitions.size());
+    try {
+      for (Future<Status> future : forkJoinPool.invokeAll(tasks)) {
+        statuses.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+    return statuses;
+  }
+
+  /**
+   * Counts the files from the index under each top-level entry of the working copy.
+   * The entries present only in the working tree are counted as one file.
+   *
+   * @param repository The repository.
+   * @param dirCache   The index of the repository.
+   *
+   * @return The number of files, by top-level entry name.
+   */
+  private static Map<String, Integer> countFilesByTopLevelEntry(Repository repository, DirCache dirCache) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < dirCache.getEntryCount(); i++) {
+      String path = dirCache.getEntry(i).getPathString();
+      int separatorIndex = path.indexOf('/');
+      String topLevelEntry = separatorIndex == -1 ? path : path.substring(0, separatorIndex);
+      counts.merge(topLevelEntry, 1, Integer::sum);
+    }
+
+    String[] workTreeEntries = repository.getWorkTree().list();
+    if (workTreeEntries != null) {
+      for (String name : workTreeEntries) {
+        if (!Constants.DOT_GIT.equals(name) && new File(repository.getWorkTree(), name).exists()) {
+          counts.putIfAbsent(name, 1);
+        }
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Distributes the top-level entries into balanced partitions. The biggest entries are
+   * distributed first, each one to the partition with the fewest files.
+   *
+   * @param counts         The number of files, by top-level entry name.
+   * @param partitionCount The maximum number of partitions.
+   *
+   * @return The partitions. None of them is empty.
+   */
+  static List<Collection<String>> partition(Map<String, Integer> counts, int partitionCount) {
+    List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+    entries.sort((e1, e2) -> Integer.compare(e2.getValue(), e1.getValue()));
+
+    int count = Math.min(partitionCount, entries.size());
+    PriorityQueue<Partition> lightestFirst = new PriorityQueue<>(
+        Math.max(1, count), (p1, p2) -> Long.compare(p1.fileCount, p2.fileCount));
+    for (int i = 0; i < count; i++) {
+      lightestFirst.add(new Partition());
+    }
+    for (Map.Entry<String, Integer> entry : entries) {
+      Partition lightest = lightestFirst.poll();
+      lightest.paths.add(entry.getKey());
+      lightest.fileCount += entry.getValue();
+      lightestFirst.add(lightest);
+    }
+
+    List<Collection<String>> partitions = new ArrayList<>(count);
+    for (Partition partition : lightestFirst) {
+      partitions.add(partition.paths);
+    }
+    return partitions;
+  }
+
+  /**
+   * A set of top-level entries walked together.
+   */
+  private static class Partition {
+    /**
+     * The top-level entries.
+     */
+    private final List<String> paths = new ArrayList<>();
+    /**
+     * The number of files from the index under these entries.
+     */
+    private long fileCount;
+  }
+}
@@ -0,0 +1,340 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.oxygenxml.git.service.ChangedPathIndex.PathKey;
+import com.oxygenxml.git.service.CommitMetadataCache.CachedHistory;
+import com.oxygenxml.git.service.CommitMetadataCache.CommitGraph;
+
+/**
+ * Walks the history of a resource over the cached commits. It gives the same revisions, in the same order
+ * and with the same rewritten parents, as a {@link RevWalk} with a path filter, including the history
+ * before a rename. The trees are compared only for the commits that the {@link ChangedPathIndex} doesn't
+ * exclude.
+ */
+final class PathHistoryWalk {
+  /**
+   * Loaded repository.
+   */
+  private final Repository repository;
+  /**
+   * The cached commits.
+   */
+  private final CommitGraph graph;
+  /**
+   * Reads the trees of the commits that must be compared.
+   */
+  private final RevWalk revWalk;
+  /**
+   * The path of the resource.
+   */
+  private String path;
+  /**
+   * The hashes of the path, for the changed paths index.
+   */
+  private PathKey pathKey;
+  /**
+   * The parents of the commits, as simplified by the walk. <code>null</code> entries for the
+   * commits whose parents are the ones in the graph.
+   */
+  private int[][] parents;
+  /**
+   * The commits that didn't change the resource, and are skipped when rewriting the parents.
+   */
+  private BitSet rewritten;
+
+  /**
+   * Constructor.
+   *
+   * @param repository Loaded repository.
+   * @param graph      The cached commits.
+   * @param revWalk    Reads the trees of the commits.
+   */
+  private PathHistoryWalk(Repository repository, CommitGraph graph, RevWalk revWalk) {
+    this.repository = repository;
+    this.graph = graph;
+    this.revWalk = revWalk;
+  }
+
+  /**
+   * Collects the revisions that changed a resource.
+   *
+   * @param repository    Loaded repository.
+   * @param branchHistory The history of the current branch.
+   * @param starts        The indices of the heads of the current branch and of its upstream.
+   * @param path          The path of the resource.
+   *
+   * @return The revisions.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  static CachedHistory walk(Repository repository, CachedHistory branchHistory, int[] starts, String path)
+      throws IOException, GitAPIException {
+    CommitGraph graph = branchHistory.getGraph();
+    ChangedPathIndex.getInstance().load(repository);
+    List<Integer> order = new ArrayList<>();
+    List<int[]> orderParents = new ArrayList<>();
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      revWalk.setRetainBody(false);
+      PathHistoryWalk walk = new PathHistoryWalk(repository, graph, revWalk);
+      int[] segmentStarts = starts;
+      String segmentPath = path;
+      while (segmentPath != null) {
+        walk.walkSegment(segmentStarts, segmentPath, order, orderParents);
+        segmentPath = null;
+
+        // If the resource was renamed, continue with its history before the rename.
+        if (!order.isEmpty()) {
+          int last = order.get(order.size() - 1);
+          Optional<DiffEntry> rename = walk.findRename(last);
+          if (rename.isPresent()) {
+            // The renaming revision is presented once, linked to the parents from the previous path.
+            order.remove(order.size() - 1);
+            orderParents.remove(orderParents.size() - 1);
+            segmentStarts = new int[] {last};
+            segmentPath = rename.get().getOldPath();
+          }
+        }
+      }
+    }
+
+    return new CachedHistory(
+        graph,
+        order.stream().mapToInt(Integer::intValue).toArray(),
+        orderParents.toArray(new int[0][]));
+  }
+
+  /**
+   * Collects the revisions that changed the resource at a path.
+   *
+   * @param starts       The indices of the commits from which to start.
+   * @param segmentPath  The path of the resource.
+   * @param order        Receives the indices of the revisions.
+   * @param orderParents Receives the rewritten parents of the revisions.
+   *
+   * @throws IOException
+   */
+  private void walkSegment(int[] starts, String segmentPath, List<Integer> order, List<int[]> orderParents)
+      throws IOException {
+    path = segmentPath;
+    pathKey = new PathKey(segmentPath);
+    parents = new int[graph.size()][];
+    rewritten = new BitSet(graph.size());
+
+    PriorityQueue<int[]> pending = graph.createWalkQueue();
+    BitSet seen = new BitSet(graph.size());
+    int reached = 0;
+    for (int start : starts) {
+      if (!seen.get(start)) {
+        seen.set(start);
+        pending.add(new int[] {start, reached++});
+      }
+    }
+
+    List<Integer> produced = new ArrayList<>();
+    try (TreeWalk treeWalk = new TreeWalk(repository)) {
+      TreeFilter filter = RevCommitUtil.createPathFilter(segmentPath);
+      treeWalk.setFilter(filter);
+      treeWalk.setRecursive(filter.shouldBeRecursive());
+      while (!pending.isEmpty()) {
+        int commit = pending.poll()[0];
+        // The filter may simplify the parents, so it comes first.
+        boolean include = include(treeWalk, commit);
+        for (int parent : getParents(commit)) {
+          if (!seen.get(parent)) {
+            seen.set(parent);
+            pending.add(new int[] {parent, reached++});
+          }
+        }
+        if (include) {
+          produced.add(commit);
+        }
+      }
+    }
+
+    for (int commit : produced) {
+      order.add(commit);
+      orderParents.add(rewriteParents(commit));
+    }
+  }
+
+  /**
+   * @param commit The index of a commit.
+   *
+   * @return The indices of its parents, as simplified by the walk.
+   */
+  private int[] getParents(int commit) {
+    if (parents[commit] == null) {
+      parents[commit] = graph.getParents(commit);
+    }
+    return parents[commit];
+  }
+
+  /**
+   * Decides if a commit changed the resource, like the tree filter of a {@link RevWalk}. A merge that
+   * didn't change the resource relative to one of its parents continues only with that parent.
+   *
+   * @param treeWalk Compares the trees.
+   * @param commit   The index of the commit.
+   *
+   * @return <code>true</code> if the commit changed the resource.
+   *
+   * @throws IOException
+   */
+  private boolean include(TreeWalk treeWalk, int commit) throws IOException {
+    int[] commitParents = getParents(commit);
+    // The index compares with the first parent, which a merge might have cut.
+    boolean indexed = commitParents.length > 0 || graph.getParents(commit).length == 0;
+    if (indexed && !ChangedPathIndex.getInstance().mightChange(graph.getId(commit), pathKey)) {
+      // Same as the first parent.
+      if (commitParents.length > 1) {
+        parents[commit] = new int[] {commitParents[0]};
+      }
+      rewritten.set(commit);
+      return false;
+    }
+
+    RevTree[] trees = new RevTree[commitParents.length + 1];
+    for (int i = 0; i < commitParents.length; i++) {
+      trees[i] = revWalk.parseCommit(graph.getId(commitParents[i])).getTree();
+    }
+    trees[commitParents.length] = revWalk.parseCommit(graph.getId(commit)).getTree();
+    treeWalk.reset(trees);
+
+    boolean include;
+    if (commitParents.length <= 1) {
+      // Added or changed.
+      include = treeWalk.next();
+    } else {
+      include = includeMerge(treeWalk, commit, commitParents);
+    }
+    if (!include) {
+      rewritten.set(commit);
+    }
+    return include;
+  }
+
+  /**
+   * Decides if a merge changed the resource relative to all its parents.
+   *
+   * @param treeWalk      Compares the trees of the parents with the tree of the merge, which is the last one.
+   * @param commit        The index of the merge.
+   * @param commitParents The indices of its parents.
+   *
+   * @return <code>true</code> if the merge changed the resource.
+   *
+   * @throws IOException
+   */
+  private boolean includeMerge(TreeWalk treeWalk, int commit, int[] commitParents) throws IOException {
+    int count = commitParents.length;
+    int[] changes = new int[count];
+    int[] additions = new int[count];
+    while (treeWalk.next()) {
+      int mode = treeWalk.getRawMode(count);
+      for (int i = 0; i < count; i++) {
+        int parentMode = treeWalk.getRawMode(i);
+        if (mode != parentMode || !treeWalk.idEqual(i, count)) {
+          changes[i]++;
+          if (parentMode == FileMode.TYPE_MISSING && mode != FileMode.TYPE_MISSING) {
+            additions[i]++;
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < count; i++) {
+      if (changes[i] == 0) {
+        // Same as this parent, which takes the blame.
+        parents[commit] = new int[] {commitParents[i]};
+        return false;
+      }
+      if (changes[i] == additions[i]) {
+        // The resource didn't exist in this parent, so its history is not relevant.
+        parents[commitParents[i]] = new int[0];
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Replaces the parents that didn't change the resource with their closest ancestors that did.
+   *
+   * @param commit The index of a revision.
+   *
+   * @return The indices of its rewritten parents, without duplicates.
+   */
+  private int[] rewriteParents(int commit) {
+    int[] commitParents = getParents(commit);
+    int[] rewrittenParents = new int[commitParents.length];
+    int count = 0;
+    for (int parent : commitParents) {
+      int ancestor = rewrite(parent);
+      boolean duplicate = ancestor < 0;
+      for (int i = 0; i < count && !duplicate; i++) {
+        duplicate = rewrittenParents[i] == ancestor;
+      }
+      if (!duplicate) {
+        rewrittenParents[count++] = ancestor;
+      }
+    }
+    return count == rewrittenParents.length ? rewrittenParents : Arrays.copyOf(rewrittenParents, count);
+  }
+
+  /**
+   * Follows the first parents of the commits that didn't change the resource.
+   *
+   * @param commit The index of a commit.
+   *
+   * @return The index of the first ancestor that is a merge or that changed the resource, or <code>-1</code>.
+   */
+  private int rewrite(int commit) {
+    int current = commit;
+    while (true) {
+      int[] currentParents = getParents(current);
+      if (currentParents.length > 1 || !rewritten.get(current)) {
+        return current;
+      }
+      if (currentParents.length == 0) {
+        return -1;
+      }
+      current = currentParents[0];
+    }
+  }
+
+  /**
+   * Checks if the resource was renamed by a revision, relative to its first parent.
+   *
+   * @param commit The index of the revision.
+   *
+   * @return The rename, if the resource was renamed by this revision.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private Optional<DiffEntry> findRename(int commit) throws IOException, GitAPIException {
+    int[] commitParents = graph.getParents(commit);
+    if (commitParents.length > 0) {
+      RevCommit current = revWalk.parseCommit(graph.getId(commit));
+      RevCommit parent = revWalk.parseCommit(graph.getId(commitParents[0]));
+      return RevCommitUtil.findRename(repository, parent, current, path);
+    }
+    return Optional.empty();
+  }
+}
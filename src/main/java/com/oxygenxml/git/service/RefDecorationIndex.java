@@ -0,0 +1,292 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.view.event.GitEventInfo;
+import com.oxygenxml.git.view.event.GitOperation;
+
+/**
+ * Keeps the local branches, the remote branches and the tags that point to each commit of the current
+ * repository, used to decorate the history.
+ * <br><br>
+ * The refs are read again only after the operations that might change them, or when JGit notices that
+ * they changed. Only the tags that are new or that were moved are peeled.
+ */
+public class RefDecorationIndex {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(RefDecorationIndex.class);
+  /**
+   * Singleton instance.
+   */
+  private static RefDecorationIndex instance;
+  /**
+   * The repository for which the refs were read.
+   */
+  private File repositoryDir;
+  /**
+   * The object to which each ref points, by full ref name.
+   */
+  private Map<String, ObjectId> refTargets = new HashMap<>();
+  /**
+   * The commit to which each tag points, by full ref name.
+   */
+  private Map<String, ObjectId> peeledTags = new HashMap<>();
+  /**
+   * The current decorations.
+   */
+  private RefDecorations decorations = RefDecorations.EMPTY;
+  /**
+   * <code>true</code> if the refs might have changed since they were read.
+   */
+  private boolean dirty = true;
+  /**
+   * Registration of the listener notified by JGit when it notices that the refs changed.
+   */
+  private final ListenerHandle refsChangedHandle;
+
+  /**
+   * Singleton private constructor.
+   */
+  private RefDecorationIndex() {
+    GitListeners.getInstance().addGitListener(new GitEventAdapter() {
+      @Override
+      public void operationSuccessfullyEnded(GitEventInfo info) {
+        treatOperationEnded(info);
+      }
+      @Override
+      public void operationFailed(GitEventInfo info, Throwable t) {
+        treatOperationEnded(info);
+      }
+    });
+    refsChangedHandle = Repository.getGlobalListenerList().addRefsChangedListener(event -> {
+      Repository repository = event.getRepository();
+      if (repository != null) {
+        refsChanged(repository.getDirectory());
+      }
+    });
+  }
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized RefDecorationIndex getInstance() {
+    if (instance == null) {
+      instance = new RefDecorationIndex();
+    }
+    return instance;
+  }
+
+  /**
+   * Drops the singleton instance.
+   */
+  static synchronized void reset() {
+    if (instance != null) {
+      instance.refsChangedHandle.remove();
+    }
+    instance = null;
+  }
+
+  /**
+   * Marks the refs as changed after the operations that might change them.
+   *
+   * @param info Event information.
+   */
+  private void treatOperationEnded(GitEventInfo info) {
+    GitOperation operation = info.getGitOperation();
+    if (operation != GitOperation.STAGE
+        && operation != GitOperation.UNSTAGE
+        && operation != GitOperation.DISCARD) {
+      invalidate();
+    }
+  }
+
+  /**
+   * Marks the refs as changed, if they belong to the indexed repository.
+   *
+   * @param changedRepositoryDir The directory of the repository whose refs changed.
+   */
+  private synchronized void refsChanged(File changedRepositoryDir) {
+    if (changedRepositoryDir != null && changedRepositoryDir.equals(repositoryDir)) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Marks the refs as changed. They will be read again on the next request.
+   */
+  public synchronized void invalidate() {
+    dirty = true;
+  }
+
+  /**
+   * Gets the branches and the tags that point to each commit.
+   *
+   * @param repository The current repository.
+   *
+   * @return The decorations. Never <code>null</code>.
+   */
+  public synchronized RefDecorations getDecorations(Repository repository) {
+    if (!repository.getDirectory().equals(repositoryDir)) {
+      repositoryDir = repository.getDirectory();
+      refTargets = new HashMap<>();
+      peeledTags = new HashMap<>();
+      decorations = RefDecorations.EMPTY;
+      dirty = true;
+    }
+
+    if (dirty) {
+      try {
+        update(repository);
+        dirty = false;
+      } catch (IOException e) {
+        logger.error(e, e);
+      }
+    }
+
+    return decorations;
+  }
+
+  /**
+   * Reads the refs again. Only the tags that are new or that were moved are peeled.
+   *
+   * @param repository The current repository.
+   *
+   * @throws IOException Unable to read the refs.
+   */
+  private void update(Repository repository) throws IOException {
+    RefDatabase refDatabase = repository.getRefDatabase();
+    Map<String, ObjectId> newRefTargets = new HashMap<>();
+    Map<String, ObjectId> newPeeledTags = new HashMap<>();
+    Map<ObjectId, List<String>> localBranches = new HashMap<>();
+    Map<ObjectId, List<String>> remoteBranches = new HashMap<>();
+    Map<ObjectId, List<String>> tags = new HashMap<>();
+    int peeled = 0;
+
+    for (Ref ref : refDatabase.getRefsByPrefix(Constants.R_REFS)) {
+      String name = ref.getName();
+      ObjectId target = ref.getObjectId();
+      if (target == null) {
+        continue;
+      }
+      newRefTargets.put(name, target);
+
+      if (name.startsWith(Constants.R_HEADS)) {
+        add(localBranches, target, name.substring(Constants.R_HEADS.length()));
+      } else if (name.startsWith(Constants.R_REMOTES)) {
+        add(remoteBranches, target, name.substring(Constants.R_REMOTES.length()));
+      } else if (name.startsWith(Constants.R_TAGS)) {
+        ObjectId commit = peeledTags.get(name);
+        if (commit == null || !target.equals(refTargets.get(name))) {
+          Ref peeledRef = refDatabase.peel(ref);
+          commit = peeledRef.getPeeledObjectId() != null ? peeledRef.getPeeledObjectId() : target;
+          peeled++;
+        }
+        newPeeledTags.put(name, commit);
+        add(tags, commit, name.substring(Constants.R_TAGS.length()));
+      }
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Read " + newRefTargets.size() + " refs, peeled " + peeled + " tags.");
+    }
+
+    refTargets = newRefTargets;
+    peeledTags = newPeeledTags;
+    decorations = new RefDecorations(localBranches, remoteBranches, tags);
+  }
+
+  /**
+   * Adds a name to the ones that point to a commit.
+   *
+   * @param names  The names, by commit.
+   * @param commit The commit.
+   * @param name   The name to add.
+   */
+  private static void add(Map<ObjectId, List<String>> names, ObjectId commit, String name) {
+    names.computeIfAbsent(commit, k -> new ArrayList<>(1)).add(name);
+  }
+
+  /**
+   * The branches and the tags that point to each commit, as read at some moment. Never changes.
+   */
+  public static final class RefDecorations {
+    /**
+     * No decorations.
+     */
+    public static final RefDecorations EMPTY = new RefDecorations(
+        Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+    /**
+     * The local branches, by commit.
+     */
+    private final Map<ObjectId, List<String>> localBranches;
+    /**
+     * The remote branches, by commit.
+     */
+    private final Map<ObjectId, List<String>> remoteBranches;
+    /**
+     * The tags, by commit.
+     */
+    private final Map<ObjectId, List<String>> tags;
+
+    /**
+     * Constructor.
+     *
+     * @param localBranches  The local branches, by commit.
+     * @param remoteBranches The remote branches, by commit.
+     * @param tags           The tags, by commit.
+     */
+    RefDecorations(
+        Map<ObjectId, List<String>> localBranches,
+        Map<ObjectId, List<String>> remoteBranches,
+        Map<ObjectId, List<String>> tags) {
+      this.localBranches = localBranches;
+      this.remoteBranches = remoteBranches;
+      this.tags = tags;
+    }
+
+    /**
+     * @param commit A commit.
+     *
+     * @return The short names of the local branches that point to the commit. Never <code>null</code>.
+     */
+    public List<String> getLocalBranches(AnyObjectId commit) {
+      return localBranches.getOrDefault(commit, Collections.emptyList());
+    }
+
+    /**
+     * @param commit A commit.
+     *
+     * @return The names of the remote branches that point to the commit, including the name of the remote.
+     * Never <code>null</code>.
+     */
+    public List<String> getRemoteBranches(AnyObjectId commit) {
+      return remoteBranches.getOrDefault(commit, Collections.emptyList());
+    }
+
+    /**
+     * @param commit A commit.
+     *
+     * @return The short names of the tags that point to the commit. Never <code>null</code>.
+     */
+    public List<String> getTags(AnyObjectId commit) {
+      return tags.getOrDefault(commit, Collections.emptyList());
+    }
+  }
+}
@@ -0,0 +1,424 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.BranchConfig;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Owns the communication with the remote repository for bringing the new commits (fetch).
+ * <br><br>
+ * The remote repository is checked periodically, in the background. The interval adapts: it
+ * shrinks when the remote branches move and grows when they don't. After the remote repository
+ * was unavailable, the following checks are delayed using an exponential backoff.
+ * <br><br>
+ * Before fetching, the branches and the tags advertised by the remote repository of the current branch
+ * ("ls-remote") are compared with the local remote-tracking branches and tags and the fetch is skipped
+ * if nothing moved. Only one check runs at a time, the concurrent callers await its result.
+ * <br><br>
+ * The components that need up to date remote information should use {@link #sync(boolean)}, which
+ * reuses the last result while it is recent enough, instead of fetching on their own.
+ */
+public class RemoteSyncService {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(RemoteSyncService.class);
+  /**
+   * The minimum interval between two checks. Milliseconds.
+   */
+  static final long MIN_INTERVAL = 60 * 1000L;
+  /**
+   * The initial interval between two checks. Milliseconds.
+   */
+  static final long DEFAULT_INTERVAL = 2 * 60 * 1000L;
+  /**
+   * The maximum interval between two checks, when the remote is available. Milliseconds.
+   */
+  static final long MAX_INTERVAL = 10 * 60 * 1000L;
+  /**
+   * The maximum interval between two checks, when the remote is unavailable. Milliseconds.
+   */
+  static final long MAX_BACKOFF_INTERVAL = 30 * 60 * 1000L;
+  /**
+   * Singleton instance.
+   */
+  private static RemoteSyncService instance;
+  /**
+   * The current interval between two checks, when the remote is available. Milliseconds.
+   */
+  private long interval = DEFAULT_INTERVAL;
+  /**
+   * The number of consecutive checks that found the remote repository unavailable.
+   */
+  private int consecutiveFailures;
+  /**
+   * The time of the last completed check, or 0 if there is no usable result.
+   */
+  private long lastSyncTime;
+  /**
+   * The repository that was synchronized in the last check.
+   */
+  private File lastSyncedRepository;
+  /**
+   * The failure from the last check, or <code>null</code> if it was successful.
+   */
+  private RepositoryUnavailableException lastFailure;
+  /**
+   * The check of the remote repository in progress, awaited by the concurrent callers.
+   * <code>null</code> if there is none.
+   */
+  private CompletableFuture<Boolean> runningCheck;
+  /**
+   * The next background check.
+   */
+  private ScheduledFuture<?> backgroundSync;
+  /**
+   * Notified when the background checks bring new commits.
+   */
+  private final List<Runnable> remoteChangeListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Singleton private constructor.
+   */
+  private RemoteSyncService() {
+    // Nothing
+  }
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized RemoteSyncService getInstance() {
+    if (instance == null) {
+      instance = new RemoteSyncService();
+    }
+    return instance;
+  }
+
+  /**
+   * Stops the background checks and drops the singleton instance.
+   */
+  static synchronized void reset() {
+    if (instance != null) {
+      instance.stop();
+    }
+    instance = null;
+  }
+
+  /**
+   * Adds a listener notified when the background checks bring new commits from the remote repository.
+   *
+   * @param listener The listener.
+   */
+  public void addRemoteChangeListener(Runnable listener) {
+    remoteChangeListeners.add(listener);
+  }
+
+  /**
+   * Starts checking the remote repository in the background.
+   */
+  public synchronized void start() {
+    scheduleBackgroundSync(MIN_INTERVAL);
+  }
+
+  /**
+   * Stops the background checks.
+   */
+  public synchronized void stop() {
+    if (backgroundSync != null) {
+      backgroundSync.cancel(false);
+      backgroundSync = null;
+    }
+  }
+
+  /**
+   * Schedules the next background check.
+   *
+   * @param delay The delay. Milliseconds.
+   */
+  private synchronized void scheduleBackgroundSync(long delay) {
+    stop();
+    backgroundSync = GitOperationScheduler.getInstance().scheduleBackground(this::syncInBackground, (int) delay);
+  }
+
+  /**
+   * Background check.
+   */
+  private void syncInBackground() {
+    try {
+      if (sync(false)) {
+        for (Runnable listener : remoteChangeListeners) {
+          listener.run();
+        }
+      }
+    } catch (SSHPassphraseRequiredException | PrivateRepositoryException | RepositoryUnavailableException e) {
+      // The user is asked for credentials only by the explicit requests.
+      logger.debug(e, e);
+    } catch (RuntimeException e) {
+      logger.error(e, e);
+    } finally {
+      synchronized (this) {
+        if (backgroundSync != null) {
+          scheduleBackgroundSync(getCurrentInterval());
+        }
+      }
+    }
+  }
+
+  /**
+   * Makes sure the local remote-tracking branches reflect the remote repository. If a check is already
+   * running, its result is awaited instead of starting another one.
+   *
+   * @param force <code>true</code> to check the remote repository even if the last result is recent.
+   * Should be used only for explicit user requests.
+   *
+   * @return <code>true</code> if new commits were brought from the remote repository.
+   *
+   * @throws SSHPassphraseRequiredException
+   * @throws PrivateRepositoryException
+   * @throws RepositoryUnavailableException The remote repository was unavailable, now or in the last check.
+   */
+  public boolean sync(boolean force)
+      throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+    File currentRepository = getCurrentRepository();
+    if (currentRepository == null) {
+      throw new RepositoryUnavailableException(new NoRepositorySelected("Repository is empty"));
+    }
+
+    CompletableFuture<Boolean> check;
+    boolean started = false;
+    synchronized (this) {
+      if (runningCheck == null) {
+        if (!force
+            && currentRepository.equals(lastSyncedRepository)
+            && System.currentTimeMillis() - lastSyncTime < getCurrentInterval()) {
+          logger.debug("Reuse the last remote check.");
+          if (lastFailure != null) {
+            throw lastFailure;
+          }
+          return false;
+        }
+
+        // No usable result until the check completes. The credentials issues are not cached
+        // because the user can fix them anytime.
+        lastSyncTime = 0;
+        lastSyncedRepository = currentRepository;
+        runningCheck = new CompletableFuture<>();
+        started = true;
+      }
+      check = runningCheck;
+    }
+
+    return started ? checkRemote(check) : awaitCheck(check);
+  }
+
+  /**
+   * Checks the remote repository and fetches if its branches or tags moved. Not synchronized,
+   * the network communication can take a while.
+   *
+   * @param check The running check, completed with the result.
+   *
+   * @return <code>true</code> if new commits were brought from the remote repository.
+   *
+   * @throws SSHPassphraseRequiredException
+   * @throws PrivateRepositoryException
+   * @throws RepositoryUnavailableException
+   */
+  private boolean checkRemote(CompletableFuture<Boolean> check)
+      throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+    boolean fetched = false;
+    try {
+      String remote = getCurrentRemote();
+      if (haveRemoteRefsMoved(remote)) {
+        GitAccess.getInstance().fetch(remote);
+        fetched = true;
+      }
+      synchronized (this) {
+        interval = fetched ? Math.max(MIN_INTERVAL, interval / 2) : Math.min(MAX_INTERVAL, interval * 2);
+        lastFailure = null;
+        consecutiveFailures = 0;
+        lastSyncTime = System.currentTimeMillis();
+      }
+    } catch (RepositoryUnavailableException e) {
+      synchronized (this) {
+        lastFailure = e;
+        consecutiveFailures++;
+        lastSyncTime = System.currentTimeMillis();
+      }
+      finishCheck(check, null, e);
+      throw e;
+    } catch (SSHPassphraseRequiredException | PrivateRepositoryException | RuntimeException e) {
+      finishCheck(check, null, e);
+      throw e;
+    }
+    finishCheck(check, fetched, null);
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Remote check done. Fetched: " + fetched + ". Next check in " + getCurrentInterval() + " ms.");
+    }
+    return fetched;
+  }
+
+  /**
+   * Publishes the result of the running check to the callers that await it.
+   *
+   * @param check   The running check.
+   * @param fetched <code>true</code> if new commits were brought from the remote repository.
+   * @param failure The failure or <code>null</code>.
+   */
+  private void finishCheck(CompletableFuture<Boolean> check, Boolean fetched, Exception failure) {
+    synchronized (this) {
+      runningCheck = null;
+    }
+    if (failure != null) {
+      check.completeExceptionally(failure);
+    } else {
+      check.complete(fetched);
+    }
+  }
+
+  /**
+   * Waits for a check started by another caller.
+   *
+   * @param check The running check.
+   *
+   * @return <code>true</code> if new commits were brought from the remote repository.
+   *
+   * @throws SSHPassphraseRequiredException
+   * @throws PrivateRepositoryException
+   * @throws RepositoryUnavailableException
+   */
+  private static boolean awaitCheck(CompletableFuture<Boolean> check)
+      throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+    logger.debug("Await the running remote check.");
+    try {
+      return check.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RepositoryUnavailableException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SSHPassphraseRequiredException) {
+        throw (SSHPassphraseRequiredException) cause;
+      } else if (cause instanceof PrivateRepositoryException) {
+        throw (PrivateRepositoryException) cause;
+      } else if (cause instanceof RepositoryUnavailableException) {
+        throw (RepositoryUnavailableException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RepositoryUnavailableException(cause);
+    }
+  }
+
+  /**
+   * @return The interval until the next check, taking into account the backoff. Milliseconds.
+   */
+  synchronized long getCurrentInterval() {
+    long currentInterval = interval;
+    if (consecutiveFailures > 0) {
+      // Exponential backoff.
+      currentInterval = DEFAULT_INTERVAL << Math.min(consecutiveFailures - 1, 10);
+      currentInterval = Math.min(MAX_BACKOFF_INTERVAL, currentInterval);
+    }
+    return currentInterval;
+  }
+
+  /**
+   * Compares the branches and the tags advertised by the remote repository with the local
+   * remote-tracking branches and tags.
+   *
+   * @param remote The name of the remote.
+   *
+   * @return <code>true</code> if a branch was created, deleted or moved or if a tag was created or
+   * moved in the remote repository.
+   *
+   * @throws SSHPassphraseRequiredException
+   * @throws PrivateRepositoryException
+   * @throws RepositoryUnavailableException
+   */
+  private static boolean haveRemoteRefsMoved(String remote)
+      throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+    GitAccess gitAccess = GitAccess.getInstance();
+    Collection<Ref> advertisedRefs = gitAccess.lsRemote(remote);
+
+    boolean moved = false;
+    try {
+      Repository repository = gitAccess.getRepository();
+      String remoteTrackingPrefix = Constants.R_REMOTES + remote + "/";
+      Map<String, ObjectId> trackingBranches = new HashMap<>();
+      for (Ref ref : repository.getRefDatabase().getRefsByPrefix(remoteTrackingPrefix)) {
+        String branchName = ref.getName().substring(remoteTrackingPrefix.length());
+        if (!Constants.HEAD.equals(branchName)) {
+          trackingBranches.put(Constants.R_HEADS + branchName, ref.getObjectId());
+        }
+      }
+      Map<String, ObjectId> tags = new HashMap<>();
+      for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+        tags.put(ref.getName(), ref.getObjectId());
+      }
+
+      for (Ref ref : advertisedRefs) {
+        // The local tags that are not in the remote repository are not pushed yet.
+        ObjectId localId = ref.getName().startsWith(Constants.R_TAGS)
+            ? tags.get(ref.getName()) : trackingBranches.remove(ref.getName());
+        if (localId == null || !localId.equals(ref.getObjectId())) {
+          moved = true;
+          break;
+        }
+      }
+      // Branches deleted from the remote repository.
+      moved |= !trackingBranches.isEmpty();
+    } catch (NoRepositorySelected | IOException e) {
+      logger.debug(e, e);
+      // Let the fetch decide.
+      moved = true;
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Remote branches or tags moved: " + moved);
+    }
+    return moved;
+  }
+
+  /**
+   * @return The remote of the current branch, or the default one if the branch has no remote.
+   */
+  private static String getCurrentRemote() {
+    String remote = null;
+    try {
+      Repository repository = GitAccess.getInstance().getRepository();
+      remote = new BranchConfig(repository.getConfig(), repository.getBranch()).getRemote();
+    } catch (NoRepositorySelected | IOException e) {
+      logger.debug(e, e);
+    }
+    // "." is the local repository.
+    return remote == null || ".".equals(remote) ? Constants.DEFAULT_REMOTE_NAME : remote;
+  }
+
+  /**
+   * @return The directory of the current repository or <code>null</code>.
+   */
+  private static File getCurrentRepository() {
+    File repositoryDir = null;
+    try {
+      repositoryDir = GitAccess.getInstance().getRepository().getDirectory();
+    } catch (NoRepositorySelected e) {
+      logger.debug(e, e);
+    }
+    return repositoryDir;
+  }
+}
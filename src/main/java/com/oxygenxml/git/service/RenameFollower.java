@@ -0,0 +1,319 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.ContentSource;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.NotIgnoredFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.oxygenxml.git.metrics.OperationMetrics;
+
+/**
+ * Follows a resource across renames. The presence of the resource in a revision is checked by looking up
+ * its path in the tree, and the rename detection runs only when the resource disappears. The rename
+ * detection compares the resource only with the files added (or removed) by that revision.
+ */
+final class RenameFollower implements AutoCloseable {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(RenameFollower.class);
+  /**
+   * Loaded repository.
+   */
+  private final Repository repository;
+  /**
+   * Reads the trees.
+   */
+  private final ObjectReader reader;
+  /**
+   * The path for which the presence in the trees is remembered.
+   */
+  private String knownPath;
+  /**
+   * Tells if the resource at the known path is present in a tree, by tree ID.
+   */
+  private final Map<ObjectId, Boolean> presence = new HashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param repository Loaded repository.
+   */
+  RenameFollower(Repository repository) {
+    this.repository = repository;
+    this.reader = repository.newObjectReader();
+  }
+
+  /**
+   * Finds the path of a resource in the last revision of a list. The renames are detected between
+   * consecutive revisions.
+   *
+   * @param filePath  The path of the resource in the first revision.
+   * @param revisions The revisions across which to follow the resource.
+   *
+   * @return The path of the resource in the last revision.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  String follow(String filePath, List<RevCommit> revisions) throws IOException, GitAPIException {
+    String path = filePath;
+    if (!revisions.isEmpty()) {
+      RevCommit lastRev = revisions.get(revisions.size() - 1);
+      RevCommit previous = null;
+      for (RevCommit revCommit : revisions) {
+        if (previous != null) {
+          // Fast stop.
+          if (exists(lastRev, path)) {
+            // The current discovered path is the same as in the target revision.
+            if (logger.isDebugEnabled()) {
+              logger.debug("Same path as in target. Stop. " + revCommit.getFullMessage());
+            }
+            break;
+          }
+
+          // Only a resource that disappears might have been renamed.
+          if (!exists(revCommit, path) && exists(previous, path)) {
+            if (logger.isDebugEnabled()) {
+              logger.debug("Search for a rename at revision " + revCommit.getFullMessage());
+            }
+            Optional<DiffEntry> rename = findRename(previous.getTree(), revCommit.getTree(), path, true);
+            if (rename.isPresent()) {
+              path = rename.get().getNewPath();
+            }
+          }
+        }
+
+        previous = revCommit;
+      }
+    }
+
+    return path;
+  }
+
+  /**
+   * Checks if a revision created a resource by renaming another one.
+   *
+   * @param parent The parent revision.
+   * @param commit The revision.
+   * @param path   The path of the resource in the revision.
+   *
+   * @return The rename, if the resource was renamed by this revision.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  Optional<DiffEntry> findRenameTo(RevCommit parent, RevCommit commit, String path)
+      throws IOException, GitAPIException {
+    Optional<DiffEntry> rename = Optional.empty();
+    if (!exists(parent, path)) {
+      rename = findRename(parent.getTree(), commit.getTree(), path, false);
+    }
+    return rename;
+  }
+
+  /**
+   * Checks if a resource from the HEAD revision was renamed in the working copy.
+   *
+   * @param head The HEAD revision.
+   * @param path The path of the resource in the HEAD revision.
+   *
+   * @return The rename, if the resource was renamed in the working copy.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  Optional<DiffEntry> findWorkingCopyRename(RevCommit head, String path) throws IOException, GitAPIException {
+    long start = System.nanoTime();
+    try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+      treeWalk.addTree(head.getTree());
+      treeWalk.addTree(new FileTreeIterator(repository));
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(AndTreeFilter.create(new NotIgnoredFilter(1), new RenameCandidatesFilter(path, true)));
+
+      ContentSource.Pair source = new ContentSource.Pair(
+          ContentSource.create(reader),
+          ContentSource.create(new FileTreeIterator(repository)));
+      return detectRename(DiffEntry.scan(treeWalk), source, path, true);
+    } finally {
+      OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_TREE_DIFF, start);
+    }
+  }
+
+  /**
+   * Detects the rename of a resource between two trees.
+   *
+   * @param oldTree   The old tree.
+   * @param newTree   The new tree.
+   * @param path      The path of the resource.
+   * @param pathIsOld <code>true</code> if the path is from the old tree and the new path is searched,
+   *                  <code>false</code> if the path is from the new tree and the old path is searched.
+   *
+   * @return The rename, if found.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private Optional<DiffEntry> findRename(ObjectId oldTree, ObjectId newTree, String path, boolean pathIsOld)
+      throws IOException, GitAPIException {
+    long start = System.nanoTime();
+    try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+      treeWalk.addTree(new CanonicalTreeParser(null, reader, oldTree));
+      treeWalk.addTree(new CanonicalTreeParser(null, reader, newTree));
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(new RenameCandidatesFilter(path, pathIsOld));
+
+      ContentSource source = ContentSource.create(reader);
+      return detectRename(DiffEntry.scan(treeWalk), new ContentSource.Pair(source, source), path, pathIsOld);
+    } finally {
+      OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_TREE_DIFF, start);
+    }
+  }
+
+  /**
+   * Runs the rename detection over the candidates.
+   *
+   * @param candidates The removed resource and the added ones, or the other way around.
+   * @param source     Reads the content of the resources.
+   * @param path       The path of the resource.
+   * @param pathIsOld  <code>true</code> if the path is the old one.
+   *
+   * @return The rename, if found.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private Optional<DiffEntry> detectRename(
+      List<DiffEntry> candidates,
+      ContentSource.Pair source,
+      String path,
+      boolean pathIsOld) throws IOException, GitAPIException {
+    DiffEntry toReturn = null;
+    if (candidates.size() > 1) {
+      RenameDetector rd = new RenameDetector(repository);
+      rd.addAll(candidates);
+      for (DiffEntry diffEntry : rd.compute(source, NullProgressMonitor.INSTANCE)) {
+        if (RevCommitUtil.isRename(diffEntry)
+            && path.equals(pathIsOld ? diffEntry.getOldPath() : diffEntry.getNewPath())) {
+          toReturn = diffEntry;
+          break;
+        }
+      }
+    }
+    return Optional.ofNullable(toReturn);
+  }
+
+  /**
+   * Checks if a resource is present in a revision.
+   *
+   * @param commit The revision.
+   * @param path   The path of the resource.
+   *
+   * @return <code>true</code> if the revision contains a resource, not a folder, at that path.
+   *
+   * @throws IOException
+   */
+  boolean exists(RevCommit commit, String path) throws IOException {
+    if (!path.equals(knownPath)) {
+      knownPath = path;
+      presence.clear();
+    }
+    ObjectId treeId = commit.getTree().getId();
+    Boolean exists = presence.get(treeId);
+    if (exists == null) {
+      try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, treeId)) {
+        exists = treeWalk != null && (treeWalk.getRawMode(0) & FileMode.TYPE_MASK) != FileMode.TYPE_TREE;
+      }
+      presence.put(treeId, exists);
+    }
+    return exists;
+  }
+
+  @Override
+  public void close() {
+    reader.close();
+  }
+
+  /**
+   * Keeps the entries that can take part in the rename of a resource: the resource removed from the first tree
+   * and the resources added to the second one, or the resource added to the second tree and the resources
+   * removed from the first one. The folders that are the same in both trees are skipped.
+   */
+  private static class RenameCandidatesFilter extends TreeFilter {
+    /**
+     * The path of the resource.
+     */
+    private final byte[] path;
+    /**
+     * <code>true</code> if the path is from the first tree.
+     */
+    private final boolean pathIsOld;
+
+    /**
+     * Constructor.
+     *
+     * @param path      The path of the resource.
+     * @param pathIsOld <code>true</code> if the path is from the first tree.
+     */
+    RenameCandidatesFilter(String path, boolean pathIsOld) {
+      this.path = Constants.encode(path);
+      this.pathIsOld = pathIsOld;
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+      int oldMode = walker.getRawMode(0);
+      int newMode = walker.getRawMode(1);
+      boolean include;
+      if (walker.isSubtree()) {
+        include = oldMode != newMode || !walker.idEqual(0, 1);
+      } else if (oldMode == FileMode.TYPE_MISSING) {
+        include = newMode != FileMode.TYPE_MISSING && (pathIsOld || isPath(walker));
+      } else if (newMode == FileMode.TYPE_MISSING) {
+        include = !pathIsOld || isPath(walker);
+      } else {
+        include = false;
+      }
+      return include;
+    }
+
+    /**
+     * @param walker The walk.
+     *
+     * @return <code>true</code> if the current entry is the followed resource.
+     */
+    private boolean isPath(TreeWalk walker) {
+      return walker.getPathLength() == path.length && walker.isPathPrefix(path, path.length) == 0;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+      return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+      return this;
+    }
+  }
+}
@@ -8,7 +8,6 @@ import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
@@ -18,6 +17,7 @@ import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.errors.RevisionSyntaxException;
 import org.eclipse.jgit.lib.BranchConfig;
 import org.eclipse.jgit.lib.Constants;
@@ -29,10 +29,7 @@ import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.revwalk.RevWalkUtils;
-import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
-import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
@@ -40,8 +37,10 @@ import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.io.NullOutputStream;
 
+import com.oxygenxml.git.metrics.OperationMetrics;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.FileStatusOverDiffEntry;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
 import com.oxygenxml.git.view.history.CommitCharacteristics;
 import com.oxygenxml.git.view.history.CommitsAheadAndBehind;
 
@@ -55,6 +54,14 @@ public class RevCommitUtil {
    */
   private static final Logger logger = Logger.getLogger(RevCommitUtil.class);
   
+  /**
+   * The maximum number of commits collected when a branch is ahead or behind its upstream branch.
+   * Between 1 and {@link Integer#MAX_VALUE} - 1, because one more commit is collected to detect the overflow.
+   */
+  public static final int AHEAD_BEHIND_LIMIT = Math.min(
+      Math.max(Integer.getInteger(GitAddonSystemProperties.AHEAD_BEHIND_LIMIT, 1000), 1),
+      Integer.MAX_VALUE - 1);
+  
   /**
    * Utility class. Not indented to be instantiated.
    */
@@ -157,6 +164,7 @@ public class RevCommitUtil {
       Repository repository, 
       RevCommit newCommit, 
       RevCommit oldCommit) throws IOException, GitAPIException {
+    long start = System.nanoTime();
     List<DiffEntry> collect = Collections.emptyList();
     try (ObjectReader reader = repository.newObjectReader()) {
       CanonicalTreeParser newTreeIter = new CanonicalTreeParser();
@@ -180,6 +188,8 @@ public class RevCommitUtil {
         rd.addAll(diffs);
         collect = rd.compute();
       }
+    } finally {
+      OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_TREE_DIFF, start);
     }
 
     return collect;
@@ -251,16 +261,9 @@ public class RevCommitUtil {
       RevCommit parent, 
       RevCommit commit,
       String path) throws IOException, GitAPIException {
-    DiffEntry toReturn = null;
-    List<DiffEntry> diffs = diff(repository, commit, parent);
-    for (DiffEntry diffEntry : diffs) {
-      if (isRename(diffEntry) && diffEntry.getNewPath().equals(path)) {
-        toReturn = diffEntry;
-        break;
-      }
+    try (RenameFollower renameFollower = new RenameFollower(repository)) {
+      return renameFollower.findRenameTo(parent, commit, path);
     }
-
-    return Optional.ofNullable(toReturn);
   }
 
   /**
@@ -294,31 +297,140 @@ public class RevCommitUtil {
     
  // a RevWalk allows to walk over commits based on some filtering that is defined
     // EXM-44307 Show current branch commits only.
-    String fullBranch = repository.getFullBranch();
-    Ref branchHead = repository.exactRef(fullBranch);
-    if (branchHead != null) {
-      try (RevWalk revWalk = new RevWalk(repository)) {
-        
-        RevCommit revCommit = revWalk.parseCommit(branchHead.getObjectId());
-        revWalk.markStart(revCommit);
-
-        // If we have a remote, put it as well.
-        String fullRemoteBranchName = getUpstreamBranchName(repository, repository.getBranch());
-        if (fullRemoteBranchName != null) {
-          Ref fullRemoteBranchHead = repository.exactRef(fullRemoteBranchName);
-          if (fullRemoteBranchHead != null) {
-            revWalk.markStart(revWalk.parseCommit(fullRemoteBranchHead.getObjectId()));
-          }
-        }
-        
+    List<CommitCharacteristics> cachedHistory = filePath == null 
+        ? getCachedHistory(repository) : getCachedPathHistory(repository, filePath);
+    if (cachedHistory != null) {
+      revisions.addAll(cachedHistory);
+      return;
+    }
+    
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      if (markCurrentBranchStart(repository, revWalk)) {
         collectRevisions(filePath, revisions, repository, revWalk);
+      } else {
+        // Probably a new repository without any history. 
+      }
+    }
+  }
+  
+  /**
+   * Gets the history of the current branch from the commit cache.
+   * 
+   * @param repository Loaded repository.
+   * 
+   * @return The history or <code>null</code> if the cache is disabled or cannot be used.
+   */
+  static CommitMetadataCache.CachedHistory getCachedHistory(Repository repository) {
+    try {
+      CommitMetadataCache.CachedHistory history = 
+          CommitMetadataCache.getInstance().getHistory(repository, getCurrentBranchHeads(repository));
+      if (history != null) {
+        ChangedPathIndex.getInstance().scheduleUpdate(repository, history.getGraph());
+      }
+      return history;
+    } catch (IOException e) {
+      logger.warn("Unable to use the commit cache: " + e.getMessage(), e);
+      return null;
+    }
+  }
+  
+  /**
+   * Gets the history of a resource from the commit cache, skipping the revisions that the changed 
+   * paths index knows didn't change the resource.
+   * 
+   * @param repository Loaded repository.
+   * @param filePath   The resource path.
+   * 
+   * @return The history or <code>null</code> if the cache is disabled or cannot be used, or if
+   * the changed paths index is not complete yet.
+   * 
+   * @throws GitAPIException
+   */
+  static CommitMetadataCache.CachedHistory getCachedPathHistory(Repository repository, String filePath) 
+      throws GitAPIException {
+    try {
+      List<Ref> heads = getCurrentBranchHeads(repository);
+      CommitMetadataCache.CachedHistory branchHistory = CommitMetadataCache.getInstance().getHistory(repository, heads);
+      if (branchHistory == null) {
+        return null;
+      }
+      ChangedPathIndex changedPathIndex = ChangedPathIndex.getInstance();
+      changedPathIndex.scheduleUpdate(repository, branchHistory.getGraph());
+      if (!changedPathIndex.covers(repository, branchHistory.getGraph())) {
+        // The trees of all the commits would be compared before returning. The paged walk is faster.
+        return null;
       }
       
-    } else {
-      // Probably a new repository without any history. 
+      int[] starts = new int[heads.size()];
+      for (int i = 0; i < starts.length; i++) {
+        starts[i] = branchHistory.getGraph().indexOf(heads.get(i).getObjectId());
+      }
+      return PathHistoryWalk.walk(repository, branchHistory, starts, filePath);
+    } catch (IOException e) {
+      logger.warn("Unable to use the commit cache: " + e.getMessage(), e);
+      return null;
     }
   }
   
+  /**
+   * Marks the head of the current branch and of the remote branch linked to it as the starting 
+   * points of the walk.
+   * 
+   * @param repository Loaded repository.
+   * @param revWalk    Revision iterator.
+   * 
+   * @return <code>false</code> if the current branch has no commits.
+   * 
+   * @throws IOException
+   */
+  static boolean markCurrentBranchStart(Repository repository, RevWalk revWalk) throws IOException {
+    List<Ref> heads = getCurrentBranchHeads(repository);
+    for (Ref head : heads) {
+      revWalk.markStart(revWalk.parseCommit(head.getObjectId()));
+    }
+    return !heads.isEmpty();
+  }
+  
+  /**
+   * Gets the head of the current branch and of the remote branch linked to it.
+   * 
+   * @param repository Loaded repository.
+   * 
+   * @return The heads. Empty if the current branch has no commits.
+   * 
+   * @throws IOException
+   */
+  static List<Ref> getCurrentBranchHeads(Repository repository) throws IOException {
+    List<Ref> heads = new ArrayList<>(2);
+    Ref branchHead = repository.exactRef(repository.getFullBranch());
+    if (branchHead != null) {
+      heads.add(branchHead);
+
+      // If we have a remote, put it as well.
+      String fullRemoteBranchName = getUpstreamBranchName(repository, repository.getBranch());
+      if (fullRemoteBranchName != null) {
+        Ref fullRemoteBranchHead = repository.exactRef(fullRemoteBranchName);
+        if (fullRemoteBranchHead != null) {
+          heads.add(fullRemoteBranchHead);
+        }
+      }
+    }
+    return heads;
+  }
+  
+  /**
+   * Creates a filter that keeps only the revisions that changed a resource.
+   * 
+   * @param filePath The resource path.
+   * 
+   * @return The tree filter.
+   */
+  static TreeFilter createPathFilter(String filePath) {
+    return AndTreeFilter.create(
+        PathFilterGroup.createFromStrings(filePath),
+        TreeFilter.ANY_DIFF);
+  }
+  
   /**
    * Gets the full remote-tracking branch name or null is the local branch is not tracking a remote branch.
    * 
@@ -335,7 +447,8 @@ public class RevCommitUtil {
   }
 
   /**
-   * Collects all the revisions by waking the revision iterator.
+   * Collects all the revisions by waking the revision iterator. If the resource was renamed, the revisions 
+   * from before the rename are collected as well.
    * 
    * @param filePath An optional resource path. If not null, only the revisions that changed this resource are collected.
    * @param commits Revisions/Commits are collected in here.
@@ -351,62 +464,50 @@ public class RevCommitUtil {
       Repository repository,
       RevWalk revWalk) throws IOException, GitAPIException {
     
-    if (filePath != null) {
-      revWalk.setTreeFilter(
-          AndTreeFilter.create(
-              PathFilterGroup.createFromStrings(filePath),
-              TreeFilter.ANY_DIFF)
-          );
-    }
-
-    RevCommit lastProcessedRevision = null;
-    for (RevCommit commit : revWalk) {
-      appendRevCommit(commits, commit);
-      
-      lastProcessedRevision = commit;
-    }
-    
-    // If we are following a resource, check for rename events.
-    if (filePath != null && lastProcessedRevision != null) {
-      handleRename(filePath, commits, repository, lastProcessedRevision);
-    }
-  }
-
-  /**
-   * Checks for a rename operation. If the resource was renamed between the current revision and the previous one,
-   * it will continue collecting revisions based on the previous resource name/path.  
-   * 
-   * @param filePath An optional resource path. If not null, only the revisions that changed this resource are collected.
-   * @param commits Revisions are collected in here.
-   * @param repository Loaded repository.
-   * @param current The last revision encountered for the file path.
-   * 
-   * @throws IOException
-   * @throws GitAPIException
-   */
-  private static void handleRename(
-      String filePath, 
-      List<CommitCharacteristics> commits, 
-      Repository repository,
-      RevCommit current)
-      throws IOException, GitAPIException {
-    try (RevWalk revWalk = new RevWalk(repository);) {
-      current = revWalk.parseCommit(current.getId());
+    String path = filePath;
+    RevWalk walk = revWalk;
+    try {
+      while (true) {
+        if (path != null) {
+          walk.setTreeFilter(createPathFilter(path));
+        }
 
-      if (current.getParentCount() > 0) {
-        RevCommit parent = current.getParent(0);
-        revWalk.parseHeaders(parent);
+        RevCommit lastProcessedRevision = null;
+        for (RevCommit commit : walk) {
+          appendRevCommit(commits, commit);
 
-        Optional<DiffEntry> renameRev = RevCommitUtil.findRename(repository, parent, current, filePath);
-        if (renameRev.isPresent()) {
-          String oldPath = renameRev.get().getOldPath();
+          lastProcessedRevision = commit;
+        }
 
-          revWalk.markStart(current);
-          
-          // We will re-append this commit but this time it will be linked to 
-          commits.remove(commits.size() - 1);
-          collectRevisions(oldPath, commits, repository, revWalk);
+        // If we are following a resource, check for rename events.
+        if (path == null || lastProcessedRevision == null) {
+          break;
+        }
+        // The tree filter has simplified the parents of the revisions, so a new walk is needed.
+        if (walk != revWalk) {
+          walk.close();
+        }
+        walk = new RevWalk(repository);
+        RevCommit current = walk.parseCommit(lastProcessedRevision.getId());
+        Optional<DiffEntry> renameRev = Optional.empty();
+        if (current.getParentCount() > 0) {
+          RevCommit parent = current.getParent(0);
+          walk.parseHeaders(parent);
+          renameRev = findRename(repository, parent, current, path);
+        }
+        if (!renameRev.isPresent()) {
+          break;
         }
+
+        // Continue with the revisions before the rename, starting with the renaming one. We will re-append
+        // this commit but this time it will be linked to its parents from the previous path.
+        walk.markStart(current);
+        commits.remove(commits.size() - 1);
+        path = renameRev.get().getOldPath();
+      }
+    } finally {
+      if (walk != revWalk) {
+        walk.close();
       }
     }
   }
@@ -432,6 +533,19 @@ public class RevCommitUtil {
    * @param commit Revision to collect.
    */
   private static void appendRevCommit(List<CommitCharacteristics> revisions, RevCommit commit) {
+    // add commit element in vector
+    revisions.add(createCommitCharacteristics(commit, getParentsId(commit)));
+  }
+
+  /**
+   * Creates the characteristics of a revision.
+   * 
+   * @param commit     The revision, with its body parsed.
+   * @param parentsIds The abbreviated IDs of the parents.
+   * 
+   * @return The characteristics of the revision.
+   */
+  static CommitCharacteristics createCommitCharacteristics(RevCommit commit, List<String> parentsIds) {
     String commitMessage = commit.getFullMessage();
     PersonIdent authorIdent = commit.getAuthorIdent();
     String author = authorIdent.getName() + " <" + authorIdent.getEmailAddress() + ">";
@@ -441,11 +555,9 @@ public class RevCommitUtil {
 
     PersonIdent committerIdent = commit.getCommitterIdent();
     String committer = committerIdent.getName();
-    List<String> parentsIds = getParentsId(commit);
 
-    // add commit element in vector
-    revisions.add(new CommitCharacteristics(commitMessage, authorDate, author, abbreviatedId, id,
-        committer, parentsIds));
+    return new CommitCharacteristics(commitMessage, authorDate, author, abbreviatedId, id,
+        committer, parentsIds);
   }
 
   /**
@@ -454,7 +566,7 @@ public class RevCommitUtil {
    * @param commit The current commit.
    * @return The list with parents commit IDs.
    */
-  private static List<String> getParentsId(RevCommit commit) {
+  static List<String> getParentsId(RevCommit commit) {
     List<String> parentsIds = null;
 
     // add list of parent commits.
@@ -560,59 +672,14 @@ public class RevCommitUtil {
    */
   private static String findPath(Git git, String filePath, List<RevCommit> revisions)
       throws IOException, GitAPIException {
-    String path = filePath;
     if (logger.isDebugEnabled()) {
       logger.debug("====SORTED===");
       revisions.stream().forEach(r -> logger.debug(r.getFullMessage()));
     }
 
-    if (!revisions.isEmpty()) {
-      RevCommit lastRev = revisions.get(revisions.size() - 1);
-      List<FileStatus> targetRevFiles = getFiles(git.getRepository(), lastRev);
-      Set<String> lastRevFiles = targetRevFiles.stream().map(FileStatus::getFileLocation).collect(Collectors.toSet());
-      
-      RevCommit previous = null;
-      for (RevCommit revCommit : revisions) {
-        if (previous != null) {
-
-          // Fast stop.
-          if (lastRevFiles.contains(path)) {
-            // The current discovered path is the same as in the target revision.
-            if (logger.isDebugEnabled()) {
-              logger.info("Same path as in target. Stop. " + revCommit.getFullMessage());
-            }
-            break;
-          }
-          
-          // Check if the current discovered path is also present in the new revision to consume.
-          // TThis way we will avoid a time consuming diff with rename detection.
-          List<FileStatus> currentRevisionFiles = getFiles(git.getRepository(), revCommit);
-          final String fpath = path;
-          boolean same = currentRevisionFiles.stream().anyMatch(t -> fpath.equals(t.getFileLocation()));
-          
-          if (!same) {
-            // Do a diff with rename detection.
-            if (logger.isDebugEnabled()) {
-              logger.info("Search for a rename at revision " + revCommit.getFullMessage());
-            }
-            
-            List<DiffEntry> diff = diff(git.getRepository(), revCommit, previous);
-            for (DiffEntry diffEntry : diff) {
-              if (isRename(diffEntry) 
-                  && path.equals(diffEntry.getOldPath())) {
-                // Match.
-                path = diffEntry.getNewPath();
-                break;
-              }
-            }
-          }
-        }
-
-        previous = revCommit;
-      }
+    try (RenameFollower renameFollower = new RenameFollower(git.getRepository())) {
+      return renameFollower.follow(filePath, revisions);
     }
-
-    return path;
   }
   
   /**
@@ -710,40 +777,14 @@ public class RevCommitUtil {
    */
   private static String findWCRename(Git git, RevCommit head, String path)
       throws IOException, GitAPIException {
-    String toReturn = path;
-    Repository repository = git.getRepository();
-    try (ObjectReader reader = repository.newObjectReader()) {
-      // Head files.
-      CanonicalTreeParser headTreeIter = new CanonicalTreeParser();
-      headTreeIter.reset(reader, head.getTree().getId());
-
-      // Working copy files.
-      FileTreeIterator it = new FileTreeIterator(repository);
-
-      // Compute diff.
-      List<DiffEntry> diffs= git.diff()
-          .setNewTree(it)
-          .setOldTree(headTreeIter)
-          .call();
-
-      // Search for renames.
-      RenameDetector rd = new RenameDetector(repository);
-      rd.addAll(diffs);
-      List<DiffEntry> collect = rd.compute();
-      
-      for (DiffEntry diffEntry : collect) {
-        if (isRename(diffEntry) && diffEntry.getOldPath().equals(path)) {
-          toReturn = diffEntry.getNewPath();
-          break;
-        }
-       }
-
-      return toReturn;
+    try (RenameFollower renameFollower = new RenameFollower(git.getRepository())) {
+      Optional<DiffEntry> rename = renameFollower.findWorkingCopyRename(head, path);
+      return rename.isPresent() ? rename.get().getNewPath() : path;
     }
   }
   
   /**
-   * Get commits ahead and behind.
+   * Get commits ahead and behind. At most {@link #AHEAD_BEHIND_LIMIT} commits are collected on each side.
    * 
    * @param repository Current repo.
    * @param branchName Current branch.
@@ -754,6 +795,22 @@ public class RevCommitUtil {
    */
   public static CommitsAheadAndBehind getCommitsAheadAndBehind(Repository repository, String branchName)
       throws IOException {
+    return getCommitsAheadAndBehind(repository, branchName, AHEAD_BEHIND_LIMIT);
+  }
+
+  /**
+   * Get commits ahead and behind.
+   * 
+   * @param repository Current repo.
+   * @param branchName Current branch.
+   * @param limit      The maximum number of commits to collect on each side.
+   * 
+   * @return a structure that contains the lists of commits ahead and behind or <code>null</code>.
+   * 
+   * @throws IOException
+   */
+  public static CommitsAheadAndBehind getCommitsAheadAndBehind(Repository repository, String branchName, int limit)
+      throws IOException {
 
     String shortBranchName = Repository.shortenRefName(branchName);
     String fullBranchName = Constants.R_HEADS + shortBranchName;
@@ -778,21 +835,45 @@ public class RevCommitUtil {
       RevCommit localCommit = walk.parseCommit(local.getObjectId());
       RevCommit trackingCommit = walk.parseCommit(tracking.getObjectId());
 
-      walk.setRevFilter(RevFilter.MERGE_BASE);
-      walk.markStart(localCommit);
-      walk.markStart(trackingCommit);
-      RevCommit mergeBase = walk.next();
-
+      // Stops as soon as the limit is exceeded, instead of going down to the merge base.
+      List<RevCommit> commitsAhead = findUnique(walk, localCommit, trackingCommit, limit + 1);
       walk.reset();
-      walk.setRevFilter(RevFilter.ALL);
-      List<RevCommit> commitsAhead = RevWalkUtils.find(walk, localCommit, mergeBase);
-      List<RevCommit> commitsBehind = RevWalkUtils.find(walk, trackingCommit, mergeBase);
+      List<RevCommit> commitsBehind = findUnique(walk, trackingCommit, localCommit, limit + 1);
 
-      return new CommitsAheadAndBehind(commitsAhead, commitsBehind);
+      boolean moreAhead = commitsAhead.size() > limit;
+      boolean moreBehind = commitsBehind.size() > limit;
+      return new CommitsAheadAndBehind(
+          moreAhead ? commitsAhead.subList(0, limit) : commitsAhead,
+          moreAhead,
+          moreBehind ? commitsBehind.subList(0, limit) : commitsBehind,
+          moreBehind);
     }
   }
-  
 
+  /**
+   * Finds the commits reachable from a commit and not reachable from another one.
+   * 
+   * @param walk  The revision walk.
+   * @param start The commit from which to start.
+   * @param other The commit whose ancestors are excluded.
+   * @param max   The maximum number of commits to find.
+   * 
+   * @return The commits, newest first.
+   * 
+   * @throws IOException
+   */
+  private static List<RevCommit> findUnique(RevWalk walk, RevCommit start, RevCommit other, int max)
+      throws IOException {
+    walk.markStart(start);
+    walk.markUninteresting(other);
+    List<RevCommit> commits = new ArrayList<>();
+    RevCommit commit;
+    while (commits.size() < max && (commit = walk.next()) != null) {
+      commits.add(commit);
+    }
+    return commits;
+  }
+  
   /**
    * Returns the SHA-1 id for the BASE commit of a file. The BASE commit
    * only exits if there is a conflict on the current file.
@@ -806,11 +887,8 @@ public class RevCommitUtil {
    * @throws GitAPIException 
    */
   public static ObjectId getBaseCommit(Git git, String filePath) throws IOException, GitAPIException {
-    ObjectId toReturn;
-    List<DiffEntry> entries = git.diff().setPathFilter(PathFilter.create(filePath)).call();
-    if (!entries.isEmpty()) {
-      toReturn = entries.get(0).getOldId().toObjectId();
-    } else { 
+    ObjectId toReturn = getIndexVersion(git, filePath, DirCacheEntry.STAGE_1);
+    if (toReturn == null) {
       if (logger.isDebugEnabled()) {
         logger.debug("No BASE commit for: '" + filePath + "'");
       }
@@ -832,14 +910,8 @@ public class RevCommitUtil {
    * @throws GitAPIException 
    */
   public static ObjectId getTheirCommit(Git git, String filePath) throws IOException, GitAPIException {
-    ObjectId toReturn;
-    List<DiffEntry> entries = git.diff().setPathFilter(PathFilter.create(filePath)).call();
-    int noOfDiffEntries = entries.size();
-    boolean isTwoWayDiff = noOfDiffEntries < 3;
-    int indexOfTheirs = isTwoWayDiff ? 1 : 2;
-    if (indexOfTheirs < noOfDiffEntries) {
-      toReturn =  entries.get(indexOfTheirs).getOldId().toObjectId();
-    } else {
+    ObjectId toReturn = getIndexVersion(git, filePath, DirCacheEntry.STAGE_3);
+    if (toReturn == null) {
       if (logger.isDebugEnabled()) {
         logger.debug("No THEIRS commit available for: '" + filePath + "'. "
             + "Falling back to the last commit for this path.");
@@ -862,14 +934,8 @@ public class RevCommitUtil {
    * @throws GitAPIException 
    */
   public static ObjectId getMyCommit(Git git, String path) throws IOException, GitAPIException {
-    ObjectId toReturn;
-    List<DiffEntry> entries = git.diff().setPathFilter(PathFilter.create(path)).call();
-    int noOfDiffEntries = entries.size();
-    boolean isTwoWayDiff = noOfDiffEntries < 3;
-    int indexOfMine = isTwoWayDiff ? 0 : 1;
-    if (indexOfMine < noOfDiffEntries) {
-      toReturn =  entries.get(indexOfMine).getOldId().toObjectId();
-    } else {
+    ObjectId toReturn = getIndexVersion(git, path, DirCacheEntry.STAGE_2);
+    if (toReturn == null) {
       if (logger.isDebugEnabled()) {
         logger.debug("No MINE commit available for: '" + path + "'."
             + " Falling back to the last commit for this path.");
@@ -879,6 +945,34 @@ public class RevCommitUtil {
     return toReturn;
   }
 
+  /**
+   * Gets a version of a file recorded in the index. The stages of a conflicting file are
+   * taken from the {@link MergeContext}, without diffing the working tree.
+   * 
+   * @param git   Git access.
+   * @param path  File path.
+   * @param stage The stage: {@link DirCacheEntry#STAGE_1} (BASE), {@link DirCacheEntry#STAGE_2} (MINE)
+   * or {@link DirCacheEntry#STAGE_3} (THEIRS).
+   * 
+   * @return The object ID of the stage, for a conflicting file. Otherwise, the index version
+   * as BASE or MINE, if the file is modified in the working tree. <code>null</code> if there is no such version.
+   * 
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private static ObjectId getIndexVersion(Git git, String path, int stage) throws IOException, GitAPIException {
+    ObjectId[] stages = MergeContext.getInstance().getStages(git.getRepository(), path);
+    if (stages != null) {
+      return stages[stage];
+    }
+    if (stage == DirCacheEntry.STAGE_3) {
+      // Only a conflict has THEIRS.
+      return null;
+    }
+    List<DiffEntry> entries = git.diff().setPathFilter(PathFilter.create(path)).call();
+    return entries.isEmpty() ? null : entries.get(0).getOldId().toObjectId();
+  }
+
   /**
    * Get last local commit for resource path.
    * 
@@ -0,0 +1,403 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.view.event.FileGitEventInfo;
+import com.oxygenxml.git.view.event.GitEventInfo;
+import com.oxygenxml.git.view.event.GitOperation;
+
+/**
+ * Keeps the last computed status of the working copy and updates it incrementally.
+ * Only the paths known to have changed since the last computation (editor saves, Git operations
+ * performed by the plugin, etc.) are re-checked. A full walk of the working tree is performed only
+ * when explicitly requested or when the index or the HEAD were changed outside the plugin.
+ * <br><br>
+ * Every change that might affect the status starts a new epoch. The status computed in an epoch is
+ * shared, as a {@link StatusSnapshot}, by all the components that ask for it during that epoch.
+ * Concurrent requests share the same computation.
+ */
+public class StatusCache {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(StatusCache.class);
+  /**
+   * Singleton instance.
+   */
+  private static StatusCache instance;
+  /**
+   * The last computed status. <code>null</code> if a full walk is needed.
+   */
+  private GitStatus cachedStatus;
+  /**
+   * Paths that changed since the status was computed.
+   */
+  private final Set<String> dirtyPaths = new HashSet<>();
+  /**
+   * The repository for which the status was computed.
+   */
+  private File cachedRepositoryDir;
+  /**
+   * The HEAD when the status was computed.
+   */
+  private ObjectId cachedHead;
+  /**
+   * The last modified time stamp of the index file when the status was computed.
+   */
+  private long cachedIndexTimestamp;
+  /**
+   * The length of the index file when the status was computed.
+   */
+  private long cachedIndexLength;
+  /**
+   * The current epoch. Incremented on every change that might affect the status.
+   */
+  private long epoch;
+  /**
+   * The epoch started by the last request for a full walk.
+   */
+  private long fullWalkEpoch;
+  /**
+   * The last shared snapshot.
+   */
+  private StatusSnapshot snapshot;
+  /**
+   * The computation in progress, shared by all the concurrent requests. <code>null</code> if none.
+   */
+  private CompletableFuture<StatusSnapshot> inFlight;
+  /**
+   * <code>true</code> if the changes made in the working tree outside the plugin are reported
+   * through {@link #markDirty(Collection)}.
+   */
+  private volatile boolean workingTreeWatched;
+
+  /**
+   * Singleton private constructor.
+   */
+  private StatusCache() {
+    GitListeners.getInstance().addGitListener(new GitEventAdapter() {
+      @Override
+      public void operationSuccessfullyEnded(GitEventInfo info) {
+        treatOperationEnded(info);
+      }
+      @Override
+      public void operationFailed(GitEventInfo info, Throwable t) {
+        // We don't know what was left behind.
+        invalidate();
+      }
+    });
+  }
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized StatusCache getInstance() {
+    if (instance == null) {
+      instance = new StatusCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Drops the singleton instance. A new one, listening for Git events,
+   * will be created on the next request.
+   */
+  static synchronized void reset() {
+    instance = null;
+  }
+
+  /**
+   * Updates the cache after a Git operation performed by the plugin.
+   *
+   * @param info Event information.
+   */
+  private void treatOperationEnded(GitEventInfo info) {
+    GitOperation operation = info.getGitOperation();
+    switch (operation) {
+      case STAGE:
+      case UNSTAGE:
+      case DISCARD:
+      case COMMIT:
+        // The plugin knows exactly which resources were affected.
+        // The changes in the index and HEAD are expected.
+        markDirty(((FileGitEventInfo) info).getAffectedFilePaths());
+        acknowledgeRepositoryState();
+        break;
+      case CREATE_BRANCH:
+      case DELETE_BRANCH:
+      case PUSH:
+        // The working copy is not affected.
+        break;
+      default:
+        invalidate();
+        break;
+    }
+  }
+
+  /**
+   * Tells if the changes made in the working tree outside the plugin are reported through
+   * {@link #markDirty(Collection)}. If not, the snapshots cannot be reused between requests.
+   *
+   * @param workingTreeWatched <code>true</code> if the working tree is watched for changes.
+   */
+  public void setWorkingTreeWatched(boolean workingTreeWatched) {
+    this.workingTreeWatched = workingTreeWatched;
+  }
+
+  /**
+   * Marks the given paths as changed. They will be re-checked on the next status request.
+   *
+   * @param paths Paths relative to the working copy. Folders cover all their descendants.
+   */
+  public synchronized void markDirty(Collection<String> paths) {
+    if (!paths.isEmpty()) {
+      dirtyPaths.addAll(paths);
+      epoch++;
+    }
+  }
+
+  /**
+   * Forces a full walk of the working tree on the next status request.
+   */
+  public synchronized void invalidate() {
+    cachedStatus = null;
+    dirtyPaths.clear();
+    epoch++;
+    fullWalkEpoch = epoch;
+  }
+
+  /**
+   * Gets the status of the working copy. Re-checks only the paths marked as changed,
+   * if possible.
+   *
+   * @return The status of the working copy. Never <code>null</code>.
+   */
+  public GitStatus getStatus() {
+    GitStatus status = getSnapshot(true).getStatus();
+    return new GitStatus(
+        new ArrayList<>(status.getUnstagedFiles()),
+        new ArrayList<>(status.getStagedFiles()));
+  }
+
+  /**
+   * Gets the status of the working copy, shared with the other components. The status is computed
+   * only if something changed since the last request. Concurrent requests share the same computation.
+   * <br><br>
+   * If the working tree is not watched for changes, the status is computed again for each request
+   * that doesn't find a computation in progress.
+   *
+   * @return The status of the working copy. Never <code>null</code>.
+   */
+  public StatusSnapshot getSnapshot() {
+    return getSnapshot(workingTreeWatched);
+  }
+
+  /**
+   * Gets the status of the working copy, shared with the other components.
+   *
+   * @param trustWorkingTree <code>true</code> to assume that the working tree changed only in
+   * the paths marked as changed.
+   *
+   * @return The status of the working copy. Never <code>null</code>.
+   */
+  private StatusSnapshot getSnapshot(boolean trustWorkingTree) {
+    CompletableFuture<StatusSnapshot> future;
+    boolean computeHere = false;
+    synchronized (this) {
+      if (inFlight == null) {
+        if (!trustWorkingTree || repositoryChangedOutsideThePlugin()) {
+          invalidate();
+        }
+        if (snapshot != null && snapshot.getEpoch() == epoch) {
+          return snapshot;
+        }
+        inFlight = new CompletableFuture<>();
+        computeHere = true;
+      }
+      future = inFlight;
+    }
+
+    if (computeHere) {
+      try {
+        future.complete(computeSnapshot());
+      } catch (Throwable e) { // NOSONAR The threads waiting for the computation must be released.
+        future.completeExceptionally(e);
+      } finally {
+        synchronized (this) {
+          inFlight = null;
+        }
+      }
+    }
+
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+    }
+  }
+
+  /**
+   * Computes the status. Re-checks only the paths marked as changed, if possible.
+   *
+   * @return The status, tagged with the epoch in which the computation started.
+   */
+  private StatusSnapshot computeSnapshot() {
+    long computedEpoch;
+    GitStatus status;
+    Set<String> toCheck;
+    synchronized (this) {
+      computedEpoch = epoch;
+      status = cachedStatus;
+      toCheck = new HashSet<>(dirtyPaths);
+      dirtyPaths.clear();
+    }
+
+    GitAccess gitAccess = GitAccess.getInstance();
+    try {
+      if (status == null) {
+        logger.debug("Full status computation.");
+        status = gitAccess.computeStatus(Collections.emptyList());
+      } else if (!toCheck.isEmpty()) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Incremental status computation for: " + toCheck);
+        }
+        GitStatus partial = gitAccess.computeStatus(toCheck);
+        status = new GitStatus(
+            merge(status.getUnstagedFiles(), partial.getUnstagedFiles(), toCheck, true),
+            merge(status.getStagedFiles(), partial.getStagedFiles(), toCheck, false));
+      }
+    } catch (NoRepositorySelected | GitAPIException e) {
+      logger.error(e, e);
+      synchronized (this) {
+        // Nothing is cached, the paths will be checked again on the next request.
+        dirtyPaths.addAll(toCheck);
+      }
+      return new StatusSnapshot(computedEpoch, new GitStatus(Collections.emptyList(), Collections.emptyList()));
+    }
+
+    StatusSnapshot computed = new StatusSnapshot(computedEpoch, status);
+    synchronized (this) {
+      // A full walk requested in the meantime must not be lost.
+      if (fullWalkEpoch <= computedEpoch) {
+        cachedStatus = computed.getStatus();
+        rememberRepositoryState();
+      }
+      if (snapshot == null || snapshot.getEpoch() <= computedEpoch) {
+        snapshot = computed;
+      }
+    }
+    return computed;
+  }
+
+  /**
+   * Merges the status of the re-checked paths into a previously computed list.
+   *
+   * @param cached   The previously computed files.
+   * @param rechecked The newly computed files.
+   * @param checkedPaths The paths that were re-checked.
+   * @param allSubmodulesRechecked <code>true</code> if the newly computed files contain the state
+   * of all the submodules, not only of the ones from the re-checked paths.
+   *
+   * @return The merged list.
+   */
+  private static List<FileStatus> merge(
+      List<FileStatus> cached,
+      List<FileStatus> rechecked,
+      Set<String> checkedPaths,
+      boolean allSubmodulesRechecked) {
+    List<FileStatus> merged = new ArrayList<>(cached.size() + rechecked.size());
+    for (FileStatus fileStatus : cached) {
+      if (!isRechecked(fileStatus, checkedPaths, allSubmodulesRechecked)) {
+        merged.add(fileStatus);
+      }
+    }
+    for (FileStatus fileStatus : rechecked) {
+      // The status builders also report submodules that were not asked for.
+      if (isRechecked(fileStatus, checkedPaths, allSubmodulesRechecked)) {
+        merged.add(fileStatus);
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * @param fileStatus   A file.
+   * @param checkedPaths The paths that were re-checked.
+   * @param allSubmodulesRechecked <code>true</code> if the state of all the submodules was computed again.
+   *
+   * @return <code>true</code> if the state of the file was computed again.
+   */
+  private static boolean isRechecked(FileStatus fileStatus, Set<String> checkedPaths, boolean allSubmodulesRechecked) {
+    // The HEAD of a submodule moves without any change in the paths of the parent working copy.
+    return (allSubmodulesRechecked && fileStatus.getChangeType() == GitChangeType.SUBMODULE)
+        || FileHelper.isPathCovered(fileStatus.getFileLocation(), checkedPaths);
+  }
+
+  /**
+   * Records the current state of the repository (index and HEAD) as the expected one.
+   */
+  private synchronized void acknowledgeRepositoryState() {
+    if (cachedStatus != null) {
+      rememberRepositoryState();
+    }
+  }
+
+  /**
+   * Remembers the current state of the index and HEAD.
+   */
+  private void rememberRepositoryState() {
+    try {
+      Repository repository = GitAccess.getInstance().getRepository();
+      cachedRepositoryDir = repository.getDirectory();
+      cachedHead = repository.resolve(Constants.HEAD);
+      File indexFile = repository.getIndexFile();
+      cachedIndexTimestamp = indexFile.lastModified();
+      cachedIndexLength = indexFile.length();
+    } catch (NoRepositorySelected | IOException e) {
+      logger.debug(e, e);
+      cachedStatus = null;
+      cachedRepositoryDir = null;
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the repository, its index or its HEAD changed since the status was computed.
+   */
+  private boolean repositoryChangedOutsideThePlugin() {
+    boolean changed = true;
+    try {
+      Repository repository = GitAccess.getInstance().getRepository();
+      File indexFile = repository.getIndexFile();
+      changed = !repository.getDirectory().equals(cachedRepositoryDir)
+          || indexFile.lastModified() != cachedIndexTimestamp
+          || indexFile.length() != cachedIndexLength
+          || !Objects.equals(cachedHead, repository.resolve(Constants.HEAD));
+    } catch (NoRepositorySelected | IOException e) {
+      logger.debug(e, e);
+    }
+    return changed;
+  }
+}
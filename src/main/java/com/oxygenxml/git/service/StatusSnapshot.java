@@ -0,0 +1,96 @@
+package com.oxygenxml.git.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * An immutable status of the working copy, shared by all the components that need it.
+ * Obtained from {@link StatusCache#getSnapshot()}.
+ */
+public final class StatusSnapshot {
+  /**
+   * The epoch in which the status was computed.
+   */
+  private final long epoch;
+  /**
+   * The status. The lists are not modifiable.
+   */
+  private final GitStatus status;
+
+  /**
+   * Constructor.
+   *
+   * @param epoch  The epoch in which the status was computed.
+   * @param status The status.
+   */
+  StatusSnapshot(long epoch, GitStatus status) {
+    this.epoch = epoch;
+    this.status = new GitStatus(
+        Collections.unmodifiableList(new ArrayList<>(status.getUnstagedFiles())),
+        Collections.unmodifiableList(new ArrayList<>(status.getStagedFiles())));
+  }
+
+  /**
+   * @return The epoch in which the status was computed. Two snapshots with the same epoch
+   * have the same content.
+   */
+  public long getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * @return The status. The lists of files cannot be modified.
+   */
+  public GitStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * @return The unstaged files. Cannot be modified.
+   */
+  public List<FileStatus> getUnstagedFiles() {
+    return status.getUnstagedFiles();
+  }
+
+  /**
+   * @return The staged files. Cannot be modified.
+   */
+  public List<FileStatus> getStagedFiles() {
+    return status.getStagedFiles();
+  }
+
+  /**
+   * @return The paths of the files in conflict. Never <code>null</code>.
+   */
+  public Set<String> getConflictingFiles() {
+    Set<String> conflictingFiles = new LinkedHashSet<>();
+    for (FileStatus fileStatus : status.getUnstagedFiles()) {
+      if (fileStatus.getChangeType() == GitChangeType.CONFLICT) {
+        conflictingFiles.add(fileStatus.getFileLocation());
+      }
+    }
+    return conflictingFiles;
+  }
+
+  /**
+   * @return <code>true</code> if there are changes that would be lost by a hard reset, that is
+   * anything except the untracked files.
+   */
+  public boolean hasUncommittedChanges() {
+    if (!status.getStagedFiles().isEmpty()) {
+      return true;
+    }
+    for (FileStatus fileStatus : status.getUnstagedFiles()) {
+      if (fileStatus.getChangeType() != GitChangeType.UNTRACKED) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,290 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.submodule.SubmoduleStatus;
+import org.eclipse.jgit.submodule.SubmoduleWalk;
+
+import com.oxygenxml.git.view.event.FileGitEventInfo;
+import com.oxygenxml.git.view.event.GitEventInfo;
+import com.oxygenxml.git.view.event.GitOperation;
+
+/**
+ * Keeps the status of all the submodules of the current repository, computed in a single pass.
+ * <br><br>
+ * The status of a submodule is reused as long as the commit recorded in the index for it (the gitlink)
+ * and the HEAD of the submodule are the same as when it was computed. It is also dropped when
+ * a different working copy is opened or after operations that might change the submodules.
+ */
+public class SubmoduleStatusCache {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(SubmoduleStatusCache.class);
+  /**
+   * Singleton instance.
+   */
+  private static SubmoduleStatusCache instance;
+  /**
+   * The status of each submodule, by path. <code>null</code> if it must be computed.
+   */
+  private Map<String, SubmoduleStatus> statuses;
+  /**
+   * The repository for which the statuses were computed.
+   */
+  private File repositoryDir;
+  /**
+   * The gitlinks from the index, by path.
+   */
+  private Map<String, ObjectId> gitlinks;
+  /**
+   * The last modified time stamp of the index file when the gitlinks were read.
+   */
+  private long indexTimestamp;
+  /**
+   * The length of the index file when the gitlinks were read.
+   */
+  private long indexLength;
+  /**
+   * The opened submodule repositories, by path. Kept open for cheap HEAD checks.
+   */
+  private final Map<String, Repository> submoduleRepositories = new HashMap<>();
+
+  /**
+   * Singleton private constructor.
+   */
+  private SubmoduleStatusCache() {
+    GitListeners.getInstance().addGitListener(new GitEventAdapter() {
+      @Override
+      public void operationSuccessfullyEnded(GitEventInfo info) {
+        treatOperationEnded(info);
+      }
+      @Override
+      public void operationFailed(GitEventInfo info, Throwable t) {
+        treatOperationEnded(info);
+      }
+    });
+  }
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized SubmoduleStatusCache getInstance() {
+    if (instance == null) {
+      instance = new SubmoduleStatusCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Drops the singleton instance and closes the submodule repositories.
+   */
+  static synchronized void reset() {
+    if (instance != null) {
+      instance.invalidate();
+    }
+    instance = null;
+  }
+
+  /**
+   * Drops the cached statuses after the operations that might change the submodules.
+   *
+   * @param info Event information.
+   */
+  private void treatOperationEnded(GitEventInfo info) {
+    GitOperation operation = info.getGitOperation();
+    switch (operation) {
+      case CREATE_BRANCH:
+      case DELETE_BRANCH:
+      case PUSH:
+        // The submodules are not affected.
+        break;
+      case STAGE:
+      case UNSTAGE:
+      case DISCARD:
+      case COMMIT:
+        if (affectsSubmodules((FileGitEventInfo) info)) {
+          invalidate();
+        }
+        break;
+      default:
+        // Open working copy, checkout, pull, reset, merge and rebase related operations.
+        invalidate();
+        break;
+    }
+  }
+
+  /**
+   * @param info Event information.
+   *
+   * @return <code>true</code> if one of the affected resources is a submodule.
+   */
+  private synchronized boolean affectsSubmodules(FileGitEventInfo info) {
+    boolean affected = false;
+    if (statuses != null) {
+      for (String path : info.getAffectedFilePaths()) {
+        if (statuses.containsKey(path)) {
+          affected = true;
+          break;
+        }
+      }
+    }
+    return affected;
+  }
+
+  /**
+   * Drops the cached statuses. They will be computed again on the next request.
+   */
+  public synchronized void invalidate() {
+    statuses = null;
+    gitlinks = null;
+    repositoryDir = null;
+    for (Repository repository : submoduleRepositories.values()) {
+      repository.close();
+    }
+    submoduleRepositories.clear();
+  }
+
+  /**
+   * @return The paths of the submodules of the current repository. Never <code>null</code>.
+   */
+  public Set<String> getSubmodules() {
+    return getStatuses().keySet();
+  }
+
+  /**
+   * Gets the status of a submodule.
+   *
+   * @param submodulePath The path of the submodule.
+   *
+   * @return The status or <code>null</code> if there is no such submodule.
+   */
+  public SubmoduleStatus getStatus(String submodulePath) {
+    return getStatuses().get(submodulePath);
+  }
+
+  /**
+   * @return The status of each submodule of the current repository, by path. Never <code>null</code>.
+   */
+  public synchronized Map<String, SubmoduleStatus> getStatuses() {
+    Git git = GitAccess.getInstance().getGit();
+    if (git == null) {
+      return Collections.emptyMap();
+    }
+
+    Repository repository = git.getRepository();
+    try {
+      if (!isUpToDate(repository)) {
+        invalidate();
+        logger.debug("Compute the submodules status.");
+        statuses = Collections.unmodifiableMap(git.submoduleStatus().call());
+        repositoryDir = repository.getDirectory();
+      }
+    } catch (GitAPIException | IOException e) {
+      logger.error(e, e);
+      invalidate();
+    }
+
+    return statuses != null ? statuses : Collections.emptyMap();
+  }
+
+  /**
+   * Checks if the cached statuses are still valid: the gitlinks from the index and the HEADs of the
+   * submodules didn't change.
+   *
+   * @param repository The current repository.
+   *
+   * @return <code>true</code> if the cached statuses can be used.
+   *
+   * @throws IOException Unable to read the index or the submodules.
+   */
+  private boolean isUpToDate(Repository repository) throws IOException {
+    if (statuses == null || !repository.getDirectory().equals(repositoryDir)) {
+      return false;
+    }
+
+    Map<String, ObjectId> currentGitlinks = readGitlinks(repository);
+    if (!currentGitlinks.keySet().equals(statuses.keySet())) {
+      return false;
+    }
+
+    for (Map.Entry<String, SubmoduleStatus> entry : statuses.entrySet()) {
+      String path = entry.getKey();
+      SubmoduleStatus status = entry.getValue();
+      if (!Objects.equals(currentGitlinks.get(path), status.getIndexId())
+          || !Objects.equals(resolveSubmoduleHead(repository, path), status.getHeadId())) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Submodule changed: " + path);
+        }
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads the gitlinks from the index. The index is read again only if it changed.
+   *
+   * @param repository The current repository.
+   *
+   * @return The gitlinks, by path.
+   *
+   * @throws IOException Unable to read the index.
+   */
+  private Map<String, ObjectId> readGitlinks(Repository repository) throws IOException {
+    File indexFile = repository.getIndexFile();
+    long timestamp = indexFile.lastModified();
+    long length = indexFile.length();
+    if (gitlinks == null || timestamp != indexTimestamp || length != indexLength) {
+      Map<String, ObjectId> links = new HashMap<>();
+      DirCache dirCache = repository.readDirCache();
+      for (int i = 0; i < dirCache.getEntryCount(); i++) {
+        DirCacheEntry entry = dirCache.getEntry(i);
+        if (entry.getFileMode() == FileMode.GITLINK) {
+          links.put(entry.getPathString(), entry.getObjectId());
+        }
+      }
+      gitlinks = links;
+      indexTimestamp = timestamp;
+      indexLength = length;
+    }
+    return gitlinks;
+  }
+
+  /**
+   * Resolves the HEAD of a submodule.
+   *
+   * @param repository    The parent repository.
+   * @param submodulePath The path of the submodule.
+   *
+   * @return The HEAD commit or <code>null</code> if the submodule is not initialized.
+   *
+   * @throws IOException Unable to read the submodule.
+   */
+  private ObjectId resolveSubmoduleHead(Repository repository, String submodulePath) throws IOException {
+    Repository submoduleRepository = submoduleRepositories.get(submodulePath);
+    if (submoduleRepository == null) {
+      submoduleRepository = SubmoduleWalk.getSubmoduleRepository(repository, submodulePath);
+      if (submoduleRepository == null) {
+        return null;
+      }
+      submoduleRepositories.put(submodulePath, submoduleRepository);
+    }
+    return submoduleRepository.resolve(Constants.HEAD);
+  }
+}
@@ -138,6 +138,30 @@ public class Tags {
    * Option text for notifying when there are new commits upstream.
    */
   public static final String NOTIFY_ON_NEW_COMMITS = "Notify_on_new_commits";
+  /**
+   * Option text for computing the status of very large working copies in parallel.
+   */
+  public static final String PARALLEL_STATUS_FOR_LARGE_WORKING_COPIES = "Parallel_status_for_large_working_copies";
+  /**
+   * Settings menu action and title of the dialog that presents the latency of the Git operations.
+   */
+  public static final String OPERATION_METRICS = "Operation_metrics";
+  /**
+   * Column in the operation metrics dialog.
+   */
+  public static final String OPERATION = "Operation";
+  /**
+   * Column in the operation metrics dialog.
+   */
+  public static final String COUNT = "Count";
+  /**
+   * Column prefix in the operation metrics dialog.
+   */
+  public static final String QUEUE_WAIT = "Queue_wait";
+  /**
+   * Column prefix in the operation metrics dialog.
+   */
+  public static final String EXECUTION_TIME = "Execution_time";
   
   /**
    * There is a new commit in the remote repository that has not been pulled.
@@ -958,6 +982,12 @@ public class Tags {
    * en: Show blame
    */
   public static final String SHOW_BLAME = "Show_blame";
+  /**
+   * Status message presented while the blame is computed.
+   * 
+   * en: Computing blame... {0}%
+   */
+  public static final String BLAME_PROGRESS = "Blame_progress";
   /**
    * History table column name. The person that made that commit.
    */
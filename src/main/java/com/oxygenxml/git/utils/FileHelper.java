@@ -112,6 +112,28 @@ public class FileHelper {
 	public static String rewriteSeparator(String path) {
 	  return path.replace("\\", "/");
 	}
+
+	/**
+	 * Checks if a path is one of the given paths or a descendant of one of them.
+	 *
+	 * @param path  The path to check. Uses just the / separator.
+	 * @param paths The candidate paths. Use just the / separator.
+	 *
+	 * @return <code>true</code> if covered.
+	 */
+	public static boolean isPathCovered(String path, Set<String> paths) {
+	  String current = path;
+	  while (true) {
+	    if (paths.contains(current)) {
+	      return true;
+	    }
+	    int index = current.lastIndexOf('/');
+	    if (index == -1) {
+	      return false;
+	    }
+	    current = current.substring(0, index);
+	  }
+	}
 	
 	/**
    * Extracts the last file name from the path.
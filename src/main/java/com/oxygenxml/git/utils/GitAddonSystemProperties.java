@@ -18,4 +18,30 @@ public class GitAddonSystemProperties {
    */
   public static final String USE_JSCH_FOR_SSH_OPERATIONS = "useJschForSSHOperations";
   
+  /**
+   * By default the add-on watches the directories of the working copy for changes made outside the application.
+   * Setting this property to <code>true</code> disables the watcher. The changes will be detected only
+   * when refreshing.
+   */
+  public static final String DISABLE_WORKING_COPY_WATCHER = "disableWorkingCopyWatcher";
+  
+  /**
+   * Setting this property to <code>true</code> makes the add-on write the latency metrics of the
+   * Git operations in its log when the application closes.
+   */
+  public static final String LOG_OPERATION_METRICS_ON_EXIT = "logGitOperationMetricsOnExit";
+  
+  /**
+   * By default the add-on keeps the metadata of the commits in a cache file, in the preferences directory,
+   * so that the history is presented without reading all the commits again. Setting this property to
+   * <code>true</code> disables the cache.
+   */
+  public static final String DISABLE_COMMIT_CACHE = "disableGitCommitCache";
+
+  /**
+   * The maximum number of commits counted when a branch is ahead or behind its upstream branch. Beyond it,
+   * the add-on presents the number followed by a plus sign. The default is 1000.
+   */
+  public static final String AHEAD_BEHIND_LIMIT = "gitAheadBehindLimit";
+  
 }
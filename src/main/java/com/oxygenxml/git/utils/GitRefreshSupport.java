@@ -1,5 +1,7 @@
 package com.oxygenxml.git.utils;
 
+import java.util.Set;
+
 /**
  * Synchronizes the staging view with the GIT repository state. 
  *  
@@ -7,7 +9,25 @@ package com.oxygenxml.git.utils;
  */
 public interface GitRefreshSupport {
 	/**
-	 * Call the refresh support (i.e. perform the actual refresh).
+	 * Call the refresh support (i.e. perform the actual refresh). The entire working copy is checked
+	 * because it might have been changed outside the application.
 	 */
 	public void call();
+	
+	/**
+	 * Call the refresh support, re-checking only the resources known to have changed since
+	 * the last refresh.
+	 */
+	public default void callIncremental() {
+	  call();
+	}
+	
+	/**
+	 * Resources were changed in the working copy, outside the application. Re-checks only the given paths.
+	 * 
+	 * @param paths The changed paths, relative to the working copy. Folders cover all their descendants.
+	 */
+	public default void workingCopyChanged(Set<String> paths) {
+	  call();
+	}
 }
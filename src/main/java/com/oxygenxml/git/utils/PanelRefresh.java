@@ -6,6 +6,7 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 
 import javax.swing.JComboBox;
@@ -23,8 +24,10 @@ import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.service.GitStatus;
 import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.service.PrivateRepositoryException;
+import com.oxygenxml.git.service.RemoteSyncService;
 import com.oxygenxml.git.service.RepositoryUnavailableException;
 import com.oxygenxml.git.service.SSHPassphraseRequiredException;
+import com.oxygenxml.git.service.StatusCache;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
@@ -83,6 +86,11 @@ public class PanelRefresh implements GitRefreshSupport {
 	 * Repository change watcher.
 	 */
 	private RepositoryChangeWatcher watcher;
+	/**
+	 * <code>true</code> if the next refresh should check the remote repository even if
+	 * the last check is recent.
+	 */
+	private volatile boolean forceRemoteSync;
 	/**
 	 * Branch management panel.
 	 */
@@ -106,7 +114,7 @@ public class PanelRefresh implements GitRefreshSupport {
 	      if (repository != null) {
 	        if (stagingPanel != null) {
 	          stagingPanel.updateConflictButtonsPanelBasedOnRepoState();
-	          GitStatus status = GitAccess.getInstance().getStatus();
+	          GitStatus status = StatusCache.getInstance().getStatus();
 	          updateFiles(
 	              stagingPanel.getUnstagedChangesPanel(), 
 	              status.getUnstagedFiles());
@@ -114,7 +122,9 @@ public class PanelRefresh implements GitRefreshSupport {
 	              stagingPanel.getStagedChangesPanel(), 
 	              status.getStagedFiles());
 
-	          RepositoryStatusInfo rstatus = fetch();
+	          boolean force = forceRemoteSync;
+	          forceRemoteSync = false;
+	          RepositoryStatusInfo rstatus = fetch(force);
 	          updateCounters(rstatus);
 
 	          if (OptionsManager.getInstance().getNotifyAboutNewRemoteCommits()) {
@@ -144,6 +154,8 @@ public class PanelRefresh implements GitRefreshSupport {
 	 */
   public PanelRefresh(RepositoryChangeWatcher watcher) {
     this.watcher = watcher;
+    // Present the commits brought by the background checks.
+    RemoteSyncService.getInstance().addRemoteChangeListener(this::callIncremental);
   }
 
   /**
@@ -151,12 +163,31 @@ public class PanelRefresh implements GitRefreshSupport {
    */
   @Override
   public void call() {
-    if (refreshFuture != null && !refreshFuture.isDone()) {
-      logger.debug("cancel refresh task");
-      refreshFuture.cancel(true);
-    }
+    // The working copy might have been changed by other applications.
+    StatusCache.getInstance().invalidate();
+    forceRemoteSync = true;
+    
+    callIncremental();
+  }
+  
+  /**
+   * @see com.oxygenxml.git.utils.GitRefreshSupport.callIncremental()
+   */
+  @Override
+  public void callIncremental() {
+    // A refresh that didn't start yet will also cover this request.
+    refreshFuture = refreshExecutor.scheduleRefresh(this, refreshRunnable, getScheduleDelay());
+  }
 
-    refreshFuture = refreshExecutor.schedule(refreshRunnable, getScheduleDelay());
+  /**
+   * @see com.oxygenxml.git.utils.GitRefreshSupport.workingCopyChanged(Set<String>)
+   */
+  @Override
+  public void workingCopyChanged(Set<String> paths) {
+    StatusCache.getInstance().markDirty(paths);
+    if (stagingPanel != null) {
+      refreshExecutor.scheduleRead(() -> stagingPanel.workingCopyChanged(paths));
+    }
   }
 
   /**
@@ -357,13 +388,15 @@ public class PanelRefresh implements GitRefreshSupport {
 	/**
 	 * Fetch the latest changes from the remote repository.
 	 * 
+	 * @param force <code>true</code> to check the remote repository even if the last check is recent.
+	 * 
 	 * @return Repository status.
 	 */
-  private RepositoryStatusInfo fetch() {
-    // Connect to the remote.
+  private RepositoryStatusInfo fetch(boolean force) {
+    // Connect to the remote, unless it was checked recently.
     RepositoryStatusInfo statusInfo = new RepositoryStatusInfo(RepositoryStatus.AVAILABLE);
     try {
-      GitAccess.getInstance().fetch();
+      RemoteSyncService.getInstance().sync(force);
     } catch (RepositoryUnavailableException e) {
       statusInfo = new RepositoryStatusInfo(RepositoryStatus.UNAVAILABLE, computeStatusExtraInfo(e));
     } catch (SSHPassphraseRequiredException e) {
@@ -377,7 +410,7 @@ public class PanelRefresh implements GitRefreshSupport {
         String message = translator.getTranslation(Tags.ENTER_SSH_PASS_PHRASE);
         String passphrase = new PassphraseDialog(message).getPassphrase();
         if(passphrase != null) {
-          return fetch();
+          return fetch(true);
         }
       }
     } catch (PrivateRepositoryException e) {
@@ -387,7 +420,7 @@ public class PanelRefresh implements GitRefreshSupport {
           GitAccess.getInstance().getHostName(), 
           translator.getTranslation(Tags.LOGIN_DIALOG_PRIVATE_REPOSITORY_MESSAGE)).getUserCredentials();
       if (userCredentials != null) {
-        return fetch();
+        return fetch(true);
       }
     } catch (Exception e) {
       statusInfo = new RepositoryStatusInfo(RepositoryStatus.UNAVAILABLE, computeStatusExtraInfo(e));
@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
@@ -373,6 +374,31 @@ public class ChangesPanel extends JPanel {
 	    tree.setSelectionPaths(selectionPaths);
 	  }
 	  
+    toggleSelectedButton();
+  }
+
+  /**
+   * Notify the models about changes made in the working copy.
+   * 
+   * @param paths     The changed paths. Folders cover all their descendants.
+   * @param newStates The current states of the changed resources.
+   */
+  void workingCopyChanged(Set<String> paths, List<FileStatus> newStates) {
+    if (currentViewMode == ResourcesViewMode.FLAT_VIEW && filesTable != null) {
+      StagingResourcesTableModel modelTable = (StagingResourcesTableModel) filesTable.getModel();
+      modelTable.workingCopyChanged(paths, newStates);
+    } else if (currentViewMode == ResourcesViewMode.TREE_VIEW && tree != null) {
+      Enumeration<TreePath> expandedPaths = TreeUtil.getLastExpandedPaths(tree);
+      TreePath[] selectionPaths = tree.getSelectionPaths();
+
+      StagingResourcesTreeModel treeModel = (StagingResourcesTreeModel) tree.getModel();
+      treeModel.workingCopyChanged(paths, newStates);
+
+      // Restore last expanded paths after refresh
+      TreeUtil.restoreLastExpandedPaths(expandedPaths, tree);
+      tree.setSelectionPaths(selectionPaths);
+    }
+
     toggleSelectedButton();
   }
 
@@ -53,6 +53,7 @@ import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.service.GitStatus;
 import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.service.RepoNotInitializedException;
+import com.oxygenxml.git.service.StatusCache;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.RepositoryStatusInfo;
@@ -289,7 +290,7 @@ public class CommitAndStatusPanel extends JPanel {
       300,
       e -> {
         if (commitButtonAndMessageUpdateTask != null) {
-          GitOperationScheduler.getInstance().schedule(commitButtonAndMessageUpdateTask);
+          GitOperationScheduler.getInstance().scheduleRead(commitButtonAndMessageUpdateTask);
         } 
       });
 	
@@ -705,7 +706,7 @@ public class CommitAndStatusPanel extends JPanel {
             String message = null;
             @Override
             protected Void doInBackground() throws Exception {
-              GitStatus status = gitAccess.getStatus();
+              GitStatus status = StatusCache.getInstance().getSnapshot().getStatus();
               if (repositoryState == RepositoryState.MERGING_RESOLVED
                   && status.getStagedFiles().isEmpty()
                   && status.getUnstagedFiles().isEmpty()) {
@@ -12,8 +12,11 @@ import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -31,6 +34,8 @@ import com.oxygenxml.git.service.GitEventListener;
 import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.service.GitStatus;
 import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.service.StatusCache;
+import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.utils.FileHelper;
 import com.oxygenxml.git.utils.GitRefreshSupport;
 import com.oxygenxml.git.view.branches.BranchManagementViewPresenter;
@@ -244,7 +249,7 @@ public class StagingPanel extends JPanel {
 			    focusGained = true;
 			    if (!inTheView) {
 			      // EXM-40880: Invoke later so that the focus event gets processed.
-			      SwingUtilities.invokeLater(() -> refreshSupport.call());
+			      SwingUtilities.invokeLater(() -> refreshSupport.callIncremental());
 			    }
 			    inTheView = true;
 			  }
@@ -315,6 +320,7 @@ public class StagingPanel extends JPanel {
             }
 
             Collection<String> affectedFiles = Arrays.asList(fileInWorkPath.substring(selectedRepositoryPath.length () + 1));
+            StatusCache.getInstance().markDirty(affectedFiles);
             FileGitEventInfo changeEvent = new FileGitEventInfo(GitOperation.UNSTAGE, affectedFiles);
             SwingUtilities.invokeLater(() -> unstagedChangesPanel.fileStatesChanged(changeEvent));
           }
@@ -515,6 +521,24 @@ public class StagingPanel extends JPanel {
   }
   
 
+  /**
+   * Resources were changed in the working copy, outside the plugin.
+   * Only the changed paths are re-checked, by the status cache in which they were marked as changed.
+   * Should not be called on the AWT thread.
+   * 
+   * @param paths The changed paths, relative to the working copy. Folders cover all their descendants.
+   */
+  public void workingCopyChanged(Set<String> paths) {
+    // The working copy changes affect only the resources that are not in the index.
+    List<FileStatus> newStates = new ArrayList<>();
+    for (FileStatus fileStatus : StatusCache.getInstance().getSnapshot().getUnstagedFiles()) {
+      if (FileHelper.isPathCovered(fileStatus.getFileLocation(), paths)) {
+        newStates.add(fileStatus);
+      }
+    }
+    SwingUtilities.invokeLater(() -> unstagedChangesPanel.workingCopyChanged(paths, newStates));
+  }
+
   /**
    * @return the unstaged resources panel.
    */
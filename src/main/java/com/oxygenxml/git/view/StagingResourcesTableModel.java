@@ -16,6 +16,7 @@ import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitControllerBase;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.utils.FileHelper;
 import com.oxygenxml.git.view.event.FileGitEventInfo;
 import com.oxygenxml.git.view.event.GitEventInfo;
 
@@ -201,6 +202,28 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	  fireTableDataChanged();
 	}
 
+	/**
+	 * Some resources changed in the working copy.
+	 * 
+	 * @param paths     The changed paths. Folders cover all their descendants.
+	 * @param newStates The current states of the changed resources.
+	 */
+	void workingCopyChanged(Set<String> paths, List<FileStatus> newStates) {
+	  if (logger.isDebugEnabled()) {
+	    logger.debug("Working copy changes in the " + (inIndex ? "'staged'" : "'unstaged'") + " area: " + paths);
+	  }
+
+	  filesStatuses.removeIf(fileStatus -> FileHelper.isPathCovered(fileStatus.getFileLocation(), paths));
+	  for (FileStatus fileStatus : newStates) {
+	    if (FileHelper.isPathCovered(fileStatus.getFileLocation(), paths)) {
+	      filesStatuses.add(fileStatus);
+	    }
+	  }
+	  removeDuplicates();
+	  Collections.sort(filesStatuses, fileStatusComparator);
+	  fireTableDataChanged();
+	}
+
 	/**
 	 * Update the table model based on the given event.
 	 * 
@@ -3,6 +3,7 @@ package com.oxygenxml.git.view;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.tree.DefaultTreeModel;
 
@@ -12,6 +13,7 @@ import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitControllerBase;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.utils.FileHelper;
 import com.oxygenxml.git.utils.TreeUtil;
 import com.oxygenxml.git.view.event.FileGitEventInfo;
 import com.oxygenxml.git.view.event.GitEventInfo;
@@ -117,6 +119,38 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
 	  fireTreeStructureChanged(this, null, null, null);
 	}
 
+	/**
+	 * Some resources changed in the working copy.
+	 * 
+	 * @param paths     The changed paths. Folders cover all their descendants.
+	 * @param newStates The current states of the changed resources.
+	 */
+	public void workingCopyChanged(Set<String> paths, List<FileStatus> newStates) {
+	  if (logger.isDebugEnabled()) {
+	    logger.debug("Tree model for index: " + inIndex + " working copy changes " + paths);
+	  }
+
+	  List<FileStatus> toDelete = new ArrayList<>();
+	  synchronized (filesStatuses) {
+	    for (FileStatus fileStatus : filesStatuses) {
+	      if (FileHelper.isPathCovered(fileStatus.getFileLocation(), paths)) {
+	        toDelete.add(fileStatus);
+	      }
+	    }
+	  }
+	  deleteNodes(toDelete);
+
+	  List<FileStatus> toInsert = new ArrayList<>();
+	  for (FileStatus fileStatus : newStates) {
+	    if (FileHelper.isPathCovered(fileStatus.getFileLocation(), paths)) {
+	      toInsert.add(fileStatus);
+	    }
+	  }
+	  insertNodes(toInsert);
+
+	  fireTreeStructureChanged(this, null, null, null);
+	}
+
 	/**
 	 * Clears all the nodes in the model and leaves an empty root.
 	 */
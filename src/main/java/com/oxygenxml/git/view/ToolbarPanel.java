@@ -45,8 +45,10 @@ import com.oxygenxml.git.service.GitEventAdapter;
 import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.service.PrivateRepositoryException;
+import com.oxygenxml.git.service.RemoteSyncService;
 import com.oxygenxml.git.service.RepoNotInitializedException;
 import com.oxygenxml.git.service.RepositoryUnavailableException;
+import com.oxygenxml.git.service.RevCommitUtil;
 import com.oxygenxml.git.service.SSHPassphraseRequiredException;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
@@ -55,12 +57,14 @@ import com.oxygenxml.git.view.branches.BranchManagementViewPresenter;
 import com.oxygenxml.git.view.branches.BranchesUtil;
 import com.oxygenxml.git.view.dialog.CloneRepositoryDialog;
 import com.oxygenxml.git.view.dialog.LoginDialog;
+import com.oxygenxml.git.view.dialog.OperationMetricsDialog;
 import com.oxygenxml.git.view.dialog.PassphraseDialog;
 import com.oxygenxml.git.view.dialog.SubmoduleSelectDialog;
 import com.oxygenxml.git.view.event.GitController;
 import com.oxygenxml.git.view.event.GitEventInfo;
 import com.oxygenxml.git.view.event.GitOperation;
 import com.oxygenxml.git.view.event.PullType;
+import com.oxygenxml.git.view.history.CommitsAheadAndBehind;
 import com.oxygenxml.git.view.history.HistoryController;
 
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
@@ -260,7 +264,8 @@ public class ToolbarPanel extends JPanel {
 	 */
   private void fetch(boolean firstRun) {
     try {
-      GitAccess.getInstance().fetch();
+      // After new credentials were given, check again.
+      RemoteSyncService.getInstance().sync(!firstRun);
     } catch (SSHPassphraseRequiredException e) {
       String message = null;
       if (firstRun) {
@@ -487,6 +492,12 @@ public class ToolbarPanel extends JPanel {
         }, false);
     
     settingsMenuButton.addSeparator();
+    settingsMenuButton.addActionToMenu(new AbstractAction(translator.getTranslation(Tags.OPERATION_METRICS)) {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        new OperationMetricsDialog();
+      }
+    }, false);
     settingsMenuButton.addActionToMenu(new AbstractAction(translator.getTranslation(Tags.PREFERENCES)) {
       @Override
       public void actionPerformed(ActionEvent e) {
@@ -599,6 +610,20 @@ public class ToolbarPanel extends JPanel {
 		gitToolbar.add(branchSelectButton);
 	}
 
+	/**
+	 * Formats a number of commits ahead or behind. The numbers over the limit are presented
+	 * as the limit followed by a plus sign.
+	 * 
+	 * @param count The number of commits.
+	 * 
+	 * @return The text to present.
+	 */
+	private static String formatCommitsCount(int count) {
+	  return count > RevCommitUtil.AHEAD_BEHIND_LIMIT 
+	      ? RevCommitUtil.AHEAD_BEHIND_LIMIT + "+" 
+	      : String.valueOf(count);
+	}
+
 	/**
 	 * Updates the presented information, like the Pull-behind, Pushes-ahead
 	 * and branch status.
@@ -606,10 +631,13 @@ public class ToolbarPanel extends JPanel {
 	public void refresh() {
     GitAccess gitAccess = GitAccess.getInstance();
     
-    this.pullsBehind = gitAccess.getPullsBehind();
     try {
-      this.pushesAhead = gitAccess.getPushesAhead();
+      // Both counts from the same walks.
+      CommitsAheadAndBehind aheadAndBehind = gitAccess.getCommitsAheadAndBehind();
+      this.pullsBehind = aheadAndBehind != null ? aheadAndBehind.getBehindCount() : 0;
+      this.pushesAhead = aheadAndBehind != null ? aheadAndBehind.getAheadCount() : 0;
     } catch (RepoNotInitializedException e) {
+      this.pullsBehind = 0;
       this.pushesAhead = -1;
       logger.debug(e, e);
     }
@@ -682,7 +710,7 @@ public class ToolbarPanel extends JPanel {
           } else if (pullsBehind == 1) {
             commitsBehindMessage = translator.getTranslation(Tags.ONE_COMMIT_BEHIND);
           } else {
-            commitsBehindMessage = MessageFormat.format(translator.getTranslation(Tags.COMMITS_BEHIND), pullsBehind);
+            commitsBehindMessage = MessageFormat.format(translator.getTranslation(Tags.COMMITS_BEHIND), formatCommitsCount(pullsBehind));
           }
           branchTooltip += commitsBehindMessage + "<br>";
           
@@ -691,7 +719,7 @@ public class ToolbarPanel extends JPanel {
           } else if (pushesAhead == 1) {
             commitsAheadMessage = translator.getTranslation(Tags.ONE_COMMIT_AHEAD);
           } else {
-            commitsAheadMessage = MessageFormat.format(translator.getTranslation(Tags.COMMITS_AHEAD), pushesAhead);
+            commitsAheadMessage = MessageFormat.format(translator.getTranslation(Tags.COMMITS_AHEAD), formatCommitsCount(pushesAhead));
           }
           branchTooltip += commitsAheadMessage;
         }
@@ -868,7 +896,7 @@ public class ToolbarPanel extends JPanel {
       private void paintPullsBehind(Graphics g) {
         String noOfPullsBehindString = "";
         if (pullsBehind > 0) {
-          noOfPullsBehindString += pullsBehind;
+          noOfPullsBehindString += formatCommitsCount(pullsBehind);
         }
         if (pullsBehind > 9) {
           setHorizontalAlignment(SwingConstants.LEFT);
@@ -955,7 +983,7 @@ public class ToolbarPanel extends JPanel {
       private void paintPushesAhead(Graphics g) {
         String noOfPushesAheadString = "";
 				if (pushesAhead > 0) {
-					noOfPushesAheadString = "" + pushesAhead;
+					noOfPushesAheadString = formatCommitsCount(pushesAhead);
 				}
 				if (pushesAhead > 9) {
 					pushButton.setHorizontalAlignment(SwingConstants.LEFT);
@@ -0,0 +1,266 @@
+package com.oxygenxml.git.view.blame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * The commits that last changed the lines of a file, as sorted line ranges. Consecutive lines
+ * changed by the same commit share a range, so the index stays small even for large files, and
+ * the commit of a line is found with a binary search.
+ * <br><br>
+ * Only used on AWT.
+ */
+public class BlameLineIndex {
+  /**
+   * The first line of each range, 0 based, in ascending order.
+   */
+  private int[] starts = new int[0];
+  /**
+   * The line after the last one of each range.
+   */
+  private int[] ends = new int[0];
+  /**
+   * The index of the commit of each range.
+   */
+  private int[] commitIndices = new int[0];
+  /**
+   * The number of ranges.
+   */
+  private int size;
+  /**
+   * The distinct commits, in the order in which they were added.
+   */
+  private final List<RevCommit> commits = new ArrayList<>();
+  /**
+   * The index of each commit.
+   */
+  private final Map<RevCommit, Integer> commitIndexes = new HashMap<>();
+
+  /**
+   * Adds attributed lines. The lines must not be already attributed.
+   *
+   * @param regions The attributed lines.
+   */
+  public void add(List<Region> regions) {
+    regions.sort(Comparator.comparingInt(r -> r.start));
+    Builder builder = new Builder(size + regions.size());
+    int i = 0;
+    for (Region region : regions) {
+      while (i < size && starts[i] < region.start) {
+        builder.append(starts[i], ends[i], commitIndices[i]);
+        i++;
+      }
+      builder.append(region.start, region.end,
+          commitIndexes.computeIfAbsent(region.commit, c -> {
+            commits.add(c);
+            return commits.size() - 1;
+          }));
+    }
+    while (i < size) {
+      builder.append(starts[i], ends[i], commitIndices[i]);
+      i++;
+    }
+    builder.build();
+  }
+
+  /**
+   * @param line A line, 0 based.
+   *
+   * @return The index of the commit that last changed the line or -1 if the line is not attributed.
+   */
+  public int getCommitIndex(int line) {
+    // The last range that starts before the line.
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (starts[middle] <= line) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return high >= 0 && line < ends[high] ? commitIndices[high] : -1;
+  }
+
+  /**
+   * @param line A line, 0 based.
+   *
+   * @return The commit that last changed the line or <code>null</code> if the line is not attributed.
+   */
+  public RevCommit getCommit(int line) {
+    int index = getCommitIndex(line);
+    return index >= 0 ? commits.get(index) : null;
+  }
+
+  /**
+   * @param commit A commit. May be <code>null</code>.
+   *
+   * @return The index of the commit or -1 if no line is attributed to it.
+   */
+  public int indexOfCommit(RevCommit commit) {
+    Integer index = commit != null ? commitIndexes.get(commit) : null;
+    return index != null ? index : -1;
+  }
+
+  /**
+   * @return The number of distinct commits.
+   */
+  public int getCommitCount() {
+    return commits.size();
+  }
+
+  /**
+   * @return The number of line ranges.
+   */
+  public int getRangeCount() {
+    return size;
+  }
+
+  /**
+   * Inserts lines that are not attributed. The following lines are moved down.
+   *
+   * @param line  Where to insert the lines, 0 based.
+   * @param count The number of lines.
+   */
+  public void insertLines(int line, int count) {
+    Builder builder = new Builder(size + 1);
+    for (int i = 0; i < size; i++) {
+      if (ends[i] <= line) {
+        builder.append(starts[i], ends[i], commitIndices[i]);
+      } else if (starts[i] >= line) {
+        builder.append(starts[i] + count, ends[i] + count, commitIndices[i]);
+      } else {
+        // Split around the inserted lines.
+        builder.append(starts[i], line, commitIndices[i]);
+        builder.append(line + count, ends[i] + count, commitIndices[i]);
+      }
+    }
+    builder.build();
+  }
+
+  /**
+   * Removes lines. The following lines are moved up.
+   *
+   * @param line  The first removed line, 0 based.
+   * @param count The number of lines.
+   */
+  public void removeLines(int line, int count) {
+    int end = line + count;
+    Builder builder = new Builder(size);
+    for (int i = 0; i < size; i++) {
+      if (ends[i] <= line) {
+        builder.append(starts[i], ends[i], commitIndices[i]);
+      } else if (starts[i] >= end) {
+        builder.append(starts[i] - count, ends[i] - count, commitIndices[i]);
+      } else {
+        // What remains before and after the removed lines.
+        builder.append(starts[i], line, commitIndices[i]);
+        builder.append(Math.max(starts[i], end) - count, ends[i] - count, commitIndices[i]);
+      }
+    }
+    builder.build();
+  }
+
+  /**
+   * Creates new range arrays. Empty ranges are dropped and consecutive ranges with the
+   * same commit are joined.
+   */
+  private class Builder {
+    /**
+     * The first line of each range.
+     */
+    private final int[] newStarts;
+    /**
+     * The line after the last one of each range.
+     */
+    private final int[] newEnds;
+    /**
+     * The index of the commit of each range.
+     */
+    private final int[] newCommitIndices;
+    /**
+     * The number of ranges.
+     */
+    private int newSize;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of ranges.
+     */
+    Builder(int capacity) {
+      newStarts = new int[capacity];
+      newEnds = new int[capacity];
+      newCommitIndices = new int[capacity];
+    }
+
+    /**
+     * Appends a range after the previous ones.
+     *
+     * @param start       The first line.
+     * @param end         The line after the last one.
+     * @param commitIndex The index of the commit.
+     */
+    void append(int start, int end, int commitIndex) {
+      if (start < end) {
+        int last = newSize - 1;
+        if (last >= 0 && newEnds[last] == start && newCommitIndices[last] == commitIndex) {
+          newEnds[last] = end;
+        } else {
+          newStarts[newSize] = start;
+          newEnds[newSize] = end;
+          newCommitIndices[newSize] = commitIndex;
+          newSize++;
+        }
+      }
+    }
+
+    /**
+     * Replaces the ranges of the index.
+     */
+    void build() {
+      starts = Arrays.copyOf(newStarts, newSize);
+      ends = Arrays.copyOf(newEnds, newSize);
+      commitIndices = Arrays.copyOf(newCommitIndices, newSize);
+      size = newSize;
+    }
+  }
+
+  /**
+   * Lines attributed to a revision.
+   */
+  public static class Region {
+    /**
+     * The first line, 0 based.
+     */
+    private final int start;
+    /**
+     * The line after the last one.
+     */
+    private final int end;
+    /**
+     * The revision that last changed the lines.
+     */
+    private final RevCommit commit;
+
+    /**
+     * Constructor.
+     *
+     * @param start  The first line, 0 based.
+     * @param end    The line after the last one.
+     * @param commit The revision that last changed the lines.
+     */
+    public Region(int start, int end, RevCommit commit) {
+      this.start = start;
+      this.end = end;
+      this.commit = commit;
+    }
+  }
+}
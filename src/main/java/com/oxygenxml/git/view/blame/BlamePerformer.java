@@ -1,49 +1,63 @@
 package com.oxygenxml.git.view.blame;
 
-import java.awt.Color;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
+import java.io.IOException;
 import java.security.SecureRandom;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Future;
 
 import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
 import javax.swing.event.CaretListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentEvent.ElementChange;
+import javax.swing.event.DocumentListener;
 import javax.swing.text.BadLocationException;
-import javax.swing.text.Highlighter;
-import javax.swing.text.Highlighter.HighlightPainter;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
 
 import org.apache.log4j.Logger;
-import org.eclipse.jgit.api.BlameCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.blame.BlameResult;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 
+import com.oxygenxml.git.metrics.OperationMetrics;
+import com.oxygenxml.git.service.BlameCache;
+import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.Equaler;
 import com.oxygenxml.git.view.history.HistoryController;
 
 import ro.sync.exml.editor.EditorPageConstants;
+import ro.sync.exml.workspace.api.PluginWorkspace;
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
 import ro.sync.exml.workspace.api.editor.WSEditor;
 import ro.sync.exml.workspace.api.editor.page.WSEditorPage;
 import ro.sync.exml.workspace.api.editor.page.text.WSTextEditorPage;
+import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
 
 /**
  * Computes the blame information and installs highlights on the tet page. 
+ * <br><br>
+ * The blame is computed in background. The lines are highlighted in batches, as they are attributed
+ * to revisions, and the progress is presented in the status bar.
  */
 public class BlamePerformer {
   /**
    * Logger for logging.
    */
   private static final Logger LOGGER = Logger.getLogger(BlamePerformer.class);
+  /**
+   * Milliseconds between two batches of highlights.
+   */
+  private static final int BATCH_DELAY = 200;
   /**
    * The current active commit. The one that contained the caret line. 
    */
@@ -57,19 +71,14 @@ public class BlamePerformer {
    */
   private  TimerTask caretSyncTask;
   /**
-   * Revision ID to Painter mapping.
+   * Line to Revision mapping.
    */
-  private  Map<String, HighlightPainter> painters = new HashMap<>();
-  
+  private BlameLineIndex lineIndex = new BlameLineIndex();
   /**
-   * Highlight to Revision mapping.
+   * The highlight that paints the blame of all the lines. <code>null</code> before the first lines
+   * are attributed.
    */
-  private  Map<Object, RevCommit> highlightsToRevCommits = new HashMap<>();
-  
-  /**
-   * Line to Revision mapping.
-   */
-  private  Map<Integer, RevCommit> lineIndicesToRevCommits = new HashMap<>();
+  private Object highlight;
   /**
    * The bind text page.
    */
@@ -82,10 +91,22 @@ public class BlamePerformer {
    * Caret listener added on the text page.
    */
   private CaretListener caretListener;
+  /**
+   * Keeps the attributed lines in sync with the lines added or removed in the text page.
+   */
+  private DocumentListener documentListener;
   /**
    * Random number generator.
    */
   private Random rand = new SecureRandom();
+  /**
+   * The blame computed in background. <code>null</code> when finished.
+   */
+  private Future<?> blameTask;
+  /**
+   * <code>true</code> after {@link #dispose()}. Stops the blame computation.
+   */
+  private volatile boolean disposed;
   
   /**
    * Computes the blame for the given resource and adds highlights on the editor.
@@ -113,58 +134,129 @@ public class BlamePerformer {
   }
 
   /**
-   * Computes the blame for the given resource and adds highlights on the editor.
+   * Starts computing the blame for the given resource in background. The highlights are added
+   * on the editor as the lines are attributed to revisions.
    * 
    * @param repository The repository that contains the file.
    * @param filePath File for which to compute the path.
    * @param historyController Interface to history support.
    * @param currentPage Editor that presents the file.
-   * 
-   * @throws GitAPIException if it fails.
    */
   private void doBlame(
       Repository repository,
       String filePath, 
       HistoryController historyController, 
-      WSTextEditorPage currentPage) throws GitAPIException {
-    BlameCommand blamer = new BlameCommand(repository);
-    
-    // This is how you do it on a specific commit. If left out, it's performed on the WC instance.
-    //    ObjectId commitID = repository.resolve("HEAD~~"); NOSONAR
-    //    blamer.setStartCommit(commitID); NOSONAR
-    
-    blamer.setFilePath(filePath);
-    BlameResult blame = blamer.call();
+      WSTextEditorPage currentPage) {
     textpage = currentPage;
-    JTextArea textArea = (JTextArea) textpage.getTextComponent();
-    Highlighter highlighter = textArea.getHighlighter();
+    blameTask = GitOperationScheduler.getInstance().scheduleRead(() -> {
+      try {
+        computeBlame(repository, filePath, historyController);
+      } catch (IOException e) {
+        LOGGER.error(e, e);
+        SwingUtilities.invokeLater(() -> {
+          showProgress(null);
+          PluginWorkspaceProvider.getPluginWorkspace().showErrorMessage(e.getMessage());
+        });
+      }
+    });
+  }
 
-    // Add highlights for each interval.
-    if (blame != null) {
-      int lines = blame.getResultContents().size();
-      for (int i = 0; i < lines; i++) {
-        RevCommit commit = blame.getSourceCommit(i);
-        lineIndicesToRevCommits.put(i, commit);
-        if (commit != null) {
-          try {
-            int offsetOfLineStart = textpage.getOffsetOfLineStart(i + 1);
-            int offsetOfLineEnd = textpage.getOffsetOfLineEnd(i + 1);
+  /**
+   * Computes the blame, the same as {@link org.eclipse.jgit.api.BlameCommand} does for the 
+   * working copy, and sends the attributed lines to the editor in batches. The blame of HEAD
+   * is reused from the {@link BlameCache}, when possible.
+   * 
+   * @param repository The repository that contains the file.
+   * @param filePath File for which to compute the path.
+   * @param historyController Interface to history support.
+   * 
+   * @throws IOException if it fails.
+   */
+  private void computeBlame(Repository repository, String filePath, HistoryController historyController) 
+      throws IOException {
+    long start = System.nanoTime();
+    try {
+      BatchingListener listener = new BatchingListener();
+      int lines = BlameCache.getInstance().blame(repository, filePath, listener);
+      if (lines < 0) {
+        SwingUtilities.invokeLater(() -> {
+          if (!disposed) {
+            showProgress(null);
+            PluginWorkspaceProvider.getPluginWorkspace().showInformationMessage(
+                Translator.getInstance().getTranslation(Tags.NOTHING_TO_SHOW_FOR_NEW_FILES));
+          }
+        });
+      } else if (!disposed) {
+        List<BlameLineIndex.Region> regions = listener.batch;
+        SwingUtilities.invokeLater(() -> {
+          addHighlights(regions);
+          blameFinished(filePath, historyController);
+        });
+      }
+    } finally {
+      OperationMetrics.getInstance().queryEnded(OperationMetrics.QUERY_BLAME, start);
+    }
+  }
 
-            Object addHighlight = highlighter.addHighlight(offsetOfLineStart, offsetOfLineEnd, getPainter(commit, textpage));
-            highlightsToRevCommits.put(addHighlight, commit);
+  /**
+   * Adds a batch of attributed lines. The highlight that paints them is added with the first batch.
+   * 
+   * @param regions The attributed lines.
+   */
+  private void addHighlights(List<BlameLineIndex.Region> regions) {
+    if (disposed) {
+      return;
+    }
+    lineIndex.add(regions);
+    
+    JTextComponent textComponent = textpage.getTextComponent() instanceof JTextComponent 
+        ? (JTextComponent) textpage.getTextComponent() : null;
+    if (textComponent != null) {
+      if (highlight == null) {
+        if (lineIndex.getRangeCount() > 0) {
+          try {
+            highlight = textComponent.getHighlighter().addHighlight(
+                0, textComponent.getDocument().getLength(), new CommitHighlightPainter(lineIndex, () -> activeRevCommit, rand));
           } catch (BadLocationException e) {
             LOGGER.error(e, e);
           }
+          documentListener = new LinesListener();
+          textComponent.getDocument().addDocumentListener(documentListener);
         }
+      } else {
+        textComponent.repaint();
       }
+    }
+  }
 
-      installSyncListeners(filePath, historyController, textArea);
+  /**
+   * Called on AWT when all the lines were attributed.
+   * 
+   * @param filePath File for which to compute the path.
+   * @param historyController Interface to history support.
+   */
+  private void blameFinished(String filePath, HistoryController historyController) {
+    if (!disposed) {
+      blameTask = null;
+      showProgress(null);
+      
+      installSyncListeners(filePath, historyController, (JTextArea) textpage.getTextComponent());
       
       // Present the history for the given resource.
       historyController.showResourceHistory(filePath);
-    } else {
-      PluginWorkspaceProvider.getPluginWorkspace().showInformationMessage(
-          Translator.getInstance().getTranslation(Tags.NOTHING_TO_SHOW_FOR_NEW_FILES));
+    }
+  }
+
+  /**
+   * Presents the progress of the blame in the status bar.
+   * 
+   * @param percent The percent of lines attributed. <code>null</code> to clear the status.
+   */
+  private static void showProgress(Integer percent) {
+    PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
+    if (pluginWorkspace instanceof StandalonePluginWorkspace) {
+      ((StandalonePluginWorkspace) pluginWorkspace).showStatusMessage(percent != null 
+          ? MessageFormat.format(Translator.getInstance().getTranslation(Tags.BLAME_PROGRESS), percent) : "");
     }
   }
 
@@ -188,10 +280,16 @@ public class BlamePerformer {
     caretListener = e -> {
       cancelCaretSyncTask();
       
+      int caret = e.getDot();
       caretSyncTask = new TimerTask() {
         @Override
         public void run() {
-          syncCaretWithHistory(filePath, historyController, textArea, e.getDot());
+          // The line index is changed on AWT, while the document is edited.
+          SwingUtilities.invokeLater(() -> {
+            if (!disposed) {
+              syncCaretWithHistory(filePath, historyController, textArea, caret);
+            }
+          });
         }
       };
       
@@ -212,7 +310,7 @@ public class BlamePerformer {
   }
   
   /**
-   * Synchronizes the history view with the caret position.
+   * Synchronizes the history view with the caret position. Called on AWT.
    * 
    * @param filePath The file we show blame for.
    * @param historyController History controller.
@@ -223,7 +321,7 @@ public class BlamePerformer {
     try {
       int line = textpage.getLineOfOffset(caret);
       
-      RevCommit nextRevCommit = lineIndicesToRevCommits.get(line - 1);
+      RevCommit nextRevCommit = lineIndex.getCommit(line - 1);
       // The active highlight might have changed.
       
       if (!Equaler.verifyEquals(activeRevCommit , nextRevCommit)) {
@@ -243,28 +341,20 @@ public class BlamePerformer {
     }
   }
 
-  /**
-   * Get a painter for the given commit.
-   * 
-   * @param rev Revision.
-   * @param textpage Text page.
-   * 
-   * @return A painter for the given revision.
-   */
-  private  HighlightPainter getPainter(RevCommit rev, WSTextEditorPage textpage) {
-    return painters.computeIfAbsent(rev.getId().name(), name1 -> {
-      float r = rand.nextFloat();
-      float g = rand.nextFloat();
-      float b = rand.nextFloat();
-      Color randomColor = new Color(r, g, b, (float) 0.4);
-      return new CommitHighlightPainter(randomColor, textpage, lineIndicesToRevCommits, () -> activeRevCommit);
-    });
-  }
-
   /**
    * Clears all internal buffers and removes all listeners added on the editor.
+   * Stops the blame, if still computed.
    */
   public void dispose() {
+    disposed = true;
+    if (blameTask != null) {
+      // The blame stops after the current region. Not interrupted, because the interrupts 
+      // close the files that JGit reads.
+      blameTask.cancel(false);
+      blameTask = null;
+      showProgress(null);
+    }
+    
     if (textpage != null) {
       cancelCaretSyncTask();
       
@@ -273,12 +363,12 @@ public class BlamePerformer {
       }
       
       JTextArea textArea = (JTextArea) textpage.getTextComponent();
-      Highlighter highlighter = textArea.getHighlighter();
+      if (highlight != null) {
+        textArea.getHighlighter().removeHighlight(highlight);
+      }
       
-      Iterator<Object> iterator = highlightsToRevCommits.keySet().iterator();
-      while (iterator.hasNext()) {
-        Object h = iterator.next();
-        highlighter.removeHighlight(h);
+      if (documentListener != null) {
+        textArea.getDocument().removeDocumentListener(documentListener);
       }
       
       if (focusListener != null) {
@@ -290,4 +380,102 @@ public class BlamePerformer {
       }
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Collects the attributed lines and sends them to the editor in batches.
+   */
+  private class BatchingListener implements BlameCache.BlameListener {
+    /**
+     * The number of lines of the file.
+     */
+    private int lines;
+    /**
+     * The number of lines attributed so far.
+     */
+    private int attributed;
+    /**
+     * The lines attributed since the last batch was sent.
+     */
+    private List<BlameLineIndex.Region> batch = new ArrayList<>();
+    /**
+     * When the last batch was sent, in nanoseconds. 0 before the first attributed lines.
+     */
+    private long lastBatch;
+
+    @Override
+    public void blameStarted(int lineCount) {
+      lines = lineCount;
+    }
+
+    @Override
+    public void linesAttributed(int start, int end, RevCommit commit) {
+      batch.add(new BlameLineIndex.Region(start, end, commit));
+      attributed += end - start;
+
+      long now = System.nanoTime();
+      if (lastBatch == 0) {
+        lastBatch = now;
+      } else if (now - lastBatch > BATCH_DELAY * 1_000_000L) {
+        lastBatch = now;
+        List<BlameLineIndex.Region> regions = batch;
+        int progress = lines > 0 ? attributed * 100 / lines : 100;
+        SwingUtilities.invokeLater(() -> {
+          if (!disposed) {
+            addHighlights(regions);
+            showProgress(progress);
+          }
+        });
+        batch = new ArrayList<>();
+      }
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return disposed;
+    }
+  }
+
+  /**
+   * Moves the attributed lines when lines are added or removed in the text page. The added
+   * lines are not attributed.
+   */
+  private class LinesListener implements DocumentListener {
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+      ElementChange change = e.getChange(e.getDocument().getDefaultRootElement());
+      if (change != null) {
+        int added = change.getChildrenAdded().length - change.getChildrenRemoved().length;
+        if (added > 0) {
+          lineIndex.insertLines(getFirstChangedLine(change, e.getOffset()), added);
+        }
+      }
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+      ElementChange change = e.getChange(e.getDocument().getDefaultRootElement());
+      if (change != null) {
+        int removed = change.getChildrenRemoved().length - change.getChildrenAdded().length;
+        if (removed > 0) {
+          lineIndex.removeLines(getFirstChangedLine(change, e.getOffset()), removed);
+        }
+      }
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+      // Attributes don't change the lines.
+    }
+
+    /**
+     * @param change The lines replaced by an edit.
+     * @param offset Where the edit starts.
+     * 
+     * @return The first added or removed line. A line edited after its start keeps its revision.
+     */
+    private int getFirstChangedLine(ElementChange change, int offset) {
+      Element[] added = change.getChildrenAdded();
+      return added.length > 0 && offset > added[0].getStartOffset() ? change.getIndex() + 1 : change.getIndex();
+    }
+  }
+}
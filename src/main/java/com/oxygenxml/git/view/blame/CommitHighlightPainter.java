@@ -2,81 +2,71 @@ package com.oxygenxml.git.view.blame;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Shape;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.function.Supplier;
 
 import javax.swing.plaf.TextUI;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
 import javax.swing.text.JTextComponent;
-import javax.swing.text.LayeredHighlighter;
-import javax.swing.text.Position;
-import javax.swing.text.View;
 
-import org.apache.log4j.Logger;
 import org.eclipse.jgit.revwalk.RevCommit;
 
-import com.oxygenxml.git.utils.Equaler;
-
-import ro.sync.exml.workspace.api.editor.page.text.WSTextEditorPage;
-
 /**
- * Simple highlight painter that fills a highlighted area with
- * a solid color.
+ * Paints the blame of all the lines as a single highlight. Each line is filled with the color
+ * of the commit that last changed it, taken from the {@link BlameLineIndex}. Only the lines
+ * inside the clip are painted, so the cost of a repaint doesn't depend on the size of the file.
  */
-public class CommitHighlightPainter extends LayeredHighlighter.LayerPainter {
-
+public class CommitHighlightPainter implements Highlighter.HighlightPainter {
   /**
-   * Logger for logging.
+   * The commits that last changed the lines.
    */
-  private static final Logger LOGGER = Logger.getLogger(CommitHighlightPainter.class);
+  private BlameLineIndex lineIndex;
   /**
-   * Text page on which the painter is installed.
+   * The active commit is the commit under the caret.
    */
-  private WSTextEditorPage textpage;
+  private Supplier<RevCommit> activeCommit;
   /**
-   * Mapping between lines and revisions in which that line was last changed.
+   * Random number generator for the colors of the commits.
    */
-  private Map<Integer, RevCommit> lineToRevCommitMap;
+  private Random rand;
   /**
-   * The active commit is the commit under the caret.
+   * The color of each commit, by commit index.
    */
-  private Supplier<RevCommit> activeCommit;
+  private List<Color> colors = new ArrayList<>();
   /**
-   * Color used by the painter.
+   * The color of each commit when it is not the active one, by commit index.
    */
-  private Color color;
+  private List<Color> bleachedColors = new ArrayList<>();
 
   /**
-   * Constructs a new highlight painter. If <code>c</code> is null,
-   * the JTextComponent will be queried for its selection color.
+   * Constructs a new highlight painter.
    *
-   * @param color               The color for the highlight
-   * @param lineToRevCommitMap  Mapping between lines and revisions in which that line was last changed.
-   * @param textpage            The text page.
-   * @param activeCommit        The commit under the caret.
+   * @param lineIndex    The commits that last changed the lines.
+   * @param activeCommit The commit under the caret.
+   * @param rand         Random number generator for the colors of the commits.
    */
-  public CommitHighlightPainter(Color color, WSTextEditorPage textpage,
-      Map<Integer, RevCommit> lineToRevCommitMap , Supplier<RevCommit> activeCommit) {
-    this.color = color;
-    this.textpage = textpage;
-    this.lineToRevCommitMap = lineToRevCommitMap;
+  public CommitHighlightPainter(BlameLineIndex lineIndex, Supplier<RevCommit> activeCommit, Random rand) {
+    this.lineIndex = lineIndex;
     this.activeCommit = activeCommit;
+    this.rand = rand;
   }
 
-
   /**
-   * Returns the color of the highlight.
-   *
-   * @return the color
+   * @return The commits that last changed the lines.
    */
-  private Color getColor() {
-    return color;
+  public BlameLineIndex getLineIndex() {
+    return lineIndex;
   }
 
   /**
-   * Paints a highlight.
+   * Paints the visible lines. The offsets of the highlight are ignored.
    *
    * @param g the graphics context
    * @param startOffset the starting model offset &gt;= 0
@@ -87,136 +77,65 @@ public class CommitHighlightPainter extends LayeredHighlighter.LayerPainter {
   @Override
   public void paint(Graphics g, int startOffset, int endOffset, Shape bounds, JTextComponent textComp) {
     Rectangle alloc = bounds.getBounds();
-    try {
-      // --- determine locations ---
-      TextUI mapper = textComp.getUI();
-      Rectangle p0 = mapper.modelToView(textComp, startOffset);
-      Rectangle p1 = mapper.modelToView(textComp, endOffset);
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      clip = alloc;
+    }
 
-      // --- render ---
-      Color paintColor = getColor();
-      if (paintColor == null) {
-        g.setColor(textComp.getSelectionColor());
-      } else {
-        g.setColor(paintColor);
-      }
-      
-      if (p0.y == p1.y) {
-        // same line, render a rectangle
-        Rectangle r = p0.union(p1);
-        g.fillRect(r.x, r.y + 1, r.width, r.height - 2);
-      } else {
-        // different lines
-        int p0ToMarginWidth = alloc.x + alloc.width - p0.x;
-        g.fillRect(p0.x, p0.y + 1, p0ToMarginWidth, p0.height - 2);
-        if ((p0.y + p0.height) != p1.y) {
-          g.fillRect(alloc.x, p0.y + p0.height + 1, alloc.width,
-              p1.y - (p0.y + p0.height) - 2);
+    Element root = textComp.getDocument().getDefaultRootElement();
+    int firstLine = root.getElementIndex(textComp.viewToModel(new Point(clip.x, clip.y)));
+    int lastLine = root.getElementIndex(textComp.viewToModel(new Point(clip.x + clip.width, clip.y + clip.height)));
+    int activeIndex = lineIndex.indexOfCommit(activeCommit.get());
+
+    TextUI mapper = textComp.getUI();
+    int previousIndex = firstLine > 0 ? lineIndex.getCommitIndex(firstLine - 1) : -1;
+    for (int line = firstLine; line <= lastLine; line++) {
+      int commitIndex = lineIndex.getCommitIndex(line);
+      if (commitIndex >= 0) {
+        Element lineElement = root.getElement(line);
+        try {
+          Rectangle p0 = mapper.modelToView(textComp, lineElement.getStartOffset());
+          Rectangle p1 = mapper.modelToView(textComp, Math.max(
+              lineElement.getStartOffset(), lineElement.getEndOffset() - 1));
+
+          g.setColor(getColor(commitIndex, commitIndex == activeIndex));
+          // A gap between the lines changed by different commits.
+          int delta = line > 0 && previousIndex != commitIndex ? 1 : 0;
+          if (p0.y == p1.y) {
+            g.fillRect(p0.x, p0.y + delta, Math.max(p1.x - p0.x, 1), p0.height - delta);
+          } else {
+            // A wrapped line.
+            g.fillRect(p0.x, p0.y + delta, alloc.x + alloc.width - p0.x, p0.height - delta);
+            if ((p0.y + p0.height) != p1.y) {
+              g.fillRect(alloc.x, p0.y + p0.height, alloc.width, p1.y - (p0.y + p0.height));
+            }
+            g.fillRect(alloc.x, p1.y, p1.x - alloc.x, p1.height);
+          }
+        } catch (BadLocationException e) {
+          // can't render
         }
-        g.fillRect(alloc.x, p1.y + 1, (p1.x - alloc.x), p1.height - 2);
       }
-    } catch (BadLocationException e) {
-      // can't render
+      previousIndex = commitIndex;
     }
   }
 
   /**
-   * Paints a portion of a highlight.
+   * Gets the color of a commit.
    *
-   * @param g the graphics context
-   * @param stOffs the starting model offset &gt;= 0
-   * @param endOffs the ending model offset &gt;= offs1
-   * @param bounds the bounding box of the view, which is not
-   *        necessarily the region to paint.
-   * @param textComp the editor
-   * @param view View painting for
-   * @return region drawing occurred in
-   */
-  @Override
-  public Shape paintLayer(Graphics g, int stOffs, int endOffs,
-      Shape bounds, JTextComponent textComp, View view) {
-    Color paintColor = getColor();
-    if (paintColor == null) {
-      g.setColor(textComp.getSelectionColor());
-    } else {
-      g.setColor(paintColor);
-    }
-
-    Rectangle rect;
-
-    if (stOffs == view.getStartOffset() && endOffs == view.getEndOffset()) {
-      // Contained in view, can just use bounds.
-      if (bounds instanceof Rectangle) {
-        rect = (Rectangle) bounds;
-      } else {
-        rect = bounds.getBounds();
-      }
-    } else {
-      // Should only render part of View.
-      try {
-        // --- determine locations ---
-        Shape shape = view.modelToView(stOffs, Position.Bias.Forward,
-            endOffs,Position.Bias.Backward,
-            bounds);
-        rect = (shape instanceof Rectangle) ?
-            (Rectangle)shape : shape.getBounds();
-      } catch (BadLocationException e) {
-        // can't render
-        rect = null;
-      }
-    }
-
-    if (rect != null) {
-      // If we are asked to highlight, we should draw something even
-      // if the model-to-view projection is of zero width (6340106).
-      rect.width = Math.max(rect.width, 1);
-
-      int delta = getYDelta(stOffs, g);
-
-      g.fillRect(rect.x, rect.y + delta, rect.width, rect.height - delta);
-    }
-
-    return rect;
-  }
-
-  /**
-   * A small correction on the Y axis. If the line that contains this offset has a different revision than the previous line then we 
-   * leave a gap between them.
-   * 
-   * @param offset Offset to check.
-   * @param g Graphics.
-   * 
-   * @return A correction for the Y axis.
+   * @param commitIndex The index of the commit.
+   * @param active      <code>true</code> if it is the commit under the caret.
+   *
+   * @return The color.
    */
-  private int getYDelta(int offset, Graphics g) {
-    int delta = 0;
-
-    try {
-      int lineOfOffset = textpage.getLineOfOffset(offset);
-
-      int key = lineOfOffset - 1;
-      RevCommit revCommit = lineToRevCommitMap.get(key);
-      if (lineOfOffset > 1) {
-        // Not the first line.
-        RevCommit prevRevCommit = lineToRevCommitMap.get(key - 1);
-
-        boolean same = Equaler.verifyEquals(revCommit, prevRevCommit);
-        if (!same) {
-          delta = 1;
-        }
-      }
-
-      RevCommit currentRevCommit = activeCommit.get();
-      if (!Equaler.verifyEquals(currentRevCommit, revCommit)) {
-        // Bleach it a bit.
-        Color color2 = getColor();
-        Color bleached = new Color((float) color2.getRed() / 255, (float) color2.getGreen() / 255, (float) color2.getBlue() / 255, (float )0.1);
-        g.setColor(bleached);
-      }
-    } catch (BadLocationException e) {
-      LOGGER.error(e, e);
+  private Color getColor(int commitIndex, boolean active) {
+    while (colors.size() <= commitIndex) {
+      float r = rand.nextFloat();
+      float g = rand.nextFloat();
+      float b = rand.nextFloat();
+      colors.add(new Color(r, g, b, (float) 0.4));
+      // Bleach it a bit.
+      bleachedColors.add(new Color(r, g, b, (float) 0.1));
     }
-
-    return delta;
+    return active ? colors.get(commitIndex) : bleachedColors.get(commitIndex);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.oxygenxml.git.view.dialog;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.WindowConstants;
+import javax.swing.table.DefaultTableModel;
+
+import com.oxygenxml.git.constants.UIConstants;
+import com.oxygenxml.git.metrics.OperationMetrics;
+import com.oxygenxml.git.translator.Tags;
+import com.oxygenxml.git.translator.Translator;
+
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+import ro.sync.exml.workspace.api.standalone.ui.OKCancelDialog;
+
+/**
+ * Presents how long the Git operations and the internal queries waited and executed.
+ * Useful to find out why the Git views are slow.
+ */
+@SuppressWarnings("java:S110")
+public class OperationMetricsDialog extends OKCancelDialog {
+
+  /**
+   * The translator for the messages that are displayed in this dialog.
+   */
+  private static Translator translator = Translator.getInstance();
+
+  /**
+   * The model of the metrics table.
+   */
+  private final DefaultTableModel model;
+
+  /**
+   * Constructor.
+   */
+  public OperationMetricsDialog() {
+    super((JFrame) PluginWorkspaceProvider.getPluginWorkspace().getParentFrame(),
+        translator.getTranslation(Tags.OPERATION_METRICS), true);
+
+    String wait = translator.getTranslation(Tags.QUEUE_WAIT);
+    String exec = translator.getTranslation(Tags.EXECUTION_TIME);
+    model = new DefaultTableModel(new Object[] {
+        translator.getTranslation(Tags.OPERATION),
+        translator.getTranslation(Tags.COUNT),
+        wait + " p50", wait + " p95", wait + " max",
+        exec + " p50", exec + " p95", exec + " max" }, 0) {
+      @Override
+      public boolean isCellEditable(int row, int column) {
+        return false;
+      }
+    };
+    JTable table = new JTable(model);
+    table.getColumnModel().getColumn(0).setPreferredWidth(200);
+    JScrollPane scrollPane = new JScrollPane(table);
+    scrollPane.setPreferredSize(new Dimension(800, 300));
+
+    JButton resetButton = new JButton(translator.getTranslation(Tags.RESET));
+    resetButton.addActionListener(e -> {
+      OperationMetrics.getInstance().reset();
+      updateTable();
+    });
+    JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    buttonsPanel.add(resetButton);
+
+    JPanel panel = new JPanel(new BorderLayout(0, UIConstants.COMPONENT_BOTTOM_PADDING));
+    panel.setBorder(BorderFactory.createEmptyBorder(
+        UIConstants.COMPONENT_TOP_PADDING,
+        UIConstants.COMPONENT_LEFT_PADDING,
+        UIConstants.COMPONENT_BOTTOM_PADDING,
+        UIConstants.COMPONENT_RIGHT_PADDING));
+    panel.add(scrollPane, BorderLayout.CENTER);
+    panel.add(buttonsPanel, BorderLayout.SOUTH);
+    getContentPane().add(panel);
+
+    updateTable();
+
+    getCancelButton().setVisible(false);
+    setOkButtonText(translator.getTranslation(Tags.CLOSE));
+    setResizable(true);
+    setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+    pack();
+    setLocationRelativeTo((JFrame) PluginWorkspaceProvider.getPluginWorkspace().getParentFrame());
+    setVisible(true);
+  }
+
+  /**
+   * Presents the current timings in the table, formatted as in the report.
+   */
+  private void updateTable() {
+    model.setRowCount(0);
+    for (Object[] row : OperationMetrics.getInstance().getReportRows()) {
+      model.addRow(row);
+    }
+  }
+}
@@ -6,6 +6,10 @@ import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,12 +18,14 @@ import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
+import javax.swing.plaf.basic.BasicHTML;
 import javax.swing.table.TableCellRenderer;
 
 import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevCommit;
 
+import com.oxygenxml.git.service.RefDecorationIndex.RefDecorations;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 
@@ -27,7 +33,10 @@ import sun.swing.DefaultLookup;
 
 /**
  * Renderer for HistoryTable including tag and branch labels.
- * 
+ * <br><br>
+ * What to render for each commit is computed once and cached. The labels are created once and reused
+ * for all the cells.
+ *
  * @Alexandra_Dinisor
  *
  */
@@ -36,6 +45,30 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
    * Default horizontal insets between components.
    */
 	private static final int HORIZONTAL_INSET = 3;
+	/**
+	 * The maximum number of commits for which we keep what to render.
+	 */
+	private static final int RENDER_MODEL_CACHE_SIZE = 1000;
+	/**
+	 * The line size of the tag and branch label borders.
+	 */
+	private static final int LABEL_BORDER_LINE_SIZE = 1;
+	/**
+	 * The corner size of the tag and branch label borders.
+	 */
+	private static final int LABEL_BORDER_CORNER_SIZE = 6;
+	/**
+	 * The font of the arrows for the commits to push or to pull.
+	 */
+	private static final Font ARROW_FONT = new Font("Dialog", Font.PLAIN, 12);
+	/**
+	 * No tags or branches.
+	 */
+	private static final String[] NO_LABELS = new String[0];
+	/**
+	 * No tags or branches.
+	 */
+	private static final boolean[] NO_BOLD_LABELS = new boolean[0];
 
   /**
 	 * Logger for logging.
@@ -57,50 +90,76 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
    */
   private String currentBranchName;
   /**
-   * Commit ID to a list of tags.
+   * The tags and the branches of each commit.
+   */
+  private RefDecorations decorations;
+  /**
+   * The message of the uncommitted changes row.
+   */
+  private final String uncommittedChangesMessage = Translator.getInstance().getTranslation(Tags.UNCOMMITTED_CHANGES);
+  /**
+   * What to render for the most recently rendered commits, by commit ID.
+   */
+  private final Map<String, RenderModel> renderModels = new LinkedHashMap<String, RenderModel>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, RenderModel> eldest) {
+      return size() > RENDER_MODEL_CACHE_SIZE;
+    }
+  };
+  /**
+   * Shows the arrow for the commits to push or to pull.
+   */
+  private final JLabel arrowLabel = new RendererLabel();
+  /**
+   * Show the tags and the branches. Only the first ones are visible, as many as the rendered commit needs.
    */
-  private Map<String, List<String>> tagMap;
+  private final List<JLabel> decorationLabels = new ArrayList<>();
   /**
-   * Commit ID to a list of branch labels.
+   * Shows the commit message.
    */
-  private Map<String, List<String>> localBranchMap;
+  private final JLabel messageLabel = new RendererLabel();
   /**
-   * Commit ID to a list of branch labels.
+   * The font of the tag and branch labels.
    */
-  private Map<String, List<String>> remoteBranchMap;
+  private final Font plainLabelFont;
+  /**
+   * The font of the label for the current branch.
+   */
+  private final Font boldLabelFont;
+  /**
+   * The borders of the tag and branch labels, by color.
+   */
+  private final Map<Color, Border> labelBorders = new HashMap<>();
 
 	/**
 	 * Construct the Table Renderer with accurate alignment.
-	 * 
+	 *
 	 * @param repository            The current repository
 	 * @param commitsAheadAndBehind Commits ahead (to push) and behind (to pull).
    * @param branchName            Branch name.
-   * @param tagMap                Tags map.
-   * @param localBranchMap        Local branches map.
-   * @param remoteBranchMap       Remote branches map.
+   * @param decorations           The tags and the branches of each commit.
    */
 	public CommitMessageTableRenderer(
-	    Repository repository, 
+	    Repository repository,
 	    CommitsAheadAndBehind commitsAheadAndBehind,
 	    String branchName,
-	    Map<String, List<String>> tagMap,
-	    Map<String, List<String>> localBranchMap,
-	    Map<String, List<String>> remoteBranchMap) {
+	    RefDecorations decorations) {
 		this.repository = repository;
     this.commitsAheadAndBehind = commitsAheadAndBehind;
     this.currentBranchName = branchName;
-    this.tagMap = tagMap;
-    this.localBranchMap = localBranchMap;
-    this.remoteBranchMap = remoteBranchMap;
+    this.decorations = decorations;
+
+    arrowLabel.setFont(ARROW_FONT);
+    plainLabelFont = messageLabel.getFont();
+    boldLabelFont = plainLabelFont.deriveFont(Font.BOLD);
 
 		setLayout(new GridBagLayout());
+		layoutLabels();
 	}
 
 	@Override
 	public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
 			int row, int column) {
-		removeAll();
-
 		// keep the selection for whole columns of the row when selecting.
 		if (isSelected) {
 			super.setForeground(table.getSelectionForeground());
@@ -119,126 +178,235 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 
 		setFont(table.getFont());
 		setBorder(getNoFocusBorder());
-		
-		// adding constraints for commit message label when wrapping
-		GridBagConstraints constr = new GridBagConstraints();
-		constr.fill = GridBagConstraints.NONE;
-		constr.anchor = GridBagConstraints.WEST;
-		constr.gridy = 0;
-		constr.gridx = -1;
-		constr.insets = new Insets(0, HORIZONTAL_INSET, 0, HORIZONTAL_INSET);
-
-		String toRender = "";
-		if (value instanceof CommitCharacteristics) {
-			CommitCharacteristics commitCharacteristics = (CommitCharacteristics) value;
-			toRender = commitCharacteristics.getCommitMessage().replaceAll("\\n+", " ").trim();
-			
-			// Show outgoing and incoming commits using arrows
-			String arrow = "";
-			if (isAheadCommit(commitCharacteristics.getCommitId())) {
-			  // Up arrow
-			  arrow = "\u2191";
-      } else if (isBehindCommit(commitCharacteristics.getCommitId())) {
-        // Down arrow
-        arrow = "\u2193";
-      }
-			if (!arrow.isEmpty()) {
-			  JLabel arrowLabel = new JLabel(arrow);
-			  arrowLabel.setFont(new Font("Dialog", Font.PLAIN, 12));
-			  arrowLabel.setForeground(getForeground());
-			  constr.gridx ++;
-			  add(arrowLabel, constr);
-			}
-			
-			// bold the text for uncommitted changes
-			String uncommittedChangesMessage = Translator.getInstance().getTranslation(Tags.UNCOMMITTED_CHANGES);
-			if (toRender.equals(uncommittedChangesMessage)) {
-				toRender = "<html><body><b>" + uncommittedChangesMessage + "</b></body></html>";
-			} else if (repository != null) {
-				String abbreviatedId = commitCharacteristics.getCommitAbbreviatedId();
-        List<String> tagList = tagMap.get(abbreviatedId);
-        addTagOrBranchLabel(tagList, constr);
-
-        List<String> localBranchList = localBranchMap.get(abbreviatedId);
-        addTagOrBranchLabel(localBranchList, constr);
-
-        List<String> remoteBranchList = remoteBranchMap.get(abbreviatedId);
-        addTagOrBranchLabel(remoteBranchList, constr);
-			}
-		} else {
-			toRender = value != null ? value.toString() : "";
+
+		RenderModel model = getRenderModel(value);
+		Color foregroundColor = getForeground();
+
+		// Show outgoing and incoming commits using arrows
+		arrowLabel.setVisible(model.arrow != null);
+		if (model.arrow != null) {
+		  arrowLabel.setText(model.arrow);
+		  arrowLabel.setForeground(foregroundColor);
 		}
 
-		constr.gridx ++;
-		constr.fill = GridBagConstraints.HORIZONTAL;
-		constr.weightx = 1;
-		JLabel comp = new JLabel(toRender);
-		comp.setForeground(getForeground());
-    add(comp, constr);
-    
+		ensureDecorationLabels(model.labels.length);
+		for (int i = 0; i < decorationLabels.size(); i++) {
+		  JLabel label = decorationLabels.get(i);
+		  boolean used = i < model.labels.length;
+		  label.setVisible(used);
+		  if (used) {
+		    label.setText(model.labels[i]);
+		    label.setFont(model.boldLabels[i] ? boldLabelFont : plainLabelFont);
+		    label.setForeground(foregroundColor);
+		    label.setBorder(getLabelBorder(foregroundColor));
+		  }
+		}
+
+		messageLabel.setText(model.text);
+		messageLabel.setForeground(foregroundColor);
+
+		// The labels do not request a layout when they change.
+		invalidate();
+
 		return this;
 	}
 
 	/**
-	 * Add Label to "Commit Message" column: tag or local/remote branch
-	 * 
-	 * @param nameForLabelList List of tags or branches corresponding the commit.
-	 * @param constr           The constraints for tag / branch label when wrapping
+	 * Gets what to render for a cell value, from the cache if possible.
+	 *
+	 * @param value The value of the cell.
+	 *
+	 * @return What to render. Never <code>null</code>.
 	 */
-	private void addTagOrBranchLabel(List<String> nameForLabelList, GridBagConstraints constr) {
-	  Color foregroundColor = getForeground();
-		if (nameForLabelList != null && !nameForLabelList.isEmpty()) {
-		  Insets oldInsets = constr.insets;
-		  // No insets. We will impose space from the borders.
-			constr.insets = new Insets(0, 0, 0, 0);
-			int lineSize = 1;
-			int cornerSize = 6;
-			for (String name : nameForLabelList) {
-				JLabel label = new JLabel(name);
-        if (name.equals(currentBranchName)) {
-          label.setFont(label.getFont().deriveFont(Font.BOLD));
-        }
-				label.setForeground(foregroundColor);
-				label.setBorder(new RoundedLineBorder(foregroundColor, lineSize, cornerSize, true));
-				constr.gridx ++;
-				add(label, constr);
-			}
-			
-			// We added a label. Update the top insets of the initial insets.
-			constr.insets = oldInsets;
-		}
+	private RenderModel getRenderModel(Object value) {
+	  RenderModel model;
+	  if (value instanceof CommitCharacteristics) {
+	    CommitCharacteristics commitCharacteristics = (CommitCharacteristics) value;
+	    String commitId = commitCharacteristics.getCommitId();
+	    model = commitId != null ? renderModels.get(commitId) : null;
+	    if (model == null) {
+	      model = createRenderModel(commitCharacteristics);
+	      if (commitId != null) {
+	        renderModels.put(commitId, model);
+	      }
+	    }
+	  } else {
+	    model = new RenderModel(value != null ? value.toString() : "", null, NO_LABELS, NO_BOLD_LABELS);
+	  }
+	  return model;
+	}
+
+	/**
+	 * Computes what to render for a commit.
+	 *
+	 * @param commitCharacteristics The commit.
+	 *
+	 * @return What to render.
+	 */
+	private RenderModel createRenderModel(CommitCharacteristics commitCharacteristics) {
+	  String text = toSingleLine(commitCharacteristics.getCommitMessage());
+
+	  ObjectId commitId = ObjectId.isId(commitCharacteristics.getCommitId())
+	      ? ObjectId.fromString(commitCharacteristics.getCommitId()) : null;
+
+	  String arrow = null;
+	  if (isAheadCommit(commitId)) {
+	    // Up arrow
+	    arrow = "\u2191";
+	  } else if (isBehindCommit(commitId)) {
+	    // Down arrow
+	    arrow = "\u2193";
+	  }
+
+	  List<String> labels = new ArrayList<>();
+	  // bold the text for uncommitted changes
+	  if (text.equals(uncommittedChangesMessage)) {
+	    text = "<html><body><b>" + uncommittedChangesMessage + "</b></body></html>";
+	  } else if (repository != null && commitId != null) {
+	    labels.addAll(decorations.getTags(commitId));
+	    labels.addAll(decorations.getLocalBranches(commitId));
+	    labels.addAll(decorations.getRemoteBranches(commitId));
+	  }
+
+	  boolean[] boldLabels = new boolean[labels.size()];
+	  for (int i = 0; i < boldLabels.length; i++) {
+	    boldLabels[i] = labels.get(i).equals(currentBranchName);
+	  }
+
+	  return new RenderModel(text, arrow, labels.toArray(NO_LABELS), boldLabels);
+	}
+
+	/**
+	 * Puts a commit message on a single line: each sequence of line breaks becomes a space.
+	 *
+	 * @param message The commit message.
+	 *
+	 * @return The message on a single line, trimmed.
+	 */
+	static String toSingleLine(String message) {
+	  StringBuilder sb = new StringBuilder(message.length());
+	  boolean afterLineBreak = false;
+	  for (int i = 0; i < message.length(); i++) {
+	    char c = message.charAt(i);
+	    if (c != '\n') {
+	      sb.append(c);
+	      afterLineBreak = false;
+	    } else if (!afterLineBreak) {
+	      sb.append(' ');
+	      afterLineBreak = true;
+	    }
+	  }
+	  return sb.toString().trim();
+	}
+
+	/**
+	 * Makes sure there are enough labels for the tags and the branches of a commit. The labels are laid
+	 * out again only when new ones are needed.
+	 *
+	 * @param count The number of tags and branches.
+	 */
+	private void ensureDecorationLabels(int count) {
+	  if (count > decorationLabels.size()) {
+	    while (decorationLabels.size() < count) {
+	      decorationLabels.add(new RendererLabel());
+	    }
+	    layoutLabels();
+	  }
+	}
+
+	/**
+	 * Adds the labels to the renderer: the arrow, the tags and the branches, and the commit message.
+	 * The hidden labels take no space.
+	 */
+	private void layoutLabels() {
+	  removeAll();
+
+	  // adding constraints for commit message label when wrapping
+	  GridBagConstraints constr = new GridBagConstraints();
+	  constr.fill = GridBagConstraints.NONE;
+	  constr.anchor = GridBagConstraints.WEST;
+	  constr.gridy = 0;
+	  constr.gridx = 0;
+	  constr.insets = new Insets(0, HORIZONTAL_INSET, 0, HORIZONTAL_INSET);
+	  add(arrowLabel, constr);
+
+	  // No insets. We will impose space from the borders.
+	  constr.insets = new Insets(0, 0, 0, 0);
+	  for (JLabel label : decorationLabels) {
+	    constr.gridx ++;
+	    add(label, constr);
+	  }
+
+	  constr.insets = new Insets(0, HORIZONTAL_INSET, 0, HORIZONTAL_INSET);
+	  constr.gridx ++;
+	  constr.fill = GridBagConstraints.HORIZONTAL;
+	  constr.weightx = 1;
+	  add(messageLabel, constr);
 	}
-	
+
+	/**
+	 * Gets the border of the tag and branch labels.
+	 *
+	 * @param foregroundColor The color of the border.
+	 *
+	 * @return The border.
+	 */
+	private Border getLabelBorder(Color foregroundColor) {
+	  return labelBorders.computeIfAbsent(
+	      foregroundColor,
+	      color -> new RoundedLineBorder(color, LABEL_BORDER_LINE_SIZE, LABEL_BORDER_CORNER_SIZE, true));
+	}
+
+	/**
+	 * Overridden for performance reasons.
+	 *
+	 * @see javax.swing.table.DefaultTableCellRenderer#revalidate()
+	 */
+	@Override
+	public void revalidate() {
+	  // The renderer is laid out when painted.
+	}
+
+	/**
+	 * Overridden for performance reasons.
+	 *
+	 * @see javax.swing.table.DefaultTableCellRenderer#repaint(long, int, int, int, int)
+	 */
+	@Override
+	public void repaint(long tm, int x, int y, int width, int height) {
+	  // The table repaints the cells.
+	}
+
+	/**
+	 * Overridden for performance reasons.
+	 *
+	 * @see javax.swing.table.DefaultTableCellRenderer#repaint(Rectangle)
+	 */
+	@Override
+	public void repaint(Rectangle r) {
+	  // The table repaints the cells.
+	}
+
 	/**
 	 * Check if this is a commit to push.
-	 * 
-	 * @param commitID Commit ID.
-	 *  
+	 *
+	 * @param commitID Commit ID. May be <code>null</code>.
+	 *
 	 * @return true if this is a commit to push.
 	 */
-	private boolean isAheadCommit(String commitID) {
-	  boolean isIt = false;
-	  if (commitsAheadAndBehind != null) {
-	    List<RevCommit> commitsAhead = commitsAheadAndBehind.getCommitsAhead();
-	    isIt = commitsAhead.stream().anyMatch(commit -> commit.getId().getName().equals(commitID));
-	  }
-	  return isIt;
+	private boolean isAheadCommit(ObjectId commitID) {
+	  return commitsAheadAndBehind != null && commitID != null && commitsAheadAndBehind.isAhead(commitID);
 	}
-  
+
 	/**
    * Check if this is a commit to pull.
-   * 
-   * @param commitID Commit ID.
-   *  
+   *
+   * @param commitID Commit ID. May be <code>null</code>.
+   *
    * @return true if this is a commit to pull.
    */
-	private boolean isBehindCommit(String commitID) {
-	  boolean isIt = false;
-	  if (commitsAheadAndBehind != null) {
-	    List<RevCommit> commitsBehind = commitsAheadAndBehind.getCommitsBehind();
-	    isIt = commitsBehind.stream().anyMatch(commit -> commit.getId().getName().equals(commitID));
-	  }
-	  return isIt;
+	private boolean isBehindCommit(ObjectId commitID) {
+	  return commitsAheadAndBehind != null && commitID != null && commitsAheadAndBehind.isBehind(commitID);
  }
 
 	/**
@@ -267,4 +435,77 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 	private static final Border DEFAULT_NO_FOCUS_BORDER = new EmptyBorder(1, 1, 1, 1);
 	protected static Border noFocusBorder = DEFAULT_NO_FOCUS_BORDER;
 
+	/**
+	 * What to render for a commit: the message on a single line, the arrow, the tags and the branches.
+	 */
+	private static final class RenderModel {
+	  /**
+	   * The message on a single line.
+	   */
+	  private final String text;
+	  /**
+	   * The arrow for the commits to push or to pull. <code>null</code> for the other commits.
+	   */
+	  private final String arrow;
+	  /**
+	   * The tags, the local branches and the remote branches, in this order.
+	   */
+	  private final String[] labels;
+	  /**
+	   * For each label, <code>true</code> if it is the current branch, rendered in bold.
+	   */
+	  private final boolean[] boldLabels;
+
+	  /**
+	   * Constructor.
+	   *
+	   * @param text       The message on a single line.
+	   * @param arrow      The arrow. May be <code>null</code>.
+	   * @param labels     The tags and the branches.
+	   * @param boldLabels For each label, <code>true</code> if it is rendered in bold.
+	   */
+	  RenderModel(String text, String arrow, String[] labels, boolean[] boldLabels) {
+	    this.text = text;
+	    this.arrow = arrow;
+	    this.labels = labels;
+	    this.boldLabels = boldLabels;
+	  }
+	}
+
+	/**
+	 * A label painted only by the renderer. Like the default table cell renderer, it doesn't ask for
+	 * layouts or repaints when its properties change.
+	 */
+	private static final class RendererLabel extends JLabel {
+	  @Override
+	  public void revalidate() {
+	    // The renderer is laid out when painted.
+	  }
+
+	  @Override
+	  public void repaint(long tm, int x, int y, int width, int height) {
+	    // The table repaints the cells.
+	  }
+
+	  @Override
+	  public void repaint(Rectangle r) {
+	    // The table repaints the cells.
+	  }
+
+	  @Override
+	  protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+	    // The HTML view must be updated when the text or the font changes.
+	    if ("text".equals(propertyName)
+	        || (("font".equals(propertyName) || "foreground".equals(propertyName))
+	            && oldValue != newValue
+	            && getClientProperty(BasicHTML.propertyKey) != null)) {
+	      super.firePropertyChange(propertyName, oldValue, newValue);
+	    }
+	  }
+
+	  @Override
+	  public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
+	    // Not needed.
+	  }
+	}
 }
@@ -2,11 +2,15 @@ package com.oxygenxml.git.view.history;
 
 import java.util.List;
 
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectIdSubclassMap;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 /**
  * Data structure that contains the lists of commits to be pushed to the server ("ahead")
  * and commits to be pulled from the server ("behind").
+ * <br><br>
+ * The lists might be limited to a number of commits, when the branches diverged a lot.
  */
 public class CommitsAheadAndBehind {
 
@@ -18,16 +22,56 @@ public class CommitsAheadAndBehind {
    * The list of commits to be pulled from the server.
    */
   private List<RevCommit> commitsBehind;
-  
+  /**
+   * <code>true</code> if there are more commits to be pushed than the ones in the list.
+   */
+  private boolean moreAhead;
+  /**
+   * <code>true</code> if there are more commits to be pulled than the ones in the list.
+   */
+  private boolean moreBehind;
+  /**
+   * The commits to be pushed, for fast lookup.
+   */
+  private final ObjectIdSubclassMap<RevCommit> aheadIds = new ObjectIdSubclassMap<>();
+  /**
+   * The commits to be pulled, for fast lookup.
+   */
+  private final ObjectIdSubclassMap<RevCommit> behindIds = new ObjectIdSubclassMap<>();
+
   /**
    * Constructor.
-   * 
+   *
    * @param commitsAhead  The list of commits to be pushed to the server.
    * @param commitsBehind The list of commits to be pulled from the server.
    */
   public CommitsAheadAndBehind(List<RevCommit> commitsAhead, List<RevCommit> commitsBehind) {
+    this(commitsAhead, false, commitsBehind, false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param commitsAhead  The list of commits to be pushed to the server.
+   * @param moreAhead     <code>true</code> if there are more commits to be pushed than the ones in the list.
+   * @param commitsBehind The list of commits to be pulled from the server.
+   * @param moreBehind    <code>true</code> if there are more commits to be pulled than the ones in the list.
+   */
+  public CommitsAheadAndBehind(
+      List<RevCommit> commitsAhead,
+      boolean moreAhead,
+      List<RevCommit> commitsBehind,
+      boolean moreBehind) {
     this.commitsAhead = commitsAhead;
+    this.moreAhead = moreAhead;
     this.commitsBehind = commitsBehind;
+    this.moreBehind = moreBehind;
+    for (RevCommit commit : commitsAhead) {
+      aheadIds.addIfAbsent(commit);
+    }
+    for (RevCommit commit : commitsBehind) {
+      behindIds.addIfAbsent(commit);
+    }
   }
 
   /**
@@ -36,12 +80,60 @@ public class CommitsAheadAndBehind {
   public List<RevCommit> getCommitsAhead() {
     return commitsAhead;
   }
-  
+
   /**
    * @return The commits present in the upstream branch that haven't been pulled yet.
    */
   public List<RevCommit> getCommitsBehind() {
     return commitsBehind;
   }
-  
+
+  /**
+   * @return <code>true</code> if there are more commits to be pushed than the ones in the list.
+   */
+  public boolean hasMoreAhead() {
+    return moreAhead;
+  }
+
+  /**
+   * @return <code>true</code> if there are more commits to be pulled than the ones in the list.
+   */
+  public boolean hasMoreBehind() {
+    return moreBehind;
+  }
+
+  /**
+   * @return The number of commits to be pushed. If there are more than the ones in the list,
+   * the size of the list plus one.
+   */
+  public int getAheadCount() {
+    return commitsAhead.size() + (moreAhead ? 1 : 0);
+  }
+
+  /**
+   * @return The number of commits to be pulled. If there are more than the ones in the list,
+   * the size of the list plus one.
+   */
+  public int getBehindCount() {
+    return commitsBehind.size() + (moreBehind ? 1 : 0);
+  }
+
+  /**
+   * @param commitId The ID of a commit.
+   *
+   * @return <code>true</code> if the commit is one of the listed commits to be pushed.
+   */
+  public boolean isAhead(AnyObjectId commitId) {
+    return aheadIds.contains(commitId);
+  }
+
+  /**
+   * @param commitId The ID of a commit.
+   *
+   * @return <code>true</code> if the commit is one of the listed commits to be pulled.
+   */
+  public boolean isBehind(AnyObjectId commitId) {
+    return behindIds.contains(commitId);
+  }
+
 }
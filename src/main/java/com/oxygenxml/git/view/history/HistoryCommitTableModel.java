@@ -2,11 +2,18 @@ package com.oxygenxml.git.view.history;
 
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
+import javax.swing.SwingUtilities;
 import javax.swing.table.AbstractTableModel;
 
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.git.service.GitOperationScheduler;
+import com.oxygenxml.git.service.PagedCommitList;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.Equaler;
@@ -20,10 +27,9 @@ import com.oxygenxml.git.utils.Equaler;
  */
 public class HistoryCommitTableModel extends AbstractTableModel {
   /**
-   * Length of the short commit id
+   * Logger for logging.
    */
-  private static final int SHORT_COMMIT_ID_LENGTH = 7;
-  
+  private static final Logger logger = Logger.getLogger(HistoryCommitTableModel.class);
   /**
 	 * Commit message table column index.
 	 */
@@ -58,6 +64,36 @@ public class HistoryCommitTableModel extends AbstractTableModel {
    * The internal representation of the model filtered.
    */
   private transient List<CommitCharacteristics> allCommitsCharacteristicsFiltered;
+  
+  /**
+   * The commits, when they are loaded in pages as the table scrolls. <code>null</code> otherwise.
+   */
+  private transient PagedCommitList pagedCommits;
+  
+  /**
+   * The number of rows presented from the paged commits, when not filtered.
+   */
+  private int pagedRowCount;
+  
+  /**
+   * Presents the commits loaded in pages.
+   */
+  private final transient Runnable pagedCommitsListener = this::pagedCommitsLoaded;
+  
+  /**
+   * Filters the commits.
+   */
+  private final transient HistoryFilter historyFilter;
+  
+  /**
+   * Counts the filter requests. Only the result of the last request is presented.
+   */
+  private final AtomicInteger filterRequests = new AtomicInteger();
+  
+  /**
+   * The filtering in progress. <code>null</code> if none.
+   */
+  private transient Future<?> pendingFilter;
 
 	/**
 	 * Construct the Table Model with a Vector containing all commitCharacteristics.
@@ -65,8 +101,75 @@ public class HistoryCommitTableModel extends AbstractTableModel {
 	 * @param commitVector The computed commitVector
 	 */
 	public HistoryCommitTableModel(List<CommitCharacteristics> commitVector) {
-		this.allCommitsCharacteristicsFiltered = new ArrayList<>(commitVector);
-		this.allCommitsCharacteristics = new ArrayList<>(commitVector);
+	  if (commitVector instanceof PagedCommitList) {
+	    // Loaded as needed, so not copied.
+	    pagedCommits = (PagedCommitList) commitVector;
+	    pagedRowCount = pagedCommits.size();
+	    pagedCommits.addGrowthListener(pagedCommitsListener);
+	    this.allCommitsCharacteristicsFiltered = commitVector;
+	    this.allCommitsCharacteristics = commitVector;
+	  } else {
+	    this.allCommitsCharacteristicsFiltered = new ArrayList<>(commitVector);
+	    this.allCommitsCharacteristics = new ArrayList<>(commitVector);
+	  }
+	  historyFilter = new HistoryFilter(allCommitsCharacteristics);
+	}
+	
+	/**
+	 * @return <code>true</code> if the rows are the paged commits, not filtered.
+	 */
+	private boolean isPresentingPagedCommits() {
+	  return pagedCommits != null && allCommitsCharacteristicsFiltered == pagedCommits;
+	}
+	
+	/**
+	 * Called when more paged commits are loaded.
+	 */
+	private void pagedCommitsLoaded() {
+	  if (SwingUtilities.isEventDispatchThread()) {
+	    updatePagedRows();
+	  } else {
+	    SwingUtilities.invokeLater(this::updatePagedRows);
+	  }
+	}
+	
+	/**
+	 * Presents the paged commits loaded since the last update.
+	 */
+	private void updatePagedRows() {
+	  if (isPresentingPagedCommits()) {
+	    int oldRowCount = pagedRowCount;
+	    pagedRowCount = pagedCommits.size();
+	    if (pagedRowCount > oldRowCount) {
+	      fireTableRowsInserted(oldRowCount, pagedRowCount - 1);
+	    }
+	  }
+	}
+	
+	/**
+	 * Stops loading commits. Called when the model is no longer presented.
+	 */
+	public void dispose() {
+	  dispose(true);
+	}
+	
+	/**
+	 * Called when the model is no longer presented.
+	 * 
+	 * @param closeCommits <code>false</code> if the commits loaded in pages were handed to another
+	 * model, which continues loading them.
+	 */
+	public void dispose(boolean closeCommits) {
+	  filterRequests.incrementAndGet();
+	  if (pendingFilter != null) {
+	    pendingFilter.cancel(false);
+	  }
+	  if (pagedCommits != null) {
+	    pagedCommits.removeGrowthListener(pagedCommitsListener);
+	    if (closeCommits) {
+	      pagedCommits.close();
+	    }
+	  }
 	}
 	
 	/**
@@ -74,6 +177,10 @@ public class HistoryCommitTableModel extends AbstractTableModel {
 	 */
 	@Override
 	public Object getValueAt(int rowIndex, int columnIndex) {
+	  if (isPresentingPagedCommits() && rowIndex >= pagedRowCount - PagedCommitList.PAGE_SIZE / 2) {
+	    // Close to the last loaded commit. Load the next ones before they are needed.
+	    pagedCommits.loadMoreInBackground();
+	  }
 		CommitCharacteristics commitCharacteristics = allCommitsCharacteristicsFiltered.get(rowIndex);
 		Object temp = null;
 
@@ -134,6 +241,9 @@ public class HistoryCommitTableModel extends AbstractTableModel {
 	 */
 	@Override
 	public int getRowCount() {
+	  if (isPresentingPagedCommits()) {
+	    return pagedRowCount;
+	  }
 		return allCommitsCharacteristicsFiltered != null ? allCommitsCharacteristicsFiltered.size() : 0;
 	}
 
@@ -170,6 +280,13 @@ public class HistoryCommitTableModel extends AbstractTableModel {
 		return columnName;	
 	}
 	
+	/**
+	 * @return The commits loaded in pages, not filtered. <code>null</code> if the commits are not loaded in pages.
+	 */
+	public PagedCommitList getPagedCommits() {
+	  return pagedCommits;
+	}
+	
 	/**
 	 * @return all commits.
 	 */
@@ -178,103 +295,84 @@ public class HistoryCommitTableModel extends AbstractTableModel {
   }
 	
 	/**
-	 * Filters the table
+	 * Looks for the row of a commit. In the commits loaded in pages, the commit is looked for on the
+	 * read lane, as more pages might need to be loaded.
 	 * 
-	 * @param text The text to user for filtering.
+	 * @param commitId The full or abbreviated ID of the commit.
+	 * @param rowFound Receives the row on AWT, <code>-1</code> if the commit is not presented.
 	 */
-	public void filterChanged(String text) {
-	  if (!Equaler.verifyEquals(text, this.textToFilter)) {
-	    this.textToFilter = text;
-	    if (text != null && text.length() > 0) {
-	      allCommitsCharacteristicsFiltered.clear();
-	      for (Iterator<CommitCharacteristics> iterator = allCommitsCharacteristics.iterator(); iterator.hasNext();) {
-	        CommitCharacteristics comitCharac = iterator.next();
-	        if(!shouldFilter(comitCharac, textToFilter)) {
-	          allCommitsCharacteristicsFiltered.add(comitCharac);
-	        }
+	public void findCommitRow(String commitId, IntConsumer rowFound) {
+	  if (isPresentingPagedCommits()) {
+	    // Looks for the ID, loading more commits if needed, without decoding them.
+	    PagedCommitList commits = pagedCommits;
+	    GitOperationScheduler.getInstance().scheduleRead(
+	        () -> commits.indexOfCommit(commitId),
+	        // The rows of the loaded pages are added before.
+	        row -> SwingUtilities.invokeLater(() -> rowFound.accept(row)),
+	        t -> logger.debug(t, t));
+	  } else {
+	    int row = -1;
+	    for (int i = 0; i < allCommitsCharacteristicsFiltered.size(); i++) {
+	      CommitCharacteristics commit = allCommitsCharacteristicsFiltered.get(i);
+	      if (commitId.equals(commit.getCommitId()) || commitId.equals(commit.getCommitAbbreviatedId())) {
+	        row = i;
+	        break;
 	      }
-	    } else {
-	      allCommitsCharacteristicsFiltered = new ArrayList<>(allCommitsCharacteristics);
 	    }
-	    //update model
-	    fireTableDataChanged();
+	    rowFound.accept(row);
 	  }
 	}
 	
 	/**
-	 * Tells if a commit should be removed or not.
+	 * Filters the table. The commits are filtered in background and presented all at once.
 	 * 
-	 * @param commitCharac The commit with details
-	 * @param textFilter The filter that should be applied
-	 * 
-	 * @return <code>true</code> if the commit should be removed, false otherwise
+	 * @param text The text to user for filtering.
 	 */
-	private static boolean shouldFilter(CommitCharacteristics commitCharac, String textFilter) {
-	  boolean shouldFilter = false;
-	  if( textFilter != null &&  !textFilter.isEmpty()) {
-	    String date = "";
-	    String author = ""; 
-	    String message = "";
-	    String longCommitId = "";
-      String shortCommitId = "";
-
-	    String authorTemp = commitCharac.getAuthor();
-	    if(authorTemp != null) {
-	      author = authorTemp.toLowerCase();
-	    }
-	    Date dateTemp = commitCharac.getDate();
-	    if(dateTemp != null) {
-	      date = dateTemp.toString();
+	public void filterChanged(String text) {
+	  if (!Equaler.verifyEquals(text, this.textToFilter)) {
+	    this.textToFilter = text;
+	    int request = filterRequests.incrementAndGet();
+	    if (pendingFilter != null) {
+	      // Not started yet or about to be ignored.
+	      pendingFilter.cancel(false);
+	      pendingFilter = null;
 	    }
-	    String commitIdTemp = commitCharac.getCommitId();
-	    if(commitIdTemp != null) {
-        longCommitId = commitIdTemp.toLowerCase();
-        if(longCommitId.length() >= SHORT_COMMIT_ID_LENGTH) {
-          shortCommitId = longCommitId.substring(0,SHORT_COMMIT_ID_LENGTH);
-        }
-      }
-	    String messageTemp = commitCharac.getCommitMessage();
-	    if(messageTemp != null) {
-	      message = messageTemp.toLowerCase();
+	    if (text != null && text.length() > 0) {
+	      pendingFilter = GitOperationScheduler.getInstance().scheduleRead(
+	          () -> {
+	            if (pagedCommits != null) {
+	              pagedCommits.loadAll();
+	            }
+	            return historyFilter.filter(text);
+	          },
+	          filtered -> SwingUtilities.invokeLater(() -> filterComputed(request, filtered)),
+	          t -> logger.error(t, t));
+	    } else {
+	      if (pagedCommits != null) {
+	        allCommitsCharacteristicsFiltered = pagedCommits;
+	        pagedRowCount = pagedCommits.size();
+	      } else {
+	        allCommitsCharacteristicsFiltered = new ArrayList<>(allCommitsCharacteristics);
+	      }
+	      //update model
+	      fireTableDataChanged();
 	    }
-	    shouldFilter = shouldFilterCommit(textFilter, date, author, shortCommitId, longCommitId, message);
-	  } 
-	  return shouldFilter;
+	  }
 	}
 	
 	/**
-	 * Tells if a commit should be removed or not.
-	 * 
-	 * @param textFilter The text from filter field
-	 * @param date The date of the commit
-	 * @param author The author of the commit
-	 * @param shortCommitId The short commit id
-	 * @param longCommitId The full commit id 
-	 * @param message The message of the commit
+	 * Presents the filtered commits, unless the filter changed again in the meantime.
 	 * 
-	 * @return <code>true</code> if commit should be filtered
+	 * @param request  The number of the filter request.
+	 * @param filtered The commits that matched the filter.
 	 */
-	private static boolean shouldFilterCommit(
-      String textFilter,
-      String date,
-      String author,
-      String shortCommitId,
-      String longCommitId,
-      String message) {
-	  boolean shouldFilter = false;
-	  String[] tokens = textFilter.split("[, .!-]+");
-	  for (int i = 0; i < tokens.length; i++) {
-	    String token = tokens[i].trim();
-	    String lowercaseToken = token.toLowerCase();
-	    if(!author.contains(lowercaseToken) &&
-          !date.contains(token) &&
-          !message.contains(lowercaseToken) &&
-          !longCommitId.equals(lowercaseToken) &&
-          !shortCommitId.equals(lowercaseToken)){
-        return true;
-      }
+	private void filterComputed(int request, List<CommitCharacteristics> filtered) {
+	  if (request == filterRequests.get()) {
+	    pendingFilter = null;
+	    allCommitsCharacteristicsFiltered = filtered;
+	    //update model
+	    fireTableDataChanged();
 	  }
-	  return shouldFilter;
 	}
 
 }
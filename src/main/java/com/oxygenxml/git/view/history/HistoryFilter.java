@@ -0,0 +1,283 @@
+package com.oxygenxml.git.view.history;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Filters the history with the text typed by the user. A commit matches if each token of the text is
+ * contained in its message, its author or its date, or is a prefix of its ID. The message and the author
+ * are compared ignoring the case.
+ * <br><br>
+ * The words of the commits are kept in an inverted index, extended with the commits loaded since the
+ * previous filtering. When more text is typed, only the commits that matched before are filtered again.
+ */
+public class HistoryFilter {
+  /**
+   * Separates the tokens of the filter text.
+   */
+  private static final Pattern FILTER_SEPARATORS = Pattern.compile("[, .!-]+");
+  /**
+   * Separate the indexed words: the separators of the filter tokens and the white spaces. A filter token
+   * contains none of these characters, so each token found in a text is found inside a single word.
+   */
+  private static final String WORD_SEPARATORS = ",.!- \t\n\u000B\f\r";
+
+  /**
+   * The filtered commits. Might grow.
+   */
+  private final List<CommitCharacteristics> commits;
+  /**
+   * The number of commits indexed so far.
+   */
+  private int indexedCount;
+  /**
+   * The commits that contain each word of the messages and of the authors, lower case.
+   */
+  private final Map<String, Postings> textWords = new HashMap<>();
+  /**
+   * The commits that contain each word of the dates.
+   */
+  private final Map<String, Postings> dateWords = new HashMap<>();
+  /**
+   * The position of each commit, by lower case ID.
+   */
+  private final TreeMap<String, Integer> ids = new TreeMap<>();
+  /**
+   * The last filter text.
+   */
+  private String lastText;
+  /**
+   * The commits that matched the last filter text, by position.
+   */
+  private BitSet lastMatches;
+  /**
+   * The number of commits indexed when the last filter text was applied.
+   */
+  private int lastIndexedCount;
+  /**
+   * The words that contain each token of the last filter text.
+   */
+  private Map<String, MatchingWords> lastTokenWords = Collections.emptyMap();
+
+  /**
+   * Constructor.
+   *
+   * @param commits The commits to filter. The list might grow, but the existing commits must not change.
+   */
+  public HistoryFilter(List<CommitCharacteristics> commits) {
+    this.commits = commits;
+  }
+
+  /**
+   * Filters the commits.
+   *
+   * @param text The filter text.
+   *
+   * @return The commits that match, in their order.
+   */
+  public synchronized List<CommitCharacteristics> filter(String text) {
+    updateIndex();
+
+    BitSet matches = new BitSet(indexedCount);
+    if (lastText != null && !lastText.isEmpty() && text.startsWith(lastText)) {
+      // More text typed. Only the commits that matched can match again.
+      matches.or(lastMatches);
+      matches.set(lastIndexedCount, indexedCount);
+    } else {
+      matches.set(0, indexedCount);
+    }
+
+    Map<String, MatchingWords> tokenWords = new HashMap<>();
+    for (String t : FILTER_SEPARATORS.split(text)) {
+      String token = t.trim();
+      if (!token.isEmpty() && !matches.isEmpty()) {
+        MatchingWords words = tokenWords.computeIfAbsent(token, this::findWords);
+        matches.and(words.toCommits(token));
+      }
+    }
+
+    lastText = text;
+    lastMatches = matches;
+    lastIndexedCount = indexedCount;
+    lastTokenWords = tokenWords;
+
+    List<CommitCharacteristics> result = new ArrayList<>(matches.cardinality());
+    for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+      result.add(commits.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Indexes the commits added to the list since the last update.
+   */
+  private void updateIndex() {
+    int size = commits.size();
+    for (int i = indexedCount; i < size; i++) {
+      CommitCharacteristics commit = commits.get(i);
+      indexWords(textWords, commit.getCommitMessage(), true, i);
+      indexWords(textWords, commit.getAuthor(), true, i);
+      Date date = commit.getDate();
+      if (date != null) {
+        indexWords(dateWords, date.toString(), false, i);
+      }
+      String commitId = commit.getCommitId();
+      if (commitId != null) {
+        ids.put(commitId.toLowerCase(), i);
+      }
+    }
+    indexedCount = size;
+  }
+
+  /**
+   * Indexes the words of a text.
+   *
+   * @param index     The index.
+   * @param text      The text. May be <code>null</code>.
+   * @param lowerCase <code>true</code> to index the words in lower case.
+   * @param position  The position of the commit.
+   */
+  private static void indexWords(Map<String, Postings> index, String text, boolean lowerCase, int position) {
+    if (text != null) {
+      String toIndex = lowerCase ? text.toLowerCase() : text;
+      int start = 0;
+      for (int i = 0; i <= toIndex.length(); i++) {
+        if (i == toIndex.length() || WORD_SEPARATORS.indexOf(toIndex.charAt(i)) != -1) {
+          if (i > start) {
+            index.computeIfAbsent(toIndex.substring(start, i), k -> new Postings()).add(position);
+          }
+          start = i + 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the indexed words that contain a filter token. If the token extends a token of the previous
+   * filter text, only the words that contained that token are searched.
+   *
+   * @param token The filter token.
+   *
+   * @return The words that contain the token.
+   */
+  private MatchingWords findWords(String token) {
+    String lowerCaseToken = token.toLowerCase();
+    MatchingWords previous = null;
+    for (Map.Entry<String, MatchingWords> entry : lastTokenWords.entrySet()) {
+      if (token.contains(entry.getKey()) && entry.getValue().indexedCount == indexedCount) {
+        previous = entry.getValue();
+        break;
+      }
+    }
+
+    MatchingWords words = new MatchingWords(indexedCount);
+    for (String word : previous != null ? previous.text : textWords.keySet()) {
+      if (word.contains(lowerCaseToken)) {
+        words.text.add(word);
+      }
+    }
+    for (String word : previous != null ? previous.dates : dateWords.keySet()) {
+      if (word.contains(token)) {
+        words.dates.add(word);
+      }
+    }
+    return words;
+  }
+
+  /**
+   * The indexed words that contain a filter token.
+   */
+  private class MatchingWords {
+    /**
+     * The number of commits indexed when the words were searched.
+     */
+    private final int indexedCount;
+    /**
+     * Words from the messages and the authors.
+     */
+    private final List<String> text = new ArrayList<>();
+    /**
+     * Words from the dates.
+     */
+    private final List<String> dates = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param indexedCount The number of commits indexed when the words are searched.
+     */
+    MatchingWords(int indexedCount) {
+      this.indexedCount = indexedCount;
+    }
+
+    /**
+     * Gets the commits that match a filter token.
+     *
+     * @param token The filter token.
+     *
+     * @return The positions of the commits.
+     */
+    BitSet toCommits(String token) {
+      BitSet result = new BitSet(indexedCount);
+      for (String word : text) {
+        textWords.get(word).addTo(result);
+      }
+      for (String word : dates) {
+        dateWords.get(word).addTo(result);
+      }
+      String prefix = token.toLowerCase();
+      for (Integer position : ids.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+        result.set(position);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The positions of the commits that contain a word, in ascending order.
+   */
+  private static class Postings {
+    /**
+     * The positions.
+     */
+    private int[] positions = new int[2];
+    /**
+     * The number of positions.
+     */
+    private int size;
+
+    /**
+     * Adds a position, if not already the last one.
+     *
+     * @param position The position.
+     */
+    void add(int position) {
+      if (size == 0 || positions[size - 1] != position) {
+        if (size == positions.length) {
+          int[] newPositions = new int[size * 2];
+          System.arraycopy(positions, 0, newPositions, 0, size);
+          positions = newPositions;
+        }
+        positions[size++] = position;
+      }
+    }
+
+    /**
+     * Marks the positions.
+     *
+     * @param bits Where to mark the positions.
+     */
+    void addTo(BitSet bits) {
+      for (int i = 0; i < size; i++) {
+        bits.set(positions[i]);
+      }
+    }
+  }
+}
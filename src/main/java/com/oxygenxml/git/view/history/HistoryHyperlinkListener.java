@@ -1,7 +1,5 @@
 package com.oxygenxml.git.view.history;
 
-import java.util.List;
-
 import javax.swing.JTable;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.event.HyperlinkListener;
@@ -15,21 +13,14 @@ public class HistoryHyperlinkListener implements HyperlinkListener {
 	 * Table for showing commit history.
 	 */
 	private JTable historyTable;
-	
-	/**
-	 * The Vector with CommitCharcteristics.
-	 */
-	private List<CommitCharacteristics> commits;
 
 	/**
 	 * Construct HyperlinkListener parent commit id shown in commitDescriptionPane.
 	 * 
-	 * @param historyTable   The historyTable
-	 * @param commits        The list with commitCharacterstics.
+	 * @param historyTable   The historyTable. Its model is a {@link HistoryCommitTableModel}.
 	 */
-	public HistoryHyperlinkListener(JTable historyTable, List<CommitCharacteristics> commits) {
+	public HistoryHyperlinkListener(JTable historyTable) {
 		this.historyTable = historyTable;
-		this.commits = commits;
 	}
 
 	@Override
@@ -39,10 +30,13 @@ public class HistoryHyperlinkListener implements HyperlinkListener {
 			String query = event.getURL().getQuery();
 			int parentStringIdx = query.indexOf('=') + 1;
 			String parentCommitId = query.substring(parentStringIdx);
-			int parentTableIndex = CommitCharacteristics.getCommitTableIndex(commits, parentCommitId);
-			if (parentTableIndex != -1) {
-				historyTable.getSelectionModel().setSelectionInterval(parentTableIndex, parentTableIndex);
-			}
+			HistoryCommitTableModel model = (HistoryCommitTableModel) historyTable.getModel();
+			// More commits might be loaded, on the read lane.
+			model.findCommitRow(parentCommitId, parentTableIndex -> {
+				if (parentTableIndex != -1 && historyTable.getModel() == model) {
+					historyTable.getSelectionModel().setSelectionInterval(parentTableIndex, parentTableIndex);
+				}
+			});
 		}
 
 	}
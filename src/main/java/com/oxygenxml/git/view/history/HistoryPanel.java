@@ -19,11 +19,10 @@ import java.net.URL;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -45,7 +44,6 @@ import javax.swing.table.TableModel;
 
 import org.apache.log4j.Logger;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
@@ -58,7 +56,10 @@ import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitEventAdapter;
 import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.service.PagedCommitList;
 import com.oxygenxml.git.service.PrivateRepositoryException;
+import com.oxygenxml.git.service.RefDecorationIndex;
+import com.oxygenxml.git.service.RemoteSyncService;
 import com.oxygenxml.git.service.RepositoryUnavailableException;
 import com.oxygenxml.git.service.RevCommitUtil;
 import com.oxygenxml.git.service.SSHPassphraseRequiredException;
@@ -259,8 +260,6 @@ public class HistoryPanel extends JPanel {
             break;
           case PULL:
           case PUSH:
-            refresh();
-            break;
           case CREATE_BRANCH:
           case CHECKOUT:
           case DELETE_BRANCH:
@@ -269,7 +268,7 @@ public class HistoryPanel extends JPanel {
           case MERGE_RESTART:
           case ABORT_REBASE:
           case CONTINUE_REBASE:
-            refresh();
+            updateHistory(true);
             break;
           default:
             break;
@@ -325,7 +324,7 @@ public class HistoryPanel extends JPanel {
           selectedRepositoryPath = FileHelper.rewriteSeparator(selectedRepositoryPath);
 
           if (isShowing() && fileInWorkPath.startsWith(selectedRepositoryPath)) {
-            refresh();
+            updateHistory(false);
           }
         } catch (NoRepositorySelected e) {
           LOGGER.debug(e, e);
@@ -576,7 +575,7 @@ public class HistoryPanel extends JPanel {
    * Shows the commit history for the entire repository.
    */
   public void showRepositoryHistory() {
-    showHistory(null, true);
+    showHistory(null, true, true);
   }
 
   /**
@@ -585,14 +584,54 @@ public class HistoryPanel extends JPanel {
    * @param filePath File for which to present the commit that changed him.
    */
   public void showHistory(String filePath) {
-    showHistory(filePath, false);
+    showHistory(filePath, false, true);
   }
 
   /**
-   * Refresh.
+   * Refresh. The branches and the tags are read again too, they might have been changed outside the application.
    */
   public void refresh() {
-    GitOperationScheduler.getInstance().schedule(() -> showHistory(activeFilePath, true));
+    GitOperationScheduler.getInstance().schedule(() -> {
+      RefDecorationIndex.getInstance().invalidate();
+      showHistory(activeFilePath, true, true);
+    });
+  }
+
+  /**
+   * Updates the presented history after the working copy or the current branch changed, without 
+   * fetching. Only the new commits are read. The history is read again only if it was rewritten.
+   * 
+   * @param refsChanged <code>true</code> if the branches or the tags might have changed.
+   */
+  protected void updateHistory(boolean refsChanged) {
+    GitOperationScheduler.getInstance().schedule(() -> {
+      TableModel model = historyTable.getModel();
+      PagedCommitList commits = model instanceof HistoryCommitTableModel 
+          ? ((HistoryCommitTableModel) model).getPagedCommits() : null;
+      PagedCommitList updatedCommits = null;
+      if (commits != null) {
+        try {
+          updatedCommits = gitAccess.updatePagedCommitsCharacteristics(commits, activeFilePath);
+        } catch (IOException e) {
+          LOGGER.debug(e, e);
+        }
+      }
+
+      if (updatedCommits == null) {
+        // Rewritten.
+        showHistory(activeFilePath, true, false);
+      } else if (updatedCommits != commits || refsChanged) {
+        try {
+          updateHistoryLabel(activeFilePath);
+          presentHistory(updatedCommits, true);
+        } catch (NoRepositorySelected | IOException e) {
+          LOGGER.debug(e, e);
+        }
+      } else if (revisionDataUpdater != null) {
+        RowHistoryTableSelectionListener selectionListener = revisionDataUpdater;
+        SwingUtilities.invokeLater(selectionListener::uncommittedChangesUpdated);
+      }
+    });
   }
 
   /**
@@ -601,8 +640,9 @@ public class HistoryPanel extends JPanel {
    * @param filePath File for which to present the commit that changed him.
    * @param force    <code>true</code> to recompute the history data, even if the
    *                 view already presents the history for the given resource.
+   * @param fetch    <code>true</code> to fetch before reading the history.
    */
-  private void showHistory(String filePath, boolean force) {
+  private void showHistory(String filePath, boolean force, boolean fetch) {
     Translator translator = Translator.getInstance();
 
     updateSelectionMode(filePath);
@@ -613,87 +653,21 @@ public class HistoryPanel extends JPanel {
       this.activeFilePath = filePath;
 
       try {
-        // Make sure we know about the remote as well, to present data about the
-        // upstream branch.
-        tryFetch();
-
-        File directory = gitAccess.getWorkingCopy();
-        historyLabelMessage = translator.getTranslation(Tags.REPOSITORY) + ": " + directory.getName() + ". "
-            + translator.getTranslation(Tags.BRANCH) + ": " + gitAccess.getBranchInfo().getBranchName() + ".";
-        if (filePath != null) {
-          directory = new File(directory, filePath);
-          historyLabelMessage += " " + translator.getTranslation(Tags.FILE) + ": " + directory.getName() + ".";
-        }
-        historyInfoLabel.setText(TreeUtil.getWordToFitInWidth(historyLabelMessage,
-            historyInfoLabel.getFontMetrics(historyInfoLabel.getFont()),
-            this.getWidth() / topPanel.getComponentCount()));
-        historyInfoLabel.setToolTipText(historyLabelMessage);
-        historyInfoLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 0));
-
-        // Install selection listener.
-        if (revisionDataUpdater != null) {
-          historyTable.getSelectionModel().removeListSelectionListener(revisionDataUpdater);
+        if (fetch) {
+          // Make sure we know about the remote as well, to present data about the
+          // upstream branch.
+          tryFetch();
         }
 
+        updateHistoryLabel(filePath);
+
         StagingResourcesTableModel dataModel = (StagingResourcesTableModel) affectedFilesTable.getModel();
         dataModel.setFilesStatus(Collections.emptyList());
         commitDescriptionPane.setText("");
 
-        final List<CommitCharacteristics> commitCharacteristicsVector = gitAccess.getCommitsCharacteristics(filePath);
-
-        Repository repo = gitAccess.getRepository();
-        CommitsAheadAndBehind commitsAheadAndBehind = RevCommitUtil.getCommitsAheadAndBehind(repo,
-            repo.getFullBranch());
-
-        // Compute the row height.
-        CommitMessageTableRenderer renderer = new CommitMessageTableRenderer(repo, commitsAheadAndBehind,
-            gitAccess.getBranchInfo().getBranchName(), getTagMap(repo),
-            gitAccess.getBranchMap(repo, ConfigConstants.CONFIG_KEY_LOCAL),
-            gitAccess.getBranchMap(repo, ConfigConstants.CONFIG_KEY_REMOTE));
-        int rh = getRowHeight(renderer, getFirstCommit(commitCharacteristicsVector));
-
-        SwingUtilities.invokeLater(() -> {
-          HistoryCommitTableModel historyModel = new HistoryCommitTableModel(commitCharacteristicsVector);
-          historyModel.filterChanged(filter.getText());
-          historyTable.setModel(historyModel);
-          updateHistoryTableWidths();
-
-          historyTable.setDefaultRenderer(CommitCharacteristics.class, renderer);
-          historyTable.setDefaultRenderer(Date.class, new DateTableCellRenderer("d MMM yyyy HH:mm"));
-          TableColumn authorColumn = historyTable.getColumn(translator.getTranslation(Tags.AUTHOR));
-          authorColumn.setCellRenderer(createAuthorColumnRenderer());
-
-          historyTable.setRowHeight(rh);
-        });
-
-        revisionDataUpdater = new RowHistoryTableSelectionListener(getUpdateDelay(), historyTable,
-            commitDescriptionPane, commitCharacteristicsVector, affectedFilesTable);
-        historyTable.getSelectionModel().addListSelectionListener(revisionDataUpdater);
-
-        // Install hyperlink listener.
-        if (hyperlinkListener != null) {
-          commitDescriptionPane.removeHyperlinkListener(hyperlinkListener);
-        }
-        hyperlinkListener = new HistoryHyperlinkListener(historyTable, commitCharacteristicsVector);
-        commitDescriptionPane.addHyperlinkListener(hyperlinkListener);
-
-        // Select the local branch HEAD.
-        if (!commitCharacteristicsVector.isEmpty()) {
-          String fullBranch = repo.getFullBranch();
-          Ref branchHead = repo.exactRef(fullBranch);
-          if (branchHead != null) {
-            ObjectId objectId = branchHead.getObjectId();
-            if (objectId != null) {
-              selectCommit(objectId);
-            }
-          }
-        } else {
-          PluginWorkspaceProvider.getPluginWorkspace()
-              .showInformationMessage(translator.getTranslation(Tags.GIT_HISTORY) + ": "
-                  + StringUtils.toLowerCase(translator.getTranslation(Tags.NOTHING_TO_SHOW_FOR_NEW_FILES)));
-        }
-
-      } catch (NoRepositorySelected | IOException e) {
+        // Only the first page is loaded now. The others are loaded as the table scrolls.
+        presentHistory(gitAccess.getPagedCommitsCharacteristics(filePath), false);
+      } catch (NoRepositorySelected | IOException | GitAPIException e) {
         LOGGER.debug(e, e);
         PluginWorkspaceProvider.getPluginWorkspace()
             .showErrorMessage("Unable to present history because of: " + e.getMessage());
@@ -707,21 +681,114 @@ public class HistoryPanel extends JPanel {
   }
 
   /**
-   * Gets the tags from the current repository.
+   * Presents the repository, the branch and the resource whose history is shown.
    * 
-   * @param repo Git repository.
+   * @param filePath The resource whose history is shown. <code>null</code> for the entire repository.
    * 
-   * @return The tags or an empty map. Never null.
+   * @throws NoRepositorySelected
    */
-  private Map<String, List<String>> getTagMap(Repository repo) {
-    Map<String, List<String>> tagMap = new HashMap<>();
-    try {
-      tagMap = gitAccess.getTagMap(repo);
-    } catch (GitAPIException | IOException e) {
-      LOGGER.debug(e, e);
+  private void updateHistoryLabel(String filePath) throws NoRepositorySelected {
+    Translator translator = Translator.getInstance();
+    File directory = gitAccess.getWorkingCopy();
+    historyLabelMessage = translator.getTranslation(Tags.REPOSITORY) + ": " + directory.getName() + ". "
+        + translator.getTranslation(Tags.BRANCH) + ": " + gitAccess.getBranchInfo().getBranchName() + ".";
+    if (filePath != null) {
+      directory = new File(directory, filePath);
+      historyLabelMessage += " " + translator.getTranslation(Tags.FILE) + ": " + directory.getName() + ".";
     }
+    historyInfoLabel.setText(TreeUtil.getWordToFitInWidth(historyLabelMessage,
+        historyInfoLabel.getFontMetrics(historyInfoLabel.getFont()),
+        this.getWidth() / topPanel.getComponentCount()));
+    historyInfoLabel.setToolTipText(historyLabelMessage);
+    historyInfoLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 0));
+  }
+
+  /**
+   * Presents the commits in the history table, with the current branches and tags.
+   * 
+   * @param commitCharacteristicsVector The commits.
+   * @param keepSelection               <code>true</code> to select again the selected commit, if still 
+   *                                    presented. Otherwise, the local branch HEAD is selected.
+   * 
+   * @throws NoRepositorySelected
+   * @throws IOException
+   */
+  private void presentHistory(List<CommitCharacteristics> commitCharacteristicsVector, boolean keepSelection)
+      throws NoRepositorySelected, IOException {
+    Translator translator = Translator.getInstance();
+
+    // Install selection listener.
+    if (revisionDataUpdater != null) {
+      historyTable.getSelectionModel().removeListSelectionListener(revisionDataUpdater);
+      revisionDataUpdater.dispose();
+    }
+
+    Repository repo = gitAccess.getRepository();
+    CommitsAheadAndBehind commitsAheadAndBehind = RevCommitUtil.getCommitsAheadAndBehind(repo,
+        repo.getFullBranch());
+
+    // Compute the row height.
+    CommitMessageTableRenderer renderer = new CommitMessageTableRenderer(repo, commitsAheadAndBehind,
+        gitAccess.getBranchInfo().getBranchName(), RefDecorationIndex.getInstance().getDecorations(repo));
+    int rh = getRowHeight(renderer, getFirstCommit(commitCharacteristicsVector));
+
+    AtomicReference<CommitCharacteristics> previousSelection = new AtomicReference<>();
+    SwingUtilities.invokeLater(() -> {
+      HistoryCommitTableModel historyModel = new HistoryCommitTableModel(commitCharacteristicsVector);
+      historyModel.filterChanged(filter.getText());
+      TableModel oldModel = historyTable.getModel();
+      int selectedRow = historyTable.getSelectedRow();
+      if (keepSelection && selectedRow != -1 && oldModel instanceof HistoryCommitTableModel) {
+        previousSelection.set(((HistoryCommitTableModel) oldModel).getAllCommits().get(selectedRow));
+      }
+      historyTable.setModel(historyModel);
+      if (oldModel instanceof HistoryCommitTableModel) {
+        HistoryCommitTableModel oldHistoryModel = (HistoryCommitTableModel) oldModel;
+        // When only the refs changed, the new model presents the same commits and continues loading them.
+        oldHistoryModel.dispose(oldHistoryModel.getPagedCommits() != historyModel.getPagedCommits());
+      }
+      updateHistoryTableWidths();
+
+      historyTable.setDefaultRenderer(CommitCharacteristics.class, renderer);
+      historyTable.setDefaultRenderer(Date.class, new DateTableCellRenderer("d MMM yyyy HH:mm"));
+      TableColumn authorColumn = historyTable.getColumn(translator.getTranslation(Tags.AUTHOR));
+      authorColumn.setCellRenderer(createAuthorColumnRenderer());
 
-    return tagMap;
+      historyTable.setRowHeight(rh);
+    });
+
+    revisionDataUpdater = new RowHistoryTableSelectionListener(getUpdateDelay(), historyTable,
+        commitDescriptionPane, commitCharacteristicsVector, affectedFilesTable);
+    historyTable.getSelectionModel().addListSelectionListener(revisionDataUpdater);
+
+    // Install hyperlink listener.
+    if (hyperlinkListener != null) {
+      commitDescriptionPane.removeHyperlinkListener(hyperlinkListener);
+    }
+    hyperlinkListener = new HistoryHyperlinkListener(historyTable);
+    commitDescriptionPane.addHyperlinkListener(hyperlinkListener);
+
+    // Select the previously selected commit or the local branch HEAD.
+    if (!commitCharacteristicsVector.isEmpty()) {
+      String fullBranch = repo.getFullBranch();
+      Ref branchHead = repo.exactRef(fullBranch);
+      ObjectId objectId = branchHead != null ? branchHead.getObjectId() : null;
+      SwingUtilities.invokeLater(() -> {
+        CommitCharacteristics previous = previousSelection.get();
+        if (previous == GitAccess.UNCOMMITED_CHANGES 
+            && commitCharacteristicsVector.get(0) == GitAccess.UNCOMMITED_CHANGES) {
+          historyTable.getSelectionModel().setSelectionInterval(0, 0);
+        } else if (previous != null && previous != GitAccess.UNCOMMITED_CHANGES) {
+          selectCommit(ObjectId.fromString(previous.getCommitId()));
+        } else if (objectId != null) {
+          selectCommit(objectId);
+        }
+      });
+    } else {
+      PluginWorkspaceProvider.getPluginWorkspace()
+          .showInformationMessage(translator.getTranslation(Tags.GIT_HISTORY) + ": "
+              + StringUtils.toLowerCase(translator.getTranslation(Tags.NOTHING_TO_SHOW_FOR_NEW_FILES)));
+    }
   }
 
   /**
@@ -804,7 +871,8 @@ public class HistoryPanel extends JPanel {
    */
   private void tryFetch() {
     try {
-      gitAccess.fetch();
+      // Reuses the last check of the remote repository, if recent.
+      RemoteSyncService.getInstance().sync(false);
     } catch (SSHPassphraseRequiredException | PrivateRepositoryException | RepositoryUnavailableException e) {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug(e, e);
@@ -878,26 +946,37 @@ public class HistoryPanel extends JPanel {
   }
 
   /**
-   * Selects the commit with the given ID.
+   * Selects the commit with the given ID. In the commits loaded in pages, the commit is looked for
+   * on the read lane, as more pages might need to be loaded.
    * 
    * @param id Id of the repository to select.
    */
   private void selectCommit(ObjectId id) {
     SwingUtilities.invokeLater(() -> {
       HistoryCommitTableModel model = (HistoryCommitTableModel) historyTable.getModel();
-      List<CommitCharacteristics> commits = model.getAllCommits();
-      for (int i = 0; i < commits.size(); i++) {
-        CommitCharacteristics commitCharacteristics = commits.get(i);
-        if (id.getName().equals(commitCharacteristics.getCommitId())) {
-          final int sel = i;
-          historyTable.scrollRectToVisible(historyTable.getCellRect(sel, 0, true));
-          historyTable.getSelectionModel().setSelectionInterval(sel, sel);
-          break;
+      int selectedRow = historyTable.getSelectedRow();
+      model.findCommitRow(id.getName(), sel -> {
+        // Unless another row was selected meanwhile.
+        if (historyTable.getSelectedRow() == selectedRow) {
+          selectRow(model, sel);
         }
-      }
+      });
     });
   }
 
+  /**
+   * Selects a row of the history table and scrolls to it.
+   * 
+   * @param model The model in which the row was found. Nothing is selected if it is no longer presented.
+   * @param sel   The row or -1.
+   */
+  private void selectRow(HistoryCommitTableModel model, int sel) {
+    if (sel != -1 && historyTable.getModel() == model && sel < model.getRowCount()) {
+      historyTable.scrollRectToVisible(historyTable.getCellRect(sel, 0, true));
+      historyTable.getSelectionModel().setSelectionInterval(sel, sel);
+    }
+  }
+
   /**
    * @return the table with the affected files.
    */
@@ -2,21 +2,24 @@ package com.oxygenxml.git.view.history;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.swing.JEditorPane;
 import javax.swing.JTable;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
 import org.apache.log4j.Logger;
-import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.errors.RevisionSyntaxException;
 
 import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.service.RevCommitUtil;
+import com.oxygenxml.git.service.StatusCache;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
@@ -84,29 +87,67 @@ public class RowHistoryTableSelectionListener implements ListSelectionListener {
     }
 
     /**
-     * Update data model.
+     * Update data model. The changed files are taken from the cache or computed in background.
      * 
      * @param commitCharacteristics Details about the current commit.
      */
     private void updateDataModel(CommitCharacteristics commitCharacteristics) {
-      StagingResourcesTableModel dataModel = (StagingResourcesTableModel) changesTable.getModel();
-      if (GitAccess.UNCOMMITED_CHANGES != commitCharacteristics) {
-        try {
-          List<FileStatus> changes = RevCommitUtil.getChangedFiles(commitCharacteristics.getCommitId());
-          dataModel.setFilesStatus(changes);
-        } catch (GitAPIException | RevisionSyntaxException | IOException e) {
-          logger.error(e, e);
-        }
+      if (changedFilesLoading != null) {
+        // A newer selection. The running computation is not interrupted because the interrupts
+        // close the files that JGit reads. Its result is simply ignored.
+        changedFilesLoading.cancel(false);
+        changedFilesLoading = null;
+      }
+      requestedCommit = commitCharacteristics;
+
+      boolean uncommitted = GitAccess.UNCOMMITED_CHANGES == commitCharacteristics;
+      List<FileStatus> changes = uncommitted ? null : changedFilesCache.get(commitCharacteristics.getCommitId());
+      if (changes != null) {
+        setChangedFiles(changes);
       } else {
-        dataModel.setFilesStatus(GitAccess.getInstance().getUnstagedFiles());
+        changedFilesLoading = GitOperationScheduler.getInstance().scheduleRead(
+            () -> uncommitted 
+                ? StatusCache.getInstance().getSnapshot().getUnstagedFiles() 
+                : RevCommitUtil.getChangedFiles(commitCharacteristics.getCommitId()),
+            result -> SwingUtilities.invokeLater(() -> changedFilesLoaded(commitCharacteristics, result)),
+            t -> logger.error(t, t));
       }
     }
   }
   
+  /**
+   * Presents the changed files computed in background, if the commit is still the selected one.
+   * 
+   * @param commitCharacteristics The commit.
+   * @param changes               The files changed by the commit.
+   */
+  private void changedFilesLoaded(CommitCharacteristics commitCharacteristics, List<FileStatus> changes) {
+    if (GitAccess.UNCOMMITED_CHANGES != commitCharacteristics) {
+      changedFilesCache.put(commitCharacteristics.getCommitId(), changes);
+    }
+    if (requestedCommit == commitCharacteristics) {
+      changedFilesLoading = null;
+      setChangedFiles(changes);
+    }
+  }
+
+  /**
+   * Presents the changed files of the selected commit.
+   * 
+   * @param changes The changed files.
+   */
+  private void setChangedFiles(List<FileStatus> changes) {
+    ((StagingResourcesTableModel) changesTable.getModel()).setFilesStatus(changes);
+  }
+  
   /**
    * Logger for logging.
    */
   private static final Logger logger = Logger.getLogger(RowHistoryTableSelectionListener.class);
+  /**
+   * The maximum number of commits for which the changed files are kept.
+   */
+  private static final int CHANGED_FILES_CACHE_SIZE = 200;
 	/**
 	 * Fake commit URL to search for parents when using hyperlink.
 	 */
@@ -135,6 +176,24 @@ public class RowHistoryTableSelectionListener implements ListSelectionListener {
 	 * Table that presents the resources changed inside a commit.
 	 */
   private JTable changesTable;
+  /**
+   * The files changed by the most recently selected commits, by commit ID. Used only on the AWT thread.
+   */
+  private final Map<String, List<FileStatus>> changedFilesCache = 
+      new LinkedHashMap<String, List<FileStatus>>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, List<FileStatus>> eldest) {
+      return size() > CHANGED_FILES_CACHE_SIZE;
+    }
+  };
+  /**
+   * The commit whose changed files must be presented. <code>null</code> after disposal.
+   */
+  private volatile CommitCharacteristics requestedCommit;
+  /**
+   * Computes the changed files of the selected commit. <code>null</code> if not computing.
+   */
+  private volatile ScheduledFuture<?> changedFilesLoading;
 
 	/**
 	 * Construct the SelectionListener for HistoryTable.
@@ -171,4 +230,25 @@ public class RowHistoryTableSelectionListener implements ListSelectionListener {
 	  }
 	}
 
+	/**
+	 * Presents again the details of the uncommitted changes, if they are selected.
+	 */
+	public void uncommittedChangesUpdated() {
+	  if (requestedCommit == GitAccess.UNCOMMITED_CHANGES) {
+	    descriptionUpdateListener.actionPerformed(null);
+	  }
+	}
+
+	/**
+	 * Stops updating the views. The changed files computed in background are no longer presented.
+	 */
+	public void dispose() {
+	  descriptionUpdateTimer.stop();
+	  if (changedFilesLoading != null) {
+	    changedFilesLoading.cancel(false);
+	    changedFilesLoading = null;
+	  }
+	  requestedCommit = null;
+	}
+
 }
@@ -17,6 +17,7 @@ import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitOperationScheduler;
 import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.service.PrivateRepositoryException;
+import com.oxygenxml.git.service.RemoteSyncService;
 import com.oxygenxml.git.service.RepositoryUnavailableException;
 import com.oxygenxml.git.service.RevCommitUtil;
 import com.oxygenxml.git.service.SSHPassphraseRequiredException;
@@ -77,7 +78,7 @@ public class RepositoryChangeWatcher {
     // Check the currently opened editors.
     boolean isNotifyAboutNewRemoteCommits = OptionsManager.getInstance().getNotifyAboutNewRemoteCommits();
     if(isNotifyAboutNewRemoteCommits) {
-      GitOperationScheduler.getInstance().schedule(() -> checkRemoteRepository(true), 2 * SLEEP);
+      GitOperationScheduler.getInstance().scheduleBackground(() -> checkRemoteRepository(true), 2 * SLEEP);
     }
   
   }
@@ -110,7 +111,7 @@ public class RepositoryChangeWatcher {
           if (future != null) {
             future.cancel(false);
           }
-          future = GitOperationScheduler.getInstance().schedule(() -> checkRemoteRepository(true), SLEEP);
+          future = GitOperationScheduler.getInstance().scheduleBackground(() -> checkRemoteRepository(true), SLEEP);
         }
       }
     };
@@ -240,7 +241,8 @@ public class RepositoryChangeWatcher {
     try {
       GitAccess gitAccess = GitAccess.getInstance();
       if (fetch) {
-        gitAccess.fetch();
+        // Reuses the last check of the remote repository, if recent.
+        RemoteSyncService.getInstance().sync(false);
       }
       Repository repository = gitAccess.getRepository();
       CommitsAheadAndBehind commitsAheadAndBehind = RevCommitUtil.getCommitsAheadAndBehind(repository, repository.getFullBranch());
@@ -0,0 +1,453 @@
+package com.oxygenxml.git.watcher;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.ignore.IgnoreNode;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.FS;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitControllerBase;
+import com.oxygenxml.git.service.GitEventAdapter;
+import com.oxygenxml.git.service.GitOperationScheduler;
+import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.service.StatusCache;
+import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+import com.oxygenxml.git.utils.GitRefreshSupport;
+import com.oxygenxml.git.view.event.GitEventInfo;
+import com.oxygenxml.git.view.event.GitOperation;
+
+/**
+ * Watches the directories of the current working copy for changes made outside the application
+ * (build scripts, transformations output, other editors) and reports the changed paths,
+ * so that the staging views don't have to wait for a full refresh.
+ * <br><br>
+ * The <code>.git</code> directory and the ignored directories are not watched. Bursts of events
+ * are coalesced and reported together.
+ */
+public class WorkingCopyWatcher {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(WorkingCopyWatcher.class);
+  /**
+   * The changes are reported after this period without new events. Milliseconds.
+   */
+  static final int COALESCING_DELAY = 400;
+  /**
+   * The changes are reported after this period even if new events keep coming. Milliseconds.
+   */
+  static final int MAX_COALESCING_DELAY = 2000;
+  /**
+   * Above this number of changed paths a full refresh is cheaper than re-checking each path.
+   */
+  private static final int MAX_CHANGED_PATHS = 1000;
+  /**
+   * Receives the changed paths.
+   */
+  private final GitRefreshSupport refreshSupport;
+  /**
+   * The watch service for the current working copy. <code>null</code> if nothing is watched.
+   */
+  private WatchService watchService;
+  /**
+   * The thread that processes the events.
+   */
+  private Thread watcherThread;
+  /**
+   * The root of the watched working copy.
+   */
+  private Path workingCopy;
+  /**
+   * Held while the directories are registered. The directories are walked without holding the
+   * monitor of the watcher, so that {@link #isWatching()} can be called from the AWT thread.
+   */
+  private final Object registrationLock = new Object();
+  /**
+   * <code>true</code> after the watcher was stopped for good.
+   */
+  private boolean closed;
+  /**
+   * The watched directories.
+   */
+  private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+  /**
+   * The global excludes file of the watched working copy, from <code>core.excludesFile</code>.
+   * <code>null</code> if not configured.
+   */
+  private Path globalExcludesFile;
+  /**
+   * The ignore rules, by the file that defines them.
+   */
+  private final Map<Path, IgnoreNode> ignoreRules = new HashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param refreshSupport Receives the changed paths.
+   */
+  private WorkingCopyWatcher(GitRefreshSupport refreshSupport) {
+    this.refreshSupport = refreshSupport;
+  }
+
+  /**
+   * Creates a watcher that follows the working copy loaded in the plugin. The directories are
+   * registered in background.
+   *
+   * @param gitCtrl        Git controller. Used to detect when a different working copy is loaded.
+   * @param refreshSupport Receives the changed paths.
+   *
+   * @return The watcher.
+   */
+  public static WorkingCopyWatcher createWatcher(GitControllerBase gitCtrl, GitRefreshSupport refreshSupport) {
+    WorkingCopyWatcher watcher = new WorkingCopyWatcher(refreshSupport);
+    if (!Boolean.getBoolean(GitAddonSystemProperties.DISABLE_WORKING_COPY_WATCHER)) {
+      gitCtrl.addGitListener(new GitEventAdapter() {
+        @Override
+        public void operationSuccessfullyEnded(GitEventInfo info) {
+          if (info.getGitOperation() == GitOperation.OPEN_WORKING_COPY) {
+            watcher.scheduleWatchCurrentWorkingCopy();
+          }
+        }
+      });
+      watcher.scheduleWatchCurrentWorkingCopy();
+    }
+    return watcher;
+  }
+
+  /**
+   * Starts watching the working copy currently loaded in the plugin, on the background lane.
+   * Walking a large working copy takes a while.
+   */
+  private void scheduleWatchCurrentWorkingCopy() {
+    GitOperationScheduler.getInstance().scheduleBackground(this::watchCurrentWorkingCopy, 0);
+  }
+
+  /**
+   * Starts watching the working copy currently loaded in the plugin, if any.
+   */
+  void watchCurrentWorkingCopy() {
+    try {
+      Repository repository = GitAccess.getInstance().getRepository();
+      watch(repository.getWorkTree(), getGlobalExcludesFile(repository));
+    } catch (NoRepositorySelected e) {
+      logger.debug(e, e);
+      stopWatching();
+    }
+  }
+
+  /**
+   * Gets the global excludes file configured by <code>core.excludesFile</code>, the same way
+   * JGit resolves it when computing the status.
+   *
+   * @param repository The repository.
+   *
+   * @return The file or <code>null</code> if not configured.
+   */
+  private static Path getGlobalExcludesFile(Repository repository) {
+    Path excludesFile = null;
+    String path = repository.getConfig().get(CoreConfig.KEY).getExcludesFile();
+    if (path != null) {
+      FS fs = repository.getFS();
+      File file = path.startsWith("~/") ? fs.resolve(fs.userHome(), path.substring(2)) : fs.resolve(null, path);
+      excludesFile = file.toPath().toAbsolutePath().normalize();
+    }
+    return excludesFile;
+  }
+
+  /**
+   * Starts watching the given working copy. Stops watching the previous one.
+   *
+   * @param wc                 The working copy.
+   * @param globalExcludesFile The global excludes file. <code>null</code> if not configured.
+   */
+  void watch(File wc, Path globalExcludesFile) {
+    Path newWorkingCopy = wc.toPath().toAbsolutePath().normalize();
+    synchronized (registrationLock) {
+      if (newWorkingCopy.equals(workingCopy) && isWatching()) {
+        return;
+      }
+
+      stopWatching();
+
+      try {
+        workingCopy = newWorkingCopy;
+        this.globalExcludesFile = globalExcludesFile;
+        WatchService service = FileSystems.getDefault().newWatchService();
+        try {
+          registerAll(service, newWorkingCopy, newWorkingCopy);
+        } catch (IOException e) {
+          service.close();
+          throw e;
+        }
+
+        synchronized (this) {
+          if (closed) {
+            service.close();
+            return;
+          }
+          watchService = service;
+          watcherThread = new Thread(() -> processEvents(service, newWorkingCopy), "Git Working Copy Watcher");
+          watcherThread.setDaemon(true);
+          watcherThread.start();
+          StatusCache.getInstance().setWorkingTreeWatched(true);
+        }
+
+        if (logger.isDebugEnabled()) {
+          logger.debug("Watching " + watchedDirectories.size() + " directories in " + newWorkingCopy);
+        }
+      } catch (IOException e) {
+        // Probably too many directories for the OS limits. Rely on the regular refresh.
+        logger.warn("Unable to watch the working copy for changes: " + e.getMessage());
+        logger.debug(e, e);
+        stopWatching();
+      }
+    }
+  }
+
+  /**
+   * Stops watching the working copy, for good.
+   */
+  public void stop() {
+    synchronized (this) {
+      closed = true;
+    }
+    stopWatching();
+  }
+
+  /**
+   * Stops watching the working copy.
+   */
+  private synchronized void stopWatching() {
+    StatusCache.getInstance().setWorkingTreeWatched(false);
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        logger.debug(e, e);
+      }
+      watchService = null;
+    }
+    watcherThread = null;
+    watchedDirectories.clear();
+    synchronized (ignoreRules) {
+      ignoreRules.clear();
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the working copy is watched for changes. If <code>false</code>,
+   * only a full refresh will detect the changes made outside the application.
+   */
+  public synchronized boolean isWatching() {
+    return watchService != null;
+  }
+
+  /**
+   * Registers the given directory and all its sub-directories, except for the <code>.git</code>
+   * and the ignored ones. Only the directories are handled, the subtrees of the skipped
+   * ones are not walked at all.
+   *
+   * @param service The watch service.
+   * @param root    The root of the working copy.
+   * @param start   The directory.
+   *
+   * @throws IOException Unable to register.
+   */
+  private void registerAll(WatchService service, Path root, Path start) throws IOException {
+    Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (Constants.DOT_GIT.equals(String.valueOf(dir.getFileName())) || isIgnored(root, dir)) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        WatchKey key = dir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        watchedDirectories.put(key, dir);
+        return FileVisitResult.CONTINUE;
+      }
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        // Probably deleted in the meantime.
+        logger.debug(exc, exc);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Processes the events until the watch service is closed.
+   *
+   * @param service The watch service.
+   * @param root    The root of the working copy.
+   */
+  private void processEvents(WatchService service, Path root) {
+    Set<String> changedPaths = new HashSet<>();
+    long firstEventTime = 0;
+    while (true) {
+      WatchKey key;
+      try {
+        key = changedPaths.isEmpty() ? service.take() : service.poll(COALESCING_DELAY, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ClosedWatchServiceException e) {
+        // The working copy is no longer watched.
+        break;
+      }
+
+      if (key != null) {
+        if (changedPaths.isEmpty()) {
+          firstEventTime = System.currentTimeMillis();
+        }
+        boolean overflow = collectChanges(service, root, key, changedPaths);
+        if (overflow) {
+          // Some events were lost.
+          changedPaths.clear();
+          refreshSupport.call();
+          continue;
+        }
+      }
+
+      if (!changedPaths.isEmpty()
+          && (key == null || System.currentTimeMillis() - firstEventTime > MAX_COALESCING_DELAY)) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Changes in the working copy: " + changedPaths);
+        }
+        if (changedPaths.size() > MAX_CHANGED_PATHS) {
+          refreshSupport.call();
+        } else {
+          refreshSupport.workingCopyChanged(changedPaths);
+        }
+        changedPaths = new HashSet<>();
+      }
+    }
+  }
+
+  /**
+   * Collects the changed paths from the events of a watched directory.
+   *
+   * @param service      The watch service.
+   * @param root         The root of the working copy.
+   * @param key          The key of the watched directory.
+   * @param changedPaths Receives the paths relative to the working copy.
+   *
+   * @return <code>true</code> if events were lost.
+   */
+  private boolean collectChanges(WatchService service, Path root, WatchKey key, Set<String> changedPaths) {
+    boolean overflow = false;
+    Path dir = watchedDirectories.get(key);
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        overflow = true;
+      } else if (dir != null) {
+        Path child = dir.resolve((Path) event.context());
+        if (Constants.DOT_GIT.equals(String.valueOf(child.getFileName()))) {
+          continue;
+        }
+        if (Constants.GITIGNORE_FILENAME.equals(String.valueOf(child.getFileName()))) {
+          synchronized (ignoreRules) {
+            ignoreRules.remove(child);
+          }
+        }
+        if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+          try {
+            // The files created before the registration are covered by the directory path.
+            registerAll(service, root, child);
+          } catch (IOException | ClosedWatchServiceException e) {
+            logger.debug(e, e);
+          }
+        }
+        changedPaths.add(FileHelper.rewriteSeparator(root.relativize(child).toString()));
+      }
+    }
+
+    if (!key.reset()) {
+      // The directory is no longer accessible.
+      watchedDirectories.remove(key);
+    }
+    return overflow;
+  }
+
+  /**
+   * Checks if a directory is ignored by the <code>.gitignore</code> files inside the working copy
+   * or by <code>.git/info/exclude</code> and the global excludes file.
+   *
+   * @param root The root of the working copy.
+   * @param dir  The directory.
+   *
+   * @return <code>true</code> if ignored.
+   */
+  private boolean isIgnored(Path root, Path dir) {
+    if (dir.equals(root)) {
+      return false;
+    }
+
+    Path current = dir.getParent();
+    while (current != null && current.startsWith(root)) {
+      String relativePath = FileHelper.rewriteSeparator(current.relativize(dir).toString());
+      Boolean ignored = getIgnoreRules(current.resolve(Constants.GITIGNORE_FILENAME)).checkIgnored(relativePath, true);
+      if (ignored != null) {
+        return ignored;
+      }
+      current = current.getParent();
+    }
+
+    String relativePath = FileHelper.rewriteSeparator(root.relativize(dir).toString());
+    Path excludeFile = root.resolve(Constants.DOT_GIT).resolve(Constants.INFO_EXCLUDE);
+    Boolean ignored = getIgnoreRules(excludeFile).checkIgnored(relativePath, true);
+    if (ignored == null && globalExcludesFile != null) {
+      ignored = getIgnoreRules(globalExcludesFile).checkIgnored(relativePath, true);
+    }
+    return Boolean.TRUE.equals(ignored);
+  }
+
+  /**
+   * Gets the ignore rules from the given file.
+   *
+   * @param ignoreFile The ignore file. Might not exist.
+   *
+   * @return The rules. Never <code>null</code>.
+   */
+  private IgnoreNode getIgnoreRules(Path ignoreFile) {
+    synchronized (ignoreRules) {
+      return ignoreRules.computeIfAbsent(ignoreFile, f -> {
+        IgnoreNode node = new IgnoreNode();
+        if (Files.isRegularFile(ignoreFile)) {
+          try (InputStream in = Files.newInputStream(ignoreFile)) {
+            node.parse(in);
+          } catch (IOException e) {
+            logger.debug(e, e);
+          }
+        }
+        return node;
+      });
+    }
+  }
+}
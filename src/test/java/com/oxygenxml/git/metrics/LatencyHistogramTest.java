@@ -0,0 +1,75 @@
+package com.oxygenxml.git.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.metrics.LatencyHistogram.Summary;
+
+/**
+ * Tests for the rolling latency histogram.
+ */
+public class LatencyHistogramTest {
+
+  /**
+   * <p><b>Description:</b> the percentiles are computed within the precision of the buckets.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   */
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    Summary summary = histogram.getSummary();
+    assertEquals(100, summary.getCount());
+    assertEquals(100000, summary.getMax());
+    assertTrue(String.valueOf(summary.getP50()), summary.getP50() >= 50000 && summary.getP50() < 50000 * 1.25);
+    assertTrue(String.valueOf(summary.getP95()), summary.getP95() >= 95000 && summary.getP95() <= 100000);
+
+    histogram.reset();
+    summary = histogram.getSummary();
+    assertEquals(0, summary.getCount());
+    assertEquals(0, summary.getP95());
+  }
+
+  /**
+   * <p><b>Description:</b> each value falls in a bucket whose upper bound is not smaller than it.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   */
+  @Test
+  public void testBuckets() {
+    for (long micros = 0; micros < 100000; micros++) {
+      int bucket = LatencyHistogram.bucket(micros);
+      assertTrue(micros + " in " + bucket, micros <= LatencyHistogram.upperBound(bucket));
+      if (bucket > 0) {
+        assertTrue(micros + " in " + bucket, micros > LatencyHistogram.upperBound(bucket - 1));
+      }
+    }
+    assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+  }
+
+  /**
+   * <p><b>Description:</b> the old samples are dropped after two windows.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testRolling() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram(TimeUnit.MILLISECONDS.toNanos(50));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+    assertEquals(1, histogram.getSummary().getCount());
+
+    Thread.sleep(60);
+    // Still in the previous window.
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+    assertEquals(2, histogram.getSummary().getCount());
+
+    Thread.sleep(120);
+    assertEquals(0, histogram.getSummary().getCount());
+  }
+}
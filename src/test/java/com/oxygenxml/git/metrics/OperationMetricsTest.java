@@ -0,0 +1,108 @@
+package com.oxygenxml.git.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.oxygenxml.git.metrics.LatencyHistogram.Summary;
+import com.oxygenxml.git.service.GitListeners;
+import com.oxygenxml.git.service.GitOperationScheduler;
+import com.oxygenxml.git.view.event.GitEventInfo;
+import com.oxygenxml.git.view.event.GitOperation;
+
+/**
+ * Tests for the latency metrics of the Git operations.
+ */
+public class OperationMetricsTest {
+
+  @After
+  public void tearDown() {
+    GitOperationScheduler.getInstance().shutdown();
+    OperationMetrics.getInstance().reset();
+  }
+
+  /**
+   * <p><b>Description:</b> an operation announced on one thread and executed by the scheduler
+   * records the time spent in the queue separately from the execution time.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testQueueWaitAndExecution() throws Exception {
+    OperationMetrics metrics = OperationMetrics.getInstance();
+    GitOperationScheduler scheduler = GitOperationScheduler.getInstance();
+
+    // Keep the operations lane busy, so that the push waits.
+    CountDownLatch release = new CountDownLatch(1);
+    scheduler.schedule(() -> {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    GitEventInfo info = new GitEventInfo(GitOperation.PUSH);
+    GitListeners.getInstance().fireOperationAboutToStart(info);
+    ScheduledFuture<?> push = scheduler.schedule(() -> {
+      sleep(50);
+      GitListeners.getInstance().fireOperationSuccessfullyEnded(info);
+    });
+    sleep(100);
+    release.countDown();
+    push.get(5, TimeUnit.SECONDS);
+
+    OperationMetrics.Timing timing = metrics.getTimings().get(OperationMetrics.OPERATION_PREFIX + "PUSH");
+    assertNotNull(metrics.getReport(), timing);
+    Summary wait = timing.getQueueWait().getSummary();
+    Summary exec = timing.getExecution().getSummary();
+    assertEquals(1, exec.getCount());
+    assertTrue(wait.toString(), wait.getMax() >= 100000);
+    assertTrue(exec.toString(), exec.getMax() >= 50000 && exec.getMax() < 100000);
+
+    // Two tasks on the operations lane.
+    Summary lane = metrics.getTimings().get(OperationMetrics.LANE_PREFIX + "operations").getExecution().getSummary();
+    assertEquals(2, lane.getCount());
+  }
+
+  /**
+   * <p><b>Description:</b> the internal queries are recorded by name.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   */
+  @Test
+  public void testQueries() {
+    OperationMetrics metrics = OperationMetrics.getInstance();
+    long start = System.nanoTime();
+    metrics.queryEnded(OperationMetrics.QUERY_STATUS, start);
+    metrics.queryEnded(OperationMetrics.QUERY_STATUS, start);
+
+    assertEquals(2, metrics.getTiming(OperationMetrics.QUERY_STATUS).getExecution().getSummary().getCount());
+    assertEquals("[query/status]", Arrays.toString(metrics.getNames()));
+    assertTrue(metrics.getReport(), metrics.getReport().contains("query/status"));
+    assertEquals(1, metrics.getReportRows().size());
+    assertEquals("query/status", metrics.getReportRows().get(0)[0]);
+    assertEquals(2L, metrics.getReportRows().get(0)[1]);
+  }
+
+  /**
+   * Sleeps without being interrupted.
+   *
+   * @param millis Milliseconds.
+   */
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
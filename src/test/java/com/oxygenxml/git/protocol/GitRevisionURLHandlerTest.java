@@ -6,6 +6,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.Repository;
 import org.junit.Test;
 
@@ -75,6 +76,44 @@ public class GitRevisionURLHandlerTest extends GitTestBase {
     assertEquals("initial content", read(new URL(headVersionURL)));
   }
   
+  /**
+   * The resolved versions are reused only while the repository doesn't change, either through
+   * the plugin or outside it.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testCachedVersionContent() throws Exception {
+    String localTestRepository = "target/test-resources/GitRevisionURLHandlerTest_testCachedVersionContent/local";
+    GitAccess gitAccess = GitAccess.getInstance();
+    Repository localRepo = createRepository(localTestRepository);
+
+    File file = new File(localTestRepository + "/test.txt");
+    file.createNewFile();
+    setFileContent(file, "initial content");
+    gitAccess.add(new FileStatus(GitChangeType.ADD, "test.txt"));
+    gitAccess.commit("First version.");
+
+    URL indexVersionURL = new URL("git://" + VersionIdentifier.INDEX_OR_LAST_COMMIT  + "/test.txt");
+    assertEquals("initial content", read(indexVersionURL));
+    assertEquals("initial content", read(indexVersionURL));
+
+    // Staged through the plugin.
+    setFileContent(file, "index content");
+    gitAccess.add(new FileStatus(GitChangeType.ADD, "test.txt"));
+    assertEquals("index content", read(indexVersionURL));
+
+    // Staged outside the plugin.
+    setFileContent(file, "changed outside");
+    try (Git git = Git.wrap(localRepo)) {
+      git.add().addFilepattern("test.txt").call();
+    }
+    assertEquals("changed outside", read(indexVersionURL));
+
+    String headVersionURL = "git://" + VersionIdentifier.LAST_COMMIT  + "/test.txt";
+    assertEquals("initial content", read(new URL(headVersionURL)));
+  }
+
   /**
    * Tests the URL form that can get the file content from any revision.
    * 
@@ -0,0 +1,208 @@
+package com.oxygenxml.git.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.blame.BlameResult;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the cached and incremental blame.
+ */
+public class BlameCacheTest {
+
+  /**
+   * The directory with the repository and the cache files.
+   */
+  private static final File TEST_DIR = new File("target/test-resources/BlameCacheTest");
+  /**
+   * The blamed file.
+   */
+  private static final String FILE = "file.txt";
+
+  /**
+   * The lines of the file at the last commit.
+   */
+  private final List<String> lines = new ArrayList<>();
+  /**
+   * Random generator for the changes.
+   */
+  private final Random random = new Random(5);
+
+  /**
+   * Disables the cache and removes the test files.
+   *
+   * @throws Exception If it fails.
+   */
+  @After
+  public void tearDown() throws Exception {
+    CommitMetadataCache.getInstance().setCacheDir(null);
+    BlameCache.reset();
+    FileUtils.deleteDirectory(TEST_DIR);
+  }
+
+  /**
+   * <p><b>Description:</b> the blame computed from scratch, taken from the cache, extended after new
+   * commits and read again from the cache file is the same as the one of the blame command, with
+   * uncommitted changes in the working copy.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testBlame() throws Exception {
+    CommitMetadataCache.getInstance().setCacheDir(new File(TEST_DIR, "cache"));
+    BlameCache.reset();
+    try (Git git = Git.init().setDirectory(new File(TEST_DIR, "repo")).call()) {
+      for (int i = 0; i < 500; i++) {
+        lines.add("line " + i);
+      }
+      commit(git, 40);
+      assertBlame(git);
+      // From the cache.
+      assertBlame(git);
+
+      commit(git, 3);
+      assertBlame(git);
+
+      // Read again from the cache file.
+      waitForSave();
+      BlameCache.reset();
+      assertBlame(git);
+      assertEquals(1, new File(TEST_DIR, "cache").list().length);
+
+      // The file didn't change.
+      git.commit().setAllowEmpty(true).setMessage("Empty").call();
+      assertBlame(git);
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> a change reverted after the file was blamed is attributed to the commit
+   * that reverted it, not to the one from the previous blame.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testRevertedChange() throws Exception {
+    CommitMetadataCache.getInstance().setCacheDir(new File(TEST_DIR, "cache"));
+    BlameCache.reset();
+    try (Git git = Git.init().setDirectory(new File(TEST_DIR, "repo")).call()) {
+      for (int i = 0; i < 100; i++) {
+        lines.add("line " + i);
+      }
+      commit(git, 5);
+      assertBlame(git);
+
+      File file = new File(git.getRepository().getWorkTree(), FILE);
+      String original = lines.get(50);
+      lines.set(50, "Changed");
+      Files.write(file.toPath(), lines);
+      git.add().addFilepattern(FILE).call();
+      git.commit().setMessage("Change").call();
+      lines.set(50, original);
+      Files.write(file.toPath(), lines);
+      git.add().addFilepattern(FILE).call();
+      RevCommit revert = git.commit().setMessage("Revert").call();
+
+      // The file is the same as in the previous blame.
+      assertBlame(git);
+      BlameResult blame = git.blame().setFilePath(FILE).call();
+      assertEquals(revert, blame.getSourceCommit(50));
+    }
+  }
+
+  /**
+   * Waits until the cache file is written, on the background lane.
+   *
+   * @throws Exception If it fails.
+   */
+  private static void waitForSave() throws Exception {
+    GitOperationScheduler.getInstance().scheduleBackground(() -> {}, 0).get();
+  }
+
+  /**
+   * Commits random changes of the file.
+   *
+   * @param git     The repository.
+   * @param commits The number of commits.
+   *
+   * @throws Exception If it fails.
+   */
+  private void commit(Git git, int commits) throws Exception {
+    File file = new File(git.getRepository().getWorkTree(), FILE);
+    for (int i = 0; i < commits; i++) {
+      for (int j = 0; j < 5; j++) {
+        int line = random.nextInt(lines.size());
+        int change = random.nextInt(3);
+        if (change == 0) {
+          lines.set(line, "Changed " + i + " " + j);
+        } else if (change == 1) {
+          lines.add(line, "Added " + i + " " + j);
+        } else {
+          lines.remove(line);
+        }
+      }
+      Files.write(file.toPath(), lines);
+      git.add().addFilepattern(FILE).call();
+      git.commit().setMessage("Commit " + i).call();
+    }
+  }
+
+  /**
+   * Changes the working copy file and compares the blame with the one of the blame command.
+   *
+   * @param git The repository.
+   *
+   * @throws Exception If it fails.
+   */
+  private void assertBlame(Git git) throws Exception {
+    List<String> workingCopy = new ArrayList<>(lines);
+    workingCopy.set(3, "Uncommitted change");
+    workingCopy.add(10, "Uncommitted line");
+    workingCopy.remove(20);
+    Files.write(new File(git.getRepository().getWorkTree(), FILE).toPath(), workingCopy);
+
+    BlameResult expected = git.blame().setFilePath(FILE).call();
+    ObjectId[] expectedCommits = new ObjectId[expected.getResultContents().size()];
+    for (int i = 0; i < expectedCommits.length; i++) {
+      expectedCommits[i] = expected.getSourceCommit(i);
+    }
+
+    ObjectId[] commits = new ObjectId[workingCopy.size()];
+    int lineCount = BlameCache.getInstance().blame(git.getRepository(), FILE, new BlameCache.BlameListener() {
+      @Override
+      public void blameStarted(int count) {
+        assertEquals(commits.length, count);
+      }
+
+      @Override
+      public void linesAttributed(int start, int end, RevCommit commit) {
+        for (int i = start; i < end; i++) {
+          assertTrue(commits[i] == null);
+          commits[i] = commit;
+        }
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return false;
+      }
+    });
+    assertEquals(commits.length, lineCount);
+    assertArrayEquals(expectedCommits, commits);
+  }
+}
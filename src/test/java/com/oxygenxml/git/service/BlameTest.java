@@ -25,7 +25,9 @@ import com.oxygenxml.git.service.entities.GitChangeType;
 import com.oxygenxml.git.utils.script.RepoGenerationScript;
 import com.oxygenxml.git.view.ChangesPanel.SelectedResourcesProvider;
 import com.oxygenxml.git.view.ShowBlameForUnstagedResourceAction;
+import com.oxygenxml.git.view.blame.BlameLineIndex;
 import com.oxygenxml.git.view.blame.BlamePerformer;
+import com.oxygenxml.git.view.blame.CommitHighlightPainter;
 import com.oxygenxml.git.view.history.HistoryController;
 
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
@@ -124,18 +126,23 @@ public class BlameTest extends GitTestBase{
       // Execute blame.
       new BlamePerformer().doit(
           GitAccess.getInstance().getRepository(), "file1.txt", wsEditor, historyController);
+      // The blame is computed in background.
+      waitForScheduler();
+      flushAWT();
       
+      // A single highlight paints the blame of all the lines.
       Highlight[] highlights = textArea.getHighlighter().getHighlights();
-      assertEquals(5, highlights.length);
-      
-      String expected = dumpOffsetMap(line2offsets);
-      String actual = dumpHighlights(highlights);
-      
-      assertEquals(expected, actual);
-      
-      // Activate each highlight and collect the requests done to the historyview.
-      for (Highlight highlight : highlights) {
-        textArea.setCaretPosition(highlight.getStartOffset());
+      assertEquals(1, highlights.length);
+      assertEquals(
+          "[1, First commit.]" +
+          "[2, Change 2]" +
+          "[3, Change 3]" +
+          "[4, Change 4]" +
+          "[5, Change 5]", dumpLineCommits(highlights[0], line2offsets));
+      
+      // Activate each line and collect the requests done to the historyview.
+      for (int[] offsets : line2offsets.values()) {
+        textArea.setCaretPosition(offsets[0]);
         // Wait for the thread that presents the revision.
         sleep(400);
         flushAWT();
@@ -277,20 +284,24 @@ public class BlameTest extends GitTestBase{
           new File(wcTree, "file1.txt"),
           historyController,
           Collections.emptyList());
+      waitForScheduler();
+      flushAWT();
       
       assertTrue(confirmDialogShown[0]);
       
+      // A single highlight paints the blame of all the lines.
       Highlight[] highlights = textArea.getHighlighter().getHighlights();
-      assertEquals(5, highlights.length);
-      
-      String expected = dumpOffsetMap(line2offsets);
-      String actual = dumpHighlights(highlights);
-      
-      assertEquals(expected, actual);
-      
-      // Activate each highlight and collect the requests done to the history view.
-      for (Highlight highlight : highlights) {
-        textArea.setCaretPosition(highlight.getStartOffset());
+      assertEquals(1, highlights.length);
+      assertEquals(
+          "[1, First commit.]" +
+          "[2, Change 2]" +
+          "[3, Change 3]" +
+          "[4, Change 4]" +
+          "[5, Change 5]", dumpLineCommits(highlights[0], line2offsets));
+      
+      // Activate each line and collect the requests done to the history view.
+      for (int[] offsets : line2offsets.values()) {
+        textArea.setCaretPosition(offsets[0]);
         // Wait for the thread that presents the revision.
         sleep(400);
         flushAWT();
@@ -445,17 +456,21 @@ public class BlameTest extends GitTestBase{
                 }
               });
       showBlameAction.actionPerformed(null);
+      waitForScheduler();
+      flushAWT();
 
       assertTrue(confirmDialogShown[0]);
       assertTrue(editorSaved[0]);
       
+      // A single highlight paints the blame of all the lines.
       Highlight[] highlights = textArea.getHighlighter().getHighlights();
-      assertEquals(5, highlights.length);
-      
-      String expected = dumpOffsetMap(line2offsets);
-      String actual = dumpHighlights(highlights);
-      
-      assertEquals(expected, actual);
+      assertEquals(1, highlights.length);
+      assertEquals(
+          "[1, First commit.]" +
+          "[2, Change 2]" +
+          "[3, Change 3]" +
+          "[4, Change 4]" +
+          "[5, Change 5]", dumpLineCommits(highlights[0], line2offsets));
     } finally {
       GitAccess.getInstance().closeRepo();
       FileUtils.deleteDirectory(wcTree);
@@ -478,33 +493,22 @@ public class BlameTest extends GitTestBase{
   }
 
   /**
-   * Dumps offsets associated with these highlights.
+   * Dumps the commit that last changed each line, as painted by the blame highlight.
    * 
-   * @param highlights
-   * @return
-   */
-  private String dumpHighlights(Highlight[] highlights) {
-    StringBuilder b = new StringBuilder();
-    
-    for (Highlight highlight : highlights) {
-      b.append("[").append(highlight.getStartOffset()).append(", ").append(highlight.getEndOffset()).append("]");
-    }
-    
-    return b.toString();
-  }
-
-  /**
-   * Dumps the detected offsets for content inside the text area.
+   * @param highlight    The blame highlight.
+   * @param line2offsets The start/end offsets of each line, 1 based.
    * 
-   * @param line2offsets
-   * @return
+   * @return The line number and the message of the commit for each line.
    */
-  private String dumpOffsetMap(HashMap<Integer, int[]> line2offsets) {
+  private String dumpLineCommits(Highlight highlight, HashMap<Integer, int[]> line2offsets) {
+    BlameLineIndex lineIndex = ((CommitHighlightPainter) highlight.getPainter()).getLineIndex();
     StringBuilder b = new StringBuilder();
-    
-    for (Integer integer : line2offsets.keySet()) {
-      int[] is = line2offsets.get(integer);
-      b.append("[").append(is[0]).append(", ").append(is[1]).append("]");
+    for (Integer line : line2offsets.keySet()) {
+      int[] offsets = line2offsets.get(line);
+      // The highlight covers the line.
+      assertTrue(highlight.getStartOffset() <= offsets[0] && offsets[1] <= highlight.getEndOffset());
+      RevCommit commit = lineIndex.getCommit(line - 1);
+      b.append("[").append(line).append(", ").append(commit != null ? commit.getFullMessage() : null).append("]");
     }
     
     return b.toString();
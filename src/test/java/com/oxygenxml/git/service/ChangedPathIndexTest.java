@@ -0,0 +1,121 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Test;
+
+import com.oxygenxml.git.service.ChangedPathIndex.PathKey;
+import com.oxygenxml.git.service.CommitMetadataCache.CommitGraph;
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+
+/**
+ * Tests for the history of the resources computed with the changed paths index.
+ */
+public class ChangedPathIndexTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/ChangedPathIndexTest/local";
+
+  /**
+   * The directory with the cache files.
+   */
+  private static final File CACHE_DIR = new File("target/test-resources/ChangedPathIndexTest/cache");
+
+  @Override
+  @After
+  public void tearDown() throws Exception {
+    CommitMetadataCache.getInstance().setCacheDir(null);
+    super.tearDown();
+  }
+
+  /**
+   * Collects the history of some resources.
+   *
+   * @param repository Loaded repository.
+   * @param paths      The paths of the resources.
+   *
+   * @return The histories.
+   *
+   * @throws Exception If it fails.
+   */
+  private static List<String> collectHistories(Repository repository, String... paths) throws Exception {
+    List<String> histories = new ArrayList<>();
+    for (String path : paths) {
+      List<CommitCharacteristics> revisions = new ArrayList<>();
+      RevCommitUtil.collectCurrentBranchRevisions(path, revisions, repository);
+      histories.add(revisions.toString());
+    }
+    return histories;
+  }
+
+  /**
+   * <p><b>Description:</b> the history of a resource, a renamed resource or a folder is the same with
+   * and without the commit cache and the changed paths index.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSameHistory() throws Exception {
+    String[] paths = new String[] {
+        "f1/file1.txt",
+        "root.txt",
+        "f2/file3_renamed.txt",
+        "f2",
+        "missing.xml"
+    };
+    Repository repository = loadMergedBranches(new File(LOCAL_TEST_REPOSITORY));
+    List<String> expected = collectHistories(repository, paths);
+    assertTrue(expected.get(0).length() > 0);
+
+    CommitMetadataCache.getInstance().setCacheDir(CACHE_DIR);
+    // Not indexed yet, the commits are walked.
+    assertEquals(expected, collectHistories(repository, paths));
+
+    CommitMetadataCache.getInstance().update(repository, RevCommitUtil.getCurrentBranchHeads(repository));
+    CommitGraph graph = RevCommitUtil.getCachedHistory(repository).getGraph();
+    assertTrue(ChangedPathIndex.getInstance().update(repository, graph, Integer.MAX_VALUE));
+    assertEquals(expected, collectHistories(repository, paths));
+  }
+
+  /**
+   * <p><b>Description:</b> the index tells that a commit didn't change the resources it didn't touch.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testMightChange() throws Exception {
+    Repository repository = loadMergedBranches(new File(LOCAL_TEST_REPOSITORY));
+    Git git = GitAccess.getInstance().getGit();
+    CommitMetadataCache.getInstance().setCacheDir(CACHE_DIR);
+    File file = new File(repository.getWorkTree(), "folder/new.xml");
+    FileUtils.write(file, "new", "UTF-8");
+    git.add().addFilepattern("folder/new.xml").call();
+    RevCommit commit = git.commit().setMessage("New file").call();
+
+    ChangedPathIndex index = ChangedPathIndex.getInstance();
+    assertTrue(index.mightChange(commit, new PathKey("root.txt")));
+
+    CommitMetadataCache.getInstance().update(repository, RevCommitUtil.getCurrentBranchHeads(repository));
+    CommitGraph graph = RevCommitUtil.getCachedHistory(repository).getGraph();
+    assertTrue(index.update(repository, graph, Integer.MAX_VALUE));
+    assertTrue(index.mightChange(commit, new PathKey("folder/new.xml")));
+    assertTrue(index.mightChange(commit, new PathKey("folder")));
+    int falsePositives = 0;
+    for (int i = 0; i < 100; i++) {
+      if (index.mightChange(commit, new PathKey("other/file" + i + ".xml"))) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 10);
+
+    assertEquals(1, CACHE_DIR.listFiles((dir, name) -> name.endsWith(".paths")).length);
+  }
+}
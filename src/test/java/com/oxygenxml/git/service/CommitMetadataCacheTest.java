@@ -0,0 +1,239 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Test;
+
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+
+/**
+ * Tests for the persistent cache of the commits.
+ */
+public class CommitMetadataCacheTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/CommitMetadataCacheTest/local";
+
+  /**
+   * The directory with the cache files.
+   */
+  private static final File CACHE_DIR = new File("target/test-resources/CommitMetadataCacheTest/cache");
+
+  @Override
+  @After
+  public void tearDown() throws Exception {
+    CommitMetadataCache.getInstance().setCacheDir(null);
+    super.tearDown();
+  }
+
+  /**
+   * Collects the history of the current branch by walking the commits.
+   *
+   * @param repository Loaded repository.
+   *
+   * @return The history.
+   *
+   * @throws Exception If it fails.
+   */
+  private static List<CommitCharacteristics> walkHistory(Repository repository) throws Exception {
+    CommitMetadataCache.getInstance().setCacheDir(null);
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(null, revisions, repository);
+    return revisions;
+  }
+
+  /**
+   * Enables the cache. The cache file is read again on the next use.
+   */
+  private static void openCache() {
+    CommitMetadataCache.getInstance().setCacheDir(CACHE_DIR);
+  }
+
+  /**
+   * Collects the history of the current branch from the cache, after bringing the cache up to date.
+   *
+   * @param repository Loaded repository.
+   *
+   * @return The history.
+   *
+   * @throws Exception If it fails.
+   */
+  private static List<CommitCharacteristics> cachedHistory(Repository repository) throws Exception {
+    CommitMetadataCache.getInstance().update(repository, RevCommitUtil.getCurrentBranchHeads(repository));
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(null, revisions, repository);
+    return revisions;
+  }
+
+  /**
+   * <p><b>Description:</b> the history from the cache, kept in memory or read from disk, is the same as
+   * the one collected by walking the commits.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSameHistory() throws Exception {
+    Repository repository = loadMergedBranches(new File(LOCAL_TEST_REPOSITORY));
+    List<CommitCharacteristics> expected = walkHistory(repository);
+    assertEquals(9, expected.size());
+
+    openCache();
+    assertEquals(expected.toString(), cachedHistory(repository).toString());
+    File[] cacheFiles = CACHE_DIR.listFiles((dir, name) -> name.endsWith(".bin"));
+    assertEquals(1, cacheFiles.length);
+    long lastModified = cacheFiles[0].lastModified();
+    assertEquals(expected.toString(), cachedHistory(repository).toString());
+
+    // Read from disk.
+    openCache();
+    assertEquals(expected.toString(), cachedHistory(repository).toString());
+    // Nothing new, nothing written.
+    assertEquals(lastModified, cacheFiles[0].lastModified());
+
+    try (PagedCommitList commits = new PagedCommitList(repository, null, GitAccess.UNCOMMITED_CHANGES)) {
+      assertTrue(commits.isComplete());
+      assertEquals(expected.size() + 1, commits.size());
+      assertEquals(expected.toString(), commits.subList(1, commits.size()).toString());
+      CommitCharacteristics oldest = expected.get(expected.size() - 1);
+      assertEquals(expected.size(), commits.indexOfCommit(oldest.getCommitAbbreviatedId()));
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> the new commits are added to the cache and the ones that are no longer reachable
+   * after a reset are removed from it.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testExtendAndRewrite() throws Exception {
+    Repository repository = loadMergedBranches(new File(LOCAL_TEST_REPOSITORY));
+    Git git = GitAccess.getInstance().getGit();
+    openCache();
+    List<CommitCharacteristics> initial = cachedHistory(repository);
+
+    RevCommit first = git.commit().setAllowEmpty(true).setMessage("First new commit").call();
+    git.commit().setAllowEmpty(true).setMessage("Second new commit").call();
+    List<CommitCharacteristics> extended = cachedHistory(repository);
+    assertEquals(initial.size() + 2, extended.size());
+    assertEquals("Second new commit", extended.get(0).getCommitMessage());
+    assertEquals(walkHistory(repository).toString(), extended.toString());
+    openCache();
+    assertEquals(extended.toString(), cachedHistory(repository).toString());
+
+    // Drop the last commit and replace it.
+    git.reset().setMode(ResetType.HARD).setRef(first.getName()).call();
+    git.commit().setAllowEmpty(true).setMessage("Replacement").call();
+    List<CommitCharacteristics> rewritten = cachedHistory(repository);
+    assertEquals("Replacement", rewritten.get(0).getCommitMessage());
+    assertFalse(rewritten.toString().contains("Second new commit"));
+    assertEquals(walkHistory(repository).toString(), rewritten.toString());
+    openCache();
+    assertEquals(rewritten.toString(), cachedHistory(repository).toString());
+  }
+
+  /**
+   * <p><b>Description:</b> when the cache is not ready, the history is walked and the list switches
+   * to the cache once it was built in background.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSwitchToCache() throws Exception {
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    Git git = GitAccess.getInstance().getGit();
+    for (int i = 0; i < 5; i++) {
+      git.commit().setAllowEmpty(true).setMessage("Commit " + i).call();
+    }
+    List<CommitCharacteristics> expected = walkHistory(repository);
+
+    openCache();
+    try (PagedCommitList commits = new PagedCommitList(repository, null, null, 2)) {
+      assertFalse(commits.isComplete());
+      assertEquals(2, commits.size());
+
+      CommitMetadataCache.getInstance().update(repository, RevCommitUtil.getCurrentBranchHeads(repository));
+      assertTrue(commits.loadMore());
+      assertTrue(commits.isComplete());
+      assertEquals(expected.toString(), commits.toString());
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> commits with the same commit time are presented in the same order as when
+   * walking the commits.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSameCommitTime() throws Exception {
+    PersonIdent ident = new PersonIdent("Author", "author@example.com", new Date(1500000000000L), TimeZone.getTimeZone("UTC"));
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    Git git = GitAccess.getInstance().getGit();
+    git.commit().setAllowEmpty(true).setMessage("Initial").setAuthor(ident).setCommitter(ident).call();
+    for (int i = 0; i < 5; i++) {
+      String branch = "branch" + i;
+      git.branchCreate().setName(branch).call();
+      git.checkout().setName(branch).call();
+      git.commit().setAllowEmpty(true).setMessage("On " + branch).setAuthor(ident).setCommitter(ident).call();
+      git.checkout().setName("master").call();
+      git.commit().setAllowEmpty(true).setMessage("On master " + i).setAuthor(ident).setCommitter(ident).call();
+      git.merge().include(repository.resolve(branch)).setCommit(false).call();
+      git.commit().setMessage("Merge " + branch).setAuthor(ident).setCommitter(ident).call();
+    }
+
+    List<CommitCharacteristics> expected = walkHistory(repository);
+    assertEquals(16, expected.size());
+    openCache();
+    assertEquals(expected.toString(), cachedHistory(repository).toString());
+    openCache();
+    assertEquals(expected.toString(), cachedHistory(repository).toString());
+  }
+
+  /**
+   * <p><b>Description:</b> a corrupted cache file that announces more elements than it contains is
+   * dropped and written again.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testCorruptedFile() throws Exception {
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    Git git = GitAccess.getInstance().getGit();
+    for (int i = 0; i < 3; i++) {
+      git.commit().setAllowEmpty(true).setMessage("Commit " + i).call();
+    }
+    List<CommitCharacteristics> expected = walkHistory(repository);
+
+    openCache();
+    assertEquals(expected.toString(), cachedHistory(repository).toString());
+    File file = CommitMetadataCache.getInstance().getCacheFile(repository, ".bin");
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    // The number of branch heads, after the magic number and the version.
+    ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE);
+    Files.write(file.toPath(), bytes);
+
+    openCache();
+    assertEquals(expected.toString(), cachedHistory(repository).toString());
+    openCache();
+    assertEquals(expected.toString(), cachedHistory(repository).toString());
+    // Written again, with the master branch.
+    assertEquals(1, ByteBuffer.wrap(Files.readAllBytes(file.toPath())).getInt(8));
+  }
+}
@@ -0,0 +1,74 @@
+package com.oxygenxml.git.service;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.lib.BranchTrackingStatus;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+
+import com.oxygenxml.git.view.history.CommitsAheadAndBehind;
+
+/**
+ * Tests for the commits ahead and behind the upstream branch.
+ */
+public class CommitsAheadAndBehindTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/CommitsAheadAndBehindTest/local";
+  private final static String REMOTE_TEST_REPOSITORY = "target/test-resources/CommitsAheadAndBehindTest/remote";
+
+  /**
+   * <p><b>Description:</b> the commits ahead and behind are the same as the ones counted by JGit and
+   * the counting stops at the given limit.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testAheadAndBehind() throws Exception {
+    Repository remoteRepo = createRepository(REMOTE_TEST_REPOSITORY);
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    bindLocalToRemote(repository, remoteRepo);
+    pushOneFileToRemote(LOCAL_TEST_REPOSITORY, "base.txt", "base");
+    Git git = GitAccess.getInstance().getGit();
+    RevCommit first = repository.parseCommit(repository.resolve("HEAD"));
+
+    // 3 commits only in the remote.
+    for (int i = 0; i < 3; i++) {
+      git.commit().setAllowEmpty(true).setMessage("Remote " + i).call();
+    }
+    GitAccess.getInstance().push("", "");
+    git.reset().setMode(ResetType.HARD).setRef(first.getName()).call();
+    // 5 commits only in the local branch.
+    for (int i = 0; i < 5; i++) {
+      git.commit().setAllowEmpty(true).setMessage("Local " + i).call();
+    }
+
+    BranchTrackingStatus trackingStatus = BranchTrackingStatus.of(repository, repository.getBranch());
+    assertEquals(5, trackingStatus.getAheadCount());
+    assertEquals(3, trackingStatus.getBehindCount());
+    RevCommit head = repository.parseCommit(repository.resolve("HEAD"));
+    RevCommit upstream = repository.parseCommit(repository.resolve(trackingStatus.getRemoteTrackingBranch()));
+
+    CommitsAheadAndBehind all = RevCommitUtil.getCommitsAheadAndBehind(repository, repository.getFullBranch());
+    assertEquals(5, all.getCommitsAhead().size());
+    assertEquals(3, all.getCommitsBehind().size());
+    assertFalse(all.hasMoreAhead());
+    assertFalse(all.hasMoreBehind());
+    assertEquals(head, all.getCommitsAhead().get(0));
+    assertEquals(upstream, all.getCommitsBehind().get(0));
+    assertTrue(all.isAhead(head));
+    assertFalse(all.isBehind(head));
+    assertTrue(all.isBehind(upstream));
+    // The first commit is in both branches.
+    assertFalse(all.isAhead(first));
+    assertFalse(all.isBehind(first));
+
+    CommitsAheadAndBehind limited = RevCommitUtil.getCommitsAheadAndBehind(repository, repository.getFullBranch(), 3);
+    assertEquals(3, limited.getCommitsAhead().size());
+    assertTrue(limited.hasMoreAhead());
+    assertEquals(3, limited.getCommitsBehind().size());
+    assertFalse(limited.hasMoreBehind());
+    assertEquals(all.getCommitsAhead().subList(0, 3), limited.getCommitsAhead());
+  }
+}
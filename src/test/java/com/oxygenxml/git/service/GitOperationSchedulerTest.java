@@ -0,0 +1,132 @@
+package com.oxygenxml.git.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the lanes of the Git operations scheduler.
+ */
+public class GitOperationSchedulerTest {
+
+  @After
+  public void tearDown() {
+    GitOperationScheduler.getInstance().shutdown();
+  }
+
+  /**
+   * <p><b>Description:</b> the user initiated operations jump ahead of the queued refreshes
+   * and the queued duplicate refreshes collapse into one.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testPriorityAndCollapsing() throws Exception {
+    GitOperationScheduler scheduler = GitOperationScheduler.getInstance();
+    List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+    // Keep the operations lane busy.
+    CountDownLatch release = new CountDownLatch(1);
+    scheduler.schedule(() -> {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    Object key = new Object();
+    ScheduledFuture<?> refresh = scheduler.scheduleRefresh(key, () -> executed.add("refresh"), 0);
+    assertSame(refresh, scheduler.scheduleRefresh(key, () -> executed.add("refresh"), 0));
+    ScheduledFuture<?> commit = scheduler.schedule(() -> executed.add("commit"));
+
+    release.countDown();
+    refresh.get(5, TimeUnit.SECONDS);
+    commit.get(5, TimeUnit.SECONDS);
+    assertEquals("[commit, refresh]", executed.toString());
+
+    // The refresh started, so a new one is scheduled.
+    assertTrue(refresh != scheduler.scheduleRefresh(key, () -> executed.add("refresh"), 0));
+  }
+
+  /**
+   * <p><b>Description:</b> the read-only queries run in parallel with each other, but not with
+   * the operations. The background tasks don't wait for the operations.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testReadsWaitForOperations() throws Exception {
+    GitOperationScheduler scheduler = GitOperationScheduler.getInstance();
+
+    // Both queries must run at the same time to end.
+    CountDownLatch parallelReads = new CountDownLatch(2);
+    Runnable read = () -> {
+      parallelReads.countDown();
+      await(parallelReads);
+    };
+    ScheduledFuture<?> read1 = scheduler.scheduleRead(read);
+    ScheduledFuture<?> read2 = scheduler.scheduleRead(read);
+    read1.get(5, TimeUnit.SECONDS);
+    read2.get(5, TimeUnit.SECONDS);
+
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch operationStarted = new CountDownLatch(1);
+    ScheduledFuture<?> operation = scheduler.schedule(() -> {
+      operationStarted.countDown();
+      await(release);
+    });
+    assertTrue(operationStarted.await(5, TimeUnit.SECONDS));
+
+    CountDownLatch background = new CountDownLatch(1);
+    scheduler.scheduleBackground(background::countDown, 10);
+    assertTrue(background.await(5, TimeUnit.SECONDS));
+
+    ScheduledFuture<?> waitingRead = scheduler.scheduleRead(() -> assertTrue(operation.isDone()));
+    Thread.sleep(100);
+    assertFalse(waitingRead.isDone());
+
+    release.countDown();
+    operation.get(5, TimeUnit.SECONDS);
+    waitingRead.get(5, TimeUnit.SECONDS);
+
+    // A repository switch outside the operations lane.
+    Lock lock = scheduler.getRepositoryWriteLock();
+    lock.lock();
+    try {
+      waitingRead = scheduler.scheduleRead(() -> {});
+      Thread.sleep(100);
+      assertFalse(waitingRead.isDone());
+    } finally {
+      lock.unlock();
+    }
+    waitingRead.get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Waits for a latch to be released.
+   *
+   * @param latch The latch.
+   */
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
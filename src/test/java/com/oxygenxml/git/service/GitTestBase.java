@@ -913,6 +913,25 @@ public class GitTestBase extends JFCTestCase { // NOSONAR
     }
   }
 
+  /**
+   * Loads a repository with a merged branch and a renamed file. The master branch has 9 revisions.
+   * The commit cache is disabled, so the history is walked until a test enables it.
+   * 
+   * @param wcTree Directory for the working copy.
+   * 
+   * @return The repository.
+   * 
+   * @throws Exception Problems generating the repository.
+   */
+  protected Repository loadMergedBranches(File wcTree) throws Exception {
+    generateRepositoryAndLoad(
+        getClass().getClassLoader().getResource("scripts/history_script_branches_merged.txt"),
+        wcTree);
+    GitAccess.getInstance().getGit().checkout().setName("master").call();
+    CommitMetadataCache.getInstance().setCacheDir(null);
+    return GitAccess.getInstance().getRepository();
+  }
+
   /**
    * Wait for refresh task and any other tasks that the added on the scheduler.
    */
@@ -931,6 +950,11 @@ public class GitTestBase extends JFCTestCase { // NOSONAR
     Semaphore s = new Semaphore(0);
     GitOperationScheduler.getInstance().schedule(() -> {s.release();}, 50);
       s.tryAcquire(1, 4000, TimeUnit.MILLISECONDS);
+      
+      // The read-only queries run in parallel, on their own lane.
+      for (int i = 0; i < 40 && GitOperationScheduler.getInstance().hasPendingReadTasks(); i++) {
+        Thread.sleep(100);
+      }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       
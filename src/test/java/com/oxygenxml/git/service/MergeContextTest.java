@@ -0,0 +1,233 @@
+package com.oxygenxml.git.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the stages of the conflicting files.
+ */
+public class MergeContextTest {
+
+  /**
+   * The directory with the repository.
+   */
+  private static final File TEST_DIR = new File("target/test-resources/MergeContextTest");
+
+  /**
+   * Removes the test files.
+   *
+   * @throws Exception If it fails.
+   */
+  @After
+  public void tearDown() throws Exception {
+    MergeContext.reset();
+    FileUtils.deleteDirectory(TEST_DIR);
+  }
+
+  /**
+   * <p><b>Description:</b> the stages of the conflicting files are the versions obtained by diffing
+   * the index with the working tree, and they follow the changes of the index.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testStages() throws Exception {
+    try (Git git = Git.init().setDirectory(TEST_DIR).call()) {
+      Repository repository = git.getRepository();
+      writeFiles("base");
+      write("unchanged.txt", "unchanged");
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("Base").call();
+      git.branchCreate().setName("other").call();
+
+      writeFiles("mine");
+      git.commit().setAll(true).setMessage("Mine").call();
+      git.checkout().setName("other").call();
+      writeFiles("theirs");
+      git.commit().setAll(true).setMessage("Theirs").call();
+      git.checkout().setName("master").call();
+
+      MergeResult result = git.merge().include(repository.resolve("other")).call();
+      assertEquals(10, result.getConflicts().size());
+
+      MergeContext context = MergeContext.getInstance();
+      assertEquals(10, context.getConflictingPaths(repository).size());
+      for (int i = 0; i < 10; i++) {
+        String path = "file" + i + ".txt";
+        List<ObjectId> versions = new ArrayList<>();
+        for (DiffEntry entry : git.diff().setPathFilter(PathFilter.create(path)).call()) {
+          versions.add(entry.getOldId().toObjectId());
+        }
+        assertEquals(3, versions.size());
+        ObjectId[] stages = context.getStages(repository, path);
+        assertNull(stages[DirCacheEntry.STAGE_0]);
+        assertEquals(versions, Arrays.asList(stages).subList(DirCacheEntry.STAGE_1, DirCacheEntry.STAGE_3 + 1));
+      }
+      assertNull(context.getStages(repository, "unchanged.txt"));
+
+      // Resolved outside the plugin.
+      git.add().addFilepattern("file0.txt").call();
+      assertNull(context.getStages(repository, "file0.txt"));
+      assertEquals(9, context.getConflictingPaths(repository).size());
+
+      git.reset().setMode(ResetType.HARD).call();
+      assertEquals(0, context.getConflictingPaths(repository).size());
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> the context is read again when the first commit is made in a repository
+   * without any history.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testFirstCommit() throws Exception {
+    try (Git git = Git.init().setDirectory(TEST_DIR).call()) {
+      Repository repository = git.getRepository();
+      MergeContext context = MergeContext.getInstance();
+      assertEquals(0, context.getConflictingPaths(repository).size());
+
+      write("file.txt", "content");
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("First").call();
+      assertEquals(0, context.getConflictingPaths(repository).size());
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> in a modify/delete conflict there is no THEIRS stage. BASE and MINE
+   * are the right versions.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testModifyDeleteConflict() throws Exception {
+    try (Git git = Git.init().setDirectory(TEST_DIR).call()) {
+      Repository repository = git.getRepository();
+      write("file.txt", "base");
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("Base").call();
+      git.branchCreate().setName("other").call();
+
+      write("file.txt", "mine");
+      git.commit().setAll(true).setMessage("Mine").call();
+      git.checkout().setName("other").call();
+      git.rm().addFilepattern("file.txt").call();
+      git.commit().setMessage("Theirs").call();
+      git.checkout().setName("master").call();
+
+      MergeResult result = git.merge().include(repository.resolve("other")).call();
+      assertEquals(1, result.getConflicts().size());
+
+      ObjectId base = blob(repository, "HEAD~1");
+      ObjectId mine = blob(repository, "HEAD");
+      ObjectId[] stages = MergeContext.getInstance().getStages(repository, "file.txt");
+      assertEquals(base, stages[DirCacheEntry.STAGE_1]);
+      assertEquals(mine, stages[DirCacheEntry.STAGE_2]);
+      assertNull(stages[DirCacheEntry.STAGE_3]);
+
+      assertEquals(base, RevCommitUtil.getBaseCommit(git, "file.txt"));
+      assertEquals(mine, RevCommitUtil.getMyCommit(git, "file.txt"));
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> in an add/add conflict there is no BASE stage. MINE and THEIRS
+   * are the right versions.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testAddAddConflict() throws Exception {
+    try (Git git = Git.init().setDirectory(TEST_DIR).call()) {
+      Repository repository = git.getRepository();
+      write("unchanged.txt", "unchanged");
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("Base").call();
+      git.branchCreate().setName("other").call();
+
+      write("file.txt", "mine");
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("Mine").call();
+      git.checkout().setName("other").call();
+      write("file.txt", "theirs");
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("Theirs").call();
+      git.checkout().setName("master").call();
+
+      MergeResult result = git.merge().include(repository.resolve("other")).call();
+      assertEquals(1, result.getConflicts().size());
+
+      ObjectId mine = blob(repository, "HEAD");
+      ObjectId theirs = blob(repository, "other");
+      ObjectId[] stages = MergeContext.getInstance().getStages(repository, "file.txt");
+      assertNull(stages[DirCacheEntry.STAGE_1]);
+      assertEquals(mine, stages[DirCacheEntry.STAGE_2]);
+      assertEquals(theirs, stages[DirCacheEntry.STAGE_3]);
+
+      assertEquals(mine, RevCommitUtil.getMyCommit(git, "file.txt"));
+      assertEquals(theirs, RevCommitUtil.getTheirCommit(git, "file.txt"));
+    }
+  }
+
+  /**
+   * Gets the version of "file.txt" from a revision.
+   *
+   * @param repository The repository.
+   * @param revision   The revision.
+   *
+   * @return The object ID of the file.
+   *
+   * @throws Exception If it fails.
+   */
+  private static ObjectId blob(Repository repository, String revision) throws Exception {
+    return repository.resolve(revision + ":file.txt");
+  }
+
+  /**
+   * Writes the files that will be in conflict.
+   *
+   * @param content The content of the files.
+   *
+   * @throws Exception If it fails.
+   */
+  private static void writeFiles(String content) throws Exception {
+    for (int i = 0; i < 10; i++) {
+      write("file" + i + ".txt", content + " " + i);
+    }
+  }
+
+  /**
+   * Writes a file in the working copy.
+   *
+   * @param path    The path of the file.
+   * @param content The content of the file.
+   *
+   * @throws Exception If it fails.
+   */
+  private static void write(String path, String content) throws Exception {
+    FileUtils.writeStringToFile(new File(TEST_DIR, path), content, "UTF-8");
+  }
+}
@@ -0,0 +1,165 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+
+/**
+ * Tests for the history that is loaded in pages.
+ */
+public class PagedCommitListTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/PagedCommitListTest";
+
+  /**
+   * The number of revisions in a page. Small, so that a small history has several pages.
+   */
+  private static final int PAGE_SIZE = 3;
+
+  /**
+   * Collects the history of the current branch at once.
+   *
+   * @param repository Loaded repository.
+   * @param filePath   An optional resource path.
+   *
+   * @return The history.
+   *
+   * @throws Exception If it fails.
+   */
+  private static List<CommitCharacteristics> collectHistory(Repository repository, String filePath) throws Exception {
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(filePath, revisions, repository);
+    return revisions;
+  }
+
+  /**
+   * <p><b>Description:</b> the revisions are loaded a page at a time and, once all are loaded,
+   * they are the same as the ones collected at once.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testPages() throws Exception {
+    Repository repository = loadMergedBranches(new File(LOCAL_TEST_REPOSITORY));
+    List<CommitCharacteristics> expected = collectHistory(repository, null);
+    assertEquals(9, expected.size());
+
+    try (PagedCommitList commits = new PagedCommitList(repository, null, GitAccess.UNCOMMITED_CHANGES, PAGE_SIZE)) {
+      int[] growths = new int[1];
+      commits.addGrowthListener(() -> growths[0]++);
+      // Only the first page.
+      assertEquals(PAGE_SIZE + 1, commits.size());
+      assertFalse(commits.isComplete());
+      assertSame(GitAccess.UNCOMMITED_CHANGES, commits.get(0));
+
+      assertTrue(commits.loadMore());
+      assertEquals(2 * PAGE_SIZE + 1, commits.size());
+      assertEquals(1, growths[0]);
+
+      commits.loadAll();
+      assertTrue(commits.isComplete());
+      assertFalse(commits.loadMore());
+      assertEquals(expected.toString(), commits.subList(1, commits.size()).toString());
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> looking for a revision that is not loaded yet loads the pages up to it.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSeek() throws Exception {
+    Repository repository = loadMergedBranches(new File(LOCAL_TEST_REPOSITORY));
+    List<CommitCharacteristics> expected = collectHistory(repository, null);
+
+    try (PagedCommitList commits = new PagedCommitList(repository, null, null, PAGE_SIZE)) {
+      int index = PAGE_SIZE + 2;
+      CommitCharacteristics commit = expected.get(index);
+      assertEquals(index, commits.indexOfCommit(commit.getCommitAbbreviatedId()));
+      assertEquals(index, commits.indexOfCommit(commit.getCommitId()));
+      assertEquals(2 * PAGE_SIZE, commits.size());
+      assertEquals(commit.toString(), commits.get(index).toString());
+
+      assertEquals(-1, commits.indexOfCommit("0000000"));
+      assertTrue(commits.isComplete());
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> the history of a file continues with its history before it was renamed.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testRenamedFile() throws Exception {
+    generateRepositoryAndLoad(
+        getClass().getClassLoader().getResource("scripts/history_script_follow_rename.txt"),
+        new File("target/test-resources/PagedCommitListTest"));
+    CommitMetadataCache.getInstance().setCacheDir(null);
+    Repository repository = GitAccess.getInstance().getRepository();
+    String path = "file_renamed.txt";
+    List<CommitCharacteristics> expected = collectHistory(repository, path);
+
+    // A revision in each page.
+    try (PagedCommitList commits = new PagedCommitList(repository, path, null, 1)) {
+      assertEquals(1, commits.size());
+      commits.loadAll();
+      assertEquals(expected.toString(), commits.toString());
+      // The initial commit, the rename and the change after it.
+      assertEquals(3, commits.size());
+      assertEquals("First commit.", commits.get(2).getCommitMessage());
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> after new commits, only they are read and presented before the loaded revisions.
+   * After the history is rewritten, it must be read again.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testUpdate() throws Exception {
+    Repository repository = loadMergedBranches(new File(LOCAL_TEST_REPOSITORY));
+    Git git = GitAccess.getInstance().getGit();
+    PagedCommitList commits = new PagedCommitList(repository, null, null, PAGE_SIZE);
+    assertSame(commits, commits.update(null));
+
+    // The uncommitted changes appear.
+    PagedCommitList withHead = commits.update(GitAccess.UNCOMMITED_CHANGES);
+    assertEquals(commits.size() + 1, withHead.size());
+    assertSame(GitAccess.UNCOMMITED_CHANGES, withHead.get(0));
+    assertEquals(commits.get(0).toString(), withHead.get(1).toString());
+    // The walk was taken over.
+    assertTrue(commits.isComplete());
+    assertFalse(withHead.isComplete());
+
+    RevCommit first = git.commit().setMessage("First new commit").call();
+    RevCommit second = git.commit().setMessage("Second new commit").call();
+    try (PagedCommitList updated = withHead.update(GitAccess.UNCOMMITED_CHANGES)) {
+      assertEquals(withHead.size() + 2, updated.size());
+      assertEquals(1, updated.indexOfCommit(second.getName()));
+      assertEquals(2, updated.indexOfCommit(first.getName()));
+      assertEquals("Second new commit", updated.get(1).getCommitMessage());
+
+      updated.loadAll();
+      assertEquals(collectHistory(repository, null).toString(), updated.subList(1, updated.size()).toString());
+
+      // Rewritten.
+      git.reset().setMode(ResetType.HARD).setRef("HEAD~3").call();
+      assertNull(updated.update(GitAccess.UNCOMMITED_CHANGES));
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.options.OptionsManager;
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests for the parallel status computation.
+ */
+public class ParallelStatusTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/ParallelStatusTest";
+
+  /**
+   * <p><b>Description:</b> the status computed in parallel is the same as the one computed
+   * by a serial walk, including the ignored resources.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSameStatusAsSerialWalk() throws Exception {
+    GitAccess gitAccess = GitAccess.getInstance();
+    createRepository(LOCAL_TEST_REPOSITORY);
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, ".gitignore"), "*.log\nbuild/");
+    new File(LOCAL_TEST_REPOSITORY, "a").mkdirs();
+    new File(LOCAL_TEST_REPOSITORY, "b/c").mkdirs();
+    new File(LOCAL_TEST_REPOSITORY, "d").mkdirs();
+    new File(LOCAL_TEST_REPOSITORY, "build").mkdirs();
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a/a1.txt", "a1");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a/a2.txt", "a2");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "b/c/c1.txt", "c1");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "d/d1.txt", "d1");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "root.txt", "root");
+
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "a/a1.txt"), "a1 changed");
+    new File(LOCAL_TEST_REPOSITORY, "d/d1.txt").delete();
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "b/c/new.txt"), "new");
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "b/c/out.log"), "ignored");
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "build/out.txt"), "ignored");
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "e.txt"), "untracked");
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "root.txt"), "root changed");
+    gitAccess.add(new FileStatus(GitChangeType.MODIFIED, "root.txt"));
+
+    OptionsManager optionsManager = OptionsManager.getInstance();
+    boolean initialEnabled = optionsManager.isParallelStatusEnabled();
+    int initialThreshold = optionsManager.getParallelStatusThreshold();
+    try {
+      optionsManager.setParallelStatusEnabled(false);
+      GitStatus serialStatus = gitAccess.getStatus();
+
+      optionsManager.setParallelStatusEnabled(true);
+      optionsManager.setParallelStatusThreshold(0);
+      GitStatus parallelStatus = gitAccess.getStatus();
+
+      assertEquals(new HashSet<>(serialStatus.getUnstagedFiles()), new HashSet<>(parallelStatus.getUnstagedFiles()));
+      assertEquals(serialStatus.getUnstagedFiles().size(), parallelStatus.getUnstagedFiles().size());
+      assertEquals(new HashSet<>(serialStatus.getStagedFiles()), new HashSet<>(parallelStatus.getStagedFiles()));
+      // a1.txt, d1.txt, new.txt, e.txt and .gitignore.
+      assertEquals(5, parallelStatus.getUnstagedFiles().size());
+      assertEquals(1, parallelStatus.getStagedFiles().size());
+    } finally {
+      optionsManager.setParallelStatusEnabled(initialEnabled);
+      optionsManager.setParallelStatusThreshold(initialThreshold);
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> the top-level entries are distributed in balanced partitions.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testPartition() throws Exception {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    counts.put("big", 100);
+    counts.put("medium", 60);
+    counts.put("small1", 30);
+    counts.put("small2", 30);
+    counts.put("file.txt", 1);
+
+    List<Collection<String>> partitions = ParallelStatus.partition(counts, 2);
+    assertEquals(2, partitions.size());
+    List<String> all = new ArrayList<>();
+    partitions.forEach(all::addAll);
+    assertEquals(5, all.size());
+    assertEquals(counts.keySet(), new HashSet<>(all));
+
+    // The two biggest entries end up in different partitions.
+    for (Collection<String> partition : partitions) {
+      if (partition.contains("big")) {
+        assertFalse(partition.toString(), partition.contains("medium"));
+      }
+    }
+
+    assertEquals(1, ParallelStatus.partition(counts, 1).size());
+    assertEquals(5, ParallelStatus.partition(counts, 8).size());
+  }
+}
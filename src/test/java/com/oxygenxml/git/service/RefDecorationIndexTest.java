@@ -0,0 +1,78 @@
+package com.oxygenxml.git.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Test;
+
+import com.oxygenxml.git.service.RefDecorationIndex.RefDecorations;
+
+/**
+ * Tests for the branches and the tags of the commits, as presented in the history.
+ */
+public class RefDecorationIndexTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/RefDecorationIndexTest/local";
+  private final static String REMOTE_TEST_REPOSITORY = "target/test-resources/RefDecorationIndexTest/remote";
+
+  @Override
+  @After
+  public void tearDown() throws Exception {
+    RefDecorationIndex.reset();
+    super.tearDown();
+  }
+
+  /**
+   * <p><b>Description:</b> the local branches, the remote branches and the tags, including the annotated
+   * ones, are found by commit and follow the changes of the refs.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testDecorations() throws Exception {
+    Repository remoteRepo = createRepository(REMOTE_TEST_REPOSITORY);
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    bindLocalToRemote(repository, remoteRepo);
+    pushOneFileToRemote(LOCAL_TEST_REPOSITORY, "pushed.txt", "pushed");
+    Git git = GitAccess.getInstance().getGit();
+    ObjectId upstream = repository.resolve("refs/remotes/origin/master");
+    git.tag().setName("v1").setObjectId(repository.parseCommit(upstream)).call();
+    commitOneFile(LOCAL_TEST_REPOSITORY, "local.txt", "local");
+    ObjectId head = repository.resolve("HEAD");
+
+    RefDecorationIndex index = RefDecorationIndex.getInstance();
+    RefDecorations decorations = index.getDecorations(repository);
+    assertEquals(Collections.singletonList("master"), decorations.getLocalBranches(head));
+    assertEquals(Collections.emptyList(), decorations.getRemoteBranches(head));
+    assertEquals(Collections.emptyList(), decorations.getLocalBranches(upstream));
+    assertEquals(Collections.singletonList("origin/master"), decorations.getRemoteBranches(upstream));
+    assertEquals(Collections.singletonList("v1"), decorations.getTags(upstream));
+    assertEquals(Collections.emptyList(), decorations.getTags(head));
+    // Nothing changed.
+    assertSame(decorations, index.getDecorations(repository));
+
+    // An annotated tag and a lightweight tag on the same commit.
+    git.tag().setName("annotated").setMessage("Release").setObjectId(repository.parseCommit(head)).call();
+    git.tag().setName("lightweight").setAnnotated(false).setObjectId(repository.parseCommit(head)).call();
+    RevCommit commit = git.commit().setAllowEmpty(true).setMessage("New commit").call();
+    index.invalidate();
+    decorations = index.getDecorations(repository);
+    assertEquals(Arrays.asList("annotated", "lightweight"), decorations.getTags(head));
+    assertEquals(Collections.emptyList(), decorations.getLocalBranches(head));
+    assertEquals(Collections.singletonList("master"), decorations.getLocalBranches(commit));
+
+    // Delete a tag and create a branch.
+    git.tagDelete().setTags("lightweight").call();
+    git.branchCreate().setName("feature").setStartPoint(repository.parseCommit(head)).call();
+    index.invalidate();
+    decorations = index.getDecorations(repository);
+    assertEquals(Collections.singletonList("annotated"), decorations.getTags(head));
+    assertEquals(Collections.singletonList("feature"), decorations.getLocalBranches(head));
+  }
+}
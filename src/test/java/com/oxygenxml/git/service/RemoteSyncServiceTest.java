@@ -0,0 +1,186 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the service that brings the commits from the remote repository.
+ */
+public class RemoteSyncServiceTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/RemoteSyncServiceTest/local";
+  private final static String REMOTE_TEST_REPOSITORY = "target/test-resources/RemoteSyncServiceTest/remote";
+  private GitAccess gitAccess;
+
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+
+    gitAccess = GitAccess.getInstance();
+    createRepository(LOCAL_TEST_REPOSITORY);
+    createRepository(REMOTE_TEST_REPOSITORY);
+    Repository remoteRepo = gitAccess.getRepository();
+    commitOneFile(REMOTE_TEST_REPOSITORY, "remote.txt", "remote");
+
+    bindToRemote(LOCAL_TEST_REPOSITORY, remoteRepo);
+  }
+
+  /**
+   * Binds a repository to the remote one.
+   *
+   * @param repository The local repository.
+   * @param remoteRepo The remote repository.
+   *
+   * @throws Exception If it fails.
+   */
+  private void bindToRemote(String repository, Repository remoteRepo) throws Exception {
+    gitAccess.setRepositorySynchronously(repository);
+    StoredConfig config = gitAccess.getRepository().getConfig();
+    RemoteConfig remoteConfig = new RemoteConfig(config, "origin");
+    URIish uri = new URIish(remoteRepo.getDirectory().toURI().toURL());
+    remoteConfig.addURI(uri);
+    remoteConfig.addFetchRefSpec(new RefSpec("+refs/heads/*:refs/remotes/origin/*"));
+    remoteConfig.update(config);
+    config.setString(ConfigConstants.CONFIG_BRANCH_SECTION, "master", ConfigConstants.CONFIG_KEY_REMOTE, "origin");
+    config.setString(ConfigConstants.CONFIG_BRANCH_SECTION, "master", ConfigConstants.CONFIG_KEY_MERGE, Constants.R_HEADS + "master");
+    config.save();
+  }
+
+  /**
+   * <p><b>Description:</b> the fetch is performed only when the remote branches moved and a recent
+   * result is reused unless forced.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testFetchOnlyWhenRemoteMoved() throws Exception {
+    RemoteSyncService syncService = RemoteSyncService.getInstance();
+
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+    // The remote branch is not known yet.
+    assertTrue(syncService.sync(true));
+    // Nothing moved.
+    assertFalse(syncService.sync(true));
+
+    // A new commit in the remote repository.
+    commitOneFile(REMOTE_TEST_REPOSITORY, "remote2.txt", "remote 2");
+    ObjectId remoteHead = gitAccess.getRepository().resolve(Constants.HEAD);
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+
+    // The result of the previous check is recent.
+    assertFalse(syncService.sync(false));
+    assertFalse(remoteHead.equals(getRemoteTrackingHead()));
+
+    assertTrue(syncService.sync(true));
+    assertEquals(remoteHead, getRemoteTrackingHead());
+  }
+
+  /**
+   * <p><b>Description:</b> a tag created in the remote repository is brought even if no branch moved.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testFetchNewTag() throws Exception {
+    RemoteSyncService syncService = RemoteSyncService.getInstance();
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+    assertTrue(syncService.sync(true));
+    assertFalse(syncService.sync(true));
+
+    try (Git remote = Git.open(new File(REMOTE_TEST_REPOSITORY))) {
+      remote.tag().setName("v1").call();
+    }
+    assertTrue(syncService.sync(true));
+    assertNotNull(gitAccess.getRepository().exactRef(Constants.R_TAGS + "v1"));
+    assertFalse(syncService.sync(true));
+
+    // A local tag, not pushed yet.
+    gitAccess.getGit().tag().setName("local").call();
+    assertFalse(syncService.sync(true));
+  }
+
+  /**
+   * <p><b>Description:</b> the remote configured for the current branch is checked and fetched.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testBranchRemote() throws Exception {
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+    StoredConfig config = gitAccess.getRepository().getConfig();
+    RemoteConfig remoteConfig = new RemoteConfig(config, "upstream");
+    remoteConfig.addURI(new URIish(new File(REMOTE_TEST_REPOSITORY).toURI().toURL()));
+    remoteConfig.addFetchRefSpec(new RefSpec("+refs/heads/*:refs/remotes/upstream/*"));
+    remoteConfig.update(config);
+    config.unsetSection(ConfigConstants.CONFIG_REMOTE_SECTION, "origin");
+    config.setString(ConfigConstants.CONFIG_BRANCH_SECTION, "master", ConfigConstants.CONFIG_KEY_REMOTE, "upstream");
+    config.save();
+
+    RemoteSyncService syncService = RemoteSyncService.getInstance();
+    assertTrue(syncService.sync(true));
+    assertNotNull(gitAccess.getRepository().resolve(Constants.R_REMOTES + "upstream/master"));
+    assertNull(getRemoteTrackingHead());
+    assertFalse(syncService.sync(true));
+  }
+
+  /**
+   * @return The commit of the remote-tracking master branch.
+   *
+   * @throws Exception If it fails.
+   */
+  private ObjectId getRemoteTrackingHead() throws Exception {
+    return gitAccess.getRepository().resolve(Constants.R_REMOTES + "origin/master");
+  }
+
+  /**
+   * <p><b>Description:</b> the checks are delayed more and more while the remote repository is unavailable.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testBackoffWhenUnavailable() throws Exception {
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+    StoredConfig config = gitAccess.getRepository().getConfig();
+    config.setString(ConfigConstants.CONFIG_REMOTE_SECTION, "origin", ConfigConstants.CONFIG_KEY_URL,
+        new File("target/test-resources/RemoteSyncServiceTest/missing").toURI().toString());
+    config.save();
+
+    RemoteSyncService syncService = RemoteSyncService.getInstance();
+    long previousInterval = syncService.getCurrentInterval();
+    for (int i = 0; i < 3; i++) {
+      try {
+        syncService.sync(true);
+        fail("The remote should be unavailable");
+      } catch (RepositoryUnavailableException e) {
+        // Expected.
+      }
+      long interval = syncService.getCurrentInterval();
+      assertTrue(interval >= previousInterval);
+      previousInterval = interval;
+    }
+    assertEquals(4 * RemoteSyncService.DEFAULT_INTERVAL, previousInterval);
+
+    // The failure is reused while in backoff.
+    try {
+      syncService.sync(false);
+      fail("The last failure should be reported");
+    } catch (RepositoryUnavailableException e) {
+      // Expected.
+    }
+  }
+}
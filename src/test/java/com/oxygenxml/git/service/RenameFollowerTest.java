@@ -0,0 +1,75 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+
+/**
+ * Tests for following the resources across many renames.
+ */
+public class RenameFollowerTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/RenameFollowerTest";
+
+  /**
+   * The number of times the file is renamed.
+   */
+  private static final int RENAMES = 5;
+
+  /**
+   * <p><b>Description:</b> the path of a resource is followed across all its renames, from the HEAD revision
+   * to the first one, back to the HEAD revision and to the working copy, where it is renamed once more.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testFollowRenames() throws Exception {
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    Git git = GitAccess.getInstance().getGit();
+    File workTree = repository.getWorkTree();
+
+    String initialPath = "file.xml";
+    FileUtils.write(new File(workTree, initialPath), "<root>\n  <content>renamed</content>\n</root>\n", "UTF-8");
+    git.add().addFilepattern(initialPath).call();
+    RevCommit first = git.commit().setMessage("Initial").call();
+
+    // Each rename is followed by an unrelated change.
+    String headPath = initialPath;
+    for (int i = 1; i <= RENAMES; i++) {
+      String newPath = "step" + i + "/file.xml";
+      FileUtils.moveFile(new File(workTree, headPath), new File(workTree, newPath));
+      git.add().addFilepattern(newPath).call();
+      git.rm().addFilepattern(headPath).call();
+      git.commit().setMessage("Rename " + i).call();
+      headPath = newPath;
+
+      FileUtils.write(new File(workTree, "other.txt"), "Change " + i, "UTF-8");
+      git.add().addFilepattern("other.txt").call();
+      git.commit().setMessage("Change " + i).call();
+    }
+    RevCommit head = repository.parseCommit(repository.resolve("HEAD"));
+
+    assertEquals(initialPath, RevCommitUtil.getOldPathStartingFromHead(git, first.name(), headPath));
+    assertEquals(headPath, RevCommitUtil.getNewPath(git, first, head, initialPath));
+    assertEquals(headPath, RevCommitUtil.getNewPathInWorkingCopy(git, initialPath, first.name()));
+
+    // All the revisions from all the paths.
+    List<CommitCharacteristics> revisions = new ArrayList<>();
+    RevCommitUtil.collectCurrentBranchRevisions(headPath, revisions, repository);
+    assertEquals(RENAMES + 1, revisions.size());
+    assertEquals(first.getId().getName(), revisions.get(revisions.size() - 1).getCommitId());
+
+    // A rename that is not committed.
+    FileUtils.moveFile(new File(workTree, headPath), new File(workTree, "moved/renamed.xml"));
+    assertEquals("moved/renamed.xml", RevCommitUtil.getNewPathInWorkingCopy(git, initialPath, first.name()));
+  }
+}
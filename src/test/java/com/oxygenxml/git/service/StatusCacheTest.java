@@ -0,0 +1,187 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests for the incremental status computation.
+ */
+public class StatusCacheTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/StatusCacheTest";
+
+  /**
+   * <p><b>Description:</b> only the paths marked as dirty are re-checked.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testIncrementalStatus() throws Exception {
+    createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "b.txt", "b");
+
+    StatusCache cache = StatusCache.getInstance();
+    cache.invalidate();
+
+    GitStatus status = cache.getStatus();
+    assertTrue(status.getUnstagedFiles().isEmpty());
+    assertTrue(status.getStagedFiles().isEmpty());
+
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "a.txt"), "a changed");
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "b.txt"), "b changed");
+
+    // Nobody told the cache about the changes.
+    status = cache.getStatus();
+    assertTrue(status.getUnstagedFiles().isEmpty());
+
+    cache.markDirty(Arrays.asList("a.txt"));
+    status = cache.getStatus();
+    assertEquals("[(changeType=MODIFIED, fileLocation=a.txt)]", status.getUnstagedFiles().toString());
+
+    // A full walk detects everything.
+    cache.invalidate();
+    status = cache.getStatus();
+    assertEquals(2, status.getUnstagedFiles().size());
+  }
+
+  /**
+   * <p><b>Description:</b> the Git operations performed by the plugin update the cache.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testStatusUpdatedOnGitEvents() throws Exception {
+    createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+
+    StatusCache cache = StatusCache.getInstance();
+    cache.invalidate();
+    cache.getStatus();
+
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "a.txt"), "a changed");
+    GitAccess.getInstance().add(new FileStatus(GitChangeType.MODIFIED, "a.txt"));
+
+    GitStatus status = cache.getStatus();
+    assertTrue(status.getUnstagedFiles().isEmpty());
+    assertEquals("[(changeType=CHANGED, fileLocation=a.txt)]", status.getStagedFiles().toString());
+
+    GitAccess.getInstance().commit("Changed a");
+    status = cache.getStatus();
+    assertTrue(status.getStagedFiles().isEmpty());
+  }
+
+  /**
+   * <p><b>Description:</b> a change in the index made outside the plugin triggers a full walk.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testIndexChangedOutsideThePlugin() throws Exception {
+    createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+
+    StatusCache cache = StatusCache.getInstance();
+    cache.invalidate();
+    cache.getStatus();
+
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "new.txt"), "new");
+    // Bypass the plugin API so that no event is fired.
+    GitAccess.getInstance().getGit().add().addFilepattern("new.txt").call();
+
+    GitStatus status = cache.getStatus();
+    assertEquals("[(changeType=ADD, fileLocation=new.txt)]", status.getStagedFiles().toString());
+  }
+
+  /**
+   * <p><b>Description:</b> the snapshot is shared by all the requests made in the same epoch,
+   * including the concurrent ones. A change starts a new epoch.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSnapshotSharedWithinEpoch() throws Exception {
+    createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+
+    StatusCache cache = StatusCache.getInstance();
+    cache.setWorkingTreeWatched(true);
+    cache.invalidate();
+
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "a.txt"), "a changed");
+    StatusSnapshot[] snapshots = new StatusSnapshot[4];
+    Thread[] threads = new Thread[snapshots.length];
+    for (int i = 0; i < threads.length; i++) {
+      int index = i;
+      threads[i] = new Thread(() -> snapshots[index] = cache.getSnapshot());
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (StatusSnapshot snapshot : snapshots) {
+      assertSame(snapshots[0], snapshot);
+    }
+    assertSame(snapshots[0], cache.getSnapshot());
+    assertTrue(snapshots[0].hasUncommittedChanges());
+    assertEquals("[(changeType=MODIFIED, fileLocation=a.txt)]", snapshots[0].getUnstagedFiles().toString());
+
+    cache.markDirty(Arrays.asList("b.txt"));
+    StatusSnapshot snapshot = cache.getSnapshot();
+    assertNotSame(snapshots[0], snapshot);
+    assertTrue(snapshot.getEpoch() > snapshots[0].getEpoch());
+    assertEquals(snapshots[0].getUnstagedFiles(), snapshot.getUnstagedFiles());
+
+    // Without a watcher, the working tree cannot be trusted.
+    cache.setWorkingTreeWatched(false);
+    assertNotSame(snapshot, cache.getSnapshot());
+  }
+
+  /**
+   * <p><b>Description:</b> a submodule whose HEAD moved is reported, even if only a path from
+   * inside it was re-checked.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSubmoduleHeadMoved() throws Exception {
+    String moduleRepository = "target/test-resources/StatusCacheTest_module";
+    createRepository(moduleRepository);
+    commitOneFile(moduleRepository, "module.txt", "module");
+    createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    Git git = GitAccess.getInstance().getGit();
+    git.submoduleAdd()
+        .setURI(new File(moduleRepository).toURI().toString())
+        .setPath("module")
+        .call()
+        .close();
+    git.commit().setMessage("Submodule").call();
+
+    StatusCache cache = StatusCache.getInstance();
+    cache.invalidate();
+    assertTrue(cache.getStatus().getUnstagedFiles().isEmpty());
+
+    // A new commit inside the submodule.
+    File moduleDir = new File(LOCAL_TEST_REPOSITORY, "module");
+    setFileContent(new File(moduleDir, "module2.txt"), "module 2");
+    try (Git moduleGit = Git.open(moduleDir)) {
+      moduleGit.add().addFilepattern("module2.txt").call();
+      moduleGit.commit().setMessage("Module change").call();
+    }
+    cache.markDirty(Arrays.asList("module/module2.txt"));
+
+    assertEquals("[(changeType=SUBMODULE, fileLocation=module)]", cache.getStatus().getUnstagedFiles().toString());
+  }
+}
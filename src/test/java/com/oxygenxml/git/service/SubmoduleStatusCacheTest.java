@@ -0,0 +1,74 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.submodule.SubmoduleStatus;
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests for the cached submodules status.
+ */
+public class SubmoduleStatusCacheTest extends GitTestBase {
+
+  /**
+   * <p><b>Description:</b> the submodules status is computed once and computed again only when
+   * a gitlink or the HEAD of a submodule changes.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testStatusReusedUntilSubmoduleChanges() throws Exception {
+    GitAccess gitAccess = GitAccess.getInstance();
+    String parentRepository = "target/test-resources/SubmoduleStatusCacheTest/parent";
+    String moduleRepository = "target/test-resources/SubmoduleStatusCacheTest/module";
+    createRepository(moduleRepository);
+    commitOneFile(moduleRepository, "module.txt", "module");
+    createRepository(parentRepository);
+    commitOneFile(parentRepository, "parent.txt", "parent");
+
+    SubmoduleStatusCache cache = SubmoduleStatusCache.getInstance();
+    assertTrue(cache.getSubmodules().isEmpty());
+
+    // Bypass the plugin API so that no event is fired.
+    Repository subRepo = gitAccess.getGit().submoduleAdd()
+        .setURI(new File(moduleRepository).toURI().toString())
+        .setPath("modules/module")
+        .call();
+    subRepo.close();
+
+    Map<String, SubmoduleStatus> statuses = cache.getStatuses();
+    assertEquals("[modules/module]", statuses.keySet().toString());
+    // Nothing changed. Same result.
+    assertSame(statuses, cache.getStatuses());
+
+    ObjectId initialHead = gitAccess.submoduleCompare("modules/module", false);
+    assertEquals(initialHead, gitAccess.submoduleCompare("modules/module", true));
+
+    // A new commit inside the submodule.
+    File moduleDir = new File(parentRepository, "modules/module");
+    setFileContent(new File(moduleDir, "module2.txt"), "module 2");
+    RevCommit newHead;
+    try (Git moduleGit = Git.open(moduleDir)) {
+      moduleGit.add().addFilepattern("module2.txt").call();
+      newHead = moduleGit.commit().setMessage("Module change").call();
+    }
+
+    assertNotSame(statuses, cache.getStatuses());
+    assertEquals(newHead.getId(), gitAccess.submoduleCompare("modules/module", false));
+    assertEquals(initialHead, gitAccess.submoduleCompare("modules/module", true));
+
+    List<FileStatus> unstagedFiles = gitAccess.getUnstagedFiles();
+    assertTrue(unstagedFiles.toString(),
+        unstagedFiles.contains(new FileStatus(GitChangeType.SUBMODULE, "modules/module")));
+  }
+}
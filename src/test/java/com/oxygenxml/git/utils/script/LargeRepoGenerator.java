@@ -0,0 +1,955 @@
+package com.oxygenxml.git.utils.script;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * Generates large repositories for performance tests and benchmarks. Unlike {@link RepoGenerationScript},
+ * which replays hand written change sets, the repository is described by a few parameters:
+ * <ul>
+ * <li>the number of files and the maximum number of entries in a directory (the fan-out);</li>
+ * <li>the number of commits and the ratio of files changed by each commit;</li>
+ * <li>the number of branches and tags;</li>
+ * <li>files renamed several times (rename chains);</li>
+ * <li>large text files and binary files;</li>
+ * <li>merge commits;</li>
+ * <li>submodules;</li>
+ * <li>a bare "remote" that is behind and ahead of the local branch;</li>
+ * <li>modified and untracked files in the working copy.</li>
+ * </ul>
+ * Everything is derived from the seed, with fixed dates and authors, so the same parameters always give
+ * the same commit IDs. The objects are written directly in the object database, which is much faster
+ * than going through the working tree and the index.
+ * <br><br>
+ * The generated repositories are cached on disk, in a directory named after the parameters, and reused
+ * by the next runs:
+ * <pre>
+ * LargeRepoGenerator.Fixture fixture = new LargeRepoGenerator(42)
+ *     .files(10000, 20)
+ *     .commits(500, 0.001)
+ *     .remote(10, 5)
+ *     .getOrCreate();
+ * </pre>
+ */
+public class LargeRepoGenerator {
+  /**
+   * Logger for logging.
+   */
+  private static Logger logger = Logger.getLogger(LargeRepoGenerator.class);
+  /**
+   * Changes whenever the generated content changes, to invalidate the cached fixtures.
+   */
+  private static final int GENERATOR_VERSION = 1;
+  /**
+   * The default directory in which the fixtures are cached.
+   */
+  public static final File DEFAULT_CACHE_DIR = new File("target/test-resources/fixtures");
+  /**
+   * The name of the file written after a fixture is completely generated.
+   */
+  private static final String COMPLETE_MARKER = "fixture.properties";
+  /**
+   * The date of the first commit.
+   */
+  private static final long START_TIME = 1577836800000L;
+  /**
+   * Words used to generate the content of the files.
+   */
+  private static final String[] WORDS = {
+      "topic", "section", "title", "para", "list", "item", "table", "row", "entry", "image",
+      "link", "note", "step", "task", "concept", "reference", "map", "keyword", "phrase", "term"};
+
+  /**
+   * The seed from which everything is derived.
+   */
+  private final long seed;
+  /**
+   * The number of files in the initial commit.
+   */
+  private int fileCount = 1000;
+  /**
+   * The maximum number of entries in a directory.
+   */
+  private int fanOut = 20;
+  /**
+   * The number of commits on the main branch, after the initial one.
+   */
+  private int commitCount = 100;
+  /**
+   * The ratio of files changed by each commit. At least one file is changed.
+   */
+  private double changeRatio = 0.001;
+  /**
+   * The number of branches, besides the main one.
+   */
+  private int branchCount;
+  /**
+   * The number of tags.
+   */
+  private int tagCount;
+  /**
+   * The number of files that are renamed several times.
+   */
+  private int renameChains;
+  /**
+   * How many times each of them is renamed.
+   */
+  private int renameChainLength;
+  /**
+   * The number of large text files.
+   */
+  private int largeFileCount;
+  /**
+   * The size of a large text file, in bytes.
+   */
+  private int largeFileSize;
+  /**
+   * The number of binary files.
+   */
+  private int binaryFileCount;
+  /**
+   * The size of a binary file, in bytes.
+   */
+  private int binaryFileSize;
+  /**
+   * A merge commit is created after this many commits. 0 for a linear history.
+   */
+  private int mergeInterval;
+  /**
+   * The number of submodules.
+   */
+  private int submoduleCount;
+  /**
+   * <code>true</code> to create a bare remote.
+   */
+  private boolean withRemote;
+  /**
+   * The number of local commits that are not in the remote.
+   */
+  private int localAheadCount;
+  /**
+   * The number of remote commits that are not in the local branch.
+   */
+  private int remoteAheadCount;
+  /**
+   * The number of files modified in the working copy.
+   */
+  private int modifiedFileCount;
+  /**
+   * The number of untracked files in the working copy.
+   */
+  private int untrackedFileCount;
+
+  /**
+   * The current version of each file. The content is derived from it.
+   */
+  private int[] versions;
+  /**
+   * The current path of the files that are renamed, by file index.
+   */
+  private Map<Integer, String> renamedPaths;
+  /**
+   * The current tree of the main branch.
+   */
+  private DirNode root;
+
+  /**
+   * Constructor.
+   *
+   * @param seed The seed from which everything is derived.
+   */
+  public LargeRepoGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * @param count  The number of files in the initial commit.
+   * @param fanOut The maximum number of entries in a directory. At least 2.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator files(int count, int fanOut) {
+    this.fileCount = Math.max(1, count);
+    this.fanOut = Math.max(2, fanOut);
+    return this;
+  }
+
+  /**
+   * @param count       The number of commits on the main branch, after the initial one.
+   * @param changeRatio The ratio of files changed by each commit. At least one file is changed.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator commits(int count, double changeRatio) {
+    this.commitCount = Math.max(0, count);
+    this.changeRatio = changeRatio;
+    return this;
+  }
+
+  /**
+   * @param branches The number of branches, besides the main one.
+   * @param tags     The number of tags.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator refs(int branches, int tags) {
+    this.branchCount = branches;
+    this.tagCount = tags;
+    return this;
+  }
+
+  /**
+   * @param chains The number of files that are renamed several times.
+   * @param length How many times each of them is renamed.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator renameChains(int chains, int length) {
+    this.renameChains = chains;
+    this.renameChainLength = length;
+    return this;
+  }
+
+  /**
+   * @param count The number of large text files.
+   * @param size  The size of a large text file, in bytes.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator largeFiles(int count, int size) {
+    this.largeFileCount = count;
+    this.largeFileSize = size;
+    return this;
+  }
+
+  /**
+   * @param count The number of binary files.
+   * @param size  The size of a binary file, in bytes.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator binaryFiles(int count, int size) {
+    this.binaryFileCount = count;
+    this.binaryFileSize = size;
+    return this;
+  }
+
+  /**
+   * @param interval A merge commit is created after this many commits. 0 for a linear history.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator merges(int interval) {
+    this.mergeInterval = interval;
+    return this;
+  }
+
+  /**
+   * @param count The number of submodules.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator submodules(int count) {
+    this.submoduleCount = count;
+    return this;
+  }
+
+  /**
+   * Creates a bare remote, fetched in "refs/remotes/origin", that is tracked by the main branch.
+   *
+   * @param localAhead  The number of local commits that are not in the remote.
+   * @param remoteAhead The number of remote commits that are not in the local branch.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator remote(int localAhead, int remoteAhead) {
+    this.withRemote = true;
+    this.localAheadCount = localAhead;
+    this.remoteAheadCount = remoteAhead;
+    return this;
+  }
+
+  /**
+   * @param modified  The number of files modified in the working copy.
+   * @param untracked The number of untracked files in the working copy.
+   *
+   * @return This generator.
+   */
+  public LargeRepoGenerator workingCopyChanges(int modified, int untracked) {
+    this.modifiedFileCount = modified;
+    this.untrackedFileCount = untracked;
+    return this;
+  }
+
+  /**
+   * Gets the path of a file from the initial commit. The files that are renamed have other paths
+   * in the later commits.
+   *
+   * @param index The index of the file.
+   *
+   * @return The path, relative to the working tree.
+   */
+  public String getPath(int index) {
+    StringBuilder path = new StringBuilder();
+    long capacity = fanOut;
+    int depth = 0;
+    while (capacity < fileCount) {
+      capacity *= fanOut;
+      depth++;
+    }
+    long divisor = capacity / fanOut;
+    for (int level = depth; level > 0; level--) {
+      path.append("d").append(index / divisor % fanOut).append('/');
+      divisor /= fanOut;
+    }
+    return path.append("file").append(index).append(".xml").toString();
+  }
+
+  /**
+   * @return A description of the parameters, also used to name the cached fixture.
+   */
+  String getKey() {
+    return "version=" + GENERATOR_VERSION
+        + "\nseed=" + seed
+        + "\nfiles=" + fileCount + "," + fanOut
+        + "\ncommits=" + commitCount + "," + changeRatio
+        + "\nrefs=" + branchCount + "," + tagCount
+        + "\nrenameChains=" + renameChains + "," + renameChainLength
+        + "\nlargeFiles=" + largeFileCount + "," + largeFileSize
+        + "\nbinaryFiles=" + binaryFileCount + "," + binaryFileSize
+        + "\nmerges=" + mergeInterval
+        + "\nsubmodules=" + submoduleCount
+        + "\nremote=" + withRemote + "," + localAheadCount + "," + remoteAheadCount
+        + "\nworkingCopyChanges=" + modifiedFileCount + "," + untrackedFileCount
+        + "\n";
+  }
+
+  /**
+   * Gets the repository from {@link #DEFAULT_CACHE_DIR}, generating it if needed.
+   *
+   * @return The generated repository.
+   *
+   * @throws IOException     If it fails.
+   * @throws GitAPIException If it fails.
+   */
+  public Fixture getOrCreate() throws IOException, GitAPIException {
+    return getOrCreate(DEFAULT_CACHE_DIR);
+  }
+
+  /**
+   * Gets the repository from the cache, generating it if needed.
+   *
+   * @param cacheDir The directory in which the fixtures are cached.
+   *
+   * @return The generated repository.
+   *
+   * @throws IOException     If it fails.
+   * @throws GitAPIException If it fails.
+   */
+  public Fixture getOrCreate(File cacheDir) throws IOException, GitAPIException {
+    String key = getKey();
+    File fixtureDir = new File(cacheDir, "repo-" + hash(key));
+    synchronized (LargeRepoGenerator.class) {
+      File marker = new File(fixtureDir, COMPLETE_MARKER);
+      if (!marker.exists()) {
+        // Missing or interrupted while generating.
+        FileUtils.delete(fixtureDir, FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        long start = System.currentTimeMillis();
+        generate(fixtureDir);
+        Files.write(marker.toPath(), key.getBytes(StandardCharsets.UTF_8));
+        if (logger.isDebugEnabled()) {
+          logger.debug("Generated " + fixtureDir + " in " + (System.currentTimeMillis() - start) + " ms");
+        }
+      }
+    }
+    return new Fixture(fixtureDir);
+  }
+
+  /**
+   * Generates the repository.
+   *
+   * @param fixtureDir The directory of the fixture.
+   *
+   * @throws IOException     If it fails.
+   * @throws GitAPIException If it fails.
+   */
+  private void generate(File fixtureDir) throws IOException, GitAPIException {
+    Fixture fixture = new Fixture(fixtureDir);
+    Random random = new Random(seed);
+    versions = new int[fileCount];
+    renamedPaths = new HashMap<>();
+    root = new DirNode();
+
+    try (Git git = Git.init().setDirectory(fixture.getWorkingCopy()).call()) {
+      Repository repository = git.getRepository();
+      String mainRef = repository.getFullBranch();
+      try (ObjectInserter inserter = repository.newObjectInserter()) {
+        // The initial commit.
+        for (int i = 0; i < fileCount; i++) {
+          root.put(getPath(i), FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, content(i, 0)));
+        }
+        addLargeFiles(inserter, random);
+        addSubmodules(fixture, inserter);
+        ObjectId tip = commit(inserter, "Initial import", 0, root.write(inserter));
+
+        int[] renameSteps = new int[renameChains];
+        ObjectId remoteBase = tip;
+        List<ObjectId> mainLine = new ArrayList<>();
+        mainLine.add(tip);
+        int changesPerCommit = (int) Math.max(1, Math.round(fileCount * changeRatio));
+        for (int c = 1; c <= commitCount; c++) {
+          if (mergeInterval > 0 && c % mergeInterval == 0) {
+            tip = mergeCommit(inserter, random, tip, c, changesPerCommit, renameSteps);
+          } else {
+            StringBuilder message = new StringBuilder("Change ").append(c);
+            changeFiles(inserter, random, changesPerCommit, message);
+            renameFiles(inserter, c, renameSteps, message);
+            tip = commit(inserter, message.toString(), c, root.write(inserter), tip);
+          }
+          mainLine.add(tip);
+          if (c == commitCount - localAheadCount) {
+            remoteBase = tip;
+          }
+        }
+        inserter.flush();
+
+        updateRef(repository, mainRef, tip);
+        for (int i = 1; i <= branchCount; i++) {
+          updateRef(repository, Constants.R_HEADS + "branch" + i, mainLine.get(mainLine.size() * i / (branchCount + 1)));
+        }
+        for (int i = 1; i <= tagCount; i++) {
+          updateRef(repository, Constants.R_TAGS + "v" + i, mainLine.get(mainLine.size() * i / (tagCount + 1)));
+        }
+
+        if (withRemote) {
+          createRemote(git, fixture, mainRef, remoteBase);
+        }
+      }
+
+      git.reset().setMode(ResetType.HARD).call();
+      if (submoduleCount > 0) {
+        git.submoduleInit().call();
+        git.submoduleUpdate().call();
+      }
+      changeWorkingCopy(fixture, random);
+    }
+  }
+
+  /**
+   * Changes random files.
+   *
+   * @param inserter Inserts the objects.
+   * @param random   Random generator.
+   * @param count    The number of files to change.
+   * @param message  Receives the changed paths, for the commit message.
+   *
+   * @throws IOException If it fails.
+   */
+  private void changeFiles(ObjectInserter inserter, Random random, int count, StringBuilder message) throws IOException {
+    for (int i = 0; i < count; i++) {
+      int index = random.nextInt(fileCount);
+      versions[index]++;
+      String path = renamedPaths.getOrDefault(index, getPath(index));
+      root.put(path, FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, content(index, versions[index])));
+      if (i < 3) {
+        message.append(i == 0 ? " in " : ", ").append(path);
+      }
+    }
+  }
+
+  /**
+   * Renames the files of the rename chains, spreading the renames evenly through the history.
+   *
+   * @param inserter    Inserts the objects.
+   * @param commit      The number of the current commit.
+   * @param renameSteps How many times each file was renamed.
+   * @param message     Receives the renames, for the commit message.
+   *
+   * @throws IOException If it fails.
+   */
+  private void renameFiles(ObjectInserter inserter, int commit, int[] renameSteps, StringBuilder message) throws IOException {
+    if (renameChainLength > 0 && commitCount > 0) {
+      int interval = Math.max(1, commitCount / (renameChainLength + 1));
+      for (int chain = 0; chain < renameChains && chain < fileCount; chain++) {
+        if ((commit + chain) % interval == 0 && renameSteps[chain] < renameChainLength) {
+          renameSteps[chain]++;
+          String oldPath = renamedPaths.getOrDefault(chain, getPath(chain));
+          String newPath = "renamed/chain" + chain + "/step" + renameSteps[chain] + "/file" + chain + ".xml";
+          root.remove(oldPath);
+          root.put(newPath, FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, content(chain, versions[chain])));
+          renamedPaths.put(chain, newPath);
+          message.append(", renamed ").append(oldPath).append(" to ").append(newPath);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a commit on a side branch, a commit on the main branch and a merge commit.
+   *
+   * @param inserter Inserts the objects.
+   * @param random   Random generator.
+   * @param tip      The tip of the main branch.
+   * @param commit   The number of the current commit.
+   * @param count    The number of files to change on each branch.
+   * @param renameSteps How many times each file of the rename chains was renamed.
+   *
+   * @return The merge commit.
+   *
+   * @throws IOException If it fails.
+   */
+  private ObjectId mergeCommit(ObjectInserter inserter, Random random, ObjectId tip, int commit, int count,
+      int[] renameSteps) throws IOException {
+    // Side branch.
+    Map<String, ObjectId> previous = new HashMap<>();
+    Map<Integer, ObjectId> sideChanges = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      int index = random.nextInt(fileCount);
+      String path = renamedPaths.getOrDefault(index, getPath(index));
+      previous.putIfAbsent(path, root.get(path));
+      versions[index]++;
+      ObjectId blob = inserter.insert(Constants.OBJ_BLOB, content(index, versions[index]));
+      sideChanges.put(index, blob);
+      root.put(path, FileMode.REGULAR_FILE, blob);
+    }
+    ObjectId side = commit(inserter, "Side change " + commit, commit, root.write(inserter), tip);
+
+    // Main branch, without the side changes.
+    previous.forEach((path, blob) -> root.put(path, FileMode.REGULAR_FILE, blob));
+    StringBuilder message = new StringBuilder("Change ").append(commit);
+    changeFiles(inserter, random, count, message);
+    renameFiles(inserter, commit, renameSteps, message);
+    ObjectId main = commit(inserter, message.toString(), commit, root.write(inserter), tip);
+
+    // The merge. The side changes win, at the current paths of the files.
+    sideChanges.forEach((index, blob) -> root.put(renamedPaths.getOrDefault(index, getPath(index)), FileMode.REGULAR_FILE, blob));
+    return commit(inserter, "Merge side change " + commit, commit, root.write(inserter), main, side);
+  }
+
+  /**
+   * Adds the large text files and the binary files.
+   *
+   * @param inserter Inserts the objects.
+   * @param random   Random generator.
+   *
+   * @throws IOException If it fails.
+   */
+  private void addLargeFiles(ObjectInserter inserter, Random random) throws IOException {
+    for (int i = 0; i < largeFileCount; i++) {
+      StringBuilder text = new StringBuilder(largeFileSize + 100);
+      while (text.length() < largeFileSize) {
+        text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(10) == 0 ? '\n' : ' ');
+      }
+      root.put("large/large" + i + ".txt", FileMode.REGULAR_FILE,
+          inserter.insert(Constants.OBJ_BLOB, text.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+    for (int i = 0; i < binaryFileCount; i++) {
+      byte[] bytes = new byte[binaryFileSize];
+      random.nextBytes(bytes);
+      root.put("binary/blob" + i + ".bin", FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, bytes));
+    }
+  }
+
+  /**
+   * Creates the repositories of the submodules and adds them to the tree.
+   *
+   * @param fixture  The fixture.
+   * @param inserter Inserts the objects.
+   *
+   * @throws IOException     If it fails.
+   * @throws GitAPIException If it fails.
+   */
+  private void addSubmodules(Fixture fixture, ObjectInserter inserter) throws IOException, GitAPIException {
+    StringBuilder gitmodules = new StringBuilder();
+    for (int i = 0; i < submoduleCount; i++) {
+      String name = "sub" + i;
+      File subDir = new File(fixture.getDir(), "submodules/" + name + ".git");
+      ObjectId subHead;
+      try (Git sub = Git.init().setBare(true).setDirectory(subDir).call();
+          ObjectInserter subInserter = sub.getRepository().newObjectInserter()) {
+        DirNode subRoot = new DirNode();
+        subHead = null;
+        for (int c = 0; c < 2; c++) {
+          for (int f = 0; f < 3; f++) {
+            subRoot.put("file" + f + ".xml", FileMode.REGULAR_FILE,
+                subInserter.insert(Constants.OBJ_BLOB, content(-1 - i * 10 - f, c)));
+          }
+          ObjectId tree = subRoot.write(subInserter);
+          subHead = subHead == null
+              ? commit(subInserter, "Submodule " + name + " commit " + c, c, tree)
+              : commit(subInserter, "Submodule " + name + " commit " + c, c, tree, subHead);
+        }
+        subInserter.flush();
+        updateRef(sub.getRepository(), Constants.R_HEADS + Constants.MASTER, subHead);
+        RefUpdate head = sub.getRepository().updateRef(Constants.HEAD);
+        head.link(Constants.R_HEADS + Constants.MASTER);
+      }
+
+      String path = "modules/" + name;
+      root.put(path, FileMode.GITLINK, subHead);
+      // Relative to the remote of the superproject or, if missing, to its working tree.
+      gitmodules.append("[submodule \"").append(path).append("\"]\n")
+          .append("\tpath = ").append(path).append('\n')
+          .append("\turl = ../submodules/").append(name).append(".git\n");
+    }
+    if (submoduleCount > 0) {
+      root.put(Constants.DOT_GIT_MODULES, FileMode.REGULAR_FILE,
+          inserter.insert(Constants.OBJ_BLOB, gitmodules.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  /**
+   * Creates the bare remote, makes the main branch track it and fetches it.
+   *
+   * @param git        The generated repository.
+   * @param fixture    The fixture.
+   * @param mainRef    The main branch.
+   * @param remoteBase The last local commit that is in the remote.
+   *
+   * @throws IOException     If it fails.
+   * @throws GitAPIException If it fails.
+   */
+  private void createRemote(Git git, Fixture fixture, String mainRef, ObjectId remoteBase) throws IOException, GitAPIException {
+    File remoteDir = fixture.getRemote();
+    Git.init().setBare(true).setDirectory(remoteDir).call().close();
+    git.push()
+        .setRemote(remoteDir.toURI().toString())
+        .setRefSpecs(new RefSpec("refs/heads/*:refs/heads/*"), new RefSpec("refs/tags/*:refs/tags/*"))
+        .call();
+
+    try (Git remote = Git.open(remoteDir);
+        ObjectInserter inserter = remote.getRepository().newObjectInserter();
+        RevWalk revWalk = new RevWalk(remote.getRepository())) {
+      ObjectId tree = revWalk.parseCommit(remoteBase).getTree();
+      ObjectId tip = remoteBase;
+      for (int i = 1; i <= remoteAheadCount; i++) {
+        tip = commit(inserter, "Remote change " + i, commitCount + i, tree, tip);
+      }
+      inserter.flush();
+      updateRef(remote.getRepository(), mainRef, tip);
+    }
+
+    String branch = Repository.shortenRefName(mainRef);
+    StoredConfig config = git.getRepository().getConfig();
+    config.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME,
+        ConfigConstants.CONFIG_KEY_URL, remoteDir.getAbsolutePath());
+    config.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME,
+        "fetch", "+refs/heads/*:refs/remotes/origin/*");
+    config.setString(ConfigConstants.CONFIG_BRANCH_SECTION, branch,
+        ConfigConstants.CONFIG_KEY_REMOTE, Constants.DEFAULT_REMOTE_NAME);
+    config.setString(ConfigConstants.CONFIG_BRANCH_SECTION, branch,
+        ConfigConstants.CONFIG_KEY_MERGE, mainRef);
+    config.save();
+
+    git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+  }
+
+  /**
+   * Modifies files in the working copy and adds untracked ones.
+   *
+   * @param fixture The fixture.
+   * @param random  Random generator.
+   *
+   * @throws IOException If it fails.
+   */
+  private void changeWorkingCopy(Fixture fixture, Random random) throws IOException {
+    for (int i = 0; i < modifiedFileCount; i++) {
+      int index = random.nextInt(fileCount);
+      File file = new File(fixture.getWorkingCopy(), renamedPaths.getOrDefault(index, getPath(index)));
+      Files.write(file.toPath(), content(index, versions[index] + 1 + i));
+    }
+    for (int i = 0; i < untrackedFileCount; i++) {
+      File file = new File(fixture.getWorkingCopy(), "untracked/new" + i + ".xml");
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), content(fileCount + i, 0));
+    }
+  }
+
+  /**
+   * Generates the content of a file. Two versions of the same file differ in a few lines.
+   *
+   * @param index   The index of the file.
+   * @param version The version of the file.
+   *
+   * @return The content.
+   */
+  private byte[] content(int index, int version) {
+    Random random = new Random(seed * 31 + index);
+    int lines = 5 + random.nextInt(20);
+    StringBuilder text = new StringBuilder("<topic id=\"t").append(index).append("\">\n");
+    for (int line = 0; line < lines; line++) {
+      if (version > 0 && line == version % lines) {
+        text.append("  <p rev=\"").append(version).append("\"/>\n");
+      } else {
+        text.append("  <p>");
+        int words = 3 + random.nextInt(10);
+        for (int w = 0; w < words; w++) {
+          text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        text.append("</p>\n");
+      }
+    }
+    return text.append("</topic>\n").toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Creates a commit, with a fixed date.
+   *
+   * @param inserter Inserts the objects.
+   * @param message  The commit message.
+   * @param number   The number of the commit, used to compute its date and author.
+   * @param tree     The tree.
+   * @param parents  The parents.
+   *
+   * @return The commit.
+   *
+   * @throws IOException If it fails.
+   */
+  private static ObjectId commit(ObjectInserter inserter, String message, int number, ObjectId tree, ObjectId... parents) throws IOException {
+    int author = number % 7;
+    PersonIdent ident = new PersonIdent(
+        "Author " + author, "author" + author + "@example.com", START_TIME + number * 3600000L, 0);
+    CommitBuilder commit = new CommitBuilder();
+    commit.setTreeId(tree);
+    commit.setParentIds(parents);
+    commit.setAuthor(ident);
+    commit.setCommitter(ident);
+    commit.setMessage(message);
+    return inserter.insert(commit);
+  }
+
+  /**
+   * Creates or moves a reference.
+   *
+   * @param repository The repository.
+   * @param name       The full name of the reference.
+   * @param id         The target.
+   *
+   * @throws IOException If it fails.
+   */
+  private static void updateRef(Repository repository, String name, ObjectId id) throws IOException {
+    RefUpdate update = repository.updateRef(name);
+    update.setNewObjectId(id);
+    update.setForceUpdate(true);
+    RefUpdate.Result result = update.update();
+    if (result == RefUpdate.Result.LOCK_FAILURE || result == RefUpdate.Result.IO_FAILURE
+        || result == RefUpdate.Result.REJECTED) {
+      throw new IOException("Unable to update " + name + ": " + result);
+    }
+  }
+
+  /**
+   * @param key A text.
+   *
+   * @return A short hash of the text.
+   */
+  private static String hash(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+      return ObjectId.fromRaw(digest).abbreviate(12).name();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * A generated repository.
+   */
+  public static class Fixture {
+    /**
+     * The directory of the fixture.
+     */
+    private final File dir;
+
+    /**
+     * Constructor.
+     *
+     * @param dir The directory of the fixture.
+     */
+    Fixture(File dir) {
+      this.dir = dir;
+    }
+
+    /**
+     * @return The directory that contains the working copy, the remote and the submodule repositories.
+     */
+    public File getDir() {
+      return dir;
+    }
+
+    /**
+     * @return The working tree of the generated repository.
+     */
+    public File getWorkingCopy() {
+      return new File(dir, "wc");
+    }
+
+    /**
+     * @return The bare remote. Exists only if the generator was asked for one.
+     */
+    public File getRemote() {
+      return new File(dir, "remote.git");
+    }
+  }
+
+  /**
+   * A directory of the tree under construction. Keeps the ID of its tree until one of its descendants
+   * changes, so that a commit writes only the directories on the paths of the changed files.
+   */
+  private static class DirNode {
+    /**
+     * The sub-directories, by name.
+     */
+    private final Map<String, DirNode> dirs = new HashMap<>();
+    /**
+     * The files, by name.
+     */
+    private final Map<String, FileEntry> files = new HashMap<>();
+    /**
+     * The ID of the tree. <code>null</code> if it must be written again.
+     */
+    private ObjectId treeId;
+
+    /**
+     * Adds or replaces a file.
+     *
+     * @param path The path of the file, relative to this directory.
+     * @param mode The mode.
+     * @param id   The ID of the blob or of the submodule commit.
+     */
+    void put(String path, FileMode mode, ObjectId id) {
+      treeId = null;
+      int slash = path.indexOf('/');
+      if (slash == -1) {
+        files.put(path, new FileEntry(mode, id));
+      } else {
+        dirs.computeIfAbsent(path.substring(0, slash), k -> new DirNode()).put(path.substring(slash + 1), mode, id);
+      }
+    }
+
+    /**
+     * Gets a file.
+     *
+     * @param path The path of the file, relative to this directory.
+     *
+     * @return The ID of the file or <code>null</code>.
+     */
+    ObjectId get(String path) {
+      int slash = path.indexOf('/');
+      if (slash == -1) {
+        FileEntry entry = files.get(path);
+        return entry != null ? entry.id : null;
+      }
+      DirNode dir = dirs.get(path.substring(0, slash));
+      return dir != null ? dir.get(path.substring(slash + 1)) : null;
+    }
+
+    /**
+     * Removes a file. The directories that become empty are removed too.
+     *
+     * @param path The path of the file, relative to this directory.
+     */
+    void remove(String path) {
+      treeId = null;
+      int slash = path.indexOf('/');
+      if (slash == -1) {
+        files.remove(path);
+      } else {
+        String name = path.substring(0, slash);
+        DirNode dir = dirs.get(name);
+        if (dir != null) {
+          dir.remove(path.substring(slash + 1));
+          if (dir.dirs.isEmpty() && dir.files.isEmpty()) {
+            dirs.remove(name);
+          }
+        }
+      }
+    }
+
+    /**
+     * Writes the tree of this directory and of its changed descendants.
+     *
+     * @param inserter Inserts the objects.
+     *
+     * @return The ID of the tree.
+     *
+     * @throws IOException If it fails.
+     */
+    ObjectId write(ObjectInserter inserter) throws IOException {
+      if (treeId == null) {
+        // Git order: the directories are sorted as if their names ended with "/".
+        Map<String, Object> entries = new TreeMap<>();
+        files.forEach(entries::put);
+        dirs.forEach((name, dir) -> entries.put(name + "/", dir));
+
+        TreeFormatter formatter = new TreeFormatter();
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+          if (entry.getValue() instanceof DirNode) {
+            String name = entry.getKey();
+            formatter.append(name.substring(0, name.length() - 1), FileMode.TREE,
+                ((DirNode) entry.getValue()).write(inserter));
+          } else {
+            FileEntry file = (FileEntry) entry.getValue();
+            formatter.append(entry.getKey(), file.mode, file.id);
+          }
+        }
+        treeId = inserter.insert(formatter);
+      }
+      return treeId;
+    }
+  }
+
+  /**
+   * A file in a {@link DirNode}.
+   */
+  private static class FileEntry {
+    /**
+     * The mode.
+     */
+    private final FileMode mode;
+    /**
+     * The ID of the blob or of the submodule commit.
+     */
+    private final ObjectId id;
+
+    /**
+     * Constructor.
+     *
+     * @param mode The mode.
+     * @param id   The ID of the blob or of the submodule commit.
+     */
+    FileEntry(FileMode mode, ObjectId id) {
+      this.mode = mode;
+      this.id = id;
+    }
+  }
+}
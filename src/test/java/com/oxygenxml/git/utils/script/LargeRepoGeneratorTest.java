@@ -0,0 +1,130 @@
+package com.oxygenxml.git.utils.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ListBranchCommand.ListMode;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.BranchTrackingStatus;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.util.FileUtils;
+import org.junit.Test;
+
+/**
+ * Tests for the generator of large repositories.
+ */
+public class LargeRepoGeneratorTest {
+
+  private static final File CACHE_DIR = new File("target/test-resources/LargeRepoGeneratorTest");
+
+  /**
+   * @param seed The seed.
+   *
+   * @return A generator that uses all the features.
+   */
+  private static LargeRepoGenerator createGenerator(long seed) {
+    return new LargeRepoGenerator(seed)
+        .files(300, 8)
+        .commits(40, 0.01)
+        .refs(3, 2)
+        .renameChains(2, 2)
+        .largeFiles(1, 100000)
+        .binaryFiles(1, 4096)
+        .merges(10)
+        .submodules(1)
+        .remote(5, 3)
+        .workingCopyChanges(4, 2);
+  }
+
+  /**
+   * <p><b>Description:</b> the generated repository has the requested history, references,
+   * remote and working copy changes.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testGenerate() throws Exception {
+    FileUtils.delete(CACHE_DIR, FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+    LargeRepoGenerator.Fixture fixture = createGenerator(1).getOrCreate(CACHE_DIR);
+
+    try (Git git = Git.open(fixture.getWorkingCopy())) {
+      Repository repository = git.getRepository();
+      int commits = 0;
+      int merges = 0;
+      for (RevCommit commit : git.log().call()) {
+        commits++;
+        if (commit.getParentCount() > 1) {
+          merges++;
+        }
+      }
+      // The initial commit, 40 commits on the main line and, for each of the 4 merges,
+      // a side commit and the merge commit.
+      assertEquals(49, commits);
+      assertEquals(4, merges);
+
+      assertEquals(2, git.tagList().call().size());
+      // The main branch and 3 others.
+      assertEquals(4, git.branchList().call().size());
+      assertEquals(4, git.branchList().setListMode(ListMode.REMOTE).call().size());
+
+      BranchTrackingStatus trackingStatus = BranchTrackingStatus.of(repository, repository.getBranch());
+      // 5 commits, plus the side commit and the merge commit of the last merge.
+      assertEquals(7, trackingStatus.getAheadCount());
+      assertEquals(3, trackingStatus.getBehindCount());
+
+      Status status = git.status().call();
+      assertEquals(4, status.getModified().size());
+      assertEquals(2, status.getUntracked().size());
+      assertTrue(status.getAdded().isEmpty());
+      assertTrue(status.getMissing().isEmpty());
+
+      assertEquals(1, git.submoduleStatus().call().size());
+      assertTrue(new File(fixture.getWorkingCopy(), "modules/sub0/file0.xml").exists());
+      assertTrue(new File(fixture.getWorkingCopy(), "renamed/chain1/step2/file1.xml").exists());
+      assertEquals(100000, new File(fixture.getWorkingCopy(), "large/large0.txt").length(), 100);
+      assertEquals(4096, new File(fixture.getWorkingCopy(), "binary/blob0.bin").length());
+    }
+  }
+
+  /**
+   * <p><b>Description:</b> the same seed gives the same repository, and the fixture is generated only once.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testReproducibleAndCached() throws Exception {
+    FileUtils.delete(CACHE_DIR, FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+    LargeRepoGenerator.Fixture fixture = createGenerator(7).getOrCreate(new File(CACHE_DIR, "first"));
+    LargeRepoGenerator.Fixture sameSeed = createGenerator(7).getOrCreate(new File(CACHE_DIR, "second"));
+    LargeRepoGenerator.Fixture otherSeed = createGenerator(8).getOrCreate(new File(CACHE_DIR, "second"));
+
+    String head = resolveHead(fixture);
+    assertEquals(head, resolveHead(sameSeed));
+    assertTrue(!head.equals(resolveHead(otherSeed)));
+
+    File marker = new File(fixture.getWorkingCopy(), "untracked/new0.xml");
+    assertTrue(marker.delete());
+    assertEquals(fixture.getDir(), createGenerator(7).getOrCreate(new File(CACHE_DIR, "first")).getDir());
+    // Reused, not generated again.
+    assertTrue(!marker.exists());
+  }
+
+  /**
+   * @param fixture A generated repository.
+   *
+   * @return The ID of its HEAD commit.
+   *
+   * @throws Exception If it fails.
+   */
+  private static String resolveHead(LargeRepoGenerator.Fixture fixture) throws Exception {
+    try (Git git = Git.open(fixture.getWorkingCopy())) {
+      return git.getRepository().resolve("HEAD").name();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.oxygenxml.git.view.blame;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+
+/**
+ * Tests for the line ranges that keep the blame of a file.
+ */
+public class BlameLineIndexTest {
+
+  /**
+   * <p><b>Description:</b> the commits of the lines are the ones added in batches, in any order,
+   * and they move with the lines added and removed.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   */
+  @Test
+  public void testLines() {
+    Random random = new Random(23);
+    RevCommit[] commits = new RevCommit[10];
+    for (int i = 0; i < commits.length; i++) {
+      commits[i] = new RevCommit(ObjectId.fromString(String.format("%040x", i + 1))) {};
+    }
+
+    // Regions of up to 5 lines.
+    List<BlameLineIndex.Region> regions = new ArrayList<>();
+    List<RevCommit> expected = new ArrayList<>();
+    int line = 0;
+    while (line < 1000) {
+      int end = line + 1 + random.nextInt(5);
+      RevCommit commit = random.nextInt(10) == 0 ? null : commits[random.nextInt(commits.length)];
+      if (commit != null) {
+        regions.add(new BlameLineIndex.Region(line, end, commit));
+      }
+      for (int i = line; i < end; i++) {
+        expected.add(commit);
+      }
+      line = end;
+    }
+    Collections.shuffle(regions, random);
+
+    BlameLineIndex index = new BlameLineIndex();
+    for (int i = 0; i < regions.size(); i += 50) {
+      index.add(new ArrayList<>(regions.subList(i, Math.min(regions.size(), i + 50))));
+    }
+    assertLines(expected, index);
+    assertTrue(index.getRangeCount() < regions.size());
+
+    for (int i = 0; i < 100; i++) {
+      int at = random.nextInt(expected.size());
+      int count = 1 + random.nextInt(4);
+      if (random.nextBoolean()) {
+        index.insertLines(at, count);
+        for (int j = 0; j < count; j++) {
+          expected.add(at, null);
+        }
+      } else {
+        count = Math.min(count, expected.size() - at);
+        index.removeLines(at, count);
+        expected.subList(at, at + count).clear();
+      }
+      assertLines(expected, index);
+    }
+  }
+
+  /**
+   * Checks the commit of each line.
+   *
+   * @param expected The expected commits.
+   * @param index    The line ranges.
+   */
+  private static void assertLines(List<RevCommit> expected, BlameLineIndex index) {
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals("Line " + i, expected.get(i), index.getCommit(i));
+      assertEquals(expected.get(i) != null ? index.indexOfCommit(expected.get(i)) : -1, index.getCommitIndex(i));
+    }
+    assertEquals(-1, index.getCommitIndex(expected.size()));
+  }
+}
@@ -0,0 +1,116 @@
+package com.oxygenxml.git.view.historycomponents;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.view.history.CommitCharacteristics;
+import com.oxygenxml.git.view.history.HistoryFilter;
+
+/**
+ * Tests for filtering the history with the inverted index.
+ */
+public class HistoryFilterTest {
+
+  /**
+   * Words used to generate the commit messages.
+   */
+  private static final String[] WORDS = {
+      "Fix", "fixed", "rename", "Renamed", "file", "file1.xml", "file12.xml", "update", "merge",
+      "branch", "main", "feature-x", "docs!", "a,b", "refactor", "test"};
+  /**
+   * Authors of the commits.
+   */
+  private static final String[] AUTHORS = {
+      "Alex <alex_jitianu@sync.ro>", "Bob <bob@example.com>", "Ana Maria <ana.maria@example.com>"};
+
+  /**
+   * <p><b>Description:</b> the commits matched by the index are the ones that contain each token of the
+   * filter text, while the text is typed, erased and extended again, and while new commits are loaded.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   */
+  @Test
+  public void testFilterAsTyped() {
+    Random random = new Random(19);
+    List<CommitCharacteristics> commits = new ArrayList<>();
+    addCommits(commits, 300, random);
+    HistoryFilter filter = new HistoryFilter(commits);
+
+    String[] texts = {
+        "f", "fi", "fil", "file", "file1", "file12", "file1", "FILE", "fix re", "fix ren", "fix rename",
+        "alex", "alex rename", "ALEX@SYNC", "bob ma", "ana.maria", "feature-x", "docs!", "a,b",
+        "nothing", "1970", "Thu", "thu",
+        commits.get(7).getCommitId().substring(0, 3),
+        commits.get(7).getCommitId().substring(0, 7),
+        commits.get(7).getCommitId(),
+        "-", " ", ""};
+
+    for (String text : texts) {
+      assertEquals(text, filterByScanning(commits, text), filter.filter(text));
+    }
+
+    // More commits loaded.
+    addCommits(commits, 100, random);
+    for (String text : new String[] {"file1", "file12", "merge", "merge main", "m"}) {
+      assertEquals(text, filterByScanning(commits, text), filter.filter(text));
+    }
+  }
+
+  /**
+   * Adds random commits.
+   *
+   * @param commits The commits.
+   * @param count   How many commits to add.
+   * @param random  Random generator.
+   */
+  private static void addCommits(List<CommitCharacteristics> commits, int count, Random random) {
+    for (int i = 0; i < count; i++) {
+      StringBuilder message = new StringBuilder();
+      int words = 1 + random.nextInt(6);
+      for (int j = 0; j < words; j++) {
+        message.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(5) == 0 ? "\n\n" : " ");
+      }
+      StringBuilder id = new StringBuilder();
+      for (int j = 0; j < 40; j++) {
+        id.append(Character.forDigit(random.nextInt(16), 16));
+      }
+      commits.add(new CommitCharacteristics(
+          message.toString().trim(),
+          new Date(random.nextInt(1000) * 86_400_000L),
+          AUTHORS[random.nextInt(AUTHORS.length)],
+          id.substring(0, 7),
+          id.toString(),
+          "Committer",
+          null));
+    }
+  }
+
+  /**
+   * Filters the commits by checking each of them.
+   *
+   * @param commits The commits.
+   * @param text    The filter text.
+   *
+   * @return The commits that contain each token of the filter text.
+   */
+  private static List<CommitCharacteristics> filterByScanning(List<CommitCharacteristics> commits, String text) {
+    List<String> tokens = Arrays.stream(text.split("[, .!-]+"))
+        .map(String::trim)
+        .filter(t -> !t.isEmpty())
+        .collect(Collectors.toList());
+    return commits.stream().filter(commit -> tokens.stream().allMatch(token -> {
+      String lowerCaseToken = token.toLowerCase();
+      return commit.getAuthor().toLowerCase().contains(lowerCaseToken)
+          || commit.getDate().toString().contains(token)
+          || commit.getCommitMessage().toLowerCase().contains(lowerCaseToken)
+          || commit.getCommitId().startsWith(lowerCaseToken);
+    })).collect(Collectors.toList());
+  }
+}
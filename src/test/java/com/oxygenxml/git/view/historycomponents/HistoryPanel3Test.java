@@ -8,6 +8,7 @@ import java.util.List;
 import javax.swing.JTable;
 
 import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.transport.RemoteConfig;
@@ -15,6 +16,7 @@ import org.eclipse.jgit.transport.URIish;
 import org.junit.Test;
 
 import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.PagedCommitList;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.GitChangeType;
 import com.oxygenxml.git.utils.script.RepoGenerationScript;
@@ -54,6 +56,12 @@ public class HistoryPanel3Test extends HistoryPanelTestBase {
         super.refresh();
         noOfRefreshes++;
       }
+      
+      @Override
+      protected void updateHistory(boolean refsChanged) {
+        super.updateHistory(refsChanged);
+        noOfRefreshes++;
+      }
     };
   }
 
@@ -176,4 +184,44 @@ public class HistoryPanel3Test extends HistoryPanelTestBase {
     }
   }
   
+  /**
+   * <p><b>Description:</b> the history continues to load in pages after a refresh in which only 
+   * the branches changed.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testPagesAfterBranchCreated() throws Exception {
+    Repository repository = createRepository("target/test-resources/HistoryPanel3Test/testPagesAfterBranchCreated");
+    int commitCount = PagedCommitList.PAGE_SIZE + 20;
+    try (Git git = Git.wrap(repository)) {
+      for (int i = 0; i < commitCount; i++) {
+        git.commit().setMessage("Commit " + i).call();
+      }
+    }
+
+    historyPanel.showRepositoryHistory();
+    waitForScheduler();
+    flushAWT();
+    JTable historyTable = historyPanel.getHistoryTable();
+    HistoryCommitTableModel model = (HistoryCommitTableModel) historyTable.getModel();
+    // Only the first page.
+    assertEquals(PagedCommitList.PAGE_SIZE, model.getRowCount());
+
+    // Only the refs change, so the loaded commits are presented again.
+    GitAccess.getInstance().createBranch("new_branch");
+    waitForScheduler();
+    flushAWT();
+    model = (HistoryCommitTableModel) historyTable.getModel();
+    assertEquals(PagedCommitList.PAGE_SIZE, model.getRowCount());
+
+    // Close to the last loaded commit, so the next page is loaded.
+    model.getValueAt(model.getRowCount() - 1, 0);
+    waitForScheduler();
+    flushAWT();
+    assertEquals(commitCount, model.getRowCount());
+    assertEquals("Commit 0", model.getAllCommits().get(commitCount - 1).getCommitMessage());
+  }
+  
 }
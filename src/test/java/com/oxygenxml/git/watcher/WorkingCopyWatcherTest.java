@@ -0,0 +1,134 @@
+package com.oxygenxml.git.watcher;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitTestBase;
+import com.oxygenxml.git.utils.GitRefreshSupport;
+import com.oxygenxml.git.view.event.GitController;
+
+/**
+ * Tests for the working copy watcher.
+ */
+public class WorkingCopyWatcherTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/WorkingCopyWatcherTest";
+
+  /**
+   * Collects the reported paths.
+   */
+  private final Set<String> reportedPaths = new HashSet<>();
+
+  /**
+   * <code>true</code> if a full refresh was requested.
+   */
+  private volatile boolean fullRefreshRequested;
+
+  /**
+   * Receives the changes from the watcher.
+   */
+  private final GitRefreshSupport recordingRefreshSupport = new GitRefreshSupport() {
+    @Override
+    public void call() {
+      fullRefreshRequested = true;
+    }
+    @Override
+    public void workingCopyChanged(Set<String> paths) {
+      synchronized (reportedPaths) {
+        reportedPaths.addAll(paths);
+      }
+    }
+  };
+
+  /**
+   * The watcher under test.
+   */
+  private WorkingCopyWatcher watcher;
+
+  @Override
+  @After
+  public void tearDown() throws Exception {
+    if (watcher != null) {
+      watcher.stop();
+    }
+    super.tearDown();
+  }
+
+  /**
+   * <p><b>Description:</b> changes made in the working copy are reported, including the ones
+   * in newly created folders. The ignored folders are not watched.</p>
+   * <p><b>Bug ID:</b> N/A</p>
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testChangesReported() throws Exception {
+    createRepository(LOCAL_TEST_REPOSITORY);
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, ".gitignore"), "build/");
+    new File(LOCAL_TEST_REPOSITORY, "build").mkdirs();
+    new File(LOCAL_TEST_REPOSITORY, "src").mkdirs();
+    commitOneFile(LOCAL_TEST_REPOSITORY, "src/a.txt", "a");
+
+    watcher = WorkingCopyWatcher.createWatcher(new GitController(GitAccess.getInstance()), recordingRefreshSupport);
+    // Registered in background.
+    assertTrue(waitForWatching());
+
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "build/out.txt"), "ignored");
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "src/a.txt"), "a changed");
+    assertTrue(waitForPath("src/a.txt"));
+
+    new File(LOCAL_TEST_REPOSITORY, "src/sub").mkdirs();
+    assertTrue(waitForPath("src/sub"));
+    setFileContent(new File(LOCAL_TEST_REPOSITORY, "src/sub/b.txt"), "b");
+    assertTrue(waitForPath("src/sub/b.txt"));
+
+    synchronized (reportedPaths) {
+      assertFalse(reportedPaths.toString(), reportedPaths.contains("build/out.txt"));
+    }
+    assertFalse(fullRefreshRequested);
+
+    watcher.stop();
+    assertFalse(watcher.isWatching());
+  }
+
+  /**
+   * Waits for the watcher to register the directories of the working copy.
+   *
+   * @return <code>true</code> if the working copy is watched.
+   *
+   * @throws InterruptedException If interrupted.
+   */
+  private boolean waitForWatching() throws InterruptedException {
+    for (int i = 0; i < 100 && !watcher.isWatching(); i++) {
+      Thread.sleep(50);
+    }
+    return watcher.isWatching();
+  }
+
+  /**
+   * Waits for a path to be reported.
+   *
+   * @param path The path, relative to the working copy.
+   *
+   * @return <code>true</code> if the path was reported.
+   *
+   * @throws InterruptedException If interrupted.
+   */
+  private boolean waitForPath(String path) throws InterruptedException {
+    // The polling watch services can take a while to detect the changes.
+    for (int i = 0; i < 100; i++) {
+      synchronized (reportedPaths) {
+        if (reportedPaths.contains(path)) {
+          return true;
+        }
+      }
+      Thread.sleep(200);
+    }
+    return false;
+  }
+}